@@ -23,6 +23,7 @@ function runDailyJob() {
     if (result && result.holdings && result.holdings.length > 0) {
       saveDailySnapshot(result.holdings, result.date);
       log('成功儲存 ' + result.holdings.length + ' 筆持倉資料 (日期: ' + (result.date || 'Today') + ')');
+      pushDailySnapshot(result.holdings, result.date);
     } else {
       log('錯誤: 未抓取到任何持倉資料', 'ERROR');
     }
@@ -356,6 +357,46 @@ function saveDailySnapshot(holdings, dateStr) {
   }
 }
 
+/**
+ * 推送單日持倉至 Java 應用程式 (POST /api/holdings/ingest)
+ * 需在指令碼屬性設定 INGEST_URL 與 INGEST_TOKEN，未設定時略過
+ */
+function pushDailySnapshot(holdings, dateStr) {
+  var props = PropertiesService.getScriptProperties();
+  var url = props.getProperty('INGEST_URL');
+  var token = props.getProperty('INGEST_TOKEN');
+  if (!url || !token) return;
+
+  var formattedDate = (dateStr || Utilities.formatDate(new Date(), Session.getScriptTimeZone(), 'yyyy-MM-dd'))
+    .replace(/\//g, '-');
+  var lines = ['日期,股票,股票名稱,股數,權重(%)'];
+  if (holdings.length === 0) {
+    lines.push(formattedDate + ',,,0,0');
+  }
+  holdings.forEach(function(h) {
+    var name = String(h.stockName || '');
+    if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+      name = '"' + name.replace(/"/g, '""') + '"';
+    }
+    lines.push([formattedDate, h.stockCode, name, h.shares, h.weight].join(','));
+  });
+
+  var response = UrlFetchApp.fetch(url, {
+    method: 'post',
+    contentType: 'text/csv; charset=utf-8',
+    headers: { 'X-Ingest-Token': token },
+    payload: lines.join('\n'),
+    muteHttpExceptions: true
+  });
+
+  var code = response.getResponseCode();
+  if (code === 200) {
+    log('已推送 ' + holdings.length + ' 筆持倉資料至 ' + url);
+  } else {
+    log('推送持倉資料失敗: HTTP ' + code + ' ' + response.getContentText(), 'ERROR');
+  }
+}
+
 /** 刪除指定日期的所有資料列 */
 function deleteRowsByDate(sheet, targetDate) {
   var lastRow = sheet.getLastRow();
@@ -0,0 +1,166 @@
+package com.etf.tracker.scraper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+import com.etf.tracker.test.MockHtmlData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * EzMoneyScraperStrategy 解析效能基準測試
+ * <p>
+ * 比較內嵌 assetDB 頁面的串流擷取與原本「Jsoup DOM + 正規表示式 + JSON 樹」的解析方式，
+ * 並量測表格備援路徑。執行方式：{@code mvn -Pbenchmark test-compile exec:exec}
+ * </p>
+ * <p>
+ * {@code archivedCorpus} 解析頁面封存中的實際頁面（{@code -Darchive.dir}，預設 {@code ./data/archive}），
+ * 封存為空時改用產生的頁面。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EzMoneyScraperStrategyBenchmark {
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}[-/]\\d{2}[-/]\\d{2}");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("[yyyy-MM-dd][yyyy/MM/dd]");
+
+    /** 成分股數量（實際 ETF 約 50 檔） */
+    @Param({ "50", "500" })
+    public int holdings;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EzMoneyScraperStrategy strategy;
+    private String assetDbPage;
+    private String tablePage;
+    private List<String> archivedPages;
+
+    @Setup
+    public void setUp() throws IOException {
+        strategy = new EzMoneyScraperStrategy();
+        assetDbPage = MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), holdings);
+        tablePage = MockHtmlData.createMockHoldingsHtml(LocalDate.of(2024, 1, 2));
+        archivedPages = loadArchivedPages(Path.of(System.getProperty("archive.dir", "./data/archive")));
+        if (archivedPages.isEmpty()) {
+            archivedPages = List.of(assetDbPage);
+        }
+    }
+
+    @Benchmark
+    public DailySnapshot streamingAssetDb() {
+        return strategy.parseHoldings(assetDbPage);
+    }
+
+    @Benchmark
+    public DailySnapshot domAndTreeAssetDb() throws Exception {
+        return parseWithDomAndTree(assetDbPage);
+    }
+
+    @Benchmark
+    public DailySnapshot tableFallback() {
+        return strategy.parseHoldings(tablePage);
+    }
+
+    @Benchmark
+    public int archivedCorpus() {
+        int holdingsParsed = 0;
+        for (String page : archivedPages) {
+            holdingsParsed += strategy.parseHoldings(page).getTotalCount();
+        }
+        return holdingsParsed;
+    }
+
+    private static List<String> loadArchivedPages(Path archiveDir) throws IOException {
+        Path objects = archiveDir.resolve("objects");
+        if (!Files.isDirectory(objects)) {
+            return List.of();
+        }
+        List<String> pages = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(objects)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".html.gz")).toList()) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                    String page = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    if (page.contains("assetDB")) {
+                        pages.add(page);
+                    }
+                }
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * 原本的解析方式：一律建立 DOM 取得日期，每次編譯正規表示式並建立完整 JSON 樹
+     */
+    private DailySnapshot parseWithDomAndTree(String html) throws Exception {
+        Document doc = Jsoup.parse(html);
+        LocalDate date = null;
+        for (Element element : doc.select("h5:contains(資料日期), p:contains(資料日期)")) {
+            Matcher matcher = DATE_PATTERN.matcher(element.text());
+            if (matcher.find()) {
+                date = LocalDate.parse(matcher.group(), DATE_FORMATTER);
+                break;
+            }
+        }
+
+        List<Holding> result = new ArrayList<>();
+        Matcher matcher = Pattern.compile("var\\s+assetDB\\s*=\\s*(\\[[\\s\\S]*?\\]);").matcher(html);
+        if (matcher.find()) {
+            for (JsonNode asset : objectMapper.readTree(matcher.group(1))) {
+                if (asset.has("AssetCode") && "ST".equals(asset.get("AssetCode").asText())) {
+                    for (JsonNode item : asset.get("Details")) {
+                        Holding holding = new Holding();
+                        holding.setStockCode(item.get("DetailCode").asText());
+                        holding.setStockName(item.get("DetailName").asText());
+                        holding.setShares(item.get("Share").asLong());
+                        holding.setWeight(new BigDecimal(item.get("NavRate").asText()));
+                        result.add(holding);
+                    }
+                }
+            }
+        }
+
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(result)
+                .totalCount(result.size())
+                .build();
+    }
+}
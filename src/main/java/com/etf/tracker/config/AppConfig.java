@@ -1,5 +1,6 @@
 package com.etf.tracker.config;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -22,6 +23,11 @@ public class AppConfig {
     private ScraperConfig scraper = new ScraperConfig();
     private HttpClientConfig httpClient = new HttpClientConfig();
     private GoogleSheetsConfig googleSheets = new GoogleSheetsConfig();
+    private CacheConfig cache = new CacheConfig();
+    private IngestConfig ingest = new IngestConfig();
+    private PollingConfig polling = new PollingConfig();
+    private BackfillConfig backfill = new BackfillConfig();
+    private ArchiveConfig archive = new ArchiveConfig();
 
     // Getters and Setters
 
@@ -57,6 +63,46 @@ public class AppConfig {
         this.googleSheets = googleSheets;
     }
 
+    public CacheConfig getCache() {
+        return cache;
+    }
+
+    public void setCache(CacheConfig cache) {
+        this.cache = cache;
+    }
+
+    public IngestConfig getIngest() {
+        return ingest;
+    }
+
+    public void setIngest(IngestConfig ingest) {
+        this.ingest = ingest;
+    }
+
+    public PollingConfig getPolling() {
+        return polling;
+    }
+
+    public void setPolling(PollingConfig polling) {
+        this.polling = polling;
+    }
+
+    public BackfillConfig getBackfill() {
+        return backfill;
+    }
+
+    public void setBackfill(BackfillConfig backfill) {
+        this.backfill = backfill;
+    }
+
+    public ArchiveConfig getArchive() {
+        return archive;
+    }
+
+    public void setArchive(ArchiveConfig archive) {
+        this.archive = archive;
+    }
+
     /**
      * 資料儲存配置
      */
@@ -70,6 +116,27 @@ public class AppConfig {
         /** 資料保留天數 */
         private int retentionDays = 90;
 
+        /** 是否以串流方式寫入 Excel（不載入整份工作簿） */
+        private boolean streamingWrite = true;
+
+        /**
+         * 本地儲存後端：excel（單一檔案）、partitioned（依期間分割檔案）、columnar（欄式二進位檔）、
+         * journal（先寫日誌再背景合併至 Excel）
+         */
+        private String backend = "excel";
+
+        /** columnar 後端是否於寫入後在背景匯出 Excel 檔案（file-name） */
+        private boolean excelExport = false;
+
+        /** 分割檔案的期間（backend 為 partitioned 時使用） */
+        private PartitionPeriod partitionPeriod = PartitionPeriod.MONTH;
+
+        /** 日誌合併至 Excel 的間隔（秒，backend 為 journal 時使用） */
+        private int journalCompactIntervalSeconds = 300;
+
+        /** 日誌檔超過此大小（bytes）時立即合併 */
+        private long journalMaxBytes = 1024 * 1024;
+
         public String getStoragePath() {
             return storagePath;
         }
@@ -94,6 +161,54 @@ public class AppConfig {
             this.retentionDays = retentionDays;
         }
 
+        public boolean isStreamingWrite() {
+            return streamingWrite;
+        }
+
+        public void setStreamingWrite(boolean streamingWrite) {
+            this.streamingWrite = streamingWrite;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public boolean isExcelExport() {
+            return excelExport;
+        }
+
+        public void setExcelExport(boolean excelExport) {
+            this.excelExport = excelExport;
+        }
+
+        public PartitionPeriod getPartitionPeriod() {
+            return partitionPeriod;
+        }
+
+        public void setPartitionPeriod(PartitionPeriod partitionPeriod) {
+            this.partitionPeriod = partitionPeriod;
+        }
+
+        public int getJournalCompactIntervalSeconds() {
+            return journalCompactIntervalSeconds;
+        }
+
+        public void setJournalCompactIntervalSeconds(int journalCompactIntervalSeconds) {
+            this.journalCompactIntervalSeconds = journalCompactIntervalSeconds;
+        }
+
+        public long getJournalMaxBytes() {
+            return journalMaxBytes;
+        }
+
+        public void setJournalMaxBytes(long journalMaxBytes) {
+            this.journalMaxBytes = journalMaxBytes;
+        }
+
         /**
          * 取得完整檔案路徑
          *
@@ -102,6 +217,58 @@ public class AppConfig {
         public String getFullFilePath() {
             return storagePath + "/" + fileName;
         }
+
+        /**
+         * 以指定儲存路徑複製資料配置，其他設定不變
+         *
+         * @param storagePath 新的儲存路徑
+         * @return 資料配置副本
+         */
+        public DataConfig withStoragePath(String storagePath) {
+            DataConfig copy = new DataConfig();
+            copy.storagePath = storagePath;
+            copy.fileName = fileName;
+            copy.retentionDays = retentionDays;
+            copy.streamingWrite = streamingWrite;
+            copy.backend = backend;
+            copy.excelExport = excelExport;
+            copy.partitionPeriod = partitionPeriod;
+            copy.journalCompactIntervalSeconds = journalCompactIntervalSeconds;
+            copy.journalMaxBytes = journalMaxBytes;
+            return copy;
+        }
+    }
+
+    /**
+     * 資料分割期間
+     */
+    public enum PartitionPeriod {
+        /** 每月一個檔案 */
+        MONTH,
+        /** 每季一個檔案 */
+        QUARTER,
+        /** 每年一個檔案 */
+        YEAR
+    }
+
+    /**
+     * Google Sheets 讀取模式
+     */
+    public enum SheetsMode {
+        /** 每次讀取時查詢 Google Sheets，失敗時回退到本地 */
+        QUERY,
+        /** 背景將 Google Sheets 複製到本地，所有讀取由本地回應 */
+        REPLICATE
+    }
+
+    /**
+     * 網頁內容擷取模式
+     */
+    public enum CaptureMode {
+        /** 點擊持倉頁籤並序列化完整 DOM */
+        DOM,
+        /** 直接讀取頁面中的 assetDB 資料，找不到時回退到 DOM */
+        ASSET_DATA
     }
 
     /**
@@ -123,6 +290,39 @@ public class AppConfig {
         /** User-Agent */
         private String userAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
 
+        /** 同時開啟的瀏覽器頁面上限（每個頁面各自持有一個常駐瀏覽器） */
+        private int maxConcurrentPages = 1;
+
+        /** 是否於啟動時預先啟動瀏覽器 */
+        private boolean warmUpBrowser = false;
+
+        /** 是否先以一般 HTTP 請求抓取，缺少持倉資料時才使用無頭瀏覽器 */
+        private boolean httpFirst = true;
+
+        /** 是否攔截圖片、字型、樣式表與分析追蹤等非必要資源 */
+        private boolean blockResources = true;
+
+        /** 頁面內容擷取模式 */
+        private CaptureMode captureMode = CaptureMode.ASSET_DATA;
+
+        /** 追蹤的基金清單（空白時只追蹤 target-url 指向的基金） */
+        private List<FundConfig> funds = new ArrayList<>();
+
+        /** 依基金代碼產生頁面 URL 的樣板（基金未指定 url 時使用） */
+        private String fundUrlTemplate = "https://www.ezmoney.com.tw/ETF/Fund/Info?FundCode=%s";
+
+        /** 同時抓取的基金數量上限 */
+        private int maxConcurrentFetches = 4;
+
+        /** 同一主機兩次請求的最小間隔（毫秒） */
+        private long perHostIntervalMillis = 1000;
+
+        /** 每檔基金的預設重試次數（整個抓取流程重新執行） */
+        private int fundRetries = 1;
+
+        /** 每檔基金的預設抓取時間預算（秒，含重試） */
+        private int fundTimeoutSeconds = 120;
+
         public String getTargetUrl() {
             return targetUrl;
         }
@@ -163,6 +363,115 @@ public class AppConfig {
             this.userAgent = userAgent;
         }
 
+        public int getMaxConcurrentPages() {
+            return maxConcurrentPages;
+        }
+
+        public void setMaxConcurrentPages(int maxConcurrentPages) {
+            this.maxConcurrentPages = maxConcurrentPages;
+        }
+
+        public boolean isWarmUpBrowser() {
+            return warmUpBrowser;
+        }
+
+        public void setWarmUpBrowser(boolean warmUpBrowser) {
+            this.warmUpBrowser = warmUpBrowser;
+        }
+
+        public boolean isHttpFirst() {
+            return httpFirst;
+        }
+
+        public void setHttpFirst(boolean httpFirst) {
+            this.httpFirst = httpFirst;
+        }
+
+        public boolean isBlockResources() {
+            return blockResources;
+        }
+
+        public void setBlockResources(boolean blockResources) {
+            this.blockResources = blockResources;
+        }
+
+        public CaptureMode getCaptureMode() {
+            return captureMode;
+        }
+
+        public void setCaptureMode(CaptureMode captureMode) {
+            this.captureMode = captureMode;
+        }
+
+        public List<FundConfig> getFunds() {
+            return funds;
+        }
+
+        public void setFunds(List<FundConfig> funds) {
+            this.funds = funds;
+        }
+
+        public String getFundUrlTemplate() {
+            return fundUrlTemplate;
+        }
+
+        public void setFundUrlTemplate(String fundUrlTemplate) {
+            this.fundUrlTemplate = fundUrlTemplate;
+        }
+
+        public int getMaxConcurrentFetches() {
+            return maxConcurrentFetches;
+        }
+
+        public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+            this.maxConcurrentFetches = maxConcurrentFetches;
+        }
+
+        public long getPerHostIntervalMillis() {
+            return perHostIntervalMillis;
+        }
+
+        public void setPerHostIntervalMillis(long perHostIntervalMillis) {
+            this.perHostIntervalMillis = perHostIntervalMillis;
+        }
+
+        public int getFundRetries() {
+            return fundRetries;
+        }
+
+        public void setFundRetries(int fundRetries) {
+            this.fundRetries = fundRetries;
+        }
+
+        public int getFundTimeoutSeconds() {
+            return fundTimeoutSeconds;
+        }
+
+        public void setFundTimeoutSeconds(int fundTimeoutSeconds) {
+            this.fundTimeoutSeconds = fundTimeoutSeconds;
+        }
+
+        /**
+         * 取得主要基金代碼
+         * <p>
+         * 主要基金的資料存放於原本的儲存位置；未設定基金清單時由 target-url 的 FundCode 參數取得
+         * </p>
+         *
+         * @return 主要基金代碼
+         */
+        public String getPrimaryFundCode() {
+            if (funds != null && !funds.isEmpty()) {
+                return funds.get(0).getCode();
+            }
+            int index = targetUrl.indexOf("FundCode=");
+            if (index < 0) {
+                return "default";
+            }
+            String code = targetUrl.substring(index + "FundCode=".length());
+            int end = code.indexOf('&');
+            return end < 0 ? code : code.substring(0, end);
+        }
+
         /**
          * 取得指定重試次數的延遲時間
          *
@@ -178,6 +487,55 @@ public class AppConfig {
         }
     }
 
+    /**
+     * 追蹤的基金
+     */
+    public static class FundConfig {
+        /** 基金代碼（同時作為儲存目錄名稱） */
+        private String code;
+
+        /** 頁面 URL（未設定時依 fund-url-template 產生） */
+        private String url;
+
+        /** 重試次數（未設定時使用 fund-retries） */
+        private Integer retries;
+
+        /** 抓取時間預算（秒，未設定時使用 fund-timeout-seconds） */
+        private Integer timeoutSeconds;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public Integer getRetries() {
+            return retries;
+        }
+
+        public void setRetries(Integer retries) {
+            this.retries = retries;
+        }
+
+        public Integer getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(Integer timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+
     /**
      * HTTP 客戶端配置
      */
@@ -248,15 +606,39 @@ public class AppConfig {
         /** Google Sheets ID */
         private String spreadsheetId;
 
+        /** Google Sheets 服務位址 */
+        private String apiBaseUrl = "https://docs.google.com/spreadsheets/d";
+
         /** 工作表名稱 */
         private String sheetName = "Holdings";
 
+        /** 讀取模式 */
+        private SheetsMode mode = SheetsMode.QUERY;
+
         /** 服務帳戶金鑰檔案路徑 */
         private String credentialsPath = "./config/google-credentials.json";
 
         /** 應用程式名稱 */
         private String applicationName = "ETF-Holdings-Tracker";
 
+        /** 資料表快取存活時間（秒），超過時於讀取路徑上重新驗證 */
+        private int cacheTtlSeconds = 900;
+
+        /** 背景更新資料表快取（replicate 模式為複製）的間隔（秒），0 表示停用背景更新 */
+        private int refreshIntervalSeconds = 300;
+
+        /** 斷路器：連續失敗幾次後跳脫 */
+        private int breakerFailureThreshold = 3;
+
+        /** 斷路器：超過此延遲（毫秒）的呼叫視為失敗 */
+        private long breakerSlowCallMillis = 5000;
+
+        /** 斷路器：跳脫後多久（秒）允許半開探測 */
+        private int breakerOpenSeconds = 60;
+
+        /** 對沖讀取：Google Sheets 超過此延遲（毫秒）仍未回應時同時讀取本地，0 表示停用 */
+        private long hedgeAfterMillis = 0;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -273,6 +655,14 @@ public class AppConfig {
             this.spreadsheetId = spreadsheetId;
         }
 
+        public String getApiBaseUrl() {
+            return apiBaseUrl;
+        }
+
+        public void setApiBaseUrl(String apiBaseUrl) {
+            this.apiBaseUrl = apiBaseUrl;
+        }
+
         public String getSheetName() {
             return sheetName;
         }
@@ -281,6 +671,14 @@ public class AppConfig {
             this.sheetName = sheetName;
         }
 
+        public SheetsMode getMode() {
+            return mode;
+        }
+
+        public void setMode(SheetsMode mode) {
+            this.mode = mode;
+        }
+
         public String getCredentialsPath() {
             return credentialsPath;
         }
@@ -296,5 +694,265 @@ public class AppConfig {
         public void setApplicationName(String applicationName) {
             this.applicationName = applicationName;
         }
+
+        public int getCacheTtlSeconds() {
+            return cacheTtlSeconds;
+        }
+
+        public void setCacheTtlSeconds(int cacheTtlSeconds) {
+            this.cacheTtlSeconds = cacheTtlSeconds;
+        }
+
+        public int getRefreshIntervalSeconds() {
+            return refreshIntervalSeconds;
+        }
+
+        public void setRefreshIntervalSeconds(int refreshIntervalSeconds) {
+            this.refreshIntervalSeconds = refreshIntervalSeconds;
+        }
+
+        public int getBreakerFailureThreshold() {
+            return breakerFailureThreshold;
+        }
+
+        public void setBreakerFailureThreshold(int breakerFailureThreshold) {
+            this.breakerFailureThreshold = breakerFailureThreshold;
+        }
+
+        public long getBreakerSlowCallMillis() {
+            return breakerSlowCallMillis;
+        }
+
+        public void setBreakerSlowCallMillis(long breakerSlowCallMillis) {
+            this.breakerSlowCallMillis = breakerSlowCallMillis;
+        }
+
+        public int getBreakerOpenSeconds() {
+            return breakerOpenSeconds;
+        }
+
+        public void setBreakerOpenSeconds(int breakerOpenSeconds) {
+            this.breakerOpenSeconds = breakerOpenSeconds;
+        }
+
+        public long getHedgeAfterMillis() {
+            return hedgeAfterMillis;
+        }
+
+        public void setHedgeAfterMillis(long hedgeAfterMillis) {
+            this.hedgeAfterMillis = hedgeAfterMillis;
+        }
+    }
+
+    /**
+     * 快照快取配置
+     */
+    public static class CacheConfig {
+        /** 是否啟用快照快取 */
+        private boolean enabled = true;
+
+        /** 快取的成分股筆數上限（依快照的成分股數量計算容量） */
+        private long maxHoldings = 20000;
+
+        /** 快取項目存活時間（秒），0 表示不過期 */
+        private long ttlSeconds = 600;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxHoldings() {
+            return maxHoldings;
+        }
+
+        public void setMaxHoldings(long maxHoldings) {
+            this.maxHoldings = maxHoldings;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    /**
+     * 持倉推送匯入配置
+     */
+    public static class IngestConfig {
+        /** 是否啟用推送匯入端點 */
+        private boolean enabled = false;
+
+        /** 推送端使用的存取權杖（未設定時拒絕所有推送） */
+        private String token;
+
+        /** 單次推送的成分股筆數上限 */
+        private int maxHoldings = 2000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public int getMaxHoldings() {
+            return maxHoldings;
+        }
+
+        public void setMaxHoldings(int maxHoldings) {
+            this.maxHoldings = maxHoldings;
+        }
+    }
+
+    /**
+     * 收盤後輪詢抓取配置
+     */
+    public static class PollingConfig {
+        /** 開始輪詢的排程（cron，以 zone 時區解讀） */
+        private String startCron = "0 30 15 * * *";
+
+        /** 交易日曆與排程使用的時區 */
+        private String zone = "Asia/Taipei";
+
+        /** 第一次重新輪詢前的等待時間（分鐘） */
+        private int initialIntervalMinutes = 5;
+
+        /** 每次未取得新資料後等待時間的倍數 */
+        private double backoffMultiplier = 2.0;
+
+        /** 等待時間上限（分鐘） */
+        private int maxIntervalMinutes = 60;
+
+        /** 每日輪詢次數上限（含第一次） */
+        private int maxAttempts = 8;
+
+        /** 休市日（yyyy-MM-dd），週末一律不輪詢 */
+        private List<String> holidays = new ArrayList<>();
+
+        public String getStartCron() {
+            return startCron;
+        }
+
+        public void setStartCron(String startCron) {
+            this.startCron = startCron;
+        }
+
+        public String getZone() {
+            return zone;
+        }
+
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
+
+        public int getInitialIntervalMinutes() {
+            return initialIntervalMinutes;
+        }
+
+        public void setInitialIntervalMinutes(int initialIntervalMinutes) {
+            this.initialIntervalMinutes = initialIntervalMinutes;
+        }
+
+        public double getBackoffMultiplier() {
+            return backoffMultiplier;
+        }
+
+        public void setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+        }
+
+        public int getMaxIntervalMinutes() {
+            return maxIntervalMinutes;
+        }
+
+        public void setMaxIntervalMinutes(int maxIntervalMinutes) {
+            this.maxIntervalMinutes = maxIntervalMinutes;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public List<String> getHolidays() {
+            return holidays;
+        }
+
+        public void setHolidays(List<String> holidays) {
+            this.holidays = holidays;
+        }
+    }
+
+    /**
+     * 啟動時缺漏補齊配置
+     */
+    public static class BackfillConfig {
+        /** 是否於啟動時檢查並補齊缺漏的交易日 */
+        private boolean enabled = true;
+
+        /** 往前檢查的天數（不早於已儲存的最舊日期） */
+        private int lookbackDays = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLookbackDays() {
+            return lookbackDays;
+        }
+
+        public void setLookbackDays(int lookbackDays) {
+            this.lookbackDays = lookbackDays;
+        }
+    }
+
+    /**
+     * 原始頁面封存配置
+     */
+    public static class ArchiveConfig {
+        /** 是否封存每次抓取的原始頁面 */
+        private boolean enabled = true;
+
+        /** 封存容量上限（MB，壓縮後），超過時淘汰最舊的頁面 */
+        private long maxSizeMb = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSizeMb() {
+            return maxSizeMb;
+        }
+
+        public void setMaxSizeMb(long maxSizeMb) {
+            this.maxSizeMb = maxSizeMb;
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.etf.tracker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.etf.tracker.service.CachingStorageService;
+import com.etf.tracker.service.HybridStorageService;
+import com.etf.tracker.service.LocalStorageService;
+import com.etf.tracker.service.StorageService;
+
+/**
+ * 儲存服務配置類別
+ * <p>
+ * 決定注入至控制器與服務的 {@link StorageService}：啟用 Google Sheets 時使用混合儲存，
+ * 否則使用本地儲存後端；啟用快取時再以 {@link CachingStorageService} 包裝
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Configuration
+public class StorageConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageConfiguration.class);
+
+    private final AppConfig appConfig;
+
+    public StorageConfiguration(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * 建立主要的 StorageService Bean
+     *
+     * @param localStorageService 本地儲存後端
+     * @param hybridStorageService 混合儲存服務（未啟用 Google Sheets 時不存在）
+     * @return 對外使用的儲存服務
+     */
+    @Bean
+    @Primary
+    public StorageService storageService(LocalStorageService localStorageService,
+            ObjectProvider<HybridStorageService> hybridStorageService) {
+        HybridStorageService hybrid = hybridStorageService.getIfAvailable();
+        StorageService delegate = hybrid != null ? hybrid : localStorageService;
+
+        AppConfig.CacheConfig cacheConfig = appConfig.getCache();
+        if (!cacheConfig.isEnabled()) {
+            return delegate;
+        }
+
+        logger.info("啟用快照快取: 成分股筆數上限={}, 存活時間={} 秒",
+                cacheConfig.getMaxHoldings(), cacheConfig.getTtlSeconds());
+        CachingStorageService cachingStorageService = new CachingStorageService(delegate, cacheConfig);
+        if (hybrid != null) {
+            // 複製模式下本地資料由背景更新，不經過快取層，因此複製完成後清除快取
+            hybrid.addReplicationListener(cachingStorageService::invalidateAll);
+        }
+        return cachingStorageService;
+    }
+}
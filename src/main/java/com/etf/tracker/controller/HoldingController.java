@@ -7,11 +7,16 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,6 +26,7 @@ import com.etf.tracker.dto.AvailableDatesDto;
 import com.etf.tracker.dto.CleanupResultDto;
 import com.etf.tracker.dto.DailySnapshotDto;
 import com.etf.tracker.dto.HoldingDto;
+import com.etf.tracker.dto.HoldingIngestRequest;
 import com.etf.tracker.dto.RangeCompareResultDto;
 import com.etf.tracker.dto.mapper.DailySnapshotMapper;
 import com.etf.tracker.dto.mapper.HoldingMapper;
@@ -29,7 +35,9 @@ import com.etf.tracker.model.Holding;
 import com.etf.tracker.service.DataCleanupService;
 import com.etf.tracker.service.DataFetchService;
 import com.etf.tracker.service.HoldingCompareService;
+import com.etf.tracker.service.HoldingIngestService;
 import com.etf.tracker.service.HoldingQueryService;
+import com.etf.tracker.service.SnapshotChangeDetector;
 import com.etf.tracker.service.StorageService;
 
 /**
@@ -47,26 +55,40 @@ public class HoldingController {
 
     private static final Logger logger = LoggerFactory.getLogger(HoldingController.class);
 
+    /** 抓取結果標頭與內容未變更時的回應訊息 */
+    static final String SNAPSHOT_STATUS_HEADER = "X-Snapshot-Status";
+    static final String SNAPSHOT_UNCHANGED = "unchanged";
+
     private final DataFetchService dataFetchService;
     private final StorageService storageService;
     private final HoldingQueryService holdingQueryService;
     private final HoldingCompareService holdingCompareService;
     private final DataCleanupService dataCleanupService;
+    private final HoldingIngestService holdingIngestService;
+    private final SnapshotChangeDetector changeDetector;
 
     public HoldingController(DataFetchService dataFetchService,
             StorageService storageService,
             HoldingQueryService holdingQueryService,
             HoldingCompareService holdingCompareService,
-            DataCleanupService dataCleanupService) {
+            DataCleanupService dataCleanupService,
+            HoldingIngestService holdingIngestService,
+            SnapshotChangeDetector changeDetector) {
         this.dataFetchService = dataFetchService;
         this.storageService = storageService;
         this.holdingQueryService = holdingQueryService;
         this.holdingCompareService = holdingCompareService;
         this.dataCleanupService = dataCleanupService;
+        this.holdingIngestService = holdingIngestService;
+        this.changeDetector = changeDetector;
     }
 
     /**
      * 抓取並儲存最新持倉資料
+     * <p>
+     * 內容與已儲存的相同時略過寫入，回應訊息為 {@code unchanged}，
+     * 並以 {@code X-Snapshot-Status} 標頭回報 {@code saved} 或 {@code unchanged}
+     * </p>
      *
      * @return 抓取結果
      */
@@ -78,17 +100,22 @@ public class HoldingController {
             // 1. 抓取資料
             DailySnapshot snapshot = dataFetchService.fetchLatestHoldings();
 
-            // 2. 儲存資料
-            storageService.saveSnapshot(snapshot);
+            // 2. 內容有變更時才儲存
+            SnapshotChangeDetector.SaveOutcome outcome = changeDetector.saveIfChanged(storageService, snapshot);
+            boolean unchanged = outcome == SnapshotChangeDetector.SaveOutcome.UNCHANGED;
 
             // 3. 轉換並回傳
             DailySnapshotDto dto = DailySnapshotMapper.toDto(snapshot);
-            ApiResponse<DailySnapshotDto> response = ApiResponse.success(dto);
+            ApiResponse<DailySnapshotDto> response = unchanged
+                    ? ApiResponse.success(SNAPSHOT_UNCHANGED, dto)
+                    : ApiResponse.success(dto);
 
-            logger.info("成功抓取並儲存持倉資料: 日期={}, 成分股數量={}",
-                    snapshot.getDate(), snapshot.getTotalCount());
+            logger.info("成功抓取持倉資料: 日期={}, 成分股數量={}, 結果={}",
+                    snapshot.getDate(), snapshot.getTotalCount(), outcome);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .header(SNAPSHOT_STATUS_HEADER, unchanged ? SNAPSHOT_UNCHANGED : "saved")
+                    .body(response);
 
         } catch (Exception e) {
             logger.error("抓取持倉資料失敗: {}", e.getMessage(), e);
@@ -97,6 +124,71 @@ public class HoldingController {
         }
     }
 
+    /**
+     * 接收外部擷取端推送的單日持倉資料（JSON）
+     * <p>
+     * 需以 {@code Authorization: Bearer <token>} 或 {@code X-Ingest-Token} 提供存取權杖
+     * </p>
+     *
+     * @param authorization Authorization 標頭
+     * @param ingestToken   X-Ingest-Token 標頭
+     * @param request       單日持倉資料
+     * @return 已儲存的持倉資料
+     */
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<DailySnapshotDto>> ingestHoldings(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = "X-Ingest-Token", required = false) String ingestToken,
+            @RequestBody HoldingIngestRequest request) {
+        ResponseEntity<ApiResponse<DailySnapshotDto>> denied = checkIngestAccess(authorization, ingestToken);
+        if (denied != null) {
+            return denied;
+        }
+        DailySnapshot snapshot = holdingIngestService.ingest(request);
+        return ResponseEntity.ok(ApiResponse.success(DailySnapshotMapper.toDto(snapshot)));
+    }
+
+    /**
+     * 接收外部擷取端推送的單日持倉資料（CSV：日期,股票,股票名稱,股數,權重）
+     *
+     * @param authorization Authorization 標頭
+     * @param ingestToken   X-Ingest-Token 標頭
+     * @param csv           單日持倉資料
+     * @return 已儲存的持倉資料
+     */
+    @PostMapping(value = "/ingest", consumes = "text/csv")
+    public ResponseEntity<ApiResponse<DailySnapshotDto>> ingestHoldingsCsv(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = "X-Ingest-Token", required = false) String ingestToken,
+            @RequestBody String csv) {
+        ResponseEntity<ApiResponse<DailySnapshotDto>> denied = checkIngestAccess(authorization, ingestToken);
+        if (denied != null) {
+            return denied;
+        }
+        DailySnapshot snapshot = holdingIngestService.ingestCsv(csv);
+        return ResponseEntity.ok(ApiResponse.success(DailySnapshotMapper.toDto(snapshot)));
+    }
+
+    /**
+     * 檢查推送匯入的存取權限，通過時回傳 null
+     */
+    private <T> ResponseEntity<ApiResponse<T>> checkIngestAccess(String authorization, String ingestToken) {
+        if (!holdingIngestService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("推送匯入未啟用", "INGEST_DISABLED"));
+        }
+        String token = ingestToken;
+        if (token == null && authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            token = authorization.substring(7).strip();
+        }
+        if (!holdingIngestService.isAuthorized(token)) {
+            logger.warn("拒絕未授權的推送匯入請求");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("存取權杖無效", "UNAUTHORIZED"));
+        }
+        return null;
+    }
+
     /**
      * 取得最新的持倉資料
      *
@@ -12,9 +12,12 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.etf.tracker.config.AppConfig;
@@ -23,7 +26,12 @@ import com.etf.tracker.dto.SystemHealthDto;
 import com.etf.tracker.dto.SystemHealthDto.ComponentHealth;
 import com.etf.tracker.dto.SystemHealthDto.HealthStatus;
 import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.service.ArchiveReplayService;
 import com.etf.tracker.service.DataCleanupService;
+import com.etf.tracker.service.DataFetchService;
+import com.etf.tracker.service.GapBackfillService;
+import com.etf.tracker.service.RawPageArchive;
+import com.etf.tracker.service.SnapshotChangeDetector;
 import com.etf.tracker.service.StorageService;
 
 /**
@@ -43,13 +51,28 @@ public class SystemController {
 
     private final StorageService storageService;
     private final DataCleanupService dataCleanupService;
+    private final DataFetchService dataFetchService;
+    private final SnapshotChangeDetector changeDetector;
+    private final GapBackfillService gapBackfillService;
+    private final RawPageArchive pageArchive;
+    private final ArchiveReplayService archiveReplayService;
     private final AppConfig appConfig;
 
     public SystemController(StorageService storageService,
             DataCleanupService dataCleanupService,
+            DataFetchService dataFetchService,
+            SnapshotChangeDetector changeDetector,
+            GapBackfillService gapBackfillService,
+            RawPageArchive pageArchive,
+            ArchiveReplayService archiveReplayService,
             AppConfig appConfig) {
         this.storageService = storageService;
         this.dataCleanupService = dataCleanupService;
+        this.dataFetchService = dataFetchService;
+        this.changeDetector = changeDetector;
+        this.gapBackfillService = gapBackfillService;
+        this.pageArchive = pageArchive;
+        this.archiveReplayService = archiveReplayService;
         this.appConfig = appConfig;
     }
 
@@ -81,6 +104,9 @@ public class SystemController {
                 overallStatus = HealthStatus.DEGRADED;
             }
 
+            // 缺漏補齊進度（歷史缺漏不影響服務可用性，不降級整體狀態）
+            components.put("backfill", checkBackfill());
+
             // 取得統計資訊
             Long dataFileSize = getDataFileSize();
             Integer totalRecords = getTotalRecords();
@@ -152,6 +178,25 @@ public class SystemController {
         return ComponentHealth.up("資料檔案");
     }
 
+    /**
+     * 檢查缺漏補齊進度
+     */
+    private ComponentHealth checkBackfill() {
+        GapBackfillService.BackfillStatus backfill = gapBackfillService.getStatus();
+        return switch (backfill.state()) {
+            case IDLE -> new ComponentHealth("缺漏補齊", HealthStatus.UP, "尚未執行");
+            case RUNNING -> new ComponentHealth("缺漏補齊", HealthStatus.UP,
+                    String.format("補齊中: 缺漏 %d 個交易日，已補齊 %d 個", backfill.totalGaps(), backfill.filled()));
+            case COMPLETED -> backfill.remaining() == 0
+                    ? new ComponentHealth("缺漏補齊", HealthStatus.UP,
+                            String.format("完成: 已補齊 %d 個交易日", backfill.filled()))
+                    : new ComponentHealth("缺漏補齊", HealthStatus.DEGRADED,
+                            String.format("完成: 已補齊 %d 個交易日，仍缺漏 %s",
+                                    backfill.filled(), backfill.missingDates()));
+            case FAILED -> ComponentHealth.down("缺漏補齊", "補齊失敗: " + backfill.message());
+        };
+    }
+
     /**
      * 檢查資料存取健康狀態
      */
@@ -224,29 +269,73 @@ public class SystemController {
     public ResponseEntity<ApiResponse<StorageInfo>> getStorageInfo() {
         boolean readOnly = storageService.isReadOnly();
         String dataSource = storageService.getDataSourceInfo();
+        Map<String, Object> metrics = storageService.getMetrics();
 
         StorageInfo info = new StorageInfo(
                 dataSource,
                 readOnly,
                 readOnly ? "資料來源為 Google Sheets，僅供讀取" : "資料來源為本地 Excel，可進行編輯",
+                metrics.get("googleSheetsCache"),
+                metrics.get("googleSheetsReplication"),
                 LocalDateTime.now());
 
         logger.debug("儲存服務資訊: readOnly={}, dataSource={}", readOnly, dataSource);
         return ResponseEntity.ok(ApiResponse.success(info));
     }
 
+    /**
+     * 取得儲存服務監控指標
+     * <p>
+     * 例如快照快取的命中、未命中與淘汰次數，資料抓取由哪一層提供（dataFetch），
+     * 快照實際寫入與內容未變更而略過的次數（snapshotWrites），
+     * 以及原始頁面封存的數量與容量（pageArchive）
+     * </p>
+     *
+     * @return 指標名稱與數值
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>(storageService.getMetrics());
+        metrics.put("dataFetch", dataFetchService.getFetchStatistics());
+        metrics.put("snapshotWrites", changeDetector.getStatistics());
+        metrics.put("pageArchive", pageArchive.getStatistics());
+        return ResponseEntity.ok(ApiResponse.success(metrics));
+    }
+
+    /**
+     * 以目前的解析規則重新解析封存的原始頁面並寫回儲存
+     *
+     * @param from      起始日期（選填）
+     * @param to        結束日期（選填）
+     * @param overwrite 是否覆寫已儲存的日期（預設只補上缺少的日期）
+     * @return 重播結果
+     */
+    @PostMapping("/archive/replay")
+    public ResponseEntity<ApiResponse<ArchiveReplayService.ReplayResult>> replayArchive(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(defaultValue = "false") boolean overwrite) {
+        logger.info("重播封存頁面請求: {} ~ {}, 覆寫={}", from, to, overwrite);
+        ArchiveReplayService.ReplayResult result = archiveReplayService.replay(from, to, overwrite);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     /**
      * 儲存服務資訊
      *
      * @param dataSource 資料來源名稱
      * @param readOnly   是否唯讀
      * @param message    說明訊息
+     * @param sheetsCache Google Sheets 快取狀態（快取年齡、更新耗時；未啟用時為 null）
+     * @param sheetsReplication Google Sheets 複製狀態（非複製模式時為 null）
      * @param checkedAt  檢查時間
      */
     public record StorageInfo(
             String dataSource,
             boolean readOnly,
             String message,
+            Object sheetsCache,
+            Object sheetsReplication,
             LocalDateTime checkedAt) {
     }
 
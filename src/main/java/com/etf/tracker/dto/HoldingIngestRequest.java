@@ -0,0 +1,20 @@
+package com.etf.tracker.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 持倉推送匯入請求 DTO
+ * <p>
+ * 由外部擷取端（例如 GAS）每日推送一天的完整持倉資料
+ * </p>
+ *
+ * @param date     資料日期
+ * @param holdings 成分股清單（空清單表示當日無持倉）
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public record HoldingIngestRequest(
+        LocalDate date,
+        List<HoldingDto> holdings) {
+}
@@ -29,6 +29,9 @@ public class DailySnapshot {
     /** 總權重 (應接近 100%) */
     private BigDecimal totalWeight;
 
+    /** 基金代碼（null 表示主要基金） */
+    private String fundCode;
+
     /**
      * 預設建構子
      */
@@ -69,6 +72,10 @@ public class DailySnapshot {
         return totalWeight;
     }
 
+    public String getFundCode() {
+        return fundCode;
+    }
+
     // Setters
 
     public void setDate(LocalDate date) {
@@ -87,6 +94,10 @@ public class DailySnapshot {
         this.totalWeight = totalWeight;
     }
 
+    public void setFundCode(String fundCode) {
+        this.fundCode = fundCode;
+    }
+
     /**
      * 新增成分股
      *
@@ -117,17 +128,18 @@ public class DailySnapshot {
         if (o == null || getClass() != o.getClass())
             return false;
         DailySnapshot that = (DailySnapshot) o;
-        return Objects.equals(date, that.date);
+        return Objects.equals(date, that.date) && Objects.equals(fundCode, that.fundCode);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(date);
+        return Objects.hash(date, fundCode);
     }
 
     @Override
     public String toString() {
         return "DailySnapshot{" +
+                (fundCode != null ? "fundCode=" + fundCode + ", " : "") +
                 "date=" + date +
                 ", totalCount=" + totalCount +
                 ", totalWeight=" + totalWeight +
@@ -151,6 +163,7 @@ public class DailySnapshot {
         private List<Holding> holdings = new ArrayList<>();
         private int totalCount;
         private BigDecimal totalWeight;
+        private String fundCode;
 
         public Builder date(LocalDate date) {
             this.date = date;
@@ -172,8 +185,15 @@ public class DailySnapshot {
             return this;
         }
 
+        public Builder fundCode(String fundCode) {
+            this.fundCode = fundCode;
+            return this;
+        }
+
         public DailySnapshot build() {
-            return new DailySnapshot(date, holdings, totalCount, totalWeight);
+            DailySnapshot snapshot = new DailySnapshot(date, holdings, totalCount, totalWeight);
+            snapshot.setFundCode(fundCode);
+            return snapshot;
         }
     }
 }
@@ -0,0 +1,53 @@
+package com.etf.tracker.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 單筆持倉資料列
+ * <p>
+ * 代表特定日期的單一成分股，用於逐列掃描歷史資料而不需建立整份 {@link DailySnapshot}
+ * </p>
+ *
+ * @param date      資料日期
+ * @param stockCode 股票代號
+ * @param stockName 股票名稱
+ * @param shares    持股股數
+ * @param weight    持股權重 (百分比)
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public record HoldingRow(
+        LocalDate date,
+        String stockCode,
+        String stockName,
+        Long shares,
+        BigDecimal weight) {
+
+    /**
+     * 由成分股建立資料列
+     *
+     * @param date    資料日期
+     * @param holding 成分股
+     * @return 資料列
+     */
+    public static HoldingRow of(LocalDate date, Holding holding) {
+        return new HoldingRow(date, holding.getStockCode(), holding.getStockName(),
+                holding.getShares(), holding.getWeight());
+    }
+
+    /**
+     * 轉換為成分股
+     *
+     * @return 成分股
+     */
+    public Holding toHolding() {
+        return Holding.builder()
+                .stockCode(stockCode)
+                .stockName(stockName)
+                .shares(shares)
+                .weight(weight)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.etf.tracker.scraper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.etf.tracker.model.Holding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * assetDB 快速擷取器
+ * <p>
+ * 以單次正向掃描找出頁面中的「資料日期」與 {@code var assetDB = [...]}，
+ * 再以 Jackson 串流 {@link JsonParser} 直接從原始字串解析為 {@link Holding}，
+ * 不建立 DOM、不建立 JSON 樹，也不複製 assetDB 子字串。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class AssetDataExtractor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String ASSET_TOKEN = "assetDB";
+    private static final String DATE_LABEL = "資料日期";
+
+    /** 資料日期標籤之後搜尋日期的最大字元數 */
+    private static final int DATE_WINDOW = 64;
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}[-/]\\d{2}[-/]\\d{2}");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("[yyyy-MM-dd][yyyy/MM/dd]");
+
+    /** 股票資產代碼 */
+    private static final String STOCK_ASSET = "ST";
+
+    private AssetDataExtractor() {
+        // 禁止實例化
+    }
+
+    /**
+     * 擷取結果
+     *
+     * @param date     頁面中的資料日期（找不到時為 null）
+     * @param holdings 股票持倉（頁面沒有 assetDB 或解析失敗時為 null）
+     */
+    record Extraction(LocalDate date, List<Holding> holdings) {
+
+        boolean hasHoldings() {
+            return holdings != null && !holdings.isEmpty();
+        }
+    }
+
+    /**
+     * 掃描 HTML 並解析 assetDB
+     *
+     * @param html HTML 內容
+     * @return 擷取結果
+     * @throws IOException 如果 assetDB 不是合法的 JSON
+     */
+    static Extraction extract(String html) throws IOException {
+        LocalDate date = null;
+        int assetStart = -1;
+
+        // 單次正向掃描：兩個標記都找到後即停止
+        int length = html.length();
+        for (int i = 0; i < length && (date == null || assetStart < 0); i++) {
+            char c = html.charAt(i);
+            if (c == 'a' && assetStart < 0 && html.startsWith(ASSET_TOKEN, i)) {
+                assetStart = arrayStart(html, i + ASSET_TOKEN.length());
+                i += ASSET_TOKEN.length() - 1;
+            } else if (c == '資' && date == null && html.startsWith(DATE_LABEL, i)) {
+                date = dateAfter(html, i + DATE_LABEL.length());
+                i += DATE_LABEL.length() - 1;
+            }
+        }
+
+        List<Holding> holdings = assetStart < 0 ? null : readHoldings(html, assetStart);
+        return new Extraction(date, holdings);
+    }
+
+    /**
+     * 確認 {@code assetDB} 之後為 {@code = [}，回傳陣列起始位置
+     *
+     * @return '[' 的位置，不是指派敘述時回傳 -1
+     */
+    private static int arrayStart(String html, int from) {
+        int i = skipWhitespace(html, from);
+        if (i >= html.length() || html.charAt(i) != '=') {
+            return -1;
+        }
+        i = skipWhitespace(html, i + 1);
+        return i < html.length() && html.charAt(i) == '[' ? i : -1;
+    }
+
+    private static int skipWhitespace(String html, int from) {
+        int i = from;
+        while (i < html.length() && Character.isWhitespace(html.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 解析標籤之後的日期文字
+     */
+    private static LocalDate dateAfter(String html, int from) {
+        Matcher matcher = DATE_PATTERN.matcher(html).region(from, Math.min(html.length(), from + DATE_WINDOW));
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(matcher.group(), DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // ==================== 串流解析 ====================
+
+    private static List<Holding> readHoldings(String html, int arrayStart) throws IOException {
+        StringReader reader = new StringReader(html);
+        reader.skip(arrayStart);
+
+        List<Holding> holdings = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(reader)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                readAsset(parser, holdings);
+            }
+        }
+        return holdings;
+    }
+
+    /**
+     * 解析單一資產，僅保留股票資產的明細（AssetCode 可能位於 Details 之後）
+     */
+    private static void readAsset(JsonParser parser, List<Holding> holdings) throws IOException {
+        String assetCode = null;
+        List<Holding> details = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("AssetCode".equals(field)) {
+                assetCode = parser.getText();
+            } else if ("Details".equals(field) && value == JsonToken.START_ARRAY) {
+                details = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    details.add(readDetail(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (STOCK_ASSET.equals(assetCode) && details != null) {
+            holdings.addAll(details);
+        }
+    }
+
+    private static Holding readDetail(JsonParser parser) throws IOException {
+        Holding holding = new Holding();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "DetailCode" -> holding.setStockCode(parser.getText());
+                case "DetailName" -> holding.setStockName(parser.getText());
+                case "Share" -> holding.setShares(parser.getValueAsLong());
+                case "NavRate" -> holding.setWeight(new BigDecimal(parser.getText()));
+                default -> parser.skipChildren();
+            }
+        }
+        return holding;
+    }
+}
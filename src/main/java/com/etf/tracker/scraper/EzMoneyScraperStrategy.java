@@ -6,6 +6,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,14 +21,16 @@ import org.springframework.stereotype.Component;
 import com.etf.tracker.exception.DataFetchException;
 import com.etf.tracker.model.DailySnapshot;
 import com.etf.tracker.model.Holding;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * EzMoney 網站擷取策略
  * <p>
  * 使用 Jsoup 解析 ezmoney.com.tw 網站的 ETF 持倉頁面
  * </p>
+ * <p>
+ * 頁面內嵌 {@code assetDB} 時由 {@link AssetDataExtractor} 以串流方式直接解析，
+ * 只有在沒有 assetDB 需要讀取表格時才建立 Jsoup DOM。
+ * </p>
  *
  * @author ETF Tracker Team
  * @version 1.0.0
@@ -37,8 +40,6 @@ public class EzMoneyScraperStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(EzMoneyScraperStrategy.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
     private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}[-/]\\d{2}[-/]\\d{2}");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("[yyyy-MM-dd][yyyy/MM/dd]");
 
@@ -69,27 +70,15 @@ public class EzMoneyScraperStrategy {
         }
 
         try {
-            Document doc = Jsoup.parse(html);
-
-            // 解析資料日期
-            LocalDate date = extractDate(doc);
-
-            // 解析持倉資料
-            List<Holding> holdings = extractHoldingsFromJson(html);
-            if (holdings.isEmpty()) {
-                holdings = extractHoldings(doc);
+            // 快速路徑：單次掃描取得 assetDB 與資料日期，不建立 DOM
+            AssetDataExtractor.Extraction extraction = extractAssetData(html);
+            if (extraction.hasHoldings()) {
+                return fromAssetData(extraction, html);
             }
 
-            // 建立快照
-            DailySnapshot snapshot = DailySnapshot.builder()
-                    .date(date)
-                    .holdings(holdings)
-                    .totalCount(holdings.size())
-                    .totalWeight(calculateTotalWeight(holdings))
-                    .build();
-
-            logger.info("成功解析持倉資料: 日期={}, 成分股數量={}", date, holdings.size());
-            return snapshot;
+            // 表格備援路徑
+            Document doc = Jsoup.parse(html);
+            return buildSnapshot(extractDate(doc), extractHoldings(doc));
 
         } catch (DataFetchException e) {
             throw e;
@@ -100,52 +89,52 @@ public class EzMoneyScraperStrategy {
     }
 
     /**
-     * 從 HTML 中的 JavaScript 變數提取持倉資料
+     * 只以 assetDB 解析持倉快照，不使用表格備援
+     * <p>
+     * 用於判斷伺服器端輸出的頁面是否足夠，不需再以無頭瀏覽器渲染；
+     * 結果與 {@link #parseHoldings(String)} 相同，呼叫端可直接使用而不必再解析一次
+     * </p>
+     *
+     * @param html HTML 內容
+     * @return 持倉快照，assetDB 不存在或沒有股票持倉時為空
      */
-    private List<Holding> extractHoldingsFromJson(String html) {
-        List<Holding> holdings = new ArrayList<>();
-        // 尋找 var assetDB = [...];
-        Pattern pattern = Pattern.compile("var\\s+assetDB\\s*=\\s*(\\[[\\s\\S]*?\\]);");
-        Matcher matcher = pattern.matcher(html);
+    public Optional<DailySnapshot> parseAssetData(String html) {
+        if (html == null) {
+            return Optional.empty();
+        }
+        AssetDataExtractor.Extraction extraction = extractAssetData(html);
+        return extraction.hasHoldings() ? Optional.of(fromAssetData(extraction, html)) : Optional.empty();
+    }
 
-        if (matcher.find()) {
-            String json = matcher.group(1);
-            try {
-                JsonNode root = objectMapper.readTree(json);
-                if (root.isArray()) {
-                    for (JsonNode asset : root) {
-                        // 尋找股票資產 (AssetCode: "ST")
-                        if (asset.has("AssetCode") && "ST".equals(asset.get("AssetCode").asText())) {
-                            JsonNode details = asset.get("Details");
-                            if (details != null && details.isArray()) {
-                                for (JsonNode item : details) {
-                                    Holding holding = new Holding();
-                                    if (item.has("DetailCode")) {
-                                        holding.setStockCode(item.get("DetailCode").asText());
-                                    }
-                                    if (item.has("DetailName")) {
-                                        holding.setStockName(item.get("DetailName").asText());
-                                    }
-                                    if (item.has("Share")) {
-                                        holding.setShares(item.get("Share").asLong());
-                                    }
-                                    if (item.has("NavRate")) {
-                                        holding.setWeight(new BigDecimal(item.get("NavRate").asText()));
-                                    }
-                                    holdings.add(holding);
-                                }
-                            }
-                        }
-                    }
-                }
-                if (!holdings.isEmpty()) {
-                    logger.info("成功從 JSON 提取 {} 筆持倉資料", holdings.size());
-                }
-            } catch (Exception e) {
-                logger.warn("解析 assetDB JSON 失敗", e);
-            }
+    private DailySnapshot fromAssetData(AssetDataExtractor.Extraction extraction, String html) {
+        List<Holding> holdings = extraction.holdings();
+        logger.info("成功從 JSON 提取 {} 筆持倉資料", holdings.size());
+        LocalDate date = extraction.date() != null ? extraction.date() : extractDate(Jsoup.parse(html));
+        return buildSnapshot(date, holdings);
+    }
+
+    private DailySnapshot buildSnapshot(LocalDate date, List<Holding> holdings) {
+        DailySnapshot snapshot = DailySnapshot.builder()
+                .date(date)
+                .holdings(holdings)
+                .totalCount(holdings.size())
+                .totalWeight(calculateTotalWeight(holdings))
+                .build();
+
+        logger.info("成功解析持倉資料: 日期={}, 成分股數量={}", date, holdings.size());
+        return snapshot;
+    }
+
+    /**
+     * 從 HTML 中的 JavaScript 變數提取持倉資料
+     */
+    private AssetDataExtractor.Extraction extractAssetData(String html) {
+        try {
+            return AssetDataExtractor.extract(html);
+        } catch (Exception e) {
+            logger.warn("解析 assetDB JSON 失敗", e);
+            return new AssetDataExtractor.Extraction(null, null);
         }
-        return holdings;
     }
 
     /**
@@ -1,61 +1,396 @@
 package com.etf.tracker.scraper;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.jsoup.nodes.Entities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.etf.tracker.config.AppConfig;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Response;
 import com.microsoft.playwright.options.AriaRole;
+import com.microsoft.playwright.options.WaitUntilState;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Playwright 網頁客戶端
+ * <p>
+ * 以常駐的 Chromium 瀏覽器渲染頁面：驅動程式與瀏覽器只在第一次使用（或啟動預熱）時啟動，
+ * 之後每次抓取僅建立新的 {@link BrowserContext}，抓取延遲只剩頁面載入時間。
+ * </p>
+ * <p>
+ * Playwright Java 的物件不可跨執行緒使用，因此每個瀏覽器由專屬執行緒持有；
+ * 同時開啟的頁面數量即瀏覽器數量，由 {@code app.scraper.max-concurrent-pages} 限制。
+ * 瀏覽器中斷連線（例如程序崩潰）時會於下一次抓取前自動重新啟動，並隨 Spring 容器關閉。
+ * </p>
+ * <p>
+ * 持倉資料只在頁面內嵌的 {@code assetDB} 中，因此預設攔截圖片、字型、樣式表與追蹤腳本，
+ * 並在 HTML 解析完成後直接讀取 {@code assetDB}，回傳只含資料日期與 assetDB 的精簡 HTML；
+ * 頁面中沒有 assetDB 時才點擊持倉頁籤並序列化完整 DOM。
+ * {@link #fetchPage(String)} 另外回傳導覽請求的伺服器回應內容，供原始頁面封存使用。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
 @Component
 public class PlaywrightWebClient {
 
     private static final Logger logger = LoggerFactory.getLogger(PlaywrightWebClient.class);
 
-    public String fetchHtml(String url) {
-        logger.info("使用 Playwright 抓取 URL: {}", url);
-        try (Playwright playwright = Playwright.create()) {
-            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
-            BrowserContext context = browser.newContext();
-            Page page = context.newPage();
+    /** 等待可用瀏覽器的最長時間（分鐘） */
+    private static final long SLOT_WAIT_MINUTES = 2;
 
-            page.navigate(url);
+    /** 關閉時等待瀏覽器結束的最長時間（秒） */
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
 
-            // 等待頁面載入
-            page.waitForLoadState();
+    /** 不影響持倉資料的資源類型 */
+    private static final Set<String> BLOCKED_RESOURCE_TYPES = Set.of("image", "media", "font", "stylesheet");
 
-            // 嘗試點擊「基金投資組合」頁籤
-            try {
-                // 使用文字定位，這與我們在 agent 工具中看到的一致
-                Locator holdingsTab = page.getByRole(AriaRole.LINK, new Page.GetByRoleOptions().setName("基金投資組合"));
-                if (holdingsTab.isVisible()) {
-                    logger.info("點擊「基金投資組合」頁籤");
-                    holdingsTab.click();
-
-                    // 等待表格出現
-                    // 根據之前的觀察，表格在 #asset 區塊內
-                    page.waitForSelector("#asset table", new Page.WaitForSelectorOptions().setTimeout(5000));
-                } else {
-                    logger.warn("找不到「基金投資組合」頁籤");
+    /** 分析與廣告追蹤網域 */
+    private static final List<String> BLOCKED_HOSTS = List.of(
+            "google-analytics.com", "googletagmanager.com", "doubleclick.net",
+            "facebook.net", "facebook.com/tr", "hotjar.com", "clarity.ms");
+
+    /** 讀取 assetDB 與資料日期文字 */
+    private static final String CAPTURE_SCRIPT = """
+            () => {
+                if (typeof assetDB === 'undefined' || assetDB === null) {
+                    return null;
+                }
+                const label = Array.from(document.querySelectorAll('h5, p, span, td'))
+                        .map(element => element.textContent)
+                        .find(text => text && text.includes('資料日期'));
+                return { assets: JSON.stringify(assetDB), date: label || '' };
+            }
+            """;
+
+    private final Supplier<Playwright> driverFactory;
+    private final boolean blockResources;
+    private final AppConfig.CaptureMode captureMode;
+    private final List<BrowserSlot> slots;
+    private final BlockingQueue<BrowserSlot> idleSlots;
+    private final boolean warmUp;
+    private volatile boolean closed;
+
+    @Autowired
+    public PlaywrightWebClient(AppConfig appConfig) {
+        this(appConfig, Playwright::create);
+    }
+
+    PlaywrightWebClient(AppConfig appConfig, Supplier<Playwright> driverFactory) {
+        int size = Math.max(1, appConfig.getScraper().getMaxConcurrentPages());
+        this.driverFactory = driverFactory;
+        this.warmUp = appConfig.getScraper().isWarmUpBrowser();
+        this.blockResources = appConfig.getScraper().isBlockResources();
+        this.captureMode = appConfig.getScraper().getCaptureMode();
+        this.slots = new ArrayList<>(size);
+        this.idleSlots = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            BrowserSlot slot = new BrowserSlot(i);
+            slots.add(slot);
+            idleSlots.add(slot);
+        }
+    }
+
+    /**
+     * 啟動時預先啟動瀏覽器（非同步，不阻塞應用程式啟動）
+     */
+    @PostConstruct
+    public void init() {
+        if (!warmUp) {
+            return;
+        }
+        logger.info("預先啟動 {} 個 Playwright 瀏覽器", slots.size());
+        for (BrowserSlot slot : slots) {
+            slot.executor.execute(() -> {
+                try {
+                    slot.ensureBrowser();
+                } catch (Exception e) {
+                    logger.warn("預先啟動瀏覽器失敗，將於第一次抓取時重試: {}", e.getMessage());
                 }
-            } catch (Exception e) {
-                logger.warn("切換到持倉頁籤時發生錯誤 (可能是已經在該頁面或選擇器不匹配): {}", e.getMessage());
+            });
+        }
+    }
+
+    /**
+     * 關閉所有瀏覽器與 Playwright 驅動程式
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (BrowserSlot slot : slots) {
+            try {
+                slot.executor.submit(slot::close).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("關閉 Playwright 瀏覽器失敗: {}", e.getMessage());
+            } finally {
+                slot.executor.shutdownNow();
             }
+        }
+    }
 
-            // 獲取渲染後的 HTML
-            String content = page.content();
-            logger.debug("成功取得 HTML 內容，長度: {}", content.length());
+    public String fetchHtml(String url) {
+        return fetchPage(url).html();
+    }
 
-            return content;
+    /**
+     * 抓取頁面並同時取得伺服器回應的原始 HTML
+     *
+     * @param url 頁面 URL
+     * @return 擷取結果與導覽回應內容
+     */
+    public RenderedPage fetchPage(String url) {
+        if (closed) {
+            throw new IllegalStateException("Playwright 瀏覽器已關閉");
+        }
+        logger.info("使用 Playwright 抓取 URL: {}", url);
 
+        BrowserSlot slot = null;
+        try {
+            slot = idleSlots.poll(SLOT_WAIT_MINUTES, TimeUnit.MINUTES);
+            if (slot == null) {
+                throw new TimeoutException("等待可用的瀏覽器逾時");
+            }
+            BrowserSlot acquired = slot;
+            Future<RenderedPage> result = acquired.executor.submit(() -> acquired.render(url));
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Playwright 抓取失敗", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            logger.error("Playwright 抓取失敗: {}", cause.getMessage(), cause);
+            throw new RuntimeException("Playwright 抓取失敗", cause);
         } catch (Exception e) {
             logger.error("Playwright 抓取失敗: {}", e.getMessage(), e);
             throw new RuntimeException("Playwright 抓取失敗", e);
+        } finally {
+            if (slot != null) {
+                idleSlots.offer(slot);
+            }
+        }
+    }
+
+    // ==================== 資源攔截與資料擷取 ====================
+
+    /**
+     * 判斷請求是否為非必要資源
+     *
+     * @param resourceType Playwright 資源類型
+     * @param url          請求 URL
+     * @return true 如果應中止該請求
+     */
+    static boolean shouldBlock(String resourceType, String url) {
+        if (BLOCKED_RESOURCE_TYPES.contains(resourceType)) {
+            return true;
+        }
+        for (String host : BLOCKED_HOSTS) {
+            if (url.contains(host)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 從頁面讀取 assetDB 與資料日期，組成擷取策略可解析的精簡 HTML
+     *
+     * @return 精簡 HTML，頁面中沒有 assetDB 時回傳 null
+     */
+    private static String captureAssetData(Page page) {
+        Object result = page.evaluate(CAPTURE_SCRIPT);
+        if (!(result instanceof Map<?, ?> captured) || !(captured.get("assets") instanceof String assets)) {
+            return null;
+        }
+        Object date = captured.get("date");
+        return assetDocument(date instanceof String text ? text : "", assets);
+    }
+
+    /**
+     * 以資料日期文字與 assetDB JSON 組成精簡 HTML
+     * <p>
+     * 格式與原頁面一致（{@code <h5>資料日期...</h5>} 與 {@code var assetDB = [...];}），
+     * 因此 {@link EzMoneyScraperStrategy} 不需任何修改即可解析。
+     * </p>
+     */
+    static String assetDocument(String dateText, String assetJson) {
+        return "<html><body><h5>" + Entities.escape(dateText) + "</h5><script>var assetDB = "
+                + assetJson.replace("</", "<\\/") + ";</script></body></html>";
+    }
+
+    /**
+     * 讀取導覽回應的內容
+     *
+     * @return 伺服器回應的 HTML，沒有回應（例如同頁錨點）或內容已無法取得時回傳 null
+     */
+    private static String documentText(Response response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            return response.text();
+        } catch (Exception e) {
+            logger.debug("無法讀取導覽回應內容: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 瀏覽器抓取結果
+     *
+     * @param html         擷取的 HTML（精簡 assetDB 文件或渲染後的 DOM），供擷取策略解析
+     * @param documentHtml 導覽請求的伺服器回應 HTML（無法取得時為 null）
+     */
+    public record RenderedPage(String html, String documentHtml) {
+    }
+
+    // ==================== 瀏覽器 ====================
+
+    /**
+     * 單一常駐瀏覽器，所有 Playwright 呼叫皆在其專屬執行緒上執行
+     */
+    private final class BrowserSlot {
+
+        private final int id;
+        private final ExecutorService executor;
+        private Playwright playwright;
+        private Browser browser;
+
+        private BrowserSlot(int id) {
+            this.id = id;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "playwright-" + id);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * 取得可用的瀏覽器，尚未啟動或已中斷連線時重新啟動
+         */
+        private Browser ensureBrowser() {
+            if (browser != null && browser.isConnected()) {
+                return browser;
+            }
+            if (browser != null) {
+                logger.warn("瀏覽器 #{} 已中斷連線，重新啟動", id);
+            }
+            close();
+
+            long startTime = System.currentTimeMillis();
+            playwright = driverFactory.get();
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            logger.info("瀏覽器 #{} 已啟動，耗時 {} ms", id, System.currentTimeMillis() - startTime);
+            return browser;
+        }
+
+        private RenderedPage render(String url) {
+            Browser current = ensureBrowser();
+            try (BrowserContext context = current.newContext()) {
+                AtomicInteger blocked = new AtomicInteger();
+                if (blockResources) {
+                    context.route("**/*", route -> {
+                        if (shouldBlock(route.request().resourceType(), route.request().url())) {
+                            blocked.incrementAndGet();
+                            route.abort();
+                        } else {
+                            route.resume();
+                        }
+                    });
+                }
+                Page page = context.newPage();
+                String document;
+
+                if (captureMode == AppConfig.CaptureMode.ASSET_DATA) {
+                    // 只等待 HTML 解析完成，內嵌的 assetDB 此時已可讀取
+                    document = documentText(page.navigate(url,
+                            new Page.NavigateOptions().setWaitUntil(WaitUntilState.DOMCONTENTLOADED)));
+                    String captured = captureAssetData(page);
+                    if (captured != null) {
+                        logger.debug("直接擷取 assetDB，長度: {}，攔截 {} 個資源", captured.length(), blocked.get());
+                        return new RenderedPage(captured, document);
+                    }
+                    logger.warn("頁面中找不到 assetDB，改為序列化完整 DOM");
+                } else {
+                    document = documentText(page.navigate(url));
+                }
+
+                // 等待頁面載入
+                page.waitForLoadState();
+
+                // 嘗試點擊「基金投資組合」頁籤
+                try {
+                    // 使用文字定位，這與我們在 agent 工具中看到的一致
+                    Locator holdingsTab = page.getByRole(AriaRole.LINK,
+                            new Page.GetByRoleOptions().setName("基金投資組合"));
+                    if (holdingsTab.isVisible()) {
+                        logger.info("點擊「基金投資組合」頁籤");
+                        holdingsTab.click();
+
+                        // 等待表格出現
+                        // 根據之前的觀察，表格在 #asset 區塊內
+                        page.waitForSelector("#asset table", new Page.WaitForSelectorOptions().setTimeout(5000));
+                    } else {
+                        logger.warn("找不到「基金投資組合」頁籤");
+                    }
+                } catch (Exception e) {
+                    logger.warn("切換到持倉頁籤時發生錯誤 (可能是已經在該頁面或選擇器不匹配): {}", e.getMessage());
+                }
+
+                // 獲取渲染後的 HTML
+                String content = page.content();
+                logger.debug("成功取得 HTML 內容，長度: {}，攔截 {} 個資源", content.length(), blocked.get());
+
+                return new RenderedPage(content, document);
+            }
+        }
+
+        private void close() {
+            if (browser != null) {
+                try {
+                    browser.close();
+                } catch (Exception e) {
+                    logger.debug("關閉瀏覽器 #{} 失敗: {}", id, e.getMessage());
+                }
+                browser = null;
+            }
+            if (playwright != null) {
+                try {
+                    playwright.close();
+                } catch (Exception e) {
+                    logger.debug("關閉 Playwright 驅動程式 #{} 失敗: {}", id, e.getMessage());
+                }
+                playwright = null;
+            }
         }
     }
 }
@@ -0,0 +1,167 @@
+package com.etf.tracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.scraper.EzMoneyScraperStrategy;
+
+/**
+ * 封存頁面重播服務
+ * <p>
+ * 以目前的 {@link EzMoneyScraperStrategy} 重新解析 {@link RawPageArchive} 中的原始頁面並寫回儲存，
+ * 用於解析規則變更後找回當時解析失敗或解析錯誤的歷史資料。
+ * 同時作為 {@link SnapshotArchiveSource}，供啟動時的缺漏補齊使用。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class ArchiveReplayService implements SnapshotArchiveSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveReplayService.class);
+
+    private final RawPageArchive archive;
+    private final EzMoneyScraperStrategy scraperStrategy;
+    private final FundStorageRegistry fundStorageRegistry;
+
+    public ArchiveReplayService(RawPageArchive archive,
+            EzMoneyScraperStrategy scraperStrategy,
+            FundStorageRegistry fundStorageRegistry) {
+        this.archive = archive;
+        this.scraperStrategy = scraperStrategy;
+        this.fundStorageRegistry = fundStorageRegistry;
+    }
+
+    /**
+     * 由封存中當時解析為指定日期的頁面（最新抓取者優先）重新解析
+     */
+    @Override
+    public Optional<DailySnapshot> load(String fundCode, LocalDate date) {
+        List<RawPageArchive.Entry> candidates = archive.getEntries().stream()
+                .filter(entry -> entry.matches(fundCode, date))
+                .sorted(Comparator.comparing(RawPageArchive.Entry::fetchedAt).reversed())
+                .toList();
+        for (RawPageArchive.Entry entry : candidates) {
+            Optional<DailySnapshot> snapshot = parse(entry);
+            if (snapshot.isPresent() && date.equals(snapshot.get().getDate())) {
+                return snapshot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 重新解析封存頁面並寫回儲存
+     * <p>
+     * 頁面以 CPU 核心數的執行緒平行解析；同一基金同一日期有多個頁面時以最後抓取者為準，
+     * 每個基金的結果以一次批次寫入。當時解析失敗（沒有資料日期）的頁面一律重新解析。
+     * </p>
+     *
+     * @param from      起始日期（null 表示不限）
+     * @param to        結束日期（null 表示不限）
+     * @param overwrite 是否覆寫已儲存的日期（false 時只補上缺少的日期）
+     * @return 重播結果
+     */
+    public ReplayResult replay(LocalDate from, LocalDate to, boolean overwrite) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("起始日期不可晚於結束日期");
+        }
+        long startTime = System.currentTimeMillis();
+        List<RawPageArchive.Entry> entries = archive.getEntries().stream()
+                .filter(entry -> entry.dataDate() == null || inRange(entry.dataDate(), from, to))
+                .toList();
+        logger.info("開始重播封存頁面: {} 頁, 範圍 {} ~ {}, 覆寫={}", entries.size(), from, to, overwrite);
+
+        List<Future<Optional<DailySnapshot>>> futures = new ArrayList<>(entries.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors()))) {
+            for (RawPageArchive.Entry entry : entries) {
+                futures.add(executor.submit(() -> parse(entry)));
+            }
+        }
+
+        // 基金代碼 → 日期 → 快照（依抓取時間處理，較晚抓取的頁面取代較早的）
+        Map<String, Map<LocalDate, DailySnapshot>> byFund = new LinkedHashMap<>();
+        int failed = 0;
+        for (Future<Optional<DailySnapshot>> future : futures) {
+            Optional<DailySnapshot> snapshot = future.resultNow();
+            if (snapshot.isEmpty()) {
+                failed++;
+                continue;
+            }
+            DailySnapshot parsed = snapshot.get();
+            if (inRange(parsed.getDate(), from, to)) {
+                byFund.computeIfAbsent(parsed.getFundCode(), code -> new TreeMap<>()).put(parsed.getDate(), parsed);
+            }
+        }
+
+        int saved = 0;
+        int skipped = 0;
+        for (Map.Entry<String, Map<LocalDate, DailySnapshot>> fund : byFund.entrySet()) {
+            StorageService storage = fundStorageRegistry.storageFor(fund.getKey());
+            Set<LocalDate> existing = overwrite ? Set.of() : new HashSet<>(storage.getAvailableDates());
+            List<DailySnapshot> batch = fund.getValue().values().stream()
+                    .filter(snapshot -> !existing.contains(snapshot.getDate()))
+                    .toList();
+            skipped += fund.getValue().size() - batch.size();
+            if (!batch.isEmpty()) {
+                storage.saveSnapshots(batch);
+                saved += batch.size();
+                logger.info("基金 {} 由封存寫回 {} 個日期", fund.getKey(), batch.size());
+            }
+        }
+
+        ReplayResult result = new ReplayResult(entries.size(), entries.size() - failed, failed, saved, skipped,
+                System.currentTimeMillis() - startTime);
+        logger.info("封存重播完成: {}", result);
+        return result;
+    }
+
+    private Optional<DailySnapshot> parse(RawPageArchive.Entry entry) {
+        try {
+            DailySnapshot snapshot = scraperStrategy.parseHoldings(archive.read(entry.hash()));
+            if (snapshot.getDate() == null || snapshot.getHoldings().isEmpty()) {
+                return Optional.empty();
+            }
+            snapshot.setFundCode(entry.fundCode());
+            return Optional.of(snapshot);
+        } catch (Exception e) {
+            logger.warn("重新解析封存頁面失敗: 基金={}, 雜湊={}, {}", entry.fundCode(), entry.hash(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static boolean inRange(LocalDate date, LocalDate from, LocalDate to) {
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    /**
+     * 重播結果
+     *
+     * @param pages         處理的封存頁面數
+     * @param parsed        解析成功的頁面數
+     * @param failed        解析失敗的頁面數
+     * @param saved         寫回儲存的日期數
+     * @param skipped       已儲存而略過的日期數
+     * @param elapsedMillis 耗時（毫秒）
+     */
+    public record ReplayResult(int pages, int parsed, int failed, int saved, int skipped, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,396 @@
+package com.etf.tracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+
+/**
+ * 快取儲存服務
+ * <p>
+ * 包裝任一 {@link StorageService}，將讀取過的快照保留於記憶體：
+ * <ul>
+ * <li>快照以日期為鍵，依成分股筆數計算容量，超過上限時淘汰最久未使用的日期</li>
+ * <li>可用日期清單另外快取，並用於直接回應不存在的日期</li>
+ * <li>寫入與清理時使受影響的日期及日期清單失效</li>
+ * <li>項目超過存活時間後重新讀取，以反映外部（例如 Google Sheets）的更新</li>
+ * </ul>
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public class CachingStorageService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingStorageService.class);
+
+    /**
+     * 快取統計
+     *
+     * @param hits       命中次數
+     * @param misses     未命中次數
+     * @param evictions  因容量不足而淘汰的次數
+     * @param entries    目前快取的日期數
+     * @param weight     目前快取的成分股筆數
+     * @param maxWeight  成分股筆數上限
+     * @param hitRate    命中率（0 ~ 1）
+     */
+    public record CacheStatistics(
+            long hits,
+            long misses,
+            long evictions,
+            int entries,
+            long weight,
+            long maxWeight,
+            double hitRate) {
+    }
+
+    private record Entry(DailySnapshot snapshot, int weight, long loadedAt) {
+    }
+
+    private record CachedDates(List<LocalDate> dates, long loadedAt) {
+    }
+
+    private final StorageService delegate;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    /** 依存取順序排列的快照快取（以自身為鎖） */
+    private final LinkedHashMap<LocalDate, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentWeight;
+
+    private volatile CachedDates cachedDates;
+
+    /** 每次寫入開始與結束時各遞增一次，讀取期間若有寫入則不放入快取 */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** 進行中的寫入數；讀取開始時若有寫入進行中，讀到的可能是舊資料，一律不放入快取 */
+    private final AtomicInteger activeWrites = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingStorageService(StorageService delegate, AppConfig.CacheConfig config) {
+        this(delegate, config, System::nanoTime);
+    }
+
+    CachingStorageService(StorageService delegate, AppConfig.CacheConfig config, LongSupplier clock) {
+        this.delegate = delegate;
+        this.maxWeight = Math.max(1, config.getMaxHoldings());
+        this.ttlNanos = config.getTtlSeconds() > 0 ? config.getTtlSeconds() * 1_000_000_000L : Long.MAX_VALUE;
+        this.clock = clock;
+    }
+
+    @Override
+    public void saveSnapshot(DailySnapshot snapshot) {
+        beginWrite();
+        try {
+            delegate.saveSnapshot(snapshot);
+        } finally {
+            if (snapshot != null && snapshot.getDate() != null) {
+                invalidate(snapshot.getDate());
+            }
+            cachedDates = null;
+            endWrite();
+        }
+    }
+
+    @Override
+    public void saveSnapshots(List<DailySnapshot> snapshots) {
+        beginWrite();
+        try {
+            delegate.saveSnapshots(snapshots);
+        } finally {
+            for (DailySnapshot snapshot : snapshots) {
+                if (snapshot != null && snapshot.getDate() != null) {
+                    invalidate(snapshot.getDate());
+                }
+            }
+            cachedDates = null;
+            endWrite();
+        }
+    }
+
+    @Override
+    public Optional<DailySnapshot> getSnapshot(LocalDate date) {
+        Entry entry = lookup(date);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return Optional.of(copyOf(entry.snapshot()));
+        }
+
+        // 日期清單已快取且不含此日期時，不需要讀取底層儲存
+        CachedDates dates = cachedDates;
+        if (dates != null && !isExpired(dates.loadedAt()) && !dates.dates().contains(date)) {
+            hits.incrementAndGet();
+            return Optional.empty();
+        }
+
+        misses.incrementAndGet();
+        long observed = beginRead();
+        Optional<DailySnapshot> loaded = delegate.getSnapshot(date);
+        loaded.ifPresent(snapshot -> store(date, snapshot, observed));
+        return loaded.map(CachingStorageService::copyOf);
+    }
+
+    /**
+     * 取得多個指定日期的快照
+     * <p>
+     * 快取中已有的日期直接回應，其餘日期以一次批次讀取向底層儲存取得
+     * （日期範圍查詢由預設實作經快取的日期清單轉為此方法）
+     * </p>
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        CachedDates known = cachedDates;
+        boolean knownValid = known != null && !isExpired(known.loadedAt());
+
+        for (LocalDate date : new TreeSet<>(dates)) {
+            Entry entry = lookup(date);
+            if (entry != null) {
+                hits.incrementAndGet();
+                result.put(date, copyOf(entry.snapshot()));
+            } else if (knownValid && !known.dates().contains(date)) {
+                hits.incrementAndGet();
+            } else {
+                missing.add(date);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            long observed = beginRead();
+            delegate.getSnapshots(missing).forEach((date, snapshot) -> {
+                store(date, snapshot, observed);
+                result.put(date, copyOf(snapshot));
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 開啟持倉資料列游標（大量掃描不經過快取，以免淘汰常用的日期）
+     */
+    @Override
+    public HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        return delegate.openCursor(from, to);
+    }
+
+    @Override
+    public Optional<DailySnapshot> getLatestSnapshot() {
+        List<LocalDate> dates = getAvailableDates();
+        if (dates.isEmpty()) {
+            return Optional.empty();
+        }
+        return getSnapshot(dates.get(0));
+    }
+
+    @Override
+    public List<LocalDate> getAvailableDates() {
+        CachedDates dates = cachedDates;
+        if (dates != null && !isExpired(dates.loadedAt())) {
+            hits.incrementAndGet();
+            return dates.dates();
+        }
+
+        misses.incrementAndGet();
+        long observed = beginRead();
+        List<LocalDate> loaded = List.copyOf(delegate.getAvailableDates());
+        if (isCurrent(observed)) {
+            cachedDates = new CachedDates(loaded, clock.getAsLong());
+        }
+        return loaded;
+    }
+
+    @Override
+    public int countRecordsBefore(LocalDate cutoffDate) {
+        return delegate.countRecordsBefore(cutoffDate);
+    }
+
+    @Override
+    public int getTotalRecordCount() {
+        return delegate.getTotalRecordCount();
+    }
+
+    @Override
+    public int deleteDataBefore(LocalDate cutoffDate) {
+        beginWrite();
+        try {
+            return delegate.deleteDataBefore(cutoffDate);
+        } finally {
+            synchronized (entries) {
+                Iterator<Map.Entry<LocalDate, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<LocalDate, Entry> entry = iterator.next();
+                    if (entry.getKey().isBefore(cutoffDate)) {
+                        currentWeight -= entry.getValue().weight();
+                        iterator.remove();
+                    }
+                }
+            }
+            cachedDates = null;
+            endWrite();
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public String getDataSourceInfo() {
+        return delegate.getDataSourceInfo();
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(delegate.getMetrics());
+        metrics.put("cache", getStatistics());
+        return metrics;
+    }
+
+    // ==================== 快取管理 ====================
+
+    /**
+     * 取得快取統計
+     */
+    public CacheStatistics getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        synchronized (entries) {
+            return new CacheStatistics(hitCount, missCount, evictions.get(), entries.size(), currentWeight,
+                    maxWeight, total == 0 ? 0.0 : (double) hitCount / total);
+        }
+    }
+
+    /**
+     * 清除所有快取項目（統計數字保留）
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+            currentWeight = 0;
+        }
+        cachedDates = null;
+    }
+
+    /**
+     * 寫入開始：先登記進行中的寫入，再遞增世代
+     */
+    private void beginWrite() {
+        activeWrites.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 寫入結束（已使受影響的項目失效）：先遞增世代，再解除登記
+     */
+    private void endWrite() {
+        generation.incrementAndGet();
+        activeWrites.decrementAndGet();
+    }
+
+    /**
+     * 讀取底層儲存前記下目前的世代
+     * <p>
+     * 有寫入進行中時回傳 -1，該次讀取的結果不放入快取。
+     * 寫入先登記再遞增世代，因此讀到已遞增的世代時必定也看得到進行中的寫入
+     * </p>
+     */
+    private long beginRead() {
+        long observed = generation.get();
+        return activeWrites.get() > 0 ? -1 : observed;
+    }
+
+    /**
+     * 讀取開始後沒有任何寫入開始或進行中時，讀到的資料才可放入快取
+     */
+    private boolean isCurrent(long observedGeneration) {
+        return observedGeneration >= 0 && generation.get() == observedGeneration;
+    }
+
+    private Entry lookup(LocalDate date) {
+        synchronized (entries) {
+            Entry entry = entries.get(date);
+            if (entry != null && isExpired(entry.loadedAt())) {
+                entries.remove(date);
+                currentWeight -= entry.weight();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void store(LocalDate date, DailySnapshot snapshot, long observedGeneration) {
+        int weight = Math.max(1, snapshot.getHoldings().size());
+        if (weight > maxWeight) {
+            return;
+        }
+
+        synchronized (entries) {
+            // 讀取期間有寫入時，讀到的資料可能已過時
+            if (!isCurrent(observedGeneration)) {
+                return;
+            }
+            Entry previous = entries.put(date, new Entry(copyOf(snapshot), weight, clock.getAsLong()));
+            if (previous != null) {
+                currentWeight -= previous.weight();
+            }
+            currentWeight += weight;
+
+            Iterator<Map.Entry<LocalDate, Entry>> eldest = entries.entrySet().iterator();
+            while (currentWeight > maxWeight && eldest.hasNext()) {
+                Map.Entry<LocalDate, Entry> victim = eldest.next();
+                currentWeight -= victim.getValue().weight();
+                eldest.remove();
+                evictions.incrementAndGet();
+                logger.debug("快取容量已滿，淘汰日期: {}", victim.getKey());
+            }
+        }
+    }
+
+    private void invalidate(LocalDate date) {
+        synchronized (entries) {
+            Entry removed = entries.remove(date);
+            if (removed != null) {
+                currentWeight -= removed.weight();
+            }
+        }
+    }
+
+    private boolean isExpired(long loadedAt) {
+        return clock.getAsLong() - loadedAt >= ttlNanos;
+    }
+
+    /**
+     * 複製快照，避免呼叫端修改快取中的內容
+     */
+    private static DailySnapshot copyOf(DailySnapshot snapshot) {
+        DailySnapshot copy = new DailySnapshot(snapshot.getDate(), snapshot.getHoldings(),
+                snapshot.getTotalCount(), snapshot.getTotalWeight());
+        copy.setFundCode(snapshot.getFundCode());
+        return copy;
+    }
+}
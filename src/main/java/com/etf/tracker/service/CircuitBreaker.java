@@ -0,0 +1,161 @@
+package com.etf.tracker.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 斷路器
+ * <p>
+ * 保護對外部服務的呼叫：
+ * <ul>
+ * <li>CLOSED：正常放行；連續失敗（含超過延遲門檻的慢速呼叫）達門檻時跳脫為 OPEN</li>
+ * <li>OPEN：直接拒絕，呼叫端立即改用備援；經過開啟時間後轉為 HALF_OPEN</li>
+ * <li>HALF_OPEN：只放行一個探測呼叫，成功則回到 CLOSED，失敗則重新開啟</li>
+ * </ul>
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class CircuitBreaker {
+
+    /**
+     * 斷路器狀態
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * 斷路器統計
+     *
+     * @param state               目前狀態
+     * @param consecutiveFailures 連續失敗次數
+     * @param successes           成功次數
+     * @param failures            失敗次數（含慢速呼叫）
+     * @param slowCalls           慢速呼叫次數
+     * @param rejected            因斷路而拒絕的次數
+     * @param trips               跳脫次數
+     * @param lastLatencyMillis   最近一次呼叫延遲（毫秒）
+     * @param openedAt            最近一次跳脫的時間
+     */
+    public record Status(
+            State state,
+            int consecutiveFailures,
+            long successes,
+            long failures,
+            long slowCalls,
+            long rejected,
+            long trips,
+            Long lastLatencyMillis,
+            Instant openedAt) {
+    }
+
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private boolean probeInFlight;
+    private long openedAtNanos;
+    private Instant openedAt;
+
+    private long successes;
+    private long failures;
+    private long slowCalls;
+    private long rejected;
+    private long trips;
+    private Long lastLatencyMillis;
+
+    CircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration) {
+        this(failureThreshold, slowCallThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration, LongSupplier clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("失敗門檻必須大於 0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * 是否放行這次呼叫；放行後必須回報 {@link #onSuccess(long)} 或 {@link #onFailure(long)}
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAtNanos < openNanos) {
+                    rejected++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    rejected++;
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * 回報呼叫成功（超過延遲門檻時視為失敗）
+     *
+     * @param latencyNanos 呼叫延遲
+     */
+    synchronized void onSuccess(long latencyNanos) {
+        lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        if (latencyNanos >= slowCallNanos) {
+            slowCalls++;
+            recordFailure();
+            return;
+        }
+        successes++;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 回報呼叫失敗
+     *
+     * @param latencyNanos 呼叫延遲
+     */
+    synchronized void onFailure(long latencyNanos) {
+        lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        recordFailure();
+    }
+
+    synchronized Status getStatus() {
+        return new Status(state, consecutiveFailures, successes, failures, slowCalls, rejected, trips,
+                lastLatencyMillis, openedAt);
+    }
+
+    private void recordFailure() {
+        failures++;
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                trips++;
+            }
+            state = State.OPEN;
+            openedAtNanos = clock.getAsLong();
+            openedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,816 @@
+package com.etf.tracker.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.exception.StorageException;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 欄式儲存服務
+ * <p>
+ * 以固定寬度的二進位欄位檔存放快照，並以記憶體映射（{@link MappedByteBuffer}）讀取，
+ * 啟動與查詢皆不需解析 Excel。檔案存放於 {@code <file-name>.columnar/} 目錄：
+ * <ul>
+ * <li>{@code days-N.col}：日期欄（依日期排序，每筆為 epoch day、起始列、列數）</li>
+ * <li>{@code code-N.col}：股票字典 ID（int）</li>
+ * <li>{@code shares-N.col}：股數（long）</li>
+ * <li>{@code weight-N.col}：權重（固定 6 位小數的 long）</li>
+ * <li>{@code dict.bin}：股票代號與名稱字典（只附加）</li>
+ * <li>{@code CURRENT}：目前使用的檔案世代 N</li>
+ * </ul>
+ * 寫入最新日期時直接附加於檔尾，日期欄最後寫入作為提交點；覆寫或刪除舊資料時
+ * 寫出新世代檔案後再切換 {@code CURRENT}，不修改仍在映射中的檔案。
+ * </p>
+ * <p>
+ * Excel 僅作為匯出格式：首次啟動時由既有 Excel 檔案匯入；啟用 {@code app.data.excel-export} 時，
+ * 寫入後於背景匯出（連續寫入合併為一次）並於關閉時補上最後一次，寫入本身不等待匯出
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.data.backend", havingValue = "columnar")
+public class ColumnarStorageService implements LocalStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarStorageService.class);
+
+    /** 權重的固定小數位數 */
+    static final int WEIGHT_SCALE = 6;
+
+    private static final int MAGIC = 0x45544643; // "ETFC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int DAYS_HEADER_BYTES = 8;
+    private static final int DAY_ENTRY_BYTES = 16;
+
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String DICTIONARY_FILE = "dict.bin";
+    private static final String DAYS = "days";
+    private static final String CODE = "code";
+    private static final String SHARES = "shares";
+    private static final String WEIGHT = "weight";
+    private static final Pattern COLUMN_FILE_PATTERN = Pattern.compile("(days|code|shares|weight)-(\\d+)\\.col");
+
+    /**
+     * 單一日期的欄位資料（寫入與重寫時使用）
+     */
+    private record DayColumns(long epochDay, int[] codeIds, long[] shares, long[] weights) {
+    }
+
+    private final AppConfig appConfig;
+    private final Path directory;
+    private final Path excelPath;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 字典：ID → {股票代號, 股票名稱} */
+    private final List<String[]> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+
+    private int generation;
+    private int dayCount;
+    private int rowCount;
+    private MappedByteBuffer days;
+    private MappedByteBuffer codes;
+    private MappedByteBuffer shares;
+    private MappedByteBuffer weights;
+
+    /** 背景匯出 Excel（單一執行緒，匯出期間的寫入會再排入一次） */
+    private final ExecutorService exporter;
+    private final AtomicBoolean exportScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean exportPending = new AtomicBoolean(false);
+    private final Object exportLock = new Object();
+
+    public ColumnarStorageService(AppConfig appConfig) {
+        this.appConfig = appConfig;
+        Path storagePath = Path.of(appConfig.getData().getStoragePath());
+        String fileName = appConfig.getData().getFileName();
+        int dot = fileName.lastIndexOf('.');
+        this.excelPath = storagePath.resolve(fileName);
+        this.directory = storagePath.resolve((dot > 0 ? fileName.substring(0, dot) : fileName) + ".columnar");
+        this.exporter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "columnar-excel-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        lock.writeLock().lock();
+        try {
+            boolean firstStart = !Files.exists(directory.resolve(CURRENT_FILE));
+            open();
+            if (firstStart && Files.exists(excelPath)) {
+                importFromExcel();
+            }
+            logger.info("欄式儲存已開啟: 目錄={}, 日期數={}, 資料列數={}", directory, dayCount, rowCount);
+        } catch (IOException e) {
+            throw StorageException.readError(directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 停止背景匯出，尚未匯出的寫入於關閉前補上
+     */
+    @PreDestroy
+    public void shutdown() {
+        exporter.shutdown();
+        try {
+            if (!exporter.awaitTermination(60, TimeUnit.SECONDS)) {
+                logger.warn("背景匯出 Excel 未在時限內完成");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (exportPending.get()) {
+            exportQuietly();
+        }
+    }
+
+    /**
+     * 儲存每日快照
+     * <p>
+     * 晚於所有既有日期時直接附加；否則寫出新世代檔案
+     * </p>
+     *
+     * @param snapshot 每日快照
+     */
+    @Override
+    public void saveSnapshot(DailySnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("快照不可為 null");
+        }
+        if (snapshot.getDate() == null) {
+            throw new IllegalArgumentException("快照日期不可為 null");
+        }
+
+        lock.writeLock().lock();
+        try {
+            DayColumns day = encode(snapshot);
+            int index = search(day.epochDay());
+
+            if (index < 0 && -(index + 1) == dayCount) {
+                append(day);
+            } else {
+                List<DayColumns> all = readAll();
+                if (index >= 0) {
+                    all.set(index, day);
+                } else {
+                    all.add(-(index + 1), day);
+                }
+                rewrite(all);
+            }
+            logger.info("快照儲存成功: {}", snapshot.getDate());
+
+            requestExport();
+        } catch (IOException e) {
+            logger.error("儲存快照失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 取得指定日期的快照（二分搜尋日期欄後直接讀取映射的欄位）
+     */
+    @Override
+    public Optional<DailySnapshot> getSnapshot(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            int index = search(date.toEpochDay());
+            return index >= 0 ? Optional.of(readSnapshot(index)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<DailySnapshot> getLatestSnapshot() {
+        lock.readLock().lock();
+        try {
+            return dayCount > 0 ? Optional.of(readSnapshot(dayCount - 1)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<LocalDate> getAvailableDates() {
+        lock.readLock().lock();
+        try {
+            List<LocalDate> dates = new ArrayList<>(dayCount);
+            for (int i = dayCount - 1; i >= 0; i--) {
+                dates.add(LocalDate.ofEpochDay(epochDayAt(i)));
+            }
+            return dates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 計算指定日期之前的記錄數（資料列依日期排序，即為截止日期第一列的位置）
+     */
+    @Override
+    public int countRecordsBefore(LocalDate cutoffDate) {
+        lock.readLock().lock();
+        try {
+            return firstRowOf(lowerBound(cutoffDate.toEpochDay()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getTotalRecordCount() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 刪除指定日期之前的資料（寫出只含保留日期的新世代檔案）
+     */
+    @Override
+    public int deleteDataBefore(LocalDate cutoffDate) {
+        lock.writeLock().lock();
+        try {
+            int keepFrom = lowerBound(cutoffDate.toEpochDay());
+            if (keepFrom == 0) {
+                return 0;
+            }
+
+            int deleted = firstRowOf(keepFrom);
+            List<DayColumns> all = readAll();
+            rewrite(new ArrayList<>(all.subList(keepFrom, all.size())));
+            logger.info("已刪除 {} 筆過期資料（{}之前）", deleted, cutoffDate);
+
+            requestExport();
+            return deleted;
+        } catch (IOException e) {
+            logger.error("刪除過期資料失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getDataSourceInfo() {
+        return "本地欄式儲存";
+    }
+
+    // ==================== 讀取 ====================
+
+    private long epochDayAt(int index) {
+        return days.getLong(DAYS_HEADER_BYTES + index * DAY_ENTRY_BYTES);
+    }
+
+    private int startAt(int index) {
+        return days.getInt(DAYS_HEADER_BYTES + index * DAY_ENTRY_BYTES + 8);
+    }
+
+    private int countAt(int index) {
+        return days.getInt(DAYS_HEADER_BYTES + index * DAY_ENTRY_BYTES + 12);
+    }
+
+    private int firstRowOf(int dayIndex) {
+        return dayIndex < dayCount ? startAt(dayIndex) : rowCount;
+    }
+
+    /**
+     * 二分搜尋日期
+     *
+     * @return 日期索引，不存在時為 -(插入位置 + 1)
+     */
+    private int search(long epochDay) {
+        int low = 0;
+        int high = dayCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = epochDayAt(mid);
+            if (value < epochDay) {
+                low = mid + 1;
+            } else if (value > epochDay) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 第一個不早於指定日期的日期索引
+     */
+    private int lowerBound(long epochDay) {
+        int index = search(epochDay);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private DailySnapshot readSnapshot(int index) {
+        int start = startAt(index);
+        int count = countAt(index);
+
+        List<Holding> holdings = new ArrayList<>(count);
+        BigDecimal totalWeight = BigDecimal.ZERO;
+        for (int row = start; row < start + count; row++) {
+            String[] entry = dictionary.get(codes.getInt(row * Integer.BYTES));
+            BigDecimal weight = fromScaled(weights.getLong(row * Long.BYTES));
+            holdings.add(Holding.builder()
+                    .stockCode(entry[0])
+                    .stockName(entry[1])
+                    .shares(shares.getLong(row * Long.BYTES))
+                    .weight(weight)
+                    .build());
+            totalWeight = totalWeight.add(weight);
+        }
+
+        return DailySnapshot.builder()
+                .date(LocalDate.ofEpochDay(epochDayAt(index)))
+                .holdings(holdings)
+                .totalCount(holdings.size())
+                .totalWeight(totalWeight)
+                .build();
+    }
+
+    private List<DayColumns> readAll() {
+        List<DayColumns> all = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) {
+            int start = startAt(i);
+            int count = countAt(i);
+            int[] codeIds = new int[count];
+            long[] shareValues = new long[count];
+            long[] weightValues = new long[count];
+            for (int k = 0; k < count; k++) {
+                codeIds[k] = codes.getInt((start + k) * Integer.BYTES);
+                shareValues[k] = shares.getLong((start + k) * Long.BYTES);
+                weightValues[k] = weights.getLong((start + k) * Long.BYTES);
+            }
+            all.add(new DayColumns(epochDayAt(i), codeIds, shareValues, weightValues));
+        }
+        return all;
+    }
+
+    // ==================== 寫入 ====================
+
+    /**
+     * 將快照編碼為欄位資料，新的股票代號與名稱會先附加至字典檔
+     */
+    private DayColumns encode(DailySnapshot snapshot) throws IOException {
+        List<Holding> holdings = snapshot.getHoldings();
+        int[] codeIds = new int[holdings.size()];
+        long[] shareValues = new long[holdings.size()];
+        long[] weightValues = new long[holdings.size()];
+        List<String[]> newEntries = new ArrayList<>();
+
+        for (int i = 0; i < holdings.size(); i++) {
+            Holding holding = holdings.get(i);
+            String code = holding.getStockCode() != null ? holding.getStockCode() : "";
+            String name = holding.getStockName() != null ? holding.getStockName() : "";
+            String key = code + '\u0000' + name;
+
+            Integer id = dictionaryIds.get(key);
+            if (id == null) {
+                id = dictionary.size();
+                String[] entry = { code, name };
+                dictionary.add(entry);
+                dictionaryIds.put(key, id);
+                newEntries.add(entry);
+            }
+            codeIds[i] = id;
+            shareValues[i] = holding.getShares() != null ? holding.getShares() : 0L;
+            weightValues[i] = toScaled(holding.getWeight());
+        }
+
+        if (!newEntries.isEmpty()) {
+            try {
+                appendDictionary(newEntries);
+            } catch (IOException e) {
+                // 字典檔未寫入成功，撤銷記憶體中的新項目以維持 ID 與檔案一致
+                for (String[] entry : newEntries) {
+                    dictionaryIds.remove(entry[0] + '\u0000' + entry[1]);
+                }
+                dictionary.subList(dictionary.size() - newEntries.size(), dictionary.size()).clear();
+                throw e;
+            }
+        }
+        return new DayColumns(snapshot.getDate().toEpochDay(), codeIds, shareValues, weightValues);
+    }
+
+    /**
+     * 附加最新日期：先寫入各欄位，最後寫入日期欄作為提交點
+     */
+    private void append(DayColumns day) throws IOException {
+        int count = day.codeIds().length;
+
+        ByteBuffer codeBuffer = ByteBuffer.allocate(count * Integer.BYTES);
+        ByteBuffer sharesBuffer = ByteBuffer.allocate(count * Long.BYTES);
+        ByteBuffer weightBuffer = ByteBuffer.allocate(count * Long.BYTES);
+        for (int i = 0; i < count; i++) {
+            codeBuffer.putInt(day.codeIds()[i]);
+            sharesBuffer.putLong(day.shares()[i]);
+            weightBuffer.putLong(day.weights()[i]);
+        }
+        writeAt(columnPath(CODE, generation), (long) rowCount * Integer.BYTES, codeBuffer.flip());
+        writeAt(columnPath(SHARES, generation), (long) rowCount * Long.BYTES, sharesBuffer.flip());
+        writeAt(columnPath(WEIGHT, generation), (long) rowCount * Long.BYTES, weightBuffer.flip());
+
+        ByteBuffer entry = ByteBuffer.allocate(DAY_ENTRY_BYTES)
+                .putLong(day.epochDay())
+                .putInt(rowCount)
+                .putInt(count);
+        writeAt(columnPath(DAYS, generation), DAYS_HEADER_BYTES + (long) dayCount * DAY_ENTRY_BYTES, entry.flip());
+
+        dayCount++;
+        rowCount += count;
+        map();
+    }
+
+    /**
+     * 寫出新世代檔案並切換
+     */
+    private void rewrite(List<DayColumns> all) throws IOException {
+        int previous = generation;
+        int next = generation + 1;
+
+        writeGeneration(next, all);
+        publishGeneration(next);
+
+        generation = next;
+        dayCount = all.size();
+        rowCount = all.stream().mapToInt(day -> day.codeIds().length).sum();
+        map();
+        deleteGeneration(previous);
+    }
+
+    private void writeGeneration(int gen, List<DayColumns> all) throws IOException {
+        try (ColumnWriter daysOut = new ColumnWriter(columnPath(DAYS, gen));
+                ColumnWriter codeOut = new ColumnWriter(columnPath(CODE, gen));
+                ColumnWriter sharesOut = new ColumnWriter(columnPath(SHARES, gen));
+                ColumnWriter weightOut = new ColumnWriter(columnPath(WEIGHT, gen))) {
+
+            daysOut.out.writeInt(MAGIC);
+            daysOut.out.writeInt(FORMAT_VERSION);
+
+            int start = 0;
+            for (DayColumns day : all) {
+                int count = day.codeIds().length;
+                daysOut.out.writeLong(day.epochDay());
+                daysOut.out.writeInt(start);
+                daysOut.out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    codeOut.out.writeInt(day.codeIds()[i]);
+                    sharesOut.out.writeLong(day.shares()[i]);
+                    weightOut.out.writeLong(day.weights()[i]);
+                }
+                start += count;
+            }
+        }
+    }
+
+    private void publishGeneration(int gen) throws IOException {
+        Path current = directory.resolve(CURRENT_FILE);
+        Path tempFile = directory.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(tempFile, String.valueOf(gen));
+        try {
+            Files.move(tempFile, current, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, current, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void appendDictionary(List<String[]> entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(DICTIONARY_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (String[] entry : entries) {
+                out.writeUTF(entry[0]);
+                out.writeUTF(entry[1]);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private void writeAt(Path path, long position, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long offset = position;
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 欄位檔寫入器（關閉時同步至磁碟）
+     */
+    private static final class ColumnWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+
+        private ColumnWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // ==================== 開啟與復原 ====================
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+
+        Path current = directory.resolve(CURRENT_FILE);
+        if (Files.exists(current)) {
+            generation = Integer.parseInt(Files.readString(current).trim());
+        } else {
+            generation = 0;
+            writeGeneration(0, List.of());
+            publishGeneration(0);
+        }
+
+        deleteStaleGenerations();
+        loadDictionary();
+        recover();
+        map();
+    }
+
+    /**
+     * 載入字典，捨棄寫入中斷造成的不完整尾端
+     */
+    private void loadDictionary() throws IOException {
+        dictionary.clear();
+        dictionaryIds.clear();
+
+        Path path = directory.resolve(DICTIONARY_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        byte[] bytes = Files.readAllBytes(path);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int validLength = 0;
+        try {
+            while (in.available() > 0) {
+                String code = in.readUTF();
+                String name = in.readUTF();
+                dictionaryIds.put(code + '\u0000' + name, dictionary.size());
+                dictionary.add(new String[] { code, name });
+                validLength = bytes.length - in.available();
+            }
+        } catch (EOFException e) {
+            logger.warn("字典檔尾端不完整，已捨棄 {} bytes", bytes.length - validLength);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    /**
+     * 依日期欄決定有效資料範圍，截斷附加中斷所留下的尾端
+     */
+    private void recover() throws IOException {
+        Path daysPath = columnPath(DAYS, generation);
+        try (FileChannel channel = FileChannel.open(daysPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(DAYS_HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < DAYS_HEADER_BYTES || header.getInt() != MAGIC
+                    || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("欄式儲存格式不符: " + daysPath);
+            }
+
+            long codeRows = Files.size(columnPath(CODE, generation)) / Integer.BYTES;
+            long sharesRows = Files.size(columnPath(SHARES, generation)) / Long.BYTES;
+            long weightRows = Files.size(columnPath(WEIGHT, generation)) / Long.BYTES;
+            long availableRows = Math.min(codeRows, Math.min(sharesRows, weightRows));
+
+            int count = (int) ((channel.size() - DAYS_HEADER_BYTES) / DAY_ENTRY_BYTES);
+            int rows = 0;
+            ByteBuffer entry = ByteBuffer.allocate(DAY_ENTRY_BYTES);
+            while (count > 0) {
+                entry.clear();
+                channel.read(entry, DAYS_HEADER_BYTES + (long) (count - 1) * DAY_ENTRY_BYTES);
+                entry.flip();
+                entry.getLong();
+                rows = entry.getInt() + entry.getInt();
+                if (rows <= availableRows) {
+                    break;
+                }
+                count--;
+                rows = 0;
+            }
+
+            long validSize = DAYS_HEADER_BYTES + (long) count * DAY_ENTRY_BYTES;
+            if (channel.size() > validSize) {
+                logger.warn("日期欄尾端不完整，截斷至 {} 個日期", count);
+                channel.truncate(validSize);
+            }
+            dayCount = count;
+            rowCount = rows;
+        }
+
+        truncateColumn(columnPath(CODE, generation), (long) rowCount * Integer.BYTES);
+        truncateColumn(columnPath(SHARES, generation), (long) rowCount * Long.BYTES);
+        truncateColumn(columnPath(WEIGHT, generation), (long) rowCount * Long.BYTES);
+    }
+
+    private void truncateColumn(Path path, long size) throws IOException {
+        if (Files.size(path) > size) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    private void map() throws IOException {
+        days = mapFile(columnPath(DAYS, generation));
+        codes = mapFile(columnPath(CODE, generation));
+        shares = mapFile(columnPath(SHARES, generation));
+        weights = mapFile(columnPath(WEIGHT, generation));
+    }
+
+    private MappedByteBuffer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Path columnPath(String column, int gen) {
+        return directory.resolve(column + "-" + gen + ".col");
+    }
+
+    /**
+     * 刪除非目前世代的檔案（仍被映射而無法刪除時留待下次啟動）
+     */
+    private void deleteStaleGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.col")) {
+            for (Path file : files) {
+                Matcher matcher = COLUMN_FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches() && Integer.parseInt(matcher.group(2)) != generation) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private void deleteGeneration(int gen) {
+        for (String column : new String[] { DAYS, CODE, SHARES, WEIGHT }) {
+            deleteQuietly(columnPath(column, gen));
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("暫時無法刪除舊世代檔案: {}", file.getFileName());
+        }
+    }
+
+    // ==================== Excel 匯入匯出 ====================
+
+    /**
+     * 首次啟動時由既有 Excel 檔案匯入所有快照
+     */
+    private void importFromExcel() throws IOException {
+        logger.info("由 Excel 匯入至欄式儲存: {}", excelPath);
+        ExcelStorageService excel = new ExcelStorageService(appConfig, excelPath);
+        List<LocalDate> dates = new ArrayList<>(excel.getAvailableDates());
+        Collections.reverse(dates);
+
+        List<DayColumns> all = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            Optional<DailySnapshot> snapshot = excel.getSnapshot(date);
+            if (snapshot.isPresent()) {
+                all.add(encode(snapshot.get()));
+            }
+        }
+        rewrite(all);
+        logger.info("匯入完成: {} 個日期", all.size());
+    }
+
+    /**
+     * 將所有快照匯出為 Excel 檔案（file-name）
+     * <p>
+     * 讀取快照時持有讀取鎖，寫出 Excel 時不阻擋欄式儲存的讀寫
+     * </p>
+     */
+    public void exportToExcel() {
+        synchronized (exportLock) {
+            exportPending.set(false);
+            List<DailySnapshot> snapshots;
+            lock.readLock().lock();
+            try {
+                snapshots = new ArrayList<>(dayCount);
+                for (int i = 0; i < dayCount; i++) {
+                    snapshots.add(readSnapshot(i));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            new ExcelStorageService(appConfig, excelPath).replaceAllSnapshots(snapshots);
+            logger.info("已匯出 Excel: {} 個日期", snapshots.size());
+        }
+    }
+
+    /**
+     * 排入背景匯出（呼叫端持有寫入鎖）
+     */
+    private void requestExport() {
+        if (!appConfig.getData().isExcelExport()) {
+            return;
+        }
+        exportPending.set(true);
+        if (exportScheduled.compareAndSet(false, true)) {
+            exporter.execute(() -> {
+                exportScheduled.set(false);
+                exportQuietly();
+            });
+        }
+    }
+
+    /**
+     * 匯出 Excel，失敗不影響欄式儲存
+     */
+    private void exportQuietly() {
+        try {
+            exportToExcel();
+        } catch (StorageException e) {
+            logger.warn("匯出 Excel 失敗: {}", e.getMessage());
+        }
+    }
+
+    // ==================== 權重轉換 ====================
+
+    static long toScaled(BigDecimal weight) {
+        if (weight == null) {
+            return 0L;
+        }
+        return weight.setScale(WEIGHT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromScaled(long value) {
+        BigDecimal weight = BigDecimal.valueOf(value, WEIGHT_SCALE).stripTrailingZeros();
+        return weight.scale() < 0 ? weight.setScale(0) : weight;
+    }
+}
@@ -1,7 +1,25 @@
 package com.etf.tracker.service;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.etf.tracker.config.AppConfig;
@@ -9,12 +27,22 @@ import com.etf.tracker.exception.DataFetchException;
 import com.etf.tracker.model.DailySnapshot;
 import com.etf.tracker.scraper.EzMoneyScraperStrategy;
 import com.etf.tracker.scraper.PlaywrightWebClient;
+import com.etf.tracker.scraper.RetryableWebClient;
 
 /**
  * 資料抓取服務
  * <p>
  * 整合 HTTP 客戶端與網頁擷取策略，提供持倉資料抓取功能
  * </p>
+ * <p>
+ * 採分層抓取：先以 {@link RetryableWebClient} 發出一般 HTTP 請求，
+ * 伺服器端輸出的頁面已包含可解析的 {@code assetDB} 時直接使用；
+ * 只有內容缺少持倉資料或請求失敗時，才升級為 {@link PlaywrightWebClient} 以無頭瀏覽器渲染。
+ * 每次抓取由哪一層提供會記錄在 {@link #getFetchStatistics()}。
+ * </p>
+ * <p>
+ * {@link #fetchAllFunds()} 以虛擬執行緒同時抓取多檔基金，回傳帶有基金代碼的快照。
+ * </p>
  *
  * @author ETF Tracker Team
  * @version 1.0.0
@@ -25,15 +53,41 @@ public class DataFetchService {
     private static final Logger logger = LoggerFactory.getLogger(DataFetchService.class);
 
     private final PlaywrightWebClient webClient;
+    private final RetryableWebClient httpClient;
     private final EzMoneyScraperStrategy scraperStrategy;
+    private final RawPageArchive pageArchive;
     private final AppConfig appConfig;
 
+    // 分層統計
+    private final AtomicLong httpFetches = new AtomicLong();
+    private final AtomicLong browserFetches = new AtomicLong();
+    private final AtomicLong httpMisses = new AtomicLong();
+    private volatile FetchTier lastTier;
+    private volatile Instant lastFetchAt;
+
+    private final HostRateLimiter rateLimiter;
+
+    @Autowired
     public DataFetchService(PlaywrightWebClient webClient,
+            RetryableWebClient httpClient,
             EzMoneyScraperStrategy scraperStrategy,
+            RawPageArchive pageArchive,
             AppConfig appConfig) {
+        this(webClient, httpClient, scraperStrategy, pageArchive, appConfig, new HostRateLimiter());
+    }
+
+    DataFetchService(PlaywrightWebClient webClient,
+            RetryableWebClient httpClient,
+            EzMoneyScraperStrategy scraperStrategy,
+            RawPageArchive pageArchive,
+            AppConfig appConfig,
+            HostRateLimiter rateLimiter) {
         this.webClient = webClient;
+        this.httpClient = httpClient;
         this.scraperStrategy = scraperStrategy;
+        this.pageArchive = pageArchive;
         this.appConfig = appConfig;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -46,22 +100,49 @@ public class DataFetchService {
      * @throws DataFetchException 如果抓取或解析失敗
      */
     public DailySnapshot fetchLatestHoldings() {
-        String targetUrl = appConfig.getScraper().getTargetUrl();
+        AppConfig.ScraperConfig config = appConfig.getScraper();
+        return fetchHoldings(config.getPrimaryFundCode(), config.getTargetUrl());
+    }
+
+    /**
+     * 抓取指定頁面的持倉資料
+     * <p>
+     * 伺服器回應的原始頁面（包含解析失敗者）連同抓取層級封存至 {@link RawPageArchive}
+     * </p>
+     *
+     * @param fundCode  基金代碼（封存用）
+     * @param targetUrl 基金頁面 URL
+     * @return 每日快照
+     * @throws DataFetchException 如果抓取或解析失敗
+     */
+    public DailySnapshot fetchHoldings(String fundCode, String targetUrl) {
         logger.info("開始抓取持倉資料: {}", targetUrl);
 
         try {
             // 1. 取得 HTML 內容
             long startTime = System.currentTimeMillis();
-            String html = webClient.fetchHtml(targetUrl);
+            FetchedPage page = fetchHtml(targetUrl);
+            String html = page.html();
             long fetchTime = System.currentTimeMillis() - startTime;
-            logger.debug("HTML 抓取完成，耗時 {} ms，大小 {} bytes", fetchTime, html.length());
+            logger.debug("HTML 抓取完成 ({})，耗時 {} ms，大小 {} bytes", page.tier(), fetchTime, html.length());
 
-            // 2. 解析 HTML
+            // 2. 解析 HTML（HTTP 層級判斷時已解析完成者直接使用）
             startTime = System.currentTimeMillis();
-            DailySnapshot snapshot = scraperStrategy.parseHoldings(html);
+            DailySnapshot snapshot = page.snapshot();
+            try {
+                if (snapshot == null) {
+                    snapshot = scraperStrategy.parseHoldings(html);
+                }
+            } catch (RuntimeException e) {
+                pageArchive.store(fundCode, null, page.tier(), page.source());
+                throw e;
+            }
             long parseTime = System.currentTimeMillis() - startTime;
             logger.debug("HTML 解析完成，耗時 {} ms", parseTime);
 
+            // 3. 封存原始頁面
+            pageArchive.store(fundCode, snapshot.getDate(), page.tier(), page.source());
+
             logger.info("成功抓取持倉資料: 日期={}, 成分股數量={}, 總權重={}%",
                     snapshot.getDate(),
                     snapshot.getTotalCount(),
@@ -78,6 +159,61 @@ public class DataFetchService {
         }
     }
 
+    /**
+     * 同時抓取所有追蹤基金的持倉資料
+     * <p>
+     * 每檔基金在各自的虛擬執行緒上抓取，受同時抓取數量上限與每主機請求間隔限制；
+     * 每檔基金有獨立的重試次數與時間預算，單一基金失敗不影響其他基金。
+     * 總耗時接近最慢的一檔，而非所有基金耗時的總和。
+     * </p>
+     *
+     * @return 各基金的抓取結果（依設定順序）
+     */
+    public List<FundFetchResult> fetchAllFunds() {
+        return fetchFunds(resolveFunds());
+    }
+
+    /**
+     * 同時抓取指定基金的持倉資料
+     *
+     * @param fundCodes 基金代碼（不在設定中的代碼會被忽略）
+     * @return 各基金的抓取結果（依設定順序）
+     */
+    public List<FundFetchResult> fetchFunds(Collection<String> fundCodes) {
+        return fetchFunds(resolveFunds().stream().filter(fund -> fundCodes.contains(fund.code())).toList());
+    }
+
+    /**
+     * 取得所有追蹤基金的代碼
+     *
+     * @return 基金代碼（依設定順序，第一檔為主要基金）
+     */
+    public List<String> getFundCodes() {
+        return resolveFunds().stream().map(FundTarget::code).toList();
+    }
+
+    private List<FundFetchResult> fetchFunds(List<FundTarget> funds) {
+        AppConfig.ScraperConfig config = appConfig.getScraper();
+        Semaphore permits = new Semaphore(Math.max(1, config.getMaxConcurrentFetches()));
+        Duration hostInterval = Duration.ofMillis(config.getPerHostIntervalMillis());
+        logger.info("開始抓取 {} 檔基金，同時抓取上限 {}", funds.size(), permits.availablePermits());
+
+        long startTime = System.currentTimeMillis();
+        List<Future<FundFetchResult>> futures = new ArrayList<>(funds.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (FundTarget fund : funds) {
+                futures.add(executor.submit(() -> fetchFund(fund, permits, hostInterval)));
+            }
+        }
+
+        List<FundFetchResult> results = futures.stream().map(Future::resultNow).toList();
+        logger.info("基金抓取完成: 成功 {}/{}，耗時 {} ms",
+                results.stream().filter(FundFetchResult::isSuccess).count(),
+                results.size(),
+                System.currentTimeMillis() - startTime);
+        return results;
+    }
+
     /**
      * 檢查資料來源是否可用
      *
@@ -86,11 +222,209 @@ public class DataFetchService {
     public boolean isDataSourceAvailable() {
         try {
             String targetUrl = appConfig.getScraper().getTargetUrl();
-            String html = webClient.fetchHtml(targetUrl);
+            String html = fetchHtml(targetUrl).html();
             return html != null && !html.isEmpty();
         } catch (Exception e) {
             logger.warn("資料來源檢查失敗: {}", e.getMessage());
             return false;
         }
     }
+
+    /**
+     * 取得分層抓取統計
+     *
+     * @return 各層提供的抓取次數與最近一次使用的層級
+     */
+    public FetchStatistics getFetchStatistics() {
+        return new FetchStatistics(httpFetches.get(), browserFetches.get(), httpMisses.get(), lastTier, lastFetchAt);
+    }
+
+    // ==================== 多基金抓取 ====================
+
+    /**
+     * 依設定解析追蹤的基金；未設定基金清單時只追蹤 target-url
+     */
+    List<FundTarget> resolveFunds() {
+        AppConfig.ScraperConfig config = appConfig.getScraper();
+        Duration defaultTimeout = Duration.ofSeconds(config.getFundTimeoutSeconds());
+        if (config.getFunds() == null || config.getFunds().isEmpty()) {
+            return List.of(new FundTarget(config.getPrimaryFundCode(), config.getTargetUrl(),
+                    config.getFundRetries(), defaultTimeout));
+        }
+
+        List<FundTarget> funds = new ArrayList<>();
+        for (AppConfig.FundConfig fund : config.getFunds()) {
+            if (fund.getCode() == null || fund.getCode().isBlank()) {
+                throw new IllegalArgumentException("基金代碼不可為空");
+            }
+            String url = fund.getUrl() != null ? fund.getUrl() : config.getFundUrlTemplate().formatted(fund.getCode());
+            int retries = fund.getRetries() != null ? fund.getRetries() : config.getFundRetries();
+            Duration timeout = fund.getTimeoutSeconds() != null
+                    ? Duration.ofSeconds(fund.getTimeoutSeconds())
+                    : defaultTimeout;
+            funds.add(new FundTarget(fund.getCode(), url, retries, timeout));
+        }
+        return funds;
+    }
+
+    /**
+     * 在時間預算內抓取單一基金，失敗時依重試次數重新執行整個抓取流程
+     */
+    private FundFetchResult fetchFund(FundTarget fund, Semaphore permits, Duration hostInterval) {
+        long startTime = System.nanoTime();
+        String host = URI.create(fund.url()).getHost();
+        int attempts = 0;
+        String error = null;
+
+        try {
+            long deadline = 0;
+            while (attempts <= fund.retries()) {
+                attempts++;
+                // 持有全域名額後才預約主機時段，間隔以實際發出的時間計算
+                rateLimiter.acquire(host, hostInterval, permits);
+                if (deadline == 0) {
+                    deadline = System.nanoTime() + fund.timeout().toNanos();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    permits.release();
+                    error = "超過時間預算 " + fund.timeout().toSeconds() + " 秒";
+                    break;
+                }
+
+                // 逾時的嘗試可能卡在不可中斷的 I/O，因此以獨立的虛擬執行緒執行，不阻塞整批結束；
+                // 名額由該執行緒在嘗試真正結束時釋放，逾時的嘗試仍計入同時抓取上限
+                FutureTask<DailySnapshot> attempt = new FutureTask<>(() -> fetchHoldings(fund.code(), fund.url()));
+                Thread.ofVirtual().name("fund-fetch-" + fund.code()).start(() -> {
+                    try {
+                        attempt.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+                try {
+                    DailySnapshot snapshot = attempt.get(remaining, TimeUnit.NANOSECONDS);
+                    snapshot.setFundCode(fund.code());
+                    return new FundFetchResult(fund.code(), snapshot, null, attempts, elapsedMillis(startTime));
+                } catch (TimeoutException e) {
+                    attempt.cancel(true);
+                    error = "超過時間預算 " + fund.timeout().toSeconds() + " 秒";
+                    break;
+                } catch (ExecutionException e) {
+                    error = e.getCause().getMessage();
+                    logger.warn("基金 {} 抓取失敗 (嘗試 {}/{}): {}", fund.code(), attempts, fund.retries() + 1, error);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "抓取被中斷";
+        }
+
+        logger.error("基金 {} 抓取失敗: {}", fund.code(), error);
+        return new FundFetchResult(fund.code(), null, error, attempts, elapsedMillis(startTime));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 解析後的基金抓取目標
+     */
+    record FundTarget(String code, String url, int retries, Duration timeout) {
+    }
+
+    /**
+     * 單一基金的抓取結果
+     *
+     * @param fundCode      基金代碼
+     * @param snapshot      每日快照（失敗時為 null）
+     * @param error         錯誤訊息（成功時為 null）
+     * @param attempts      嘗試次數
+     * @param elapsedMillis 耗時（毫秒，含等待）
+     */
+    public record FundFetchResult(
+            String fundCode,
+            DailySnapshot snapshot,
+            String error,
+            int attempts,
+            long elapsedMillis) {
+
+        public boolean isSuccess() {
+            return snapshot != null;
+        }
+    }
+
+    // ==================== 分層抓取 ====================
+
+    /**
+     * 依序嘗試 HTTP 與無頭瀏覽器取得頁面
+     */
+    private FetchedPage fetchHtml(String targetUrl) {
+        if (appConfig.getScraper().isHttpFirst()) {
+            try {
+                String html = httpClient.fetchHtml(targetUrl);
+                Optional<DailySnapshot> parsed = scraperStrategy.parseAssetData(html);
+                if (parsed.isPresent()) {
+                    markServed(FetchTier.HTTP);
+                    httpFetches.incrementAndGet();
+                    return new FetchedPage(html, FetchTier.HTTP, html, parsed.get());
+                }
+                logger.info("HTTP 回應缺少 assetDB，改用無頭瀏覽器抓取");
+            } catch (Exception e) {
+                logger.warn("HTTP 抓取失敗，改用無頭瀏覽器抓取: {}", e.getMessage());
+            }
+            httpMisses.incrementAndGet();
+        }
+
+        PlaywrightWebClient.RenderedPage rendered = webClient.fetchPage(targetUrl);
+        markServed(FetchTier.BROWSER);
+        browserFetches.incrementAndGet();
+        // 封存伺服器回應而非擷取後的精簡文件；無法取得回應內容時才退而封存擷取結果
+        String source = rendered.documentHtml() != null ? rendered.documentHtml() : rendered.html();
+        return new FetchedPage(rendered.html(), FetchTier.BROWSER, source, null);
+    }
+
+    private void markServed(FetchTier tier) {
+        lastTier = tier;
+        lastFetchAt = Instant.now();
+    }
+
+    /**
+     * 抓取到的頁面
+     *
+     * @param html     供擷取策略解析的 HTML
+     * @param tier     提供頁面的層級
+     * @param source   伺服器回應的原始 HTML（封存用）
+     * @param snapshot 判斷層級時已解析出的快照（尚未解析時為 null）
+     */
+    private record FetchedPage(String html, FetchTier tier, String source, DailySnapshot snapshot) {
+    }
+
+    /**
+     * 抓取層級
+     */
+    public enum FetchTier {
+        /** 一般 HTTP 請求（伺服器端輸出的頁面） */
+        HTTP,
+        /** 無頭瀏覽器渲染 */
+        BROWSER
+    }
+
+    /**
+     * 分層抓取統計
+     *
+     * @param httpFetches    由 HTTP 層提供的次數
+     * @param browserFetches 由無頭瀏覽器提供的次數
+     * @param httpMisses     HTTP 層失敗或缺少持倉資料而升級的次數
+     * @param lastTier       最近一次提供資料的層級（尚未抓取時為 null）
+     * @param lastFetchAt    最近一次抓取時間
+     */
+    public record FetchStatistics(
+            long httpFetches,
+            long browserFetches,
+            long httpMisses,
+            FetchTier lastTier,
+            Instant lastFetchAt) {
+    }
 }
@@ -0,0 +1,234 @@
+package com.etf.tracker.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Excel 日期索引
+ * <p>
+ * 記錄每個日期在工作表中的列範圍與筆數，以 JSON 檔案存放於 Excel 檔案旁
+ * （例如 {@code holdings.xlsx.index.json}）。索引同時記錄 Excel 檔案的大小與修改時間，
+ * 兩者不一致時視為失效，需重新掃描工作表建立。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class ExcelDateIndex {
+
+    /** 索引格式版本，格式變更時遞增使舊索引失效 */
+    static final int VERSION = 1;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String INDEX_SUFFIX = ".index.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * 單一日期的列範圍
+     *
+     * @param date     日期
+     * @param firstRow 第一列索引（0 起算，標題列為 0）
+     * @param lastRow  最後一列索引
+     * @param rowCount 該日期的列數
+     */
+    record Entry(LocalDate date, int firstRow, int lastRow, int rowCount) {
+    }
+
+    /**
+     * Excel 檔案戳記（大小與修改時間）
+     */
+    record FileStamp(long size, long lastModified) {
+
+        static FileStamp of(Path file) throws IOException {
+            return new FileStamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    /**
+     * 索引檔案內容
+     */
+    record IndexFile(int version, long fileSize, long lastModified, int totalRows, List<Entry> entries) {
+    }
+
+    private final FileStamp stamp;
+    private final int totalRows;
+    private final NavigableMap<LocalDate, Entry> entries;
+
+    private ExcelDateIndex(FileStamp stamp, int totalRows, NavigableMap<LocalDate, Entry> entries) {
+        this.stamp = stamp;
+        this.totalRows = totalRows;
+        this.entries = entries;
+    }
+
+    /**
+     * 取得索引檔案路徑
+     */
+    static Path indexPathFor(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * 附上 Excel 檔案戳記
+     */
+    ExcelDateIndex stampedWith(FileStamp newStamp) {
+        return new ExcelDateIndex(newStamp, totalRows, entries);
+    }
+
+    /**
+     * 判斷索引是否仍對應目前的 Excel 檔案
+     */
+    boolean matches(FileStamp current) {
+        return current.equals(stamp);
+    }
+
+    // ==================== 查詢 ====================
+
+    /**
+     * 取得所有日期（降序排列）
+     */
+    List<LocalDate> getDates() {
+        return new ArrayList<>(entries.descendingKeySet());
+    }
+
+    /**
+     * 取得指定日期的列範圍
+     */
+    Optional<Entry> find(LocalDate date) {
+        return Optional.ofNullable(entries.get(date));
+    }
+
+    /**
+     * 取得日期範圍內（含起訖日期）的列範圍，依日期升序
+     */
+    List<Entry> findBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return new ArrayList<>(entries.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * 取得總資料列數（不含標題列，含無效日期的列）
+     */
+    int getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * 計算嚴格早於截止日期的資料列數
+     */
+    int countRowsBefore(LocalDate cutoffDate) {
+        return entries.headMap(cutoffDate, false).values().stream()
+                .mapToInt(Entry::rowCount)
+                .sum();
+    }
+
+    // ==================== 持久化 ====================
+
+    /**
+     * 載入索引
+     *
+     * @param dataFile Excel 檔案
+     * @param current  Excel 檔案目前的戳記
+     * @return 索引，如果不存在、版本不符、已失效或無法解析則為空
+     */
+    static Optional<ExcelDateIndex> load(Path dataFile, FileStamp current) {
+        Path indexFile = indexPathFor(dataFile);
+        if (!Files.exists(indexFile)) {
+            return Optional.empty();
+        }
+        try {
+            IndexFile content = MAPPER.readValue(indexFile.toFile(), IndexFile.class);
+            FileStamp stamp = new FileStamp(content.fileSize(), content.lastModified());
+            if (content.version() != VERSION || !stamp.equals(current) || content.entries() == null) {
+                return Optional.empty();
+            }
+            NavigableMap<LocalDate, Entry> entries = new TreeMap<>();
+            for (Entry entry : content.entries()) {
+                entries.put(entry.date(), entry);
+            }
+            return Optional.of(new ExcelDateIndex(stamp, content.totalRows(), entries));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 儲存索引（先寫入暫存檔再取代）
+     */
+    void save(Path dataFile) throws IOException {
+        Path indexFile = indexPathFor(dataFile);
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        IndexFile content = new IndexFile(VERSION, stamp.size(), stamp.lastModified(), totalRows,
+                new ArrayList<>(entries.values()));
+        MAPPER.writeValue(tempFile.toFile(), content);
+        ExcelFileLock.moveAtomically(tempFile, indexFile);
+    }
+
+    /**
+     * 刪除索引檔案
+     */
+    static void delete(Path dataFile) throws IOException {
+        Files.deleteIfExists(indexPathFor(dataFile));
+    }
+
+    // ==================== 建立 ====================
+
+    /**
+     * 索引建立器
+     * <p>
+     * 依列順序接收每一列的日期欄字串值
+     * </p>
+     */
+    static final class Builder {
+
+        private final Map<LocalDate, int[]> ranges = new TreeMap<>();
+        private int totalRows;
+
+        /**
+         * 加入一列資料
+         *
+         * @param rowNum    列索引（0 起算，不可為標題列）
+         * @param dateValue 日期欄字串值
+         */
+        void addRow(int rowNum, String dateValue) {
+            totalRows++;
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateValue, DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                return; // 忽略無效日期
+            }
+            int[] range = ranges.computeIfAbsent(date, d -> new int[] { rowNum, rowNum, 0 });
+            range[0] = Math.min(range[0], rowNum);
+            range[1] = Math.max(range[1], rowNum);
+            range[2]++;
+        }
+
+        ExcelDateIndex build(FileStamp stamp) {
+            NavigableMap<LocalDate, Entry> entries = new TreeMap<>();
+            ranges.forEach((date, range) -> entries.put(date, new Entry(date, range[0], range[1], range[2])));
+            return new ExcelDateIndex(stamp, totalRows, Collections.unmodifiableNavigableMap(entries));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.etf.tracker.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Excel 檔案的並行存取控制
+ * <p>
+ * 同一個檔案在同一個 JVM 中共用一個實例（不論有幾個儲存服務存取該檔案）：
+ * <ul>
+ * <li>寫入者：以互斥鎖排除同程序的其他寫入者，並以 {@code <file>.lock} 的
+ * {@link FileChannel#lock()} 排除其他程序，整個「讀取 - 修改 - 寫入」期間持有</li>
+ * <li>讀取者：取得共用的讀取鎖，彼此可平行讀取；寫入者只在以原子更名發布新檔案的瞬間
+ * 取得獨占鎖，因此讀取者不會等待寫入過程，也不會讀到寫到一半的檔案</li>
+ * </ul>
+ * 各種鎖的等待時間會累計為監控指標。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class ExcelFileLock {
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private static final ConcurrentMap<Path, ExcelFileLock> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * 可拋出 IOException 的動作
+     */
+    @FunctionalInterface
+    interface IOAction<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * 鎖等待統計（毫秒）
+     *
+     * @param readAcquisitions    讀取鎖取得次數
+     * @param readWaitMillis      讀取鎖累計等待時間
+     * @param maxReadWaitMillis   讀取鎖最長等待時間
+     * @param writeAcquisitions   寫入鎖（含跨程序檔案鎖）取得次數
+     * @param writeWaitMillis     寫入鎖累計等待時間
+     * @param maxWriteWaitMillis  寫入鎖最長等待時間
+     * @param publishes           發布（原子更名）次數
+     * @param publishWaitMillis   發布時等待讀取者的累計時間
+     * @param maxPublishWaitMillis 發布時等待讀取者的最長時間
+     */
+    record LockStatistics(
+            long readAcquisitions,
+            double readWaitMillis,
+            double maxReadWaitMillis,
+            long writeAcquisitions,
+            double writeWaitMillis,
+            double maxWriteWaitMillis,
+            long publishes,
+            double publishWaitMillis,
+            double maxPublishWaitMillis) {
+    }
+
+    private final Path lockFile;
+
+    /** 寫入者互斥（同程序） */
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    /** 讀取者共用，發布新檔案時獨占 */
+    private final ReentrantReadWriteLock publishLock = new ReentrantReadWriteLock();
+
+    private final WaitCounter readWaits = new WaitCounter();
+    private final WaitCounter writeWaits = new WaitCounter();
+    private final WaitCounter publishWaits = new WaitCounter();
+
+    private ExcelFileLock(Path file) {
+        this.lockFile = file.resolveSibling(file.getFileName() + LOCK_SUFFIX);
+    }
+
+    /**
+     * 取得檔案的存取控制（同一路徑共用同一實例）
+     */
+    static ExcelFileLock forFile(Path file) {
+        return LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), ExcelFileLock::new);
+    }
+
+    /**
+     * 以共用讀取鎖執行動作
+     */
+    <T> T read(IOAction<T> action) throws IOException {
+        long start = System.nanoTime();
+        publishLock.readLock().lock();
+        readWaits.record(System.nanoTime() - start);
+        try {
+            return action.run();
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 以寫入者互斥與跨程序檔案鎖執行動作（同一執行緒可重入）
+     */
+    <T> T write(IOAction<T> action) throws IOException {
+        long start = System.nanoTime();
+        writerLock.lock();
+        try {
+            if (writerLock.getHoldCount() > 1) {
+                return action.run();
+            }
+
+            Files.createDirectories(lockFile.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                FileLock fileLock = channel.lock();
+                try {
+                    writeWaits.record(System.nanoTime() - start);
+                    return action.run();
+                } finally {
+                    fileLock.release();
+                }
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * 發布新檔案：以原子更名取代目標檔案，並在同一個獨占區段內執行後續動作
+     * （例如更新日期索引），讀取者只會看到更名前或更名後的完整狀態
+     *
+     * @param tempFile  已寫入完成的暫存檔
+     * @param target    目標檔案
+     * @param afterMove 更名後於獨占區段內執行的動作
+     */
+    <T> T publish(Path tempFile, Path target, IOAction<T> afterMove) throws IOException {
+        long start = System.nanoTime();
+        publishLock.writeLock().lock();
+        publishWaits.record(System.nanoTime() - start);
+        try {
+            moveAtomically(tempFile, target);
+            return afterMove.run();
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以原子更名取代目標檔案（檔案系統不支援時退回一般取代）
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 取得鎖等待統計
+     */
+    LockStatistics getStatistics() {
+        return new LockStatistics(
+                readWaits.count.sum(), readWaits.totalMillis(), readWaits.maxMillis(),
+                writeWaits.count.sum(), writeWaits.totalMillis(), writeWaits.maxMillis(),
+                publishWaits.count.sum(), publishWaits.totalMillis(), publishWaits.maxMillis());
+    }
+
+    /**
+     * 等待時間累計
+     */
+    private static final class WaitCounter {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        double totalMillis() {
+            return totalNanos.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        double maxMillis() {
+            return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -9,13 +9,20 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
@@ -28,6 +35,8 @@ import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import com.etf.tracker.config.AppConfig;
@@ -38,14 +47,16 @@ import com.etf.tracker.model.Holding;
 /**
  * Excel 儲存服務
  * <p>
- * 使用 Apache POI 實作 Excel 檔案的讀寫功能
+ * 使用 Apache POI 實作 Excel 檔案的讀寫功能。查詢以 SAX 串流讀取工作表，
+ * 不建立整份工作簿的 DOM；日期相關查詢由 Excel 檔案旁的日期索引直接回答
  * </p>
  *
  * @author ETF Tracker Team
  * @version 1.0.0
  */
 @Service
-public class ExcelStorageService implements StorageService {
+@ConditionalOnProperty(name = "app.data.backend", havingValue = "excel", matchIfMissing = true)
+public class ExcelStorageService implements LocalStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelStorageService.class);
 
@@ -56,9 +67,31 @@ public class ExcelStorageService implements StorageService {
     private final AppConfig appConfig;
     private final Path storagePath;
 
+    /** 固定的檔案路徑，為 null 時依設定的檔案名稱決定 */
+    private final Path fixedFilePath;
+    private final ExcelStreamingWriter streamingWriter = new ExcelStreamingWriter(SHEET_NAME);
+    private final ExcelStreamingReader streamingReader = new ExcelStreamingReader(SHEET_NAME);
+
+    /** 記憶體中的日期索引（以檔案戳記驗證是否仍有效） */
+    private volatile ExcelDateIndex dateIndex;
+
+    @Autowired
     public ExcelStorageService(AppConfig appConfig) {
         this.appConfig = appConfig;
         this.storagePath = Path.of(appConfig.getData().getStoragePath());
+        this.fixedFilePath = null;
+    }
+
+    /**
+     * 建立存取指定檔案的儲存服務（供分割儲存等組合實作使用）
+     *
+     * @param appConfig 應用程式配置
+     * @param filePath  Excel 檔案路徑
+     */
+    ExcelStorageService(AppConfig appConfig, Path filePath) {
+        this.appConfig = appConfig;
+        this.storagePath = filePath.toAbsolutePath().getParent();
+        this.fixedFilePath = filePath;
     }
 
     /**
@@ -78,17 +111,14 @@ public class ExcelStorageService implements StorageService {
         try {
             ensureDirectoryExists();
 
-            Workbook workbook = loadOrCreateWorkbook(filePath);
-            Sheet sheet = getOrCreateSheet(workbook);
-
-            // 刪除該日期的舊資料
-            deleteExistingData(sheet, snapshot.getDate());
-
-            // 寫入新資料
-            writeSnapshotData(sheet, snapshot);
-
-            // 儲存檔案
-            saveWorkbook(workbook, filePath);
+            fileLock(filePath).write(() -> {
+                if (appConfig.getData().isStreamingWrite() && prepareStreamingWrite(filePath)) {
+                    saveSnapshotStreaming(snapshot, filePath);
+                } else {
+                    saveSnapshotWithWorkbook(snapshot, filePath);
+                }
+                return null;
+            });
 
             logger.info("快照儲存成功: {}", snapshot.getDate());
 
@@ -112,47 +142,70 @@ public class ExcelStorageService implements StorageService {
             return Optional.empty();
         }
 
-        try (InputStream is = Files.newInputStream(filePath);
-                Workbook workbook = new XSSFWorkbook(is)) {
+        try {
+            return fileLock(filePath).read(() -> {
+                Optional<ExcelDateIndex.Entry> entry = getDateIndex(filePath).find(date);
 
-            Sheet sheet = workbook.getSheet(SHEET_NAME);
-            if (sheet == null) {
-                return Optional.empty();
-            }
+                // 日期不存在於檔案中
+                if (entry.isEmpty()) {
+                    return Optional.<DailySnapshot>empty();
+                }
 
-            List<Holding> holdings = new ArrayList<>();
-            String dateStr = date.format(DATE_FORMATTER);
-            boolean dateFound = false;
+                return Optional.ofNullable(readSnapshots(filePath, List.of(entry.get())).get(date));
+            });
 
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue; // 跳過標題
-                }
+        } catch (IOException e) {
+            logger.error("讀取快照失敗: {}", e.getMessage(), e);
+            throw StorageException.readError(filePath, e);
+        }
+    }
 
-                Cell dateCell = row.getCell(0);
-                if (dateCell != null && dateStr.equals(getCellStringValue(dateCell))) {
-                    dateFound = true;
-                    Holding holding = parseRow(row);
-                    if (holding != null) {
-                        holdings.add(holding);
-                    }
-                }
-            }
+    /**
+     * 取得日期範圍內的所有快照（單次串流讀取索引涵蓋的列範圍）
+     *
+     * @param from 起始日期
+     * @param to   結束日期
+     * @return 日期 → 快照（依日期升序）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        Path filePath = getFilePath();
 
-            // 日期不存在於檔案中
-            if (!dateFound) {
-                return Optional.empty();
-            }
+        if (!Files.exists(filePath)) {
+            return Collections.emptyMap();
+        }
 
-            // 日期存在但可能沒有持倉（空快照）- 仍回傳有效快照
-            DailySnapshot snapshot = DailySnapshot.builder()
-                    .date(date)
-                    .holdings(holdings)
-                    .totalCount(holdings.size())
-                    .totalWeight(calculateTotalWeight(holdings))
-                    .build();
+        try {
+            return fileLock(filePath).read(
+                    () -> readSnapshots(filePath, getDateIndex(filePath).findBetween(from, to)));
 
-            return Optional.of(snapshot);
+        } catch (IOException e) {
+            logger.error("讀取快照失敗: {}", e.getMessage(), e);
+            throw StorageException.readError(filePath, e);
+        }
+    }
+
+    /**
+     * 取得多個指定日期的快照（單次串流讀取索引涵蓋的列範圍）
+     *
+     * @param dates 日期
+     * @return 日期 → 快照（依日期升序）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        Path filePath = getFilePath();
+
+        if (!Files.exists(filePath)) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            return fileLock(filePath).read(() -> {
+                ExcelDateIndex index = getDateIndex(filePath);
+                List<ExcelDateIndex.Entry> entries = new ArrayList<>();
+                new TreeSet<>(dates).forEach(date -> index.find(date).ifPresent(entries::add));
+                return readSnapshots(filePath, entries);
+            });
 
         } catch (IOException e) {
             logger.error("讀取快照失敗: {}", e.getMessage(), e);
@@ -160,6 +213,44 @@ public class ExcelStorageService implements StorageService {
         }
     }
 
+    /**
+     * 開啟日期範圍內的持倉資料列游標
+     * <p>
+     * 依索引將範圍內的日期分為列位置遞增的區段，每個區段只串流讀取一次；
+     * 依日期順序附加的檔案只有一個區段
+     * </p>
+     *
+     * @param from 起始日期
+     * @param to   結束日期
+     * @return 游標（使用完畢必須關閉）
+     */
+    @Override
+    public HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        Path filePath = getFilePath();
+
+        if (!Files.exists(filePath)) {
+            return HoldingCursor.empty();
+        }
+
+        try {
+            List<List<ExcelDateIndex.Entry>> segments = new ArrayList<>();
+            List<ExcelDateIndex.Entry> segment = null;
+            ExcelDateIndex index = fileLock(filePath).read(() -> getDateIndex(filePath));
+            for (ExcelDateIndex.Entry entry : index.findBetween(from, to)) {
+                if (segment == null || entry.firstRow() <= segment.get(segment.size() - 1).lastRow()) {
+                    segment = new ArrayList<>();
+                    segments.add(segment);
+                }
+                segment.add(entry);
+            }
+            return new SheetHoldingCursor(filePath, segments);
+
+        } catch (IOException e) {
+            logger.error("開啟持倉游標失敗: {}", e.getMessage(), e);
+            throw StorageException.readError(filePath, e);
+        }
+    }
+
     /**
      * 取得最新的快照
      *
@@ -187,34 +278,8 @@ public class ExcelStorageService implements StorageService {
             return Collections.emptyList();
         }
 
-        try (InputStream is = Files.newInputStream(filePath);
-                Workbook workbook = new XSSFWorkbook(is)) {
-
-            Sheet sheet = workbook.getSheet(SHEET_NAME);
-            if (sheet == null) {
-                return Collections.emptyList();
-            }
-
-            Set<LocalDate> dateSet = new TreeSet<>(Comparator.reverseOrder());
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue;
-                }
-
-                Cell dateCell = row.getCell(0);
-                if (dateCell != null) {
-                    String dateStr = getCellStringValue(dateCell);
-                    try {
-                        LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
-                        dateSet.add(date);
-                    } catch (Exception e) {
-                        // 忽略無效日期
-                    }
-                }
-            }
-
-            return new ArrayList<>(dateSet);
+        try {
+            return fileLock(filePath).read(() -> getDateIndex(filePath).getDates());
 
         } catch (IOException e) {
             logger.error("讀取可用日期失敗: {}", e.getMessage(), e);
@@ -236,38 +301,9 @@ public class ExcelStorageService implements StorageService {
             return 0;
         }
 
-        try (InputStream is = Files.newInputStream(filePath);
-                Workbook workbook = new XSSFWorkbook(is)) {
-
-            Sheet sheet = workbook.getSheet(SHEET_NAME);
-
-            if (sheet == null) {
-                return 0;
-            }
-
-            int count = 0;
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue;
-                }
-
-                Cell dateCell = row.getCell(0);
-                if (dateCell != null) {
-                    String dateStr = getCellStringValue(dateCell);
-                    try {
-                        LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
-                        // 刪除所有嚴格早於 cutoffDate 的資料（不含截止日當天）
-                        if (date.isBefore(cutoffDate)) {
-                            count++;
-                        }
-                    } catch (Exception e) {
-                        // 忽略無效日期
-                    }
-                }
-            }
-
-            return count;
+        try {
+            // 刪除所有嚴格早於 cutoffDate 的資料（不含截止日當天）
+            return fileLock(filePath).read(() -> getDateIndex(filePath).countRowsBefore(cutoffDate));
 
         } catch (IOException e) {
             logger.error("計算過期資料筆數失敗: {}", e.getMessage(), e);
@@ -288,24 +324,8 @@ public class ExcelStorageService implements StorageService {
             return 0;
         }
 
-        try (InputStream is = Files.newInputStream(filePath);
-                Workbook workbook = new XSSFWorkbook(is)) {
-
-            Sheet sheet = workbook.getSheet(SHEET_NAME);
-
-            if (sheet == null) {
-                return 0;
-            }
-
-            int count = 0;
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue;
-                }
-                count++;
-            }
-
-            return count;
+        try {
+            return fileLock(filePath).read(() -> getDateIndex(filePath).getTotalRows());
 
         } catch (IOException e) {
             logger.error("計算總記錄數失敗: {}", e.getMessage(), e);
@@ -328,64 +348,469 @@ public class ExcelStorageService implements StorageService {
         }
 
         try {
-            Workbook workbook = loadOrCreateWorkbook(filePath);
-            Sheet sheet = workbook.getSheet(SHEET_NAME);
+            int deleted = fileLock(filePath).write(() -> {
+                if (appConfig.getData().isStreamingWrite() && prepareStreamingWrite(filePath)) {
+                    return deleteDataBeforeStreaming(cutoffDate, filePath);
+                }
+                return deleteDataBeforeWithWorkbook(cutoffDate, filePath);
+            });
+
+            logger.info("已刪除 {} 筆過期資料（{}之前）", deleted, cutoffDate);
+            return deleted;
 
-            if (sheet == null) {
-                return 0;
+        } catch (IOException e) {
+            logger.error("刪除過期資料失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(filePath, e);
+        }
+    }
+
+    /**
+     * 取得監控指標（檔案鎖等待時間）
+     */
+    @Override
+    public Map<String, Object> getMetrics() {
+        return Map.of("excelLock", fileLock(getFilePath()).getStatistics());
+    }
+
+    /**
+     * 批次儲存多個快照
+     * <p>
+     * 串流模式下只重寫一次檔案：一併刪除這些日期的舊資料並附加新資料
+     * </p>
+     *
+     * @param snapshots 快照（日期不可重複）
+     * @throws StorageException 如果儲存失敗
+     */
+    @Override
+    public void saveSnapshots(List<DailySnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        snapshots.forEach(this::validateSnapshot);
+
+        Path filePath = getFilePath();
+        logger.info("批次儲存快照: {} 個日期, 檔案={}", snapshots.size(), filePath);
+
+        try {
+            ensureDirectoryExists();
+
+            fileLock(filePath).write(() -> {
+                if (appConfig.getData().isStreamingWrite() && prepareStreamingWrite(filePath)) {
+                    Set<String> dates = snapshots.stream()
+                            .map(snapshot -> snapshot.getDate().format(DATE_FORMATTER))
+                            .collect(Collectors.toSet());
+                    rewriteStreaming(filePath, dates::contains, snapshots);
+                } else {
+                    for (DailySnapshot snapshot : snapshots) {
+                        saveSnapshotWithWorkbook(snapshot, filePath);
+                    }
+                }
+                return null;
+            });
+
+        } catch (IOException e) {
+            logger.error("批次儲存快照失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(filePath, e);
+        }
+    }
+
+    /**
+     * 以指定的快照取代檔案中的所有資料
+     * <p>
+     * 供其他儲存實作匯出為 Excel 使用：由只含標題列的新工作簿一次附加所有快照，
+     * 完成後才取代原檔
+     * </p>
+     *
+     * @param snapshots 快照（依寫入順序排列）
+     * @throws StorageException 如果寫入失敗
+     */
+    void replaceAllSnapshots(List<DailySnapshot> snapshots) {
+        Path filePath = getFilePath();
+        Path emptyFile = filePath.resolveSibling(filePath.getFileName() + ".new");
+        Path tempFile = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+
+        try {
+            ensureDirectoryExists();
+            ExcelFileLock lock = fileLock(filePath);
+            lock.write(() -> {
+                Files.deleteIfExists(emptyFile);
+                prepareStreamingWrite(emptyFile);
+
+                ExcelStreamingWriter.RewriteResult result = streamingWriter.rewrite(emptyFile, tempFile, null,
+                        snapshots);
+                return lock.publish(tempFile, filePath,
+                        () -> publishDateIndex(filePath, result.index().build(ExcelDateIndex.FileStamp.of(filePath))));
+            });
+            logger.info("已匯出 {} 個快照至 {}", snapshots.size(), filePath);
+
+        } catch (IOException e) {
+            logger.error("匯出 Excel 失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(filePath, e);
+        } finally {
+            try {
+                Files.deleteIfExists(emptyFile);
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                logger.warn("刪除暫存檔失敗: {}", e.getMessage());
             }
+        }
+    }
 
-            List<Integer> rowsToDelete = new ArrayList<>();
+    /**
+     * 以串流方式刪除過期資料
+     * <p>
+     * 先以索引確認是否有過期資料，沒有則不需重寫檔案
+     * </p>
+     */
+    private int deleteDataBeforeStreaming(LocalDate cutoffDate, Path filePath) throws IOException {
+        if (getDateIndex(filePath).countRowsBefore(cutoffDate) == 0) {
+            return 0;
+        }
+        return rewriteStreaming(filePath, dateStr -> isDateBefore(dateStr, cutoffDate), List.of())
+                .removedRows();
+    }
 
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue;
+    /**
+     * 以完整工作簿方式刪除過期資料
+     */
+    private int deleteDataBeforeWithWorkbook(LocalDate cutoffDate, Path filePath) throws IOException {
+        Workbook workbook = loadOrCreateWorkbook(filePath);
+        Sheet sheet = workbook.getSheet(SHEET_NAME);
+
+        if (sheet == null) {
+            workbook.close();
+            return 0;
+        }
+
+        List<Integer> rowsToDelete = new ArrayList<>();
+
+        for (Row row : sheet) {
+            if (row.getRowNum() == 0) {
+                continue;
+            }
+
+            Cell dateCell = row.getCell(0);
+            if (dateCell != null && isDateBefore(getCellStringValue(dateCell), cutoffDate)) {
+                rowsToDelete.add(row.getRowNum());
+            }
+        }
+
+        // 從後往前刪除，避免索引問題
+        Collections.reverse(rowsToDelete);
+        for (int rowNum : rowsToDelete) {
+            Row row = sheet.getRow(rowNum);
+            if (row != null) {
+                sheet.removeRow(row);
+                // 如果不是最後一行，需要上移
+                int lastRowNum = sheet.getLastRowNum();
+                if (rowNum < lastRowNum) {
+                    sheet.shiftRows(rowNum + 1, lastRowNum, -1);
                 }
+            }
+        }
+
+        saveWorkbook(workbook, filePath);
+        invalidateDateIndex(filePath);
+        return rowsToDelete.size();
+    }
 
-                Cell dateCell = row.getCell(0);
-                if (dateCell != null) {
-                    String dateStr = getCellStringValue(dateCell);
-                    try {
-                        LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
-                        // 刪除所有嚴格早於 cutoffDate 的資料（不含截止日當天）
-                        if (date.isBefore(cutoffDate)) {
-                            rowsToDelete.add(row.getRowNum());
+    /**
+     * 判斷日期字串是否嚴格早於截止日期（不含截止日當天），無效日期視為否
+     */
+    private boolean isDateBefore(String dateStr, LocalDate cutoffDate) {
+        try {
+            return LocalDate.parse(dateStr, DATE_FORMATTER).isBefore(cutoffDate);
+        } catch (Exception e) {
+            return false; // 忽略無效日期
+        }
+    }
+
+    /**
+     * 以串流方式儲存快照
+     * <p>
+     * 逐列複製既有資料至暫存檔（略過同日期的舊資料），於尾端附加新資料後再取代原檔，
+     * 不需將整份工作簿載入記憶體
+     * </p>
+     */
+    private void saveSnapshotStreaming(DailySnapshot snapshot, Path filePath) throws IOException {
+        String dateStr = snapshot.getDate().format(DATE_FORMATTER);
+        ExcelStreamingWriter.RewriteResult result = rewriteStreaming(filePath, dateStr::equals, List.of(snapshot));
+        logger.debug("串流寫入完成: 刪除舊資料 {} 列, 新增 {} 列", result.removedRows(), result.appendedRows());
+    }
+
+    /**
+     * 串流重寫工作表至暫存檔後取代原檔，並更新日期索引
+     */
+    private ExcelStreamingWriter.RewriteResult rewriteStreaming(Path filePath, Predicate<String> dropRow,
+            List<DailySnapshot> snapshots) throws IOException {
+        Path tempFile = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try {
+            ExcelStreamingWriter.RewriteResult result = streamingWriter.rewrite(filePath, tempFile, dropRow, snapshots);
+            fileLock(filePath).publish(tempFile, filePath,
+                    () -> publishDateIndex(filePath, result.index().build(ExcelDateIndex.FileStamp.of(filePath))));
+            return result;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 以完整工作簿方式儲存快照（舊格式檔案或找不到工作表時使用）
+     */
+    private void saveSnapshotWithWorkbook(DailySnapshot snapshot, Path filePath) throws IOException {
+        Workbook workbook = loadOrCreateWorkbook(filePath);
+        Sheet sheet = getOrCreateSheet(workbook);
+
+        // 刪除該日期的舊資料
+        deleteExistingData(sheet, snapshot.getDate());
+
+        // 寫入新資料
+        writeSnapshotData(sheet, snapshot);
+
+        // 儲存檔案
+        saveWorkbook(workbook, filePath);
+        invalidateDateIndex(filePath);
+    }
+
+    /**
+     * 準備串流寫入
+     * <p>
+     * 檔案不存在時先建立只含標題列的工作簿；既有檔案須為 xlsx 且包含 Holdings 工作表
+     * </p>
+     *
+     * @return true 如果可使用串流寫入
+     */
+    private boolean prepareStreamingWrite(Path filePath) throws IOException {
+        if (!Files.exists(filePath)) {
+            Workbook workbook = new XSSFWorkbook();
+            Sheet sheet = getOrCreateSheet(workbook);
+            for (int i = 0; i < HEADERS.length; i++) {
+                sheet.autoSizeColumn(i);
+            }
+            saveWorkbook(workbook, filePath);
+            return true;
+        }
+        if (FileMagic.valueOf(filePath.toFile()) != FileMagic.OOXML) {
+            return false;
+        }
+        return streamingWriter.supports(filePath);
+    }
+
+    /**
+     * 讀取多個日期的快照
+     * <p>
+     * 由最前面的列範圍開始串流讀取，超過最後的列範圍即停止，
+     * 因此不論日期數量只需讀取一次檔案
+     * </p>
+     *
+     * @param entries 各日期在索引中的列範圍
+     */
+    private Map<LocalDate, DailySnapshot> readSnapshots(Path filePath, List<ExcelDateIndex.Entry> entries)
+            throws IOException {
+        if (entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, List<Holding>> holdingsByDate = new HashMap<>();
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+        for (ExcelDateIndex.Entry entry : entries) {
+            holdingsByDate.put(entry.date().format(DATE_FORMATTER), new ArrayList<>());
+            firstRow = Math.min(firstRow, entry.firstRow());
+            lastRow = Math.max(lastRow, entry.lastRow());
+        }
+
+        int stopAfter = lastRow;
+        streamingReader.read(filePath, HEADERS.length, firstRow, (rowNum, row) -> {
+            if (rowNum > stopAfter) {
+                return false;
+            }
+            List<Holding> holdings = holdingsByDate.get(row.getString(0));
+            if (holdings != null) {
+                Holding holding = parseRow(row);
+                if (holding != null) {
+                    holdings.add(holding);
+                }
+            }
+            return true;
+        });
+
+        // 日期存在但可能沒有持倉（空快照）- 仍回傳有效快照
+        Map<LocalDate, DailySnapshot> snapshots = new TreeMap<>();
+        for (ExcelDateIndex.Entry entry : entries) {
+            List<Holding> holdings = holdingsByDate.get(entry.date().format(DATE_FORMATTER));
+            snapshots.put(entry.date(), DailySnapshot.builder()
+                    .date(entry.date())
+                    .holdings(holdings)
+                    .totalCount(holdings.size())
+                    .totalWeight(calculateTotalWeight(holdings))
+                    .build());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 以串流方式逐列讀取工作表的持倉游標
+     * <p>
+     * 每個區段內的日期在檔案中的列位置遞增，因此區段內依檔案順序讀取即為日期升序
+     * </p>
+     */
+    private final class SheetHoldingCursor implements HoldingCursor {
+
+        private final Path filePath;
+        private final Iterator<List<ExcelDateIndex.Entry>> segments;
+
+        private ExcelStreamingReader.RowCursor reader;
+        private Map<String, LocalDate> wantedDates;
+        private int stopAfter;
+
+        private LocalDate date;
+        private Holding holding;
+
+        private SheetHoldingCursor(Path filePath, List<List<ExcelDateIndex.Entry>> segments) {
+            this.filePath = filePath;
+            this.segments = segments.iterator();
+        }
+
+        @Override
+        public boolean next() {
+            try {
+                while (true) {
+                    if (reader == null && !openNextSegment()) {
+                        return false;
+                    }
+                    while (reader.next()) {
+                        if (reader.rowNum() > stopAfter) {
+                            break;
+                        }
+                        ExcelStreamingReader.RowCells row = reader.row();
+                        LocalDate rowDate = wantedDates.get(row.getString(0));
+                        if (rowDate == null) {
+                            continue;
+                        }
+                        Holding parsed = parseRow(row);
+                        if (parsed != null) {
+                            date = rowDate;
+                            holding = parsed;
+                            return true;
                         }
-                    } catch (Exception e) {
-                        // 忽略無效日期
                     }
+                    reader.close();
+                    reader = null;
                 }
+            } catch (IOException e) {
+                close();
+                logger.error("讀取持倉游標失敗: {}", e.getMessage(), e);
+                throw StorageException.readError(filePath, e);
             }
+        }
 
-            // 從後往前刪除，避免索引問題
-            Collections.reverse(rowsToDelete);
-            for (int rowNum : rowsToDelete) {
-                Row row = sheet.getRow(rowNum);
-                if (row != null) {
-                    sheet.removeRow(row);
-                    // 如果不是最後一行，需要上移
-                    int lastRowNum = sheet.getLastRowNum();
-                    if (rowNum < lastRowNum) {
-                        sheet.shiftRows(rowNum + 1, lastRowNum, -1);
-                    }
+        private boolean openNextSegment() throws IOException {
+            if (!segments.hasNext()) {
+                return false;
+            }
+            List<ExcelDateIndex.Entry> segment = segments.next();
+            wantedDates = new HashMap<>();
+            for (ExcelDateIndex.Entry entry : segment) {
+                wantedDates.put(entry.date().format(DATE_FORMATTER), entry.date());
+            }
+            stopAfter = segment.get(segment.size() - 1).lastRow();
+            // 開啟後即持有當時的檔案內容，之後發布的新檔案不影響此區段
+            reader = fileLock(filePath).read(
+                    () -> streamingReader.open(filePath, HEADERS.length, segment.get(0).firstRow()));
+            return true;
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return date;
+        }
+
+        @Override
+        public Holding getHolding() {
+            return holding;
+        }
+
+        @Override
+        public void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    logger.warn("關閉持倉游標失敗: {}", e.getMessage());
                 }
+                reader = null;
             }
+        }
+    }
 
-            saveWorkbook(workbook, filePath);
+    // ==================== 日期索引 ====================
+
+    /**
+     * 取得日期索引
+     * <p>
+     * 依序使用記憶體中的索引、索引檔案，皆失效時重新掃描工作表建立並寫回索引檔案
+     * </p>
+     */
+    private ExcelDateIndex getDateIndex(Path filePath) throws IOException {
+        ExcelDateIndex.FileStamp stamp = ExcelDateIndex.FileStamp.of(filePath);
+
+        ExcelDateIndex cached = dateIndex;
+        if (cached != null && cached.matches(stamp)) {
+            return cached;
+        }
 
-            logger.info("已刪除 {} 筆過期資料（{}之前）", rowsToDelete.size(), cutoffDate);
-            return rowsToDelete.size();
+        Optional<ExcelDateIndex> loaded = ExcelDateIndex.load(filePath, stamp);
+        if (loaded.isPresent()) {
+            dateIndex = loaded.get();
+            return dateIndex;
+        }
+
+        logger.debug("重建日期索引: {}", filePath);
+        ExcelDateIndex.Builder builder = new ExcelDateIndex.Builder();
+        streamingReader.read(filePath, 1, (rowNum, row) -> {
+            if (rowNum > 0) {
+                builder.addRow(rowNum, row.getString(0));
+            }
+            return true;
+        });
+        return publishDateIndex(filePath, builder.build(stamp));
+    }
 
+    /**
+     * 更新記憶體中的索引並寫入索引檔案（寫入失敗不影響資料檔）
+     */
+    private ExcelDateIndex publishDateIndex(Path filePath, ExcelDateIndex index) {
+        dateIndex = index;
+        try {
+            index.save(filePath);
         } catch (IOException e) {
-            logger.error("刪除過期資料失敗: {}", e.getMessage(), e);
-            throw StorageException.writeError(filePath, e);
+            logger.warn("寫入日期索引失敗: {}", e.getMessage());
         }
+        return index;
     }
 
+    /**
+     * 使日期索引失效（以工作簿方式寫入後使用）
+     */
+    private void invalidateDateIndex(Path filePath) {
+        dateIndex = null;
+        try {
+            ExcelDateIndex.delete(filePath);
+        } catch (IOException e) {
+            logger.warn("刪除日期索引失敗: {}", e.getMessage());
+        }
+    }
+
+    // ==================== 檔案與工作簿 ====================
+
     /**
      * 取得儲存檔案路徑
      */
     private Path getFilePath() {
+        if (fixedFilePath != null) {
+            return fixedFilePath;
+        }
         return storagePath.resolve(appConfig.getData().getFileName());
     }
 
@@ -519,32 +944,45 @@ public class ExcelStorageService implements StorageService {
     }
 
     /**
-     * 儲存工作簿
+     * 儲存工作簿（寫入暫存檔後以原子更名發布）
      */
     private void saveWorkbook(Workbook workbook, Path filePath) throws IOException {
-        try (OutputStream os = Files.newOutputStream(filePath)) {
-            workbook.write(os);
+        Path tempFile = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tempFile)) {
+                workbook.write(os);
+            } finally {
+                workbook.close();
+            }
+            fileLock(filePath).publish(tempFile, filePath, () -> null);
         } finally {
-            workbook.close();
+            Files.deleteIfExists(tempFile);
         }
     }
 
+    /**
+     * 取得檔案的並行存取控制
+     */
+    private ExcelFileLock fileLock(Path filePath) {
+        return ExcelFileLock.forFile(filePath);
+    }
+
     /**
      * 解析行資料為 Holding
      * 回傳 null 如果是空佔位符資料（空股票代號）
      */
-    private Holding parseRow(Row row) {
+    private Holding parseRow(ExcelStreamingReader.RowCells row) {
         try {
-            String stockCode = getCellStringValue(row.getCell(1));
+            String stockCode = row.getString(1);
 
             // 空股票代號代表佔位符資料（空持倉日期），跳過
             if (stockCode == null || stockCode.isEmpty()) {
                 return null;
             }
 
-            String stockName = getCellStringValue(row.getCell(2));
-            Long shares = getCellLongValue(row.getCell(3));
-            BigDecimal weight = getCellBigDecimalValue(row.getCell(4));
+            String stockName = row.getString(2);
+            Long shares = row.getLong(3);
+            BigDecimal weight = row.getBigDecimal(4);
 
             return Holding.builder()
                     .stockCode(stockCode)
@@ -572,34 +1010,6 @@ public class ExcelStorageService implements StorageService {
         };
     }
 
-    /**
-     * 取得儲存格 Long 值
-     */
-    private Long getCellLongValue(Cell cell) {
-        if (cell == null) {
-            return 0L;
-        }
-        return switch (cell.getCellType()) {
-            case NUMERIC -> (long) cell.getNumericCellValue();
-            case STRING -> Long.parseLong(cell.getStringCellValue().replaceAll("[,\\s]", ""));
-            case BLANK, BOOLEAN, ERROR, FORMULA, _NONE -> 0L;
-        };
-    }
-
-    /**
-     * 取得儲存格 BigDecimal 值
-     */
-    private BigDecimal getCellBigDecimalValue(Cell cell) {
-        if (cell == null) {
-            return BigDecimal.ZERO;
-        }
-        return switch (cell.getCellType()) {
-            case NUMERIC -> BigDecimal.valueOf(cell.getNumericCellValue());
-            case STRING -> new BigDecimal(cell.getStringCellValue().replaceAll("[%\\s]", ""));
-            case BLANK, BOOLEAN, ERROR, FORMULA, _NONE -> BigDecimal.ZERO;
-        };
-    }
-
     /**
      * 計算總權重
      */
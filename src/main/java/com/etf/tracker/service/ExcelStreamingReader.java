@@ -0,0 +1,514 @@
+package com.etf.tracker.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Excel 串流讀取器
+ * <p>
+ * 以 {@link XSSFReader} 搭配 SAX 逐列讀取工作表，不建立工作簿 DOM：
+ * <ul>
+ * <li>只保留呼叫端需要的前幾欄，其餘儲存格直接略過</li>
+ * <li>共用字串僅在實際取值時才解析</li>
+ * <li>處理器可隨時要求停止，剩餘內容不再解析</li>
+ * </ul>
+ * 需要由呼叫端逐列拉取時，可改用 {@link #open(Path, int, int)} 取得以 StAX 實作的
+ * {@link RowCursor}。
+ * 儲存格取值規則與 {@link ExcelStorageService} 原本以 DOM 讀取時相同。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class ExcelStreamingReader {
+
+    private final String sheetName;
+
+    ExcelStreamingReader(String sheetName) {
+        this.sheetName = sheetName;
+    }
+
+    /**
+     * 列處理器
+     */
+    @FunctionalInterface
+    interface RowHandler {
+
+        /**
+         * 處理一列資料
+         *
+         * @param rowNum 列索引（0 起算，0 為標題列）
+         * @param row    列資料（僅於本次呼叫期間有效，會被重複使用）
+         * @return true 繼續讀取，false 停止讀取
+         */
+        boolean onRow(int rowNum, RowCells row);
+    }
+
+    /**
+     * 讀取工作表
+     *
+     * @param file        xlsx 檔案
+     * @param columnCount 需要的欄數（由 A 欄起算），0 表示只需要列號
+     * @param handler     列處理器
+     * @return true 如果找到工作表，false 如果工作表不存在
+     * @throws IOException 如果檔案無法讀取或格式錯誤
+     */
+    boolean read(Path file, int columnCount, RowHandler handler) throws IOException {
+        return read(file, columnCount, 0, handler);
+    }
+
+    /**
+     * 由指定列開始讀取工作表
+     * <p>
+     * 起始列之前的列只解析列號，不保留儲存格也不呼叫處理器
+     * </p>
+     *
+     * @param file        xlsx 檔案
+     * @param columnCount 需要的欄數（由 A 欄起算），0 表示只需要列號
+     * @param firstRow    起始列索引（0 起算）
+     * @param handler     列處理器
+     * @return true 如果找到工作表，false 如果工作表不存在
+     * @throws IOException 如果檔案無法讀取或格式錯誤
+     */
+    boolean read(Path file, int columnCount, int firstRow, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("無法開啟 xlsx 檔案: " + file, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream is = sheets.next()) {
+                    if (sheetName.equals(sheets.getSheetName())) {
+                        ReadOnlySharedStringsTable sst = columnCount > 0 ? new ReadOnlySharedStringsTable(pkg) : null;
+                        parseSheet(is, new SheetHandler(new RowCells(columnCount, sst), firstRow, handler));
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("讀取工作表失敗: " + e.getMessage(), e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 開啟逐列拉取的游標
+     * <p>
+     * 與 {@link #read(Path, int, int, RowHandler)} 的取值規則相同，但由呼叫端決定何時讀取下一列，
+     * 使用完畢必須關閉
+     * </p>
+     *
+     * @param file        xlsx 檔案
+     * @param columnCount 需要的欄數（由 A 欄起算）
+     * @param firstRow    起始列索引（0 起算）
+     * @return 列游標（工作表不存在時沒有任何列）
+     * @throws IOException 如果檔案無法讀取或格式錯誤
+     */
+    RowCursor open(Path file, int columnCount, int firstRow) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("無法開啟 xlsx 檔案: " + file, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                InputStream is = sheets.next();
+                if (sheetName.equals(sheets.getSheetName())) {
+                    ReadOnlySharedStringsTable sst = columnCount > 0 ? new ReadOnlySharedStringsTable(pkg) : null;
+                    XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(is);
+                    return new RowCursor(pkg, is, xml, new RowCells(columnCount, sst), firstRow);
+                }
+                is.close();
+            }
+            return new RowCursor(pkg, null, null, new RowCells(columnCount, null), firstRow);
+        } catch (OpenXML4JException | SAXException | XMLStreamException | IOException e) {
+            pkg.revert();
+            throw e instanceof IOException io ? io : new IOException("讀取工作表失敗: " + e.getMessage(), e);
+        }
+    }
+
+    private void parseSheet(InputStream is, SheetHandler handler)
+            throws IOException, SAXException, ParserConfigurationException {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        try {
+            xmlReader.parse(new InputSource(is));
+        } catch (StopReadingException e) {
+            // 處理器要求提前結束
+        }
+    }
+
+    // ==================== 列資料 ====================
+
+    /**
+     * 單列的儲存格資料
+     * <p>
+     * 僅保存原始文字與型別，取值時才進行轉換
+     * </p>
+     */
+    static final class RowCells {
+
+        private enum Kind {
+            BLANK, SHARED_STRING, STRING, NUMERIC, OTHER
+        }
+
+        private final Kind[] kinds;
+        private final String[] values;
+        private final ReadOnlySharedStringsTable sharedStrings;
+
+        private RowCells(int columnCount, ReadOnlySharedStringsTable sharedStrings) {
+            this.kinds = new Kind[columnCount];
+            this.values = new String[columnCount];
+            this.sharedStrings = sharedStrings;
+        }
+
+        private void clear() {
+            for (int i = 0; i < kinds.length; i++) {
+                kinds[i] = Kind.BLANK;
+                values[i] = null;
+            }
+        }
+
+        /**
+         * 取得儲存格字串值（數值取整數，其他型別為空字串）
+         */
+        String getString(int column) {
+            return switch (kinds[column]) {
+                case SHARED_STRING -> resolveSharedString(values[column]);
+                case STRING -> values[column];
+                case NUMERIC -> String.valueOf((long) Double.parseDouble(values[column]));
+                case BLANK, OTHER -> "";
+            };
+        }
+
+        /**
+         * 取得儲存格 Long 值
+         */
+        Long getLong(int column) {
+            return switch (kinds[column]) {
+                case SHARED_STRING, STRING -> Long.parseLong(getString(column).replaceAll("[,\\s]", ""));
+                case NUMERIC -> (long) Double.parseDouble(values[column]);
+                case BLANK, OTHER -> 0L;
+            };
+        }
+
+        /**
+         * 取得儲存格 BigDecimal 值
+         */
+        BigDecimal getBigDecimal(int column) {
+            return switch (kinds[column]) {
+                case SHARED_STRING, STRING -> new BigDecimal(getString(column).replaceAll("[%\\s]", ""));
+                case NUMERIC -> BigDecimal.valueOf(Double.parseDouble(values[column]));
+                case BLANK, OTHER -> BigDecimal.ZERO;
+            };
+        }
+
+        /**
+         * 依儲存格型別與原始文字設定欄位
+         */
+        private void set(int column, String cellType, boolean formula, CharSequence value) {
+            Kind kind;
+            if (formula) {
+                kind = Kind.OTHER;
+            } else if (cellType == null || "n".equals(cellType)) {
+                kind = value.isEmpty() ? Kind.BLANK : Kind.NUMERIC;
+            } else {
+                kind = switch (cellType) {
+                    case "s" -> Kind.SHARED_STRING;
+                    case "inlineStr" -> Kind.STRING;
+                    default -> Kind.OTHER;
+                };
+            }
+            kinds[column] = kind;
+            values[column] = kind == Kind.BLANK ? null : value.toString();
+        }
+
+        private String resolveSharedString(String index) {
+            return sharedStrings.getItemAt(Integer.parseInt(index.trim())).getString();
+        }
+    }
+
+    // ==================== SAX 處理 ====================
+
+    /**
+     * 提前結束解析用的例外（不含堆疊資訊）
+     */
+    private static final class StopReadingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 工作表 SAX 處理器
+     */
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final RowCells row;
+        private final int firstRow;
+        private final RowHandler handler;
+        private final StringBuilder value = new StringBuilder();
+
+        private int rowNum;
+        private boolean inRange;
+        private int nextColumn;
+        private int column = -1;
+        private String cellType;
+        private boolean formula;
+        private boolean inValue;
+
+        private SheetHandler(RowCells row, int firstRow, RowHandler handler) {
+            this.row = row;
+            this.firstRow = firstRow;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (name(localName, qName)) {
+                case "row" -> {
+                    String ref = attributes.getValue("r");
+                    rowNum = ref != null ? Integer.parseInt(ref) : rowNum + 1;
+                    inRange = rowNum - 1 >= firstRow;
+                    nextColumn = 0;
+                    if (inRange) {
+                        row.clear();
+                    }
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    int index = ref != null ? columnIndex(ref) : nextColumn;
+                    nextColumn = index + 1;
+                    column = inRange && index < row.kinds.length ? index : -1;
+                    cellType = attributes.getValue("t");
+                    formula = false;
+                    value.setLength(0);
+                }
+                case "f" -> formula = true;
+                case "v", "t" -> inValue = column >= 0;
+                default -> {
+                    // 其他元素不需處理
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (name(localName, qName)) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    if (column >= 0) {
+                        row.set(column, cellType, formula, value);
+                    }
+                    column = -1;
+                }
+                case "row" -> {
+                    if (inRange && !handler.onRow(rowNum - 1, row)) {
+                        throw new StopReadingException();
+                    }
+                }
+                default -> {
+                    // 其他元素不需處理
+                }
+            }
+        }
+    }
+
+    // ==================== StAX 游標 ====================
+
+    /**
+     * 逐列拉取的工作表游標
+     * <p>
+     * 以 StAX 解析工作表，每次 {@link #next()} 只解析到下一個資料列結束為止
+     * </p>
+     */
+    static final class RowCursor implements Closeable {
+
+        private final OPCPackage pkg;
+        private final InputStream is;
+        private final XMLStreamReader xml;
+        private final RowCells row;
+        private final int firstRow;
+        private final StringBuilder value = new StringBuilder();
+
+        private int rowNum;
+        private int column = -1;
+        private String cellType;
+        private boolean formula;
+        private boolean closed;
+
+        private RowCursor(OPCPackage pkg, InputStream is, XMLStreamReader xml, RowCells row, int firstRow) {
+            this.pkg = pkg;
+            this.is = is;
+            this.xml = xml;
+            this.row = row;
+            this.firstRow = firstRow;
+        }
+
+        /**
+         * 前進至下一個資料列
+         *
+         * @return true 如果還有資料列
+         * @throws IOException 如果工作表格式錯誤
+         */
+        boolean next() throws IOException {
+            if (closed || xml == null) {
+                return false;
+            }
+            try {
+                boolean inRange = false;
+                int nextColumn = 0;
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (xml.getLocalName()) {
+                            case "row" -> {
+                                String ref = xml.getAttributeValue(null, "r");
+                                rowNum = ref != null ? Integer.parseInt(ref) : rowNum + 1;
+                                inRange = rowNum - 1 >= firstRow;
+                                nextColumn = 0;
+                                if (inRange) {
+                                    row.clear();
+                                }
+                            }
+                            case "c" -> {
+                                String ref = xml.getAttributeValue(null, "r");
+                                int index = ref != null ? columnIndex(ref) : nextColumn;
+                                nextColumn = index + 1;
+                                column = inRange && index < row.kinds.length ? index : -1;
+                                cellType = xml.getAttributeValue(null, "t");
+                                formula = false;
+                                value.setLength(0);
+                            }
+                            case "f" -> formula = true;
+                            case "v", "t" -> {
+                                if (column >= 0) {
+                                    value.append(xml.getElementText());
+                                }
+                            }
+                            default -> {
+                                // 其他元素不需處理
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        switch (xml.getLocalName()) {
+                            case "c" -> {
+                                if (column >= 0) {
+                                    row.set(column, cellType, formula, value);
+                                }
+                                column = -1;
+                            }
+                            case "row" -> {
+                                if (inRange) {
+                                    return true;
+                                }
+                            }
+                            case "sheetData" -> {
+                                return false;
+                            }
+                            default -> {
+                                // 其他元素不需處理
+                            }
+                        }
+                    }
+                }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IOException("讀取工作表失敗: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 目前的列索引（0 起算，0 為標題列）
+         */
+        int rowNum() {
+            return rowNum - 1;
+        }
+
+        /**
+         * 目前的列資料（下一次 {@link #next()} 後會被覆寫）
+         */
+        RowCells row() {
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (xml != null) {
+                    xml.close();
+                }
+                if (is != null) {
+                    is.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("關閉工作表失敗: " + e.getMessage(), e);
+            } finally {
+                pkg.revert();
+            }
+        }
+    }
+
+    // ==================== 共用 ====================
+
+    private static String name(String localName, String qName) {
+        if (localName != null && !localName.isEmpty()) {
+            return localName;
+        }
+        int colon = qName.indexOf(':');
+        return colon >= 0 ? qName.substring(colon + 1) : qName;
+    }
+
+    private static int columnIndex(String cellRef) {
+        int index = 0;
+        for (int i = 0; i < cellRef.length() && Character.isLetter(cellRef.charAt(i)); i++) {
+            index = index * 26 + (cellRef.charAt(i) - 'A' + 1);
+        }
+        return index - 1;
+    }
+}
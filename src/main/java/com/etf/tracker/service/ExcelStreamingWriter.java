@@ -0,0 +1,469 @@
+package com.etf.tracker.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * Excel 串流寫入器
+ * <p>
+ * 直接以 StAX 串流重寫 xlsx 中的工作表 XML，不將既有資料列載入記憶體：
+ * <ul>
+ * <li>逐列複製既有資料，略過符合條件的列並重新編號後續列</li>
+ * <li>於 {@code </sheetData>} 前附加新資料列（使用 inline string，不需修改共用字串表）</li>
+ * <li>其他 OOXML 組件原樣複製</li>
+ * <li>同時建立重寫後工作表的日期索引</li>
+ * </ul>
+ * 記憶體用量只與單列大小及共用字串表相關，不隨歷史資料列數成長。
+ * </p>
+ * <p>
+ * 工作表在 xlsx 中是單一壓縮項目，附加資料列仍須重新解析與壓縮整張工作表，
+ * 因此每次寫入的耗時與既有資料列數成正比；需要固定的寫入成本時改用 partitioned 或 journal 後端。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class ExcelStreamingWriter {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String[] COLUMNS = { "A", "B", "C", "D", "E" };
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String sheetName;
+    private final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    ExcelStreamingWriter(String sheetName) {
+        this.sheetName = sheetName;
+    }
+
+    /**
+     * 重寫結果
+     *
+     * @param removedRows  刪除的資料列數
+     * @param appendedRows 附加的資料列數
+     * @param lastRowNum   最後一列的列號（1 起算，含標題列）
+     * @param index        重寫後工作表的日期索引（尚未附上檔案戳記）
+     */
+    record RewriteResult(int removedRows, int appendedRows, int lastRowNum, ExcelDateIndex.Builder index) {
+    }
+
+    /**
+     * 判斷檔案是否包含可串流處理的工作表
+     *
+     * @param source 來源 xlsx 檔案
+     * @return true 如果找得到指定名稱的工作表
+     * @throws IOException 如果檔案無法讀取
+     */
+    boolean supports(Path source) throws IOException {
+        return findSheetEntry(source).isPresent();
+    }
+
+    /**
+     * 串流重寫工作表
+     *
+     * @param source    來源 xlsx 檔案
+     * @param target    輸出檔案（不可與來源相同）
+     * @param dropRow   以日期欄字串判斷是否刪除該列，null 表示不刪除任何列
+     * @param snapshots 要附加於尾端的快照
+     * @return 重寫結果
+     * @throws IOException 如果讀寫失敗或找不到工作表
+     */
+    RewriteResult rewrite(Path source, Path target, Predicate<String> dropRow,
+            List<DailySnapshot> snapshots) throws IOException {
+        String sheetEntry = findSheetEntry(source)
+                .orElseThrow(() -> new IOException("找不到工作表: " + sheetName));
+        List<String> sharedStrings = loadSharedStrings(source);
+
+        try (ZipFile zipFile = new ZipFile(source.toFile());
+                OutputStream os = Files.newOutputStream(target);
+                ZipOutputStream zos = new ZipOutputStream(os)) {
+
+            RewriteResult result = null;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                zos.putNextEntry(new ZipEntry(entry.getName()));
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    if (entry.getName().equals(sheetEntry)) {
+                        result = rewriteSheet(new BufferedInputStream(is, BUFFER_SIZE), zos, dropRow,
+                                sharedStrings, snapshots);
+                    } else {
+                        is.transferTo(zos);
+                    }
+                }
+                zos.closeEntry();
+            }
+            return result;
+        } catch (XMLStreamException e) {
+            throw new IOException("工作表 XML 處理失敗: " + e.getMessage(), e);
+        }
+    }
+
+    // ==================== OOXML 組件定位 ====================
+
+    /**
+     * 找出工作表在 zip 中的項目名稱（例如 xl/worksheets/sheet1.xml）
+     */
+    private Optional<String> findSheetEntry(Path source) throws IOException {
+        OPCPackage pkg = openPackage(source);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                // 只需要工作表名稱與組件位置，取得串流後立即關閉
+                sheets.next().close();
+                if (sheetName.equals(sheets.getSheetName())) {
+                    String partName = sheets.getSheetPart().getPartName().getName();
+                    return Optional.of(partName.startsWith("/") ? partName.substring(1) : partName);
+                }
+            }
+            return Optional.empty();
+        } catch (OpenXML4JException e) {
+            throw new IOException("無法解析 xlsx 結構: " + e.getMessage(), e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 載入共用字串表（用於取得既有列的日期值）
+     */
+    private List<String> loadSharedStrings(Path source) throws IOException {
+        OPCPackage pkg = openPackage(source);
+        try {
+            ReadOnlySharedStringsTable sst = new ReadOnlySharedStringsTable(pkg);
+            List<String> strings = new ArrayList<>(sst.getUniqueCount());
+            for (int i = 0; i < sst.getUniqueCount(); i++) {
+                strings.add(sst.getItemAt(i).getString());
+            }
+            return strings;
+        } catch (SAXException e) {
+            throw new IOException("無法讀取共用字串表: " + e.getMessage(), e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private OPCPackage openPackage(Path source) throws IOException {
+        try {
+            return OPCPackage.open(source.toFile(), PackageAccess.READ);
+        } catch (Exception e) {
+            throw new IOException("無法開啟 xlsx 檔案: " + source, e);
+        }
+    }
+
+    // ==================== 工作表重寫 ====================
+
+    private RewriteResult rewriteSheet(InputStream is, OutputStream os, Predicate<String> dropRow,
+            List<String> sharedStrings, List<DailySnapshot> snapshots) throws IOException, XMLStreamException {
+        XMLEventReader reader = XMLHelper.newXMLInputFactory().createXMLEventReader(is);
+        // JDK 的 StAX 直接寫入 OutputStream 時逐位元組編碼，改以緩衝的 Writer 輸出
+        Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE);
+        XMLEventWriter writer = XMLHelper.newXMLOutputFactory().createXMLEventWriter(out);
+
+        ExcelDateIndex.Builder index = new ExcelDateIndex.Builder();
+        int removed = 0;
+        int lastRowNum = 0;
+        int appended = 0;
+        boolean inSheetData = false;
+
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+
+            if (event.isStartElement()) {
+                String localName = event.asStartElement().getName().getLocalPart();
+                if ("dimension".equals(localName)) {
+                    // 範圍資訊會因增刪列而失效，直接移除（為選用元素）
+                    skipElement(reader);
+                    continue;
+                }
+                if (inSheetData && "row".equals(localName)) {
+                    List<XMLEvent> rowEvents = readElement(event, reader);
+                    int rowNum = parseRowNum(event.asStartElement(), lastRowNum + removed + 1);
+                    if (rowNum > 1) {
+                        String dateValue = extractDateValue(rowEvents, sharedStrings);
+                        if (dropRow != null && dropRow.test(dateValue)) {
+                            removed++;
+                            continue;
+                        }
+                        index.addRow(rowNum - removed - 1, dateValue);
+                    }
+                    lastRowNum = rowNum - removed;
+                    writeRow(writer, rowEvents, removed > 0 ? lastRowNum : -1);
+                    continue;
+                }
+                if ("sheetData".equals(localName)) {
+                    inSheetData = true;
+                }
+            } else if (event.isEndElement() && inSheetData
+                    && "sheetData".equals(event.asEndElement().getName().getLocalPart())) {
+                QName sheetData = event.asEndElement().getName();
+                for (DailySnapshot snapshot : snapshots) {
+                    appended += appendSnapshot(writer, sheetData, snapshot, lastRowNum + appended + 1, index);
+                }
+                inSheetData = false;
+            }
+
+            writer.add(event);
+        }
+
+        writer.flush();
+        writer.close();
+        out.flush();
+        reader.close();
+        return new RewriteResult(removed, appended, lastRowNum + appended, index);
+    }
+
+    /**
+     * 讀取完整元素（含起始與結束事件）
+     */
+    private List<XMLEvent> readElement(XMLEvent start, XMLEventReader reader) throws XMLStreamException {
+        List<XMLEvent> events = new ArrayList<>();
+        events.add(start);
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    private void skipElement(XMLEventReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+    }
+
+    private int parseRowNum(StartElement row, int defaultRowNum) {
+        Attribute r = row.getAttributeByName(new QName("r"));
+        if (r == null) {
+            return defaultRowNum;
+        }
+        try {
+            return Integer.parseInt(r.getValue());
+        } catch (NumberFormatException e) {
+            return defaultRowNum;
+        }
+    }
+
+    /**
+     * 取得列中日期欄（A 欄）的字串值
+     * <p>
+     * 轉換規則與 {@code ExcelStorageService#getCellStringValue} 相同：
+     * 數值取整數字串，公式、布林與錯誤值視為空字串
+     * </p>
+     */
+    private String extractDateValue(List<XMLEvent> rowEvents, List<String> sharedStrings) {
+        String type = null;
+        boolean inDateCell = false;
+        boolean formula = false;
+        boolean inValue = false;
+        StringBuilder value = new StringBuilder();
+
+        for (XMLEvent event : rowEvents) {
+            if (event.isStartElement()) {
+                StartElement element = event.asStartElement();
+                String localName = element.getName().getLocalPart();
+                if ("c".equals(localName)) {
+                    if (inDateCell) {
+                        break;
+                    }
+                    Attribute ref = element.getAttributeByName(new QName("r"));
+                    if (ref != null && !isColumnA(ref.getValue())) {
+                        break;
+                    }
+                    inDateCell = true;
+                    Attribute t = element.getAttributeByName(new QName("t"));
+                    type = t != null ? t.getValue() : "n";
+                } else if (inDateCell && "f".equals(localName)) {
+                    formula = true;
+                } else if (inDateCell && ("v".equals(localName) || "t".equals(localName))) {
+                    inValue = true;
+                }
+            } else if (event.isEndElement()) {
+                String localName = event.asEndElement().getName().getLocalPart();
+                if ("v".equals(localName) || "t".equals(localName)) {
+                    inValue = false;
+                } else if ("c".equals(localName) && inDateCell) {
+                    break;
+                }
+            } else if (inValue && event.isCharacters()) {
+                value.append(event.asCharacters().getData());
+            }
+        }
+
+        if (!inDateCell || formula) {
+            return "";
+        }
+        String raw = value.toString();
+        try {
+            return switch (type) {
+                case "s" -> sharedStrings.get(Integer.parseInt(raw.trim()));
+                case "inlineStr" -> raw;
+                case "n" -> raw.isBlank() ? "" : String.valueOf((long) Double.parseDouble(raw));
+                default -> "";
+            };
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+
+    private boolean isColumnA(String cellRef) {
+        return cellRef.length() > 1 && cellRef.charAt(0) == 'A' && Character.isDigit(cellRef.charAt(1));
+    }
+
+    /**
+     * 寫出列事件，必要時重新編號列與儲存格參照
+     *
+     * @param newRowNum 新列號，-1 表示維持原樣
+     */
+    private void writeRow(XMLEventWriter writer, List<XMLEvent> rowEvents, int newRowNum)
+            throws XMLStreamException {
+        for (XMLEvent event : rowEvents) {
+            if (newRowNum > 0 && event.isStartElement()) {
+                StartElement element = event.asStartElement();
+                String localName = element.getName().getLocalPart();
+                if ("row".equals(localName) || "c".equals(localName)) {
+                    writer.add(renumber(element, newRowNum));
+                    continue;
+                }
+            }
+            writer.add(event);
+        }
+    }
+
+    private StartElement renumber(StartElement element, int newRowNum) {
+        boolean isRow = "row".equals(element.getName().getLocalPart());
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<Attribute> it = element.getAttributes();
+        while (it.hasNext()) {
+            Attribute attribute = it.next();
+            if ("r".equals(attribute.getName().getLocalPart()) && attribute.getName().getNamespaceURI().isEmpty()) {
+                String value = isRow
+                        ? String.valueOf(newRowNum)
+                        : attribute.getValue().replaceAll("\\d+$", "") + newRowNum;
+                attributes.add(eventFactory.createAttribute("r", value));
+            } else {
+                attributes.add(attribute);
+            }
+        }
+        return eventFactory.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+    }
+
+    // ==================== 新資料列 ====================
+
+    /**
+     * 附加單一快照的資料列
+     *
+     * @return 寫入的列數
+     */
+    private int appendSnapshot(XMLEventWriter writer, QName sheetData, DailySnapshot snapshot, int startRowNum,
+            ExcelDateIndex.Builder index) throws XMLStreamException {
+        String dateStr = snapshot.getDate().format(DATE_FORMATTER);
+        int rowNum = startRowNum;
+
+        if (snapshot.getHoldings().isEmpty()) {
+            // 空持倉：寫入一行佔位符資料，標記該日期存在但無持倉
+            writeDataRow(writer, sheetData, rowNum, dateStr, "", "", "0", "0.0");
+            index.addRow(rowNum - 1, dateStr);
+            return 1;
+        }
+
+        for (Holding holding : snapshot.getHoldings()) {
+            index.addRow(rowNum - 1, dateStr);
+            writeDataRow(writer, sheetData, rowNum++, dateStr,
+                    holding.getStockCode(),
+                    holding.getStockName(),
+                    String.valueOf(holding.getShares()),
+                    String.valueOf(holding.getWeight().doubleValue()));
+        }
+        return snapshot.getHoldings().size();
+    }
+
+    private void writeDataRow(XMLEventWriter writer, QName sheetData, int rowNum, String date,
+            String stockCode, String stockName, String shares, String weight) throws XMLStreamException {
+        String prefix = sheetData.getPrefix();
+        String ns = sheetData.getNamespaceURI();
+
+        writer.add(eventFactory.createStartElement(prefix, ns, "row"));
+        writer.add(eventFactory.createAttribute("r", String.valueOf(rowNum)));
+        writeInlineStringCell(writer, prefix, ns, COLUMNS[0] + rowNum, date);
+        writeInlineStringCell(writer, prefix, ns, COLUMNS[1] + rowNum, stockCode);
+        writeInlineStringCell(writer, prefix, ns, COLUMNS[2] + rowNum, stockName);
+        writeNumericCell(writer, prefix, ns, COLUMNS[3] + rowNum, shares);
+        writeNumericCell(writer, prefix, ns, COLUMNS[4] + rowNum, weight);
+        writer.add(eventFactory.createEndElement(prefix, ns, "row"));
+    }
+
+    private void writeInlineStringCell(XMLEventWriter writer, String prefix, String ns, String ref, String value)
+            throws XMLStreamException {
+        writer.add(eventFactory.createStartElement(prefix, ns, "c"));
+        writer.add(eventFactory.createAttribute("r", ref));
+        writer.add(eventFactory.createAttribute("t", "inlineStr"));
+        writer.add(eventFactory.createStartElement(prefix, ns, "is"));
+        writer.add(eventFactory.createStartElement(prefix, ns, "t"));
+        writer.add(eventFactory.createCharacters(value != null ? value : ""));
+        writer.add(eventFactory.createEndElement(prefix, ns, "t"));
+        writer.add(eventFactory.createEndElement(prefix, ns, "is"));
+        writer.add(eventFactory.createEndElement(prefix, ns, "c"));
+    }
+
+    private void writeNumericCell(XMLEventWriter writer, String prefix, String ns, String ref, String value)
+            throws XMLStreamException {
+        writer.add(eventFactory.createStartElement(prefix, ns, "c"));
+        writer.add(eventFactory.createAttribute("r", ref));
+        writer.add(eventFactory.createStartElement(prefix, ns, "v"));
+        writer.add(eventFactory.createCharacters(value));
+        writer.add(eventFactory.createEndElement(prefix, ns, "v"));
+        writer.add(eventFactory.createEndElement(prefix, ns, "c"));
+    }
+}
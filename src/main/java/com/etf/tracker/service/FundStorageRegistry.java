@@ -0,0 +1,105 @@
+package com.etf.tracker.service;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 基金儲存服務登錄表
+ * <p>
+ * 主要基金使用原本的 {@link StorageService}（沿用既有資料與快取、Google Sheets 設定）；
+ * 其他基金各自使用 {@code <storage-path>/funds/<基金代碼>} 下與主要基金相同後端的本地儲存，
+ * 首次使用時建立。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class FundStorageRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(FundStorageRegistry.class);
+
+    /** 基金代碼同時作為目錄名稱，僅允許英數字、底線與連字號 */
+    private static final Pattern FUND_CODE_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private static final String FUNDS_DIRECTORY = "funds";
+
+    private final AppConfig appConfig;
+    private final StorageService primaryStorage;
+    private final Map<String, LocalStorageService> fundStorages = new ConcurrentHashMap<>();
+
+    public FundStorageRegistry(AppConfig appConfig, StorageService storageService) {
+        this.appConfig = appConfig;
+        this.primaryStorage = storageService;
+    }
+
+    /**
+     * 取得基金的儲存服務
+     *
+     * @param fundCode 基金代碼（null 表示主要基金）
+     * @return 儲存服務
+     * @throws IllegalArgumentException 如果基金代碼格式不正確
+     */
+    public StorageService storageFor(String fundCode) {
+        if (fundCode == null || fundCode.equals(appConfig.getScraper().getPrimaryFundCode())) {
+            return primaryStorage;
+        }
+        if (!FUND_CODE_PATTERN.matcher(fundCode).matches()) {
+            throw new IllegalArgumentException("基金代碼格式不正確: " + fundCode);
+        }
+        return fundStorages.computeIfAbsent(fundCode, this::createStorage);
+    }
+
+    /**
+     * 關閉已建立的基金儲存服務
+     */
+    @PreDestroy
+    public void shutdown() {
+        fundStorages.values().forEach(storage -> {
+            if (storage instanceof JournaledStorageService journaled) {
+                journaled.shutdown();
+            } else if (storage instanceof ColumnarStorageService columnar) {
+                columnar.shutdown();
+            }
+        });
+    }
+
+    private LocalStorageService createStorage(String fundCode) {
+        AppConfig.DataConfig dataConfig = appConfig.getData();
+        Path directory = Path.of(dataConfig.getStoragePath(), FUNDS_DIRECTORY, fundCode);
+
+        AppConfig fundConfig = new AppConfig();
+        fundConfig.setData(dataConfig.withStoragePath(directory.toString()));
+
+        String backend = dataConfig.getBackend();
+        logger.info("建立基金 {} 的儲存服務: backend={}, 路徑={}", fundCode, backend, directory);
+        return switch (backend) {
+            case "partitioned" -> {
+                PartitionedStorageService storage = new PartitionedStorageService(fundConfig);
+                storage.init();
+                yield storage;
+            }
+            case "columnar" -> {
+                ColumnarStorageService storage = new ColumnarStorageService(fundConfig);
+                storage.init();
+                yield storage;
+            }
+            case "journal" -> {
+                JournaledStorageService storage = new JournaledStorageService(fundConfig);
+                storage.init();
+                yield storage;
+            }
+            default -> new ExcelStorageService(fundConfig);
+        };
+    }
+}
@@ -0,0 +1,336 @@
+package com.etf.tracker.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.service.DataFetchService.FundFetchResult;
+
+/**
+ * 缺漏交易日補齊服務
+ * <p>
+ * 啟動時比對各基金已儲存的日期與交易日曆（今天之前、回溯 {@code app.backfill.lookback-days} 天，
+ * 不早於已儲存的最舊日期）找出缺漏：
+ * </p>
+ * <ul>
+ * <li>網站只提供最新一日的資料，因此立即抓取一次；資料日期屬於缺漏（或晚於已儲存的最新日期）時儲存</li>
+ * <li>其餘較舊的缺漏同時向所有 {@link SnapshotArchiveSource} 查詢，找到的快照以一次批次寫入</li>
+ * </ul>
+ * <p>
+ * 補齊在背景虛擬執行緒上執行，不延遲啟動；進度由 {@link #getStatus()} 提供給健康檢查。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class GapBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GapBackfillService.class);
+
+    private final DataFetchService dataFetchService;
+    private final FundStorageRegistry fundStorageRegistry;
+    private final SnapshotChangeDetector changeDetector;
+    private final TradingCalendar tradingCalendar;
+    private final ObjectProvider<SnapshotArchiveSource> archiveSources;
+    private final AppConfig appConfig;
+
+    private volatile BackfillStatus status = BackfillStatus.idle();
+
+    public GapBackfillService(DataFetchService dataFetchService,
+            FundStorageRegistry fundStorageRegistry,
+            SnapshotChangeDetector changeDetector,
+            TradingCalendar tradingCalendar,
+            ObjectProvider<SnapshotArchiveSource> archiveSources,
+            AppConfig appConfig) {
+        this.dataFetchService = dataFetchService;
+        this.fundStorageRegistry = fundStorageRegistry;
+        this.changeDetector = changeDetector;
+        this.tradingCalendar = tradingCalendar;
+        this.archiveSources = archiveSources;
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * 應用程式就緒後於背景補齊缺漏
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!appConfig.getBackfill().isEnabled()) {
+            logger.info("啟動缺漏補齊已停用");
+            return;
+        }
+        Thread.ofVirtual().name("gap-backfill").start(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                logger.error("缺漏補齊失敗", e);
+                status = status.failed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 檢查並補齊所有追蹤基金的缺漏交易日
+     *
+     * @return 補齊完成後的狀態
+     */
+    public BackfillStatus backfill() {
+        LocalDate today = tradingCalendar.today();
+        Map<String, List<LocalDate>> gaps = new LinkedHashMap<>();
+        Map<String, LocalDate> latestStored = new LinkedHashMap<>();
+        for (String fundCode : dataFetchService.getFundCodes()) {
+            List<LocalDate> stored = fundStorageRegistry.storageFor(fundCode).getAvailableDates();
+            List<LocalDate> missing = findGaps(stored, today);
+            if (!missing.isEmpty()) {
+                gaps.put(fundCode, new ArrayList<>(missing));
+                latestStored.put(fundCode, stored.get(0));
+            }
+        }
+
+        int total = gaps.values().stream().mapToInt(List::size).sum();
+        status = BackfillStatus.running(total, gaps);
+        if (total == 0) {
+            logger.info("未發現缺漏的交易日");
+            return finish(gaps);
+        }
+        logger.info("發現 {} 個缺漏的交易日: {}", total, gaps);
+
+        fetchMostRecent(gaps, latestStored);
+        importFromArchives(gaps);
+        return finish(gaps);
+    }
+
+    /**
+     * 取得補齊進度
+     *
+     * @return 目前狀態
+     */
+    public BackfillStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 找出缺漏的交易日
+     *
+     * @param stored 已儲存的日期（降序）
+     * @param today  今天（當日資料由每日輪詢處理，不視為缺漏）
+     * @return 缺漏的交易日（升序），尚無資料時為空
+     */
+    List<LocalDate> findGaps(List<LocalDate> stored, LocalDate today) {
+        if (stored.isEmpty()) {
+            return List.of();
+        }
+        LocalDate oldest = stored.get(stored.size() - 1);
+        LocalDate lookback = today.minusDays(appConfig.getBackfill().getLookbackDays());
+        LocalDate from = oldest.isAfter(lookback) ? oldest : lookback;
+
+        Set<LocalDate> existing = new HashSet<>(stored);
+        return tradingCalendar.tradingDaysBetween(from, today.minusDays(1)).stream()
+                .filter(date -> !existing.contains(date))
+                .toList();
+    }
+
+    /**
+     * 立即抓取網站目前提供的資料，補上最近的缺漏
+     */
+    private void fetchMostRecent(Map<String, List<LocalDate>> gaps, Map<String, LocalDate> latestStored) {
+        for (FundFetchResult result : dataFetchService.fetchFunds(List.copyOf(gaps.keySet()))) {
+            String fundCode = result.fundCode();
+            if (!result.isSuccess()) {
+                logger.warn("基金 {} 抓取最新資料失敗: {}", fundCode, result.error());
+                continue;
+            }
+            LocalDate date = result.snapshot().getDate();
+            List<LocalDate> missing = gaps.get(fundCode);
+            if (date == null || !(missing.contains(date) || date.isAfter(latestStored.get(fundCode)))) {
+                logger.info("基金 {} 網站目前的資料日期 {} 不在缺漏中", fundCode, date);
+                continue;
+            }
+            try {
+                changeDetector.saveIfChanged(fundStorageRegistry.storageFor(fundCode), result.snapshot());
+                missing.remove(date);
+                status = status.progress(gaps);
+                logger.info("基金 {} 已補上 {} 的資料", fundCode, date);
+            } catch (Exception e) {
+                logger.error("基金 {} 儲存 {} 的資料失敗", fundCode, date, e);
+            }
+        }
+    }
+
+    /**
+     * 由封存來源平行讀取較舊的缺漏，每個基金以一次批次寫入
+     */
+    private void importFromArchives(Map<String, List<LocalDate>> gaps) {
+        List<SnapshotArchiveSource> sources = archiveSources.orderedStream().toList();
+        if (sources.isEmpty()) {
+            if (gaps.values().stream().anyMatch(missing -> !missing.isEmpty())) {
+                logger.warn("未設定封存來源，無法補齊較舊的缺漏");
+            }
+            return;
+        }
+
+        for (Map.Entry<String, List<LocalDate>> entry : gaps.entrySet()) {
+            String fundCode = entry.getKey();
+            List<LocalDate> missing = entry.getValue();
+            if (missing.isEmpty()) {
+                continue;
+            }
+
+            List<Future<Optional<DailySnapshot>>> futures = new ArrayList<>(missing.size());
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (LocalDate date : missing) {
+                    futures.add(executor.submit(() -> loadFromArchives(sources, fundCode, date)));
+                }
+            }
+
+            List<DailySnapshot> found = new ArrayList<>();
+            for (Future<Optional<DailySnapshot>> future : futures) {
+                if (future.state() == Future.State.SUCCESS) {
+                    future.resultNow().ifPresent(found::add);
+                } else {
+                    logger.warn("基金 {} 讀取封存失敗", fundCode, future.exceptionNow());
+                }
+            }
+            if (found.isEmpty()) {
+                logger.warn("基金 {} 的封存中沒有缺漏日期 {}", fundCode, missing);
+                continue;
+            }
+
+            found.sort(Comparator.comparing(DailySnapshot::getDate));
+            try {
+                fundStorageRegistry.storageFor(fundCode).saveSnapshots(found);
+                found.forEach(snapshot -> missing.remove(snapshot.getDate()));
+                status = status.progress(gaps);
+                logger.info("基金 {} 由封存補齊 {} 個日期", fundCode, found.size());
+            } catch (Exception e) {
+                logger.error("基金 {} 批次寫入封存資料失敗", fundCode, e);
+            }
+        }
+    }
+
+    private Optional<DailySnapshot> loadFromArchives(List<SnapshotArchiveSource> sources, String fundCode,
+            LocalDate date) {
+        for (SnapshotArchiveSource source : sources) {
+            Optional<DailySnapshot> snapshot = source.load(fundCode, date);
+            if (snapshot.isPresent() && date.equals(snapshot.get().getDate())) {
+                snapshot.get().setFundCode(fundCode);
+                return snapshot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private BackfillStatus finish(Map<String, List<LocalDate>> gaps) {
+        BackfillStatus finished = status.finished(gaps);
+        status = finished;
+        if (finished.remaining() > 0) {
+            logger.warn("缺漏補齊完成，仍缺 {} 個交易日: {}", finished.remaining(), finished.missingDates());
+        } else if (finished.totalGaps() > 0) {
+            logger.info("缺漏補齊完成，已補齊 {} 個交易日", finished.filled());
+        }
+        return finished;
+    }
+
+    /**
+     * 補齊狀態
+     */
+    public enum State {
+        /** 尚未執行 */
+        IDLE,
+        /** 補齊中 */
+        RUNNING,
+        /** 已完成 */
+        COMPLETED,
+        /** 執行失敗 */
+        FAILED
+    }
+
+    /**
+     * 補齊進度
+     *
+     * @param state        狀態
+     * @param totalGaps    發現的缺漏交易日數（所有基金合計）
+     * @param filled       已補齊的數量
+     * @param missingDates 各基金仍缺漏的日期
+     * @param message      失敗訊息
+     * @param startedAt    開始時間
+     * @param finishedAt   結束時間
+     */
+    public record BackfillStatus(
+            State state,
+            int totalGaps,
+            int filled,
+            Map<String, List<LocalDate>> missingDates,
+            String message,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt) {
+
+        static BackfillStatus idle() {
+            return new BackfillStatus(State.IDLE, 0, 0, Map.of(), null, null, null);
+        }
+
+        static BackfillStatus running(int totalGaps, Map<String, List<LocalDate>> gaps) {
+            return new BackfillStatus(State.RUNNING, totalGaps, 0, copyOf(gaps), null, LocalDateTime.now(), null);
+        }
+
+        BackfillStatus progress(Map<String, List<LocalDate>> gaps) {
+            Map<String, List<LocalDate>> missing = copyOf(gaps);
+            return new BackfillStatus(state, totalGaps, totalGaps - count(missing), missing, message, startedAt,
+                    finishedAt);
+        }
+
+        BackfillStatus finished(Map<String, List<LocalDate>> gaps) {
+            Map<String, List<LocalDate>> missing = copyOf(gaps);
+            return new BackfillStatus(State.COMPLETED, totalGaps, totalGaps - count(missing), missing, message,
+                    startedAt, LocalDateTime.now());
+        }
+
+        BackfillStatus failed(String error) {
+            return new BackfillStatus(State.FAILED, totalGaps, filled, missingDates, error, startedAt,
+                    LocalDateTime.now());
+        }
+
+        /**
+         * 仍缺漏的交易日數
+         *
+         * @return 數量
+         */
+        public int remaining() {
+            return count(missingDates);
+        }
+
+        private static Map<String, List<LocalDate>> copyOf(Map<String, List<LocalDate>> gaps) {
+            Map<String, List<LocalDate>> copy = new LinkedHashMap<>();
+            gaps.forEach((fundCode, dates) -> {
+                if (!dates.isEmpty()) {
+                    copy.put(fundCode, List.copyOf(dates));
+                }
+            });
+            return copy;
+        }
+
+        private static int count(Map<String, List<LocalDate>> gaps) {
+            return gaps.values().stream().mapToInt(List::size).sum();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.etf.tracker.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Google Visualization API 回應串流解析器
+ * <p>
+ * 直接由回應串流逐列解析 {@code google.visualization.Query.setResponse({...})}，
+ * 不建立完整的 JSON 樹，也不保留整份回應字串；每列的儲存格寫入同一個重複使用的陣列，
+ * 再交由 {@link RowMapper} 轉換為目標型別。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class GvizResponseReader {
+
+    /**
+     * 資料列轉換
+     *
+     * @param <T> 目標型別
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+
+        /**
+         * @param cells 儲存格的值（空白儲存格為空字串）；陣列會被重複使用，不可保留參照
+         * @return 轉換結果，回傳 null 表示略過此列
+         */
+        T map(String[] cells);
+    }
+
+    private GvizResponseReader() {
+    }
+
+    /**
+     * 解析回應串流
+     *
+     * @param body    回應內容（UTF-8）
+     * @param columns 需要的欄位數，超出的儲存格會被略過
+     * @param mapper  資料列轉換
+     * @return 唯讀的轉換結果
+     * @throws IOException 回應格式錯誤或查詢失敗
+     */
+    static <T> List<T> read(InputStream body, int columns, RowMapper<T> mapper) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), columns, mapper);
+    }
+
+    static <T> List<T> read(Reader body, int columns, RowMapper<T> mapper) throws IOException {
+        // 略過 JSONP 包裝: /*O_o*/ google.visualization.Query.setResponse(
+        PushbackReader input = new PushbackReader(body);
+        int ch;
+        while ((ch = input.read()) != -1 && ch != '{') {
+        }
+        if (ch == -1) {
+            return List.of();
+        }
+        input.unread(ch);
+
+        // 寬鬆模式：解析完回應物件後即停止，不處理結尾的 ");"
+        JsonReader reader = new JsonReader(input);
+        reader.setLenient(true);
+
+        List<T> result = new ArrayList<>();
+        String status = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "status" -> status = nextString(reader);
+                case "table" -> readTable(reader, columns, mapper, result);
+                default -> reader.skipValue();
+            }
+        }
+
+        if ("error".equals(status)) {
+            throw new IOException("Google Visualization API 查詢失敗");
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <T> void readTable(JsonReader reader, int columns, RowMapper<T> mapper, List<T> result)
+            throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("rows".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                readRows(reader, columns, mapper, result);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static <T> void readRows(JsonReader reader, int columns, RowMapper<T> mapper, List<T> result)
+            throws IOException {
+        String[] cells = new String[columns];
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Arrays.fill(cells, "");
+            boolean hasCells = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("c".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readCells(reader, cells);
+                    hasCells = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (hasCells) {
+                T mapped = mapper.map(cells);
+                if (mapped != null) {
+                    result.add(mapped);
+                }
+            }
+        }
+        reader.endArray();
+    }
+
+    private static void readCells(JsonReader reader, String[] cells) throws IOException {
+        int column = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (column >= cells.length || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                column++;
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("v".equals(reader.nextName())) {
+                    String value = nextString(reader);
+                    cells[column] = value == null ? "" : value;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            column++;
+        }
+        reader.endArray();
+    }
+
+    /**
+     * 讀取純量值為字串（數字保留原始文字），非純量或 null 回傳 null
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case STRING, NUMBER -> reader.nextString();
+            case BOOLEAN -> Boolean.toString(reader.nextBoolean());
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+}
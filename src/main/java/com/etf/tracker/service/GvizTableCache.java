@@ -0,0 +1,293 @@
+package com.etf.tracker.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Google Sheets 資料表快取
+ * <p>
+ * 保存最近一次下載並解析完成的 gviz 資料表，供所有讀取操作共用：
+ * <ul>
+ * <li>資料表在存活時間內直接由記憶體回應，通常由背景排程定期更新</li>
+ * <li>指定背景執行器時，過期的資料表仍先回應，同時在背景更新（讀取路徑不等待下載）</li>
+ * <li>更新時帶上 ETag / Last-Modified，伺服器回應 304 時沿用既有資料</li>
+ * <li>同時發生的更新只會有一個實際下載，其餘呼叫端等待同一結果</li>
+ * </ul>
+ * 快取的資料列以唯讀清單共用給所有呼叫端，資料列本身必須是不可變的。
+ * </p>
+ *
+ * @param <T> 資料列型別
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class GvizTableCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GvizTableCache.class);
+
+    /**
+     * 下載結果
+     *
+     * @param notModified  伺服器回應內容未變更（304）
+     * @param rows         解析後的資料列（notModified 時為 null）
+     * @param etag         回應的 ETag
+     * @param lastModified 回應的 Last-Modified
+     */
+    record FetchResult<T>(boolean notModified, List<T> rows, String etag, String lastModified) {
+
+        static <T> FetchResult<T> unchanged() {
+            return new FetchResult<>(true, null, null, null);
+        }
+
+        static <T> FetchResult<T> of(List<T> rows, String etag, String lastModified) {
+            return new FetchResult<>(false, rows, etag, lastModified);
+        }
+    }
+
+    /**
+     * 下載資料表
+     */
+    @FunctionalInterface
+    interface Fetcher<T> {
+
+        /**
+         * @param etag         上次回應的 ETag（沒有時為 null）
+         * @param lastModified 上次回應的 Last-Modified（沒有時為 null）
+         */
+        FetchResult<T> fetch(String etag, String lastModified) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 快取狀態
+     *
+     * @param fetchedAt         資料表最後確認為最新的時間（尚未下載時為 null）
+     * @param ageSeconds        資料表目前的年齡（秒）
+     * @param lastRefreshMillis 最近一次更新所花費的時間（毫秒）
+     * @param refreshes         更新次數（含 304）
+     * @param notModified       伺服器回應 304 的次數
+     * @param failures          更新失敗次數
+     * @param rowCount          資料列數
+     * @param lastError         最近一次失敗的原因
+     */
+    public record CacheStatus(
+            Instant fetchedAt,
+            Long ageSeconds,
+            Long lastRefreshMillis,
+            long refreshes,
+            long notModified,
+            long failures,
+            int rowCount,
+            String lastError) {
+    }
+
+    private record Table<T>(List<T> rows, String etag, String lastModified, long loadedAt,
+            Instant fetchedAt) {
+    }
+
+    private final Fetcher<T> fetcher;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Executor background;
+
+    private volatile Table<T> table;
+    private final AtomicReference<CompletableFuture<Table<T>>> inFlight = new AtomicReference<>();
+    private final AtomicBoolean backgroundScheduled = new AtomicBoolean();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Long lastRefreshMillis;
+    private volatile String lastError;
+
+    GvizTableCache(Fetcher<T> fetcher, Duration ttl) {
+        this(fetcher, ttl, null);
+    }
+
+    /**
+     * @param background 過期時在背景更新所用的執行器；null 表示過期時同步等待更新
+     */
+    GvizTableCache(Fetcher<T> fetcher, Duration ttl, Executor background) {
+        this(fetcher, ttl, background, System::nanoTime);
+    }
+
+    GvizTableCache(Fetcher<T> fetcher, Duration ttl, Executor background, LongSupplier clock) {
+        this.fetcher = fetcher;
+        this.ttlNanos = ttl.toNanos();
+        this.background = background;
+        this.clock = clock;
+    }
+
+    /**
+     * 取得資料表
+     * <p>
+     * 快取仍在存活時間內時直接回傳；已過期且有背景執行器時回傳過期的資料表並在背景更新；
+     * 其餘情況等待一次更新（與其他呼叫端共用）
+     * </p>
+     *
+     * @return 唯讀的資料列
+     */
+    List<T> get() throws IOException, InterruptedException {
+        Table<T> current = table;
+        if (current != null) {
+            if (clock.getAsLong() - current.loadedAt() < ttlNanos) {
+                return current.rows();
+            }
+            if (refreshInBackground()) {
+                return current.rows();
+            }
+        }
+        return refresh().rows();
+    }
+
+    /**
+     * 捨棄目前的資料表，下一次讀取等待重新下載
+     */
+    void invalidate() {
+        table = null;
+    }
+
+    /**
+     * 立即更新資料表（同時間只會有一個實際下載）
+     */
+    Table<T> refresh() throws IOException, InterruptedException {
+        CompletableFuture<Table<T>> mine = new CompletableFuture<>();
+        CompletableFuture<Table<T>> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            Table<T> result = load();
+            mine.complete(result);
+            return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /**
+     * 在背景執行器啟動更新（已有更新進行中時不重複啟動）
+     *
+     * @return false 如果沒有可用的背景執行器
+     */
+    private boolean refreshInBackground() {
+        if (background == null) {
+            return false;
+        }
+        if (!backgroundScheduled.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            background.execute(() -> {
+                try {
+                    refreshQuietly();
+                } finally {
+                    backgroundScheduled.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            backgroundScheduled.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * 背景排程使用：更新失敗只記錄，不拋出例外
+     */
+    void refreshQuietly() {
+        try {
+            refresh();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("背景更新 Google Sheets 快取失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取得快取狀態
+     */
+    CacheStatus getStatus() {
+        Table<T> current = table;
+        Long age = current == null ? null
+                : TimeUnit.NANOSECONDS.toSeconds(clock.getAsLong() - current.loadedAt());
+        return new CacheStatus(
+                current == null ? null : current.fetchedAt(),
+                age,
+                lastRefreshMillis,
+                refreshes.get(),
+                notModified.get(),
+                failures.get(),
+                current == null ? 0 : current.rows().size(),
+                lastError);
+    }
+
+    private Table<T> load() throws IOException, InterruptedException {
+        Table<T> current = table;
+        long start = clock.getAsLong();
+        try {
+            FetchResult<T> result = current == null
+                    ? fetcher.fetch(null, null)
+                    : fetcher.fetch(current.etag(), current.lastModified());
+            long now = clock.getAsLong();
+
+            Table<T> loaded;
+            if (result.notModified() && current != null) {
+                notModified.incrementAndGet();
+                loaded = new Table<>(current.rows(), current.etag(), current.lastModified(), now, Instant.now());
+            } else {
+                loaded = new Table<>(Collections.unmodifiableList(result.rows()), result.etag(),
+                        result.lastModified(), now, Instant.now());
+            }
+
+            table = loaded;
+            refreshes.incrementAndGet();
+            lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(now - start);
+            lastError = null;
+            logger.debug("Google Sheets 快取已更新: {} 列, 耗時 {} ms, 未變更={}",
+                    loaded.rows().size(), lastRefreshMillis, result.notModified());
+            return loaded;
+
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            failures.incrementAndGet();
+            lastError = e.getMessage();
+            throw e;
+        }
+    }
+
+    private static <T> Table<T> await(CompletableFuture<Table<T>> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
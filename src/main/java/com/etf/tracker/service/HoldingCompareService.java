@@ -7,7 +7,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,9 +66,10 @@ public class HoldingCompareService {
         // 1. 驗證日期
         validateDates(startDate, endDate);
 
-        // 2. 取得快照資料
-        DailySnapshot startSnapshot = getSnapshotOrThrow(startDate, "起始日期無資料");
-        DailySnapshot endSnapshot = getSnapshotOrThrow(endDate, "結束日期無資料");
+        // 2. 取得快照資料（一次批次讀取兩個日期）
+        Map<LocalDate, DailySnapshot> snapshots = storageService.getSnapshots(List.of(startDate, endDate));
+        DailySnapshot startSnapshot = getSnapshotOrThrow(snapshots, startDate, "起始日期無資料");
+        DailySnapshot endSnapshot = getSnapshotOrThrow(snapshots, endDate, "結束日期無資料");
 
         // 3. 建立股票代號 -> 持倉的映射
         Map<String, Holding> startHoldingsMap = buildHoldingsMap(startSnapshot.getHoldings());
@@ -134,12 +134,13 @@ public class HoldingCompareService {
     /**
      * 取得快照，若不存在則拋出例外
      */
-    private DailySnapshot getSnapshotOrThrow(LocalDate date, String errorMessage) {
-        Optional<DailySnapshot> snapshot = storageService.getSnapshot(date);
-        if (snapshot.isEmpty()) {
+    private DailySnapshot getSnapshotOrThrow(Map<LocalDate, DailySnapshot> snapshots, LocalDate date,
+            String errorMessage) {
+        DailySnapshot snapshot = snapshots.get(date);
+        if (snapshot == null) {
             throw new ValidationException(errorMessage);
         }
-        return snapshot.get();
+        return snapshot;
     }
 
     /**
@@ -0,0 +1,211 @@
+package com.etf.tracker.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+import com.etf.tracker.model.HoldingRow;
+
+/**
+ * 持倉資料列游標
+ * <p>
+ * 由呼叫端逐列拉取日期範圍內的持倉資料，一次只保留目前的資料列：
+ * <ul>
+ * <li>資料列依日期升序輸出，同一日期的資料列連續</li>
+ * <li>沒有成分股的日期（空快照）不輸出任何資料列</li>
+ * <li>游標可能持有開啟中的檔案，使用完畢必須關閉</li>
+ * </ul>
+ * </p>
+ *
+ * <pre>
+ * try (HoldingCursor cursor = storageService.openCursor(from, to)) {
+ *     while (cursor.next()) {
+ *         ... cursor.getDate(), cursor.getStockCode(), cursor.getShares() ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public interface HoldingCursor extends AutoCloseable {
+
+    /**
+     * 前進至下一筆資料列
+     *
+     * @return true 如果還有資料列
+     * @throws com.etf.tracker.exception.StorageException 如果讀取失敗
+     */
+    boolean next();
+
+    /**
+     * 目前資料列的日期
+     */
+    LocalDate getDate();
+
+    /**
+     * 目前資料列的成分股
+     */
+    Holding getHolding();
+
+    default String getStockCode() {
+        return getHolding().getStockCode();
+    }
+
+    default String getStockName() {
+        return getHolding().getStockName();
+    }
+
+    default Long getShares() {
+        return getHolding().getShares();
+    }
+
+    default BigDecimal getWeight() {
+        return getHolding().getWeight();
+    }
+
+    /**
+     * 將目前資料列轉換為 {@link HoldingRow}
+     */
+    default HoldingRow toRow() {
+        return HoldingRow.of(getDate(), getHolding());
+    }
+
+    /**
+     * 關閉游標並釋放檔案
+     */
+    @Override
+    void close();
+
+    /**
+     * 將剩餘資料列轉換為串流（關閉串流即關閉游標）
+     *
+     * @return 資料列串流
+     */
+    default Stream<HoldingRow> stream() {
+        Spliterator<HoldingRow> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super HoldingRow> action) {
+                if (!next()) {
+                    return false;
+                }
+                action.accept(toRow());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * 沒有任何資料列的游標
+     */
+    static HoldingCursor empty() {
+        return ofSnapshots(Collections.emptyIterator(), () -> {
+        });
+    }
+
+    /**
+     * 逐一展開快照的游標（一次只保留一個快照）
+     *
+     * @param snapshots 依日期升序的快照（可延遲載入）
+     * @param onClose   關閉時執行的動作
+     * @return 游標
+     */
+    static HoldingCursor ofSnapshots(Iterator<DailySnapshot> snapshots, Runnable onClose) {
+        return new HoldingCursor() {
+
+            private DailySnapshot snapshot;
+            private Iterator<Holding> holdings = Collections.emptyIterator();
+            private Holding holding;
+
+            @Override
+            public boolean next() {
+                while (!holdings.hasNext()) {
+                    if (!snapshots.hasNext()) {
+                        holding = null;
+                        return false;
+                    }
+                    snapshot = snapshots.next();
+                    holdings = snapshot.getHoldings().iterator();
+                }
+                holding = holdings.next();
+                return true;
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return snapshot.getDate();
+            }
+
+            @Override
+            public Holding getHolding() {
+                return holding;
+            }
+
+            @Override
+            public void close() {
+                onClose.run();
+            }
+        };
+    }
+
+    /**
+     * 依序串接多個游標（前一個讀完並關閉後才開啟下一個）
+     *
+     * @param parts 依日期升序排列的游標來源
+     * @return 游標
+     */
+    static HoldingCursor concat(List<Supplier<HoldingCursor>> parts) {
+        Iterator<Supplier<HoldingCursor>> remaining = parts.iterator();
+        return new HoldingCursor() {
+
+            private HoldingCursor current;
+
+            @Override
+            public boolean next() {
+                while (true) {
+                    if (current != null && current.next()) {
+                        return true;
+                    }
+                    if (current != null) {
+                        current.close();
+                        current = null;
+                    }
+                    if (!remaining.hasNext()) {
+                        return false;
+                    }
+                    current = remaining.next().get();
+                }
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return current.getDate();
+            }
+
+            @Override
+            public Holding getHolding() {
+                return current.getHolding();
+            }
+
+            @Override
+            public void close() {
+                if (current != null) {
+                    current.close();
+                    current = null;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package com.etf.tracker.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.dto.HoldingDto;
+import com.etf.tracker.dto.HoldingIngestRequest;
+import com.etf.tracker.exception.ValidationException;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * 持倉推送匯入服務
+ * <p>
+ * 接收外部擷取端（GAS）每日推送的完整持倉資料，驗證後透過 {@link StorageService#saveSnapshot}
+ * 寫入（快取層會在寫入時失效該日期），取代定期下載整張 Google Sheets 比對變更
+ * </p>
+ * <p>
+ * 支援兩種格式：
+ * <ul>
+ * <li>JSON：{@link HoldingIngestRequest}</li>
+ * <li>CSV：與 Google Sheets 相同的欄位 {@code 日期,股票,股票名稱,股數,權重}，
+ * 標題列可省略；只有日期沒有股票代碼的資料列表示當日無持倉</li>
+ * </ul>
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class HoldingIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldingIngestService.class);
+
+    private static final BigDecimal MAX_WEIGHT = new BigDecimal("100");
+
+    private final AppConfig appConfig;
+    private final StorageService storageService;
+
+    public HoldingIngestService(AppConfig appConfig, StorageService storageService) {
+        this.appConfig = appConfig;
+        this.storageService = storageService;
+    }
+
+    // ==================== 存取控制 ====================
+
+    /**
+     * 是否啟用推送匯入（需同時設定存取權杖）
+     */
+    public boolean isEnabled() {
+        AppConfig.IngestConfig config = appConfig.getIngest();
+        return config.isEnabled() && config.getToken() != null && !config.getToken().isBlank();
+    }
+
+    /**
+     * 驗證存取權杖（固定時間比較）
+     *
+     * @param token 請求提供的權杖
+     * @return 是否通過
+     */
+    public boolean isAuthorized(String token) {
+        if (!isEnabled() || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                appConfig.getIngest().getToken().getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==================== 匯入 ====================
+
+    /**
+     * 匯入 JSON 格式的持倉資料
+     *
+     * @param request 匯入請求
+     * @return 已儲存的快照
+     * @throws ValidationException 資料驗證失敗
+     */
+    public DailySnapshot ingest(HoldingIngestRequest request) {
+        if (request == null || request.date() == null) {
+            throw ValidationException.required("date");
+        }
+        DailySnapshot snapshot = toSnapshot(request.date(),
+                request.holdings() == null ? List.of() : request.holdings());
+        storageService.saveSnapshot(snapshot);
+        logger.info("已匯入推送的持倉資料: 日期={}, 成分股數量={}", snapshot.getDate(), snapshot.getTotalCount());
+        return snapshot;
+    }
+
+    /**
+     * 匯入 CSV 格式的持倉資料
+     *
+     * @param csv CSV 內容
+     * @return 已儲存的快照
+     * @throws ValidationException 資料驗證失敗
+     */
+    public DailySnapshot ingestCsv(String csv) {
+        return ingest(parseCsv(csv));
+    }
+
+    /**
+     * 解析 CSV 內容（所有資料列必須為同一日期）
+     */
+    HoldingIngestRequest parseCsv(String csv) {
+        if (csv == null || csv.isBlank()) {
+            throw ValidationException.required("body");
+        }
+
+        LocalDate date = null;
+        List<HoldingDto> holdings = new ArrayList<>();
+        String[] lines = csv.split("\\r?\\n");
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (i == 0 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            List<String> cells = splitCsvLine(line);
+            LocalDate rowDate;
+            try {
+                rowDate = LocalDate.parse(cells.get(0).replace('/', '-'));
+            } catch (DateTimeParseException e) {
+                if (i == 0) {
+                    continue; // 標題列
+                }
+                throw new ValidationException("第 " + (i + 1) + " 列日期格式錯誤", "date", cells.get(0));
+            }
+
+            if (date == null) {
+                date = rowDate;
+            } else if (!date.equals(rowDate)) {
+                throw new ValidationException("一次只能推送同一日期的資料", "date", rowDate);
+            }
+
+            String stockCode = cells.size() > 1 ? cells.get(1) : "";
+            if (stockCode.isEmpty()) {
+                continue; // 當日無持倉的佔位列
+            }
+            if (cells.size() < 5) {
+                throw new ValidationException("第 " + (i + 1) + " 列欄位數不足", "line", line);
+            }
+            holdings.add(new HoldingDto(stockCode, cells.get(2),
+                    parseNumber(cells.get(3), "shares", i).longValue(),
+                    parseNumber(cells.get(4), "weight", i)));
+        }
+
+        if (date == null) {
+            throw ValidationException.required("date");
+        }
+        return new HoldingIngestRequest(date, holdings);
+    }
+
+    /**
+     * 驗證並轉換為快照
+     */
+    private DailySnapshot toSnapshot(LocalDate date, List<HoldingDto> holdings) {
+        List<ValidationException.ValidationError> errors = new ArrayList<>();
+
+        if (date.isAfter(LocalDate.now().plusDays(1))) {
+            errors.add(new ValidationException.ValidationError("date", "日期不可晚於今日", date));
+        }
+        int maxHoldings = appConfig.getIngest().getMaxHoldings();
+        if (holdings.size() > maxHoldings) {
+            errors.add(new ValidationException.ValidationError("holdings",
+                    "成分股數量超過上限 " + maxHoldings, holdings.size()));
+        }
+
+        Set<String> seen = new HashSet<>();
+        List<Holding> result = new ArrayList<>(holdings.size());
+        BigDecimal totalWeight = BigDecimal.ZERO;
+
+        for (int i = 0; i < holdings.size(); i++) {
+            HoldingDto dto = holdings.get(i);
+            String field = "holdings[" + i + "]";
+            if (dto == null || dto.stockCode() == null || dto.stockCode().isBlank()) {
+                errors.add(new ValidationException.ValidationError(field + ".stockCode", "股票代碼不可為空", null));
+                continue;
+            }
+            String stockCode = dto.stockCode().strip();
+            if (!seen.add(stockCode)) {
+                errors.add(new ValidationException.ValidationError(field + ".stockCode", "股票代碼重複", stockCode));
+            }
+            if (dto.shares() == null || dto.shares() < 0) {
+                errors.add(new ValidationException.ValidationError(field + ".shares", "持有股數必須大於或等於 0",
+                        dto.shares()));
+            }
+            if (dto.weight() == null || dto.weight().signum() < 0 || dto.weight().compareTo(MAX_WEIGHT) > 0) {
+                errors.add(new ValidationException.ValidationError(field + ".weight", "權重必須介於 0 到 100",
+                        dto.weight()));
+            }
+
+            result.add(Holding.builder()
+                    .stockCode(stockCode)
+                    .stockName(dto.stockName() == null ? "" : dto.stockName().strip())
+                    .shares(dto.shares())
+                    .weight(dto.weight())
+                    .build());
+            if (dto.weight() != null) {
+                totalWeight = totalWeight.add(dto.weight());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("推送的持倉資料驗證失敗: " + errors.get(0).message(), errors);
+        }
+
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(result)
+                .totalCount(result.size())
+                .totalWeight(totalWeight)
+                .build();
+    }
+
+    private static BigDecimal parseNumber(String value, String field, int line) {
+        try {
+            return new BigDecimal(value.replaceAll("[,%\\s]", ""));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("第 " + (line + 1) + " 列數值格式錯誤", field, value);
+        }
+    }
+
+    /**
+     * 切分一列 CSV（支援以雙引號包住含逗號的欄位）
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString().strip());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().strip());
+        return cells;
+    }
+}
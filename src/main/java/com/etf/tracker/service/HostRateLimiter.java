@@ -0,0 +1,96 @@
+package com.etf.tracker.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 依主機限制請求頻率
+ * <p>
+ * 每個主機保留下一個可用的時間點，呼叫者取得全域名額後以 CAS 預約時段，
+ * 時段未到時釋放名額並在自己的執行緒上等待，不同主機之間互不影響。適合在虛擬執行緒上使用。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+final class HostRateLimiter {
+
+    /** 主機 → 下一個可用時間點（奈秒時鐘） */
+    private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+
+    HostRateLimiter() {
+        this(System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    /**
+     * @param nanoClock 奈秒時鐘
+     * @param sleeper   等待方式（測試可替換為不實際等待的實作）
+     */
+    HostRateLimiter(LongSupplier nanoClock, Sleeper sleeper) {
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * 取得全域名額並預約指定主機的時段
+     * <p>
+     * 時段在持有名額時以當下時間預約，因此同一主機的請求間隔以實際發出的時間計算；
+     * 時段未到時先釋放名額再等待，等待主機間隔時不佔用其他主機可用的名額。
+     * 返回時呼叫者持有一個名額，須自行釋放。
+     * </p>
+     *
+     * @param host        主機名稱
+     * @param minInterval 同一主機兩次請求的最小間隔
+     * @param permits     全域同時請求名額
+     * @return 等待主機時段的總時間（奈秒）
+     * @throws InterruptedException 如果等待時被中斷（此時不持有名額）
+     */
+    long acquire(String host, Duration minInterval, Semaphore permits) throws InterruptedException {
+        long interval = minInterval.toNanos();
+        long waited = 0;
+        while (true) {
+            permits.acquire();
+            long wait = interval > 0 ? tryReserve(host, interval) : 0;
+            if (wait <= 0) {
+                return waited;
+            }
+            permits.release();
+            sleeper.sleep(wait);
+            waited += wait;
+        }
+    }
+
+    /**
+     * 時段已到時以當下時間預約並回傳 0，否則回傳距離下一個時段的時間（不預約）
+     */
+    private long tryReserve(String host, long interval) {
+        AtomicLong nextSlot = nextSlots.computeIfAbsent(host, key -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = nextSlot.get();
+            if (current != Long.MIN_VALUE && current > now) {
+                return current - now;
+            }
+            if (nextSlot.compareAndSet(current, now + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 等待指定的奈秒數
+     */
+    @FunctionalInterface
+    interface Sleeper {
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+}
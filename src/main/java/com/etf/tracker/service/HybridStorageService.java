@@ -1,36 +1,57 @@
 package com.etf.tracker.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import com.etf.tracker.config.AppConfig;
 import com.etf.tracker.model.DailySnapshot;
 import com.etf.tracker.model.Holding;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.etf.tracker.model.HoldingRow;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * 混合儲存服務
@@ -40,13 +61,24 @@ import jakarta.annotation.PostConstruct;
  * <li>讀取：優先從公開的 Google Sheets 讀取，失敗時回退到本地 Excel</li>
  * <li>寫入：使用本地 Excel 儲存</li>
  * </ul>
+ * 每個讀取操作以 Google Visualization Query Language（tq）只查詢所需的資料列或彙總，
+ * 查詢結果由 {@link GvizTableCache} 依查詢字串共用快取；日期彙總由背景排程定期以條件式請求更新，
+ * 讀取路徑上通常不需要等待下載。
+ * </p>
+ * <p>
+ * {@code app.google-sheets.mode=replicate} 時改為複製模式：背景排程只拉取最後複製日期之後的資料列
+ * 並合併至本地儲存，所有讀取都由本地回應，唯讀狀態依複製狀態判斷
+ * </p>
+ * <p>
+ * 對 Google Sheets 的連線由斷路器保護：連續失敗或延遲過高時直接改用本地儲存，
+ * 直到半開探測成功為止。設定 {@code hedge-after-millis} 時，Google Sheets 超過該延遲仍未回應，
+ * 便同時開始本地讀取，並採用先完成的結果
  * </p>
  *
  * @author ETF Tracker Team
  * @version 1.0.0
  */
 @Service
-@Primary
 @ConditionalOnProperty(name = "app.google-sheets.enabled", havingValue = "true")
 public class HybridStorageService implements StorageService {
 
@@ -54,49 +86,180 @@ public class HybridStorageService implements StorageService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     // Google Sheets 公開 API URL 模板
-    // 使用 gviz 查詢 API，可以讀取公開的 Sheets
-    private static final String SHEETS_API_URL_TEMPLATE = "https://docs.google.com/spreadsheets/d/%s/gviz/tq?tqx=out:json&sheet=%s";
+    // 使用 gviz 查詢 API，可以讀取公開的 Sheets；查詢語句另以 tq 參數附加
+    private static final String SHEETS_API_URL_TEMPLATE = "%s/%s/gviz/tq?tqx=out:json&sheet=%s";
+
+    // 欄位：A=日期, B=股票代碼, C=股票名稱, D=持有股數, E=權重
+    private static final String SELECT_HOLDINGS = "select A, B, C, D, E";
+    private static final int HOLDING_COLUMNS = 5;
+    private static final String SUMMARY_QUERY = "select A, count(A) group by A";
+
+    // 以 OR 條件查詢多個日期的上限，超過時改以日期範圍查詢
+    private static final int MAX_DATES_PER_QUERY = 31;
+
+    // 查詢結果快取的上限
+    private static final int MAX_CACHED_QUERIES = 64;
 
     private final AppConfig appConfig;
-    private final ExcelStorageService excelStorageService;
+    private final LocalStorageService localStorageService;
     private final HttpClient httpClient;
-    private final Gson gson;
 
     private String sheetsApiUrl;
+    private Duration cacheTtl;
+    private GvizTableCache<DateCount> summaryCache;
+    private final Map<String, GvizTableCache<?>> queryCaches = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GvizTableCache<?>> eldest) {
+            return size() > MAX_CACHED_QUERIES;
+        }
+    };
+    private ScheduledExecutorService refresher;
 
     // 追蹤最後一次讀取的資料來源
     private volatile boolean lastReadFromGoogleSheets = false;
 
-    public HybridStorageService(AppConfig appConfig, ExcelStorageService excelStorageService) {
+    // 斷路器與對沖讀取
+    private CircuitBreaker circuitBreaker;
+    private long hedgeAfterMillis;
+    private ExecutorService hedgeExecutor;
+    private final LongAdder hedgedReads = new LongAdder();
+    private final LongAdder hedgeChecks = new LongAdder();
+    private final LongAdder hedgeSheetsWins = new LongAdder();
+    private final LongAdder hedgeLocalWins = new LongAdder();
+
+    /**
+     * 對沖讀取統計
+     *
+     * @param hedgeAfterMillis 開始本地讀取前等待 Google Sheets 的時間（毫秒）
+     * @param reads            對沖模式下的讀取次數
+     * @param hedged           等待逾時而同時啟動本地讀取的次數
+     * @param sheetsWins       對沖後由 Google Sheets 先完成的次數
+     * @param localWins        對沖後採用本地結果的次數
+     * @param sheetsWinRate    對沖後 Google Sheets 勝出的比例
+     */
+    public record HedgeStatistics(
+            long hedgeAfterMillis,
+            long reads,
+            long hedged,
+            long sheetsWins,
+            long localWins,
+            double sheetsWinRate) {
+    }
+
+    /**
+     * 從 Google Sheets 讀取；回傳 null 表示 Google Sheets 中沒有可用的資料
+     */
+    @FunctionalInterface
+    private interface SheetsRead<T> {
+        T read() throws Exception;
+    }
+
+    // 複製模式
+    private boolean replicating;
+    private Path watermarkFile;
+    private volatile ReplicationStatus replicationStatus = ReplicationStatus.NEVER;
+    private final List<Runnable> replicationListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 複製狀態
+     *
+     * @param replicatedThrough  已複製的最後日期
+     * @param lastSuccessAt      最近一次成功複製的時間
+     * @param lastDurationMillis 最近一次複製耗時（毫秒）
+     * @param runs               複製次數
+     * @param failures           失敗次數
+     * @param lastRowsPulled     最近一次拉取的資料列數
+     * @param lastDatesMerged    最近一次內容有變動而寫入的日期數
+     * @param lastError          最近一次失敗的原因
+     */
+    public record ReplicationStatus(
+            LocalDate replicatedThrough,
+            Instant lastSuccessAt,
+            Long lastDurationMillis,
+            long runs,
+            long failures,
+            int lastRowsPulled,
+            int lastDatesMerged,
+            String lastError) {
+
+        static final ReplicationStatus NEVER = new ReplicationStatus(null, null, null, 0, 0, 0, 0, null);
+    }
+
+    public HybridStorageService(AppConfig appConfig, LocalStorageService localStorageService) {
         this.appConfig = appConfig;
-        this.excelStorageService = excelStorageService;
+        this.localStorageService = localStorageService;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
-        this.gson = new Gson();
     }
 
     @PostConstruct
     public void init() {
         var config = appConfig.getGoogleSheets();
         this.sheetsApiUrl = String.format(SHEETS_API_URL_TEMPLATE,
+                config.getApiBaseUrl(),
                 config.getSpreadsheetId(),
-                config.getSheetName());
-        logger.info("混合儲存服務初始化成功: Google Sheets ID={}, 本地 Excel={}",
+                URLEncoder.encode(config.getSheetName(), StandardCharsets.UTF_8));
+        this.cacheTtl = Duration.ofSeconds(Math.max(1, config.getCacheTtlSeconds()));
+        if (config.getRefreshIntervalSeconds() > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sheets-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.summaryCache = queryCache(SUMMARY_QUERY, 2, this::toDateCount);
+
+        this.circuitBreaker = new CircuitBreaker(config.getBreakerFailureThreshold(),
+                Duration.ofMillis(config.getBreakerSlowCallMillis()),
+                Duration.ofSeconds(config.getBreakerOpenSeconds()));
+        this.hedgeAfterMillis = config.getHedgeAfterMillis();
+        if (hedgeAfterMillis > 0) {
+            hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        this.replicating = config.getMode() == AppConfig.SheetsMode.REPLICATE;
+        if (replicating) {
+            this.watermarkFile = Path.of(appConfig.getData().getStoragePath(),
+                    appConfig.getData().getFileName() + ".sheets-replica");
+            this.replicationStatus = new ReplicationStatus(readWatermark(), null, null, 0, 0, 0, 0, null);
+        }
+
+        if (refresher != null) {
+            refresher.scheduleWithFixedDelay(replicating ? this::replicateQuietly : summaryCache::refreshQuietly,
+                    0, config.getRefreshIntervalSeconds(), TimeUnit.SECONDS);
+        }
+
+        logger.info("混合儲存服務初始化成功: Google Sheets ID={}, 模式={}, 本地 Excel={}",
                 config.getSpreadsheetId(),
+                config.getMode(),
                 appConfig.getData().getStoragePath() + "/" + appConfig.getData().getFileName());
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
     // ==================== 資料來源判斷 ====================
 
     /**
      * 判斷目前是否為唯讀模式
      * <p>
-     * 當最後一次讀取來自 Google Sheets 時，為唯讀模式
+     * 當最後一次讀取來自 Google Sheets 時，為唯讀模式；
+     * 複製模式下，本地資料已成功與 Google Sheets 同步時為唯讀模式
      * </p>
      */
     @Override
     public boolean isReadOnly() {
+        if (replicating) {
+            return replicationStatus.replicatedThrough() != null;
+        }
         return lastReadFromGoogleSheets;
     }
 
@@ -105,266 +268,619 @@ public class HybridStorageService implements StorageService {
      */
     @Override
     public String getDataSourceInfo() {
-        if (lastReadFromGoogleSheets) {
+        if (isReadOnly()) {
             return "Google Sheets (唯讀)";
         }
         return "本地 Excel";
     }
 
+    /**
+     * 取得執行統計（本地儲存統計加上 Google Sheets 快取狀態）
+     */
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>(localStorageService.getMetrics());
+        if (summaryCache != null) {
+            metrics.put("googleSheetsCache", summaryCache.getStatus());
+            synchronized (queryCaches) {
+                metrics.put("googleSheetsCachedQueries", queryCaches.size());
+            }
+        }
+        if (replicating) {
+            metrics.put("googleSheetsReplication", replicationStatus);
+        }
+        if (circuitBreaker != null) {
+            metrics.put("googleSheetsBreaker", circuitBreaker.getStatus());
+        }
+        if (hedgeExecutor != null) {
+            long sheetsWins = hedgeSheetsWins.sum();
+            long localWins = hedgeLocalWins.sum();
+            long decided = sheetsWins + localWins;
+            metrics.put("googleSheetsHedge", new HedgeStatistics(hedgeAfterMillis, hedgeChecks.sum(),
+                    hedgedReads.sum(), sheetsWins, localWins, decided == 0 ? 0.0 : (double) sheetsWins / decided));
+        }
+        return metrics;
+    }
+
     // ==================== 寫入操作（使用本地 Excel）====================
 
     @Override
     public void saveSnapshot(DailySnapshot snapshot) {
         logger.info("儲存快照到本地 Excel: 日期={}, 成分股數量={}",
                 snapshot.getDate(), snapshot.getTotalCount());
-        excelStorageService.saveSnapshot(snapshot);
+        localStorageService.saveSnapshot(snapshot);
+        invalidateQueryCaches();
+    }
+
+    @Override
+    public void saveSnapshots(List<DailySnapshot> snapshots) {
+        logger.info("批次儲存快照到本地 Excel: {} 個日期", snapshots.size());
+        localStorageService.saveSnapshots(snapshots);
+        invalidateQueryCaches();
     }
 
     @Override
     public int deleteDataBefore(LocalDate cutoffDate) {
         logger.info("從本地 Excel 刪除過期資料: cutoffDate={}", cutoffDate);
-        return excelStorageService.deleteDataBefore(cutoffDate);
+        int deleted = localStorageService.deleteDataBefore(cutoffDate);
+        invalidateQueryCaches();
+        return deleted;
+    }
+
+    /**
+     * 本地資料異動後捨棄所有 Google Sheets 查詢結果（含日期彙總）
+     * <p>
+     * 本地寫入與清理通常伴隨 Google Sheets 的同一批更新，過期的查詢結果會遮蔽這些變更，
+     * 因此所有寫入操作都使用同一規則：下一次讀取重新查詢
+     * </p>
+     */
+    private void invalidateQueryCaches() {
+        synchronized (queryCaches) {
+            queryCaches.clear();
+        }
+        if (summaryCache != null) {
+            summaryCache.invalidate();
+        }
     }
 
     // ==================== 讀取操作（優先 Google Sheets，回退到本地）====================
 
     @Override
     public Optional<DailySnapshot> getSnapshot(LocalDate date) {
-        try {
+        if (replicating) {
+            return localStorageService.getSnapshot(date);
+        }
+        return readPreferringSheets("讀取快照", () -> {
             Optional<DailySnapshot> result = getSnapshotFromGoogleSheets(date);
-            if (result.isPresent()) {
-                logger.debug("從 Google Sheets 讀取快照成功: {}", date);
-                lastReadFromGoogleSheets = true;
-                return result;
+            return result.isPresent() ? result : null;
+        }, () -> localStorageService.getSnapshot(date));
+    }
+
+    /**
+     * 取得日期範圍內的所有快照
+     * <p>
+     * 以單一日期範圍查詢讀取 Google Sheets；Google Sheets 中沒有的日期再由本地儲存批次補齊
+     * </p>
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        if (replicating) {
+            return localStorageService.getSnapshots(from, to);
+        }
+        Predicate<LocalDate> inRange = date -> !date.isBefore(from) && !date.isAfter(to);
+        return readPreferringSheets("批次讀取快照", () -> {
+            Map<LocalDate, DailySnapshot> result = getSnapshotsFromGoogleSheets(rangeQuery(from, to), inRange);
+            return result.isEmpty() ? null : fillFromLocal(result, inRange);
+        }, () -> localStorageService.getSnapshots(from, to));
+    }
+
+    /**
+     * 取得多個指定日期的快照
+     * <p>
+     * 以單一查詢讀取 Google Sheets；Google Sheets 中沒有的日期再由本地儲存批次補齊
+     * </p>
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        if (replicating) {
+            return localStorageService.getSnapshots(dates);
+        }
+        Set<LocalDate> wanted = new HashSet<>(dates);
+        if (wanted.isEmpty()) {
+            return new TreeMap<>();
+        }
+        return readPreferringSheets("批次讀取快照", () -> {
+            Map<LocalDate, DailySnapshot> result = getSnapshotsFromGoogleSheets(datesQuery(wanted), wanted::contains);
+            if (result.isEmpty()) {
+                return null;
             }
-        } catch (Exception e) {
-            logger.warn("從 Google Sheets 讀取失敗，回退到本地 Excel: {}", e.getMessage());
+            Set<LocalDate> missing = new HashSet<>(wanted);
+            missing.removeAll(result.keySet());
+            if (!missing.isEmpty()) {
+                result.putAll(localStorageService.getSnapshots(missing));
+            }
+            return result;
+        }, () -> localStorageService.getSnapshots(wanted));
+    }
+
+    /**
+     * 開啟日期範圍內的持倉資料列游標
+     * <p>
+     * Google Sheets 的回應本身即為完整的查詢結果，因此由單次範圍查詢的結果逐日輸出；
+     * 無法讀取 Google Sheets 時改用本地儲存的串流游標（游標持有資源，因此不做對沖讀取）
+     * </p>
+     */
+    @Override
+    public HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        if (replicating) {
+            return localStorageService.openCursor(from, to);
         }
-        lastReadFromGoogleSheets = false;
-        return excelStorageService.getSnapshot(date);
+        Predicate<LocalDate> inRange = date -> !date.isBefore(from) && !date.isAfter(to);
+        Map<LocalDate, DailySnapshot> fromSheets = trySheets("開啟游標",
+                () -> getSnapshotsFromGoogleSheets(rangeQuery(from, to), inRange));
+        if (fromSheets == null || fromSheets.isEmpty()) {
+            lastReadFromGoogleSheets = false;
+            return localStorageService.openCursor(from, to);
+        }
+        lastReadFromGoogleSheets = true;
+        return HoldingCursor.ofSnapshots(fillFromLocal(fromSheets, inRange).values().iterator(), () -> {
+        });
     }
 
     @Override
     public Optional<DailySnapshot> getLatestSnapshot() {
-        try {
+        if (replicating) {
+            return localStorageService.getLatestSnapshot();
+        }
+        return readPreferringSheets("讀取最新快照", () -> {
             List<LocalDate> dates = getAvailableDatesFromGoogleSheets();
-            if (!dates.isEmpty()) {
-                Optional<DailySnapshot> result = getSnapshotFromGoogleSheets(dates.get(0));
-                if (result.isPresent()) {
-                    lastReadFromGoogleSheets = true;
-                    return result;
-                }
+            if (dates.isEmpty()) {
+                return null;
             }
-        } catch (Exception e) {
-            logger.warn("從 Google Sheets 讀取最新快照失敗，回退到本地 Excel: {}", e.getMessage());
-        }
-        lastReadFromGoogleSheets = false;
-        return excelStorageService.getLatestSnapshot();
+            Optional<DailySnapshot> result = getSnapshotFromGoogleSheets(dates.get(0));
+            return result.isPresent() ? result : null;
+        }, localStorageService::getLatestSnapshot);
     }
 
     @Override
     public List<LocalDate> getAvailableDates() {
-        try {
+        if (replicating) {
+            return localStorageService.getAvailableDates();
+        }
+        return readPreferringSheets("讀取可用日期", () -> {
             List<LocalDate> dates = getAvailableDatesFromGoogleSheets();
-            if (!dates.isEmpty()) {
-                logger.debug("從 Google Sheets 讀取可用日期成功: {} 個日期", dates.size());
+            return dates.isEmpty() ? null : dates;
+        }, localStorageService::getAvailableDates);
+    }
+
+    @Override
+    public int countRecordsBefore(LocalDate cutoffDate) {
+        if (replicating) {
+            return localStorageService.countRecordsBefore(cutoffDate);
+        }
+        return readPreferringSheets("計算過期資料筆數", () -> {
+            // 使用 < 嚴格比較：只有早於截止日的才計入（不含截止日當天）
+            List<Integer> counts = query("select count(A) where A < " + literal(cutoffDate), 1,
+                    cells -> parseCount(cells[0]));
+            return counts.isEmpty() ? 0 : counts.get(0);
+        }, () -> localStorageService.countRecordsBefore(cutoffDate));
+    }
+
+    @Override
+    public int getTotalRecordCount() {
+        if (replicating) {
+            return localStorageService.getTotalRecordCount();
+        }
+        return readPreferringSheets("計算總記錄數",
+                () -> getRecordCountsFromGoogleSheets().values().stream().mapToInt(Integer::intValue).sum(),
+                localStorageService::getTotalRecordCount);
+    }
+
+    // ==================== 讀取來源選擇（斷路器、對沖讀取）====================
+
+    /**
+     * 優先讀取 Google Sheets，沒有資料或失敗時改用本地儲存
+     * <p>
+     * 啟用對沖讀取時，Google Sheets 超過門檻仍未回應便同時開始本地讀取，採用先完成的可用結果
+     * </p>
+     */
+    private <T> T readPreferringSheets(String operation, SheetsRead<T> fromSheets, Supplier<T> fromLocal) {
+        if (hedgeExecutor == null) {
+            T result = trySheets(operation, fromSheets);
+            if (result != null) {
                 lastReadFromGoogleSheets = true;
-                return dates;
+                return result;
             }
-        } catch (Exception e) {
-            logger.warn("從 Google Sheets 讀取可用日期失敗，回退到本地 Excel: {}", e.getMessage());
+            lastReadFromGoogleSheets = false;
+            return fromLocal.get();
+        }
+        return hedgedRead(operation, fromSheets, fromLocal);
+    }
+
+    private <T> T hedgedRead(String operation, SheetsRead<T> fromSheets, Supplier<T> fromLocal) {
+        hedgeChecks.increment();
+        CompletableFuture<T> sheets = CompletableFuture.supplyAsync(() -> trySheets(operation, fromSheets),
+                hedgeExecutor);
+        try {
+            T result = sheets.get(hedgeAfterMillis, TimeUnit.MILLISECONDS);
+            if (result != null) {
+                lastReadFromGoogleSheets = true;
+                return result;
+            }
+            lastReadFromGoogleSheets = false;
+            return fromLocal.get();
+        } catch (TimeoutException e) {
+            // Google Sheets 回應過慢，啟動本地讀取
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastReadFromGoogleSheets = false;
+            return fromLocal.get();
+        } catch (ExecutionException e) {
+            lastReadFromGoogleSheets = false;
+            return fromLocal.get();
+        }
+
+        hedgedReads.increment();
+        CompletableFuture<T> local = CompletableFuture.supplyAsync(fromLocal, hedgeExecutor);
+        CompletableFuture.anyOf(sheets, local).exceptionally(e -> null).join();
+
+        // Google Sheets 先完成且有資料時採用；否則等待本地結果（Google Sheets 的回應仍會寫入查詢快取）
+        T result = sheets.isDone() && !sheets.isCompletedExceptionally() ? sheets.join() : null;
+        if (result != null) {
+            hedgeSheetsWins.increment();
+            lastReadFromGoogleSheets = true;
+            return result;
         }
+        hedgeLocalWins.increment();
         lastReadFromGoogleSheets = false;
-        return excelStorageService.getAvailableDates();
+        try {
+            return local.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
-    @Override
-    public int countRecordsBefore(LocalDate cutoffDate) {
+    /**
+     * 讀取 Google Sheets，失敗時記錄並回傳 null
+     */
+    private <T> T trySheets(String operation, SheetsRead<T> fromSheets) {
         try {
-            List<List<String>> allData = fetchAllDataFromGoogleSheets();
-            int count = 0;
-            for (List<String> row : allData) {
-                if (row.isEmpty())
-                    continue;
-                try {
-                    LocalDate date = LocalDate.parse(row.get(0), DATE_FORMATTER);
-                    // 使用 isBefore 嚴格比較：只有早於截止日的才計入（不含截止日當天）
-                    if (date.isBefore(cutoffDate)) {
-                        count++;
-                    }
-                } catch (Exception e) {
-                    // 忽略無效日期
+            T result = fromSheets.read();
+            if (result != null) {
+                logger.debug("從 Google Sheets {}成功", operation);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("從 Google Sheets {}失敗，回退到本地 Excel: {}", operation, e.getMessage());
+        }
+        return null;
+    }
+
+    // ==================== 背景複製（replicate 模式）====================
+
+    /**
+     * 註冊複製完成後的通知（例如清除上層快取）
+     */
+    public void addReplicationListener(Runnable listener) {
+        replicationListeners.add(listener);
+    }
+
+    /**
+     * 執行一次複製：只拉取最後複製日期（含）之後的資料列，依日期合併至本地儲存
+     * <p>
+     * 最後複製日期當天也重新拉取，以涵蓋上次複製時 Google Sheets 尚未寫完的資料；
+     * 內容與本地相同的日期不重新寫入，也不通知監聽者
+     * </p>
+     *
+     * @return 內容有變動而寫入的日期數
+     */
+    synchronized int replicate() throws IOException, InterruptedException {
+        ReplicationStatus previous = replicationStatus;
+        LocalDate watermark = previous.replicatedThrough();
+        long start = System.nanoTime();
+
+        try {
+            String tq = watermark == null ? SELECT_HOLDINGS : SELECT_HOLDINGS + " where A >= " + literal(watermark);
+            List<HoldingRow> rows = fetchGvizTable(tq, null, null, HOLDING_COLUMNS, holdingRowMapper()).rows();
+            Map<LocalDate, DailySnapshot> snapshots = toSnapshots(rows, date -> true);
+
+            // 與本地已有的版本比對，只寫入內容有變動的日期（重新拉取的最後複製日期通常未變）
+            Map<LocalDate, DailySnapshot> stored = localStorageService.getSnapshots(snapshots.keySet());
+            List<DailySnapshot> changed = new ArrayList<>();
+            LocalDate latest = watermark;
+            for (DailySnapshot snapshot : snapshots.values()) {
+                latest = snapshot.getDate();
+                DailySnapshot existing = stored.get(snapshot.getDate());
+                if (existing == null
+                        || !SnapshotChangeDetector.hash(existing).equals(SnapshotChangeDetector.hash(snapshot))) {
+                    changed.add(snapshot);
                 }
             }
-            return count;
+            if (!changed.isEmpty()) {
+                localStorageService.saveSnapshots(changed);
+            }
+
+            if (latest != null && !latest.equals(watermark)) {
+                writeWatermark(latest);
+            }
+
+            replicationStatus = new ReplicationStatus(latest, Instant.now(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    previous.runs() + 1, previous.failures(), rows.size(), changed.size(), null);
+            logger.info("Google Sheets 複製完成: {} 列, {} 個日期有變動, 已複製至 {}", rows.size(), changed.size(), latest);
+
+            if (!changed.isEmpty()) {
+                replicationListeners.forEach(Runnable::run);
+            }
+            return changed.size();
+
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            replicationStatus = new ReplicationStatus(watermark, previous.lastSuccessAt(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    previous.runs() + 1, previous.failures() + 1, 0, 0, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void replicateQuietly() {
+        try {
+            replicate();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            logger.warn("從 Google Sheets 計算過期資料筆數失敗，回退到本地 Excel: {}", e.getMessage());
+            logger.warn("Google Sheets 複製失敗，讀取繼續使用本地資料: {}", e.getMessage());
         }
-        return excelStorageService.countRecordsBefore(cutoffDate);
     }
 
-    @Override
-    public int getTotalRecordCount() {
+    /**
+     * 以暫存檔寫入複製進度後再取代，避免中斷時留下不完整的檔案
+     */
+    private void writeWatermark(LocalDate latest) throws IOException {
+        Path temp = watermarkFile.resolveSibling(watermarkFile.getFileName() + ".tmp");
+        Files.writeString(temp, latest.toString());
+        ExcelFileLock.moveAtomically(temp, watermarkFile);
+    }
+
+    private LocalDate readWatermark() {
         try {
-            List<List<String>> allData = fetchAllDataFromGoogleSheets();
-            return allData.size();
+            if (Files.exists(watermarkFile)) {
+                return LocalDate.parse(Files.readString(watermarkFile).trim());
+            }
         } catch (Exception e) {
-            logger.warn("從 Google Sheets 計算總記錄數失敗，回退到本地 Excel: {}", e.getMessage());
+            logger.warn("無法讀取複製進度，將重新完整複製: {}", e.getMessage());
         }
-        return excelStorageService.getTotalRecordCount();
+        return null;
     }
 
     // ==================== Google Sheets 公開 API 讀取方法 ====================
 
     /**
-     * 從 Google Sheets 獲取所有資料
-     * 使用 Google Visualization API (gviz)，可以讀取公開的 Sheets
+     * 執行 gviz 查詢
+     * 結果依查詢字串共用快取；快取過期時回應既有結果並在背景更新，只有尚未快取的查詢需要等待下載
      */
-    private List<List<String>> fetchAllDataFromGoogleSheets() throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(sheetsApiUrl))
-                .timeout(Duration.ofSeconds(30))
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    private <T> List<T> query(String tq, int columns, GvizResponseReader.RowMapper<T> mapper)
+            throws IOException, InterruptedException {
+        return queryCache(tq, columns, mapper).get();
+    }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("Google Sheets API 請求失敗: HTTP " + response.statusCode());
+    @SuppressWarnings("unchecked")
+    private <T> GvizTableCache<T> queryCache(String tq, int columns, GvizResponseReader.RowMapper<T> mapper) {
+        synchronized (queryCaches) {
+            if (SUMMARY_QUERY.equals(tq) && summaryCache != null) {
+                return (GvizTableCache<T>) summaryCache;
+            }
+            // 同一查詢字串的欄位與轉換方式固定，因此可依查詢字串共用
+            // 過期的查詢結果先回應，由背景排程執行緒更新（未啟用背景排程時同步等待）
+            return (GvizTableCache<T>) queryCaches.computeIfAbsent(tq, q -> new GvizTableCache<>(
+                    (etag, lastModified) -> fetchGvizTable(q, etag, lastModified, columns, mapper), cacheTtl,
+                    refresher));
         }
+    }
+
+    private static String literal(LocalDate date) {
+        return "'" + date.format(DATE_FORMATTER) + "'";
+    }
 
-        return parseGvizResponse(response.body());
+    private static String rangeQuery(LocalDate from, LocalDate to) {
+        return SELECT_HOLDINGS + " where A >= " + literal(from) + " and A <= " + literal(to);
     }
 
     /**
-     * 解析 Google Visualization API 回應
-     * 回應格式: google.visualization.Query.setResponse({...})
+     * 多個日期的查詢：日期數量不多時以 OR 條件列出，否則以最小至最大日期的範圍查詢後再篩選
      */
-    private List<List<String>> parseGvizResponse(String responseBody) {
-        List<List<String>> result = new ArrayList<>();
-
-        // 移除 JSONP 包裝: google.visualization.Query.setResponse(...)
-        String jsonStr = responseBody;
-        int startIdx = responseBody.indexOf("(");
-        int endIdx = responseBody.lastIndexOf(")");
-        if (startIdx != -1 && endIdx != -1 && endIdx > startIdx) {
-            jsonStr = responseBody.substring(startIdx + 1, endIdx);
+    private static String datesQuery(Collection<LocalDate> dates) {
+        if (dates.size() > MAX_DATES_PER_QUERY) {
+            return rangeQuery(dates.stream().min(Comparator.naturalOrder()).orElseThrow(),
+                    dates.stream().max(Comparator.naturalOrder()).orElseThrow());
         }
+        return SELECT_HOLDINGS + " where " + dates.stream()
+                .sorted()
+                .map(date -> "A = " + literal(date))
+                .collect(Collectors.joining(" or "));
+    }
 
-        JsonObject json = gson.fromJson(jsonStr, JsonObject.class);
-        JsonObject table = json.getAsJsonObject("table");
-        if (table == null) {
-            return result;
+    /**
+     * 下載 Google Sheets 查詢結果
+     * 使用 Google Visualization API (gviz)，可以讀取公開的 Sheets；
+     * 帶上前次回應的 ETag / Last-Modified，伺服器支援時以 304 回應未變更；
+     * 回應內容以串流逐列解析，直接轉換為目標型別
+     */
+    private <T> GvizTableCache.FetchResult<T> fetchGvizTable(String tq, String etag, String lastModified,
+            int columns, GvizResponseReader.RowMapper<T> mapper) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(sheetsApiUrl + "&tq=" + URLEncoder.encode(tq, StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
         }
-
-        JsonArray rows = table.getAsJsonArray("rows");
-        if (rows == null) {
-            return result;
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
         }
 
-        // gviz API 的 rows 陣列直接是資料列（標題在 cols.label 中）
-        for (int i = 0; i < rows.size(); i++) {
-            JsonObject row = rows.get(i).getAsJsonObject();
-            JsonArray cells = row.getAsJsonArray("c");
-            if (cells == null)
-                continue;
+        if (!circuitBreaker.tryAcquire()) {
+            throw new IOException("Google Sheets 斷路器開啟中，暫停連線");
+        }
 
-            List<String> rowData = new ArrayList<>();
-            for (JsonElement cell : cells) {
-                if (cell == null || cell.isJsonNull()) {
-                    rowData.add("");
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(builder.build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            GvizTableCache.FetchResult<T> result;
+            try (InputStream body = response.body()) {
+                if (response.statusCode() == 304) {
+                    result = GvizTableCache.FetchResult.unchanged();
+                } else if (response.statusCode() != 200) {
+                    throw new IOException("Google Sheets API 請求失敗: HTTP " + response.statusCode());
                 } else {
-                    JsonObject cellObj = cell.getAsJsonObject();
-                    JsonElement v = cellObj.get("v");
-                    if (v == null || v.isJsonNull()) {
-                        rowData.add("");
-                    } else {
-                        rowData.add(v.getAsString());
-                    }
+                    result = GvizTableCache.FetchResult.of(GvizResponseReader.read(body, columns, mapper),
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null));
                 }
             }
-            result.add(rowData);
-        }
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return result;
 
-        return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            throw e;
+        }
     }
 
     private List<LocalDate> getAvailableDatesFromGoogleSheets() throws IOException, InterruptedException {
-        List<List<String>> allData = fetchAllDataFromGoogleSheets();
-        Set<LocalDate> dateSet = new TreeSet<>(Comparator.reverseOrder());
+        List<LocalDate> dates = new ArrayList<>(getRecordCountsFromGoogleSheets().keySet());
+        dates.sort(Comparator.reverseOrder());
+        return dates;
+    }
 
-        for (List<String> row : allData) {
-            if (row.isEmpty())
-                continue;
-            try {
-                LocalDate date = LocalDate.parse(row.get(0), DATE_FORMATTER);
-                dateSet.add(date);
-            } catch (Exception e) {
-                // 忽略無效日期
-            }
+    /**
+     * 各日期的資料列數（日期彙總查詢）
+     */
+    private Map<LocalDate, Integer> getRecordCountsFromGoogleSheets() throws IOException, InterruptedException {
+        Map<LocalDate, Integer> counts = new HashMap<>();
+        for (DateCount row : query(SUMMARY_QUERY, 2, this::toDateCount)) {
+            counts.merge(row.date(), row.count(), Integer::sum);
         }
-
-        return new ArrayList<>(dateSet);
+        return counts;
     }
 
     private Optional<DailySnapshot> getSnapshotFromGoogleSheets(LocalDate date)
             throws IOException, InterruptedException {
-        List<List<String>> allData = fetchAllDataFromGoogleSheets();
-        String dateStr = date.format(DATE_FORMATTER);
-        List<Holding> holdings = new ArrayList<>();
-        boolean dateFound = false;
+        return Optional.ofNullable(getSnapshotsFromGoogleSheets(
+                SELECT_HOLDINGS + " where A = " + literal(date), date::equals).get(date));
+    }
 
-        for (List<String> row : allData) {
-            if (row.isEmpty())
-                continue;
+    /**
+     * 以本地儲存補齊 Google Sheets 中沒有的日期（一次批次讀取）
+     */
+    private Map<LocalDate, DailySnapshot> fillFromLocal(Map<LocalDate, DailySnapshot> result,
+            Predicate<LocalDate> inRange) {
+        List<LocalDate> missing = localStorageService.getAvailableDates().stream()
+                .filter(inRange)
+                .filter(date -> !result.containsKey(date))
+                .toList();
+        if (!missing.isEmpty()) {
+            result.putAll(localStorageService.getSnapshots(missing));
+        }
+        return result;
+    }
 
-            if (dateStr.equals(row.get(0))) {
-                dateFound = true;
-                Holding holding = parseRow(row);
-                if (holding != null) {
-                    holdings.add(holding);
-                }
+    /**
+     * 執行一次 Google Sheets 查詢，將符合條件的資料列依日期分組為快照
+     */
+    private Map<LocalDate, DailySnapshot> getSnapshotsFromGoogleSheets(String tq, Predicate<LocalDate> wanted)
+            throws IOException, InterruptedException {
+        return toSnapshots(query(tq, HOLDING_COLUMNS, holdingRowMapper()), wanted);
+    }
+
+    /**
+     * 將資料列依日期分組為快照（依日期排序）
+     */
+    private Map<LocalDate, DailySnapshot> toSnapshots(List<HoldingRow> rows, Predicate<LocalDate> wanted) {
+        Map<LocalDate, List<Holding>> holdingsByDate = new TreeMap<>();
+
+        for (HoldingRow row : rows) {
+            if (!wanted.test(row.date())) {
+                continue;
             }
-        }
 
-        if (!dateFound) {
-            return Optional.empty();
+            // 日期存在但可能沒有持倉（空快照）- 仍回傳有效快照
+            List<Holding> holdings = holdingsByDate.computeIfAbsent(row.date(), d -> new ArrayList<>());
+            if (row.stockCode() != null) {
+                holdings.add(row.toHolding());
+            }
         }
 
-        DailySnapshot snapshot = DailySnapshot.builder()
+        Map<LocalDate, DailySnapshot> snapshots = new TreeMap<>();
+        holdingsByDate.forEach((date, holdings) -> snapshots.put(date, DailySnapshot.builder()
                 .date(date)
                 .holdings(holdings)
                 .totalCount(holdings.size())
                 .totalWeight(calculateTotalWeight(holdings))
-                .build();
+                .build()));
+        return snapshots;
+    }
 
-        return Optional.of(snapshot);
+    /**
+     * 日期彙總查詢的資料列
+     */
+    private record DateCount(LocalDate date, int count) {
     }
 
-    private Holding parseRow(List<String> row) {
+    private LocalDate parseDate(String value) {
         try {
-            if (row.size() < 5)
-                return null;
+            return LocalDate.parse(value, DATE_FORMATTER);
+        } catch (Exception e) {
+            // 忽略無效日期
+            return null;
+        }
+    }
 
-            String stockCode = row.get(1);
-            if (stockCode == null || stockCode.isEmpty()) {
-                return null;
+    /**
+     * 持倉資料列轉換：沒有股票代碼的列視為空快照標記（只保留日期）；
+     * 相同日期通常連續出現，因此記住上一個日期字串以避免重複解析
+     */
+    private GvizResponseReader.RowMapper<HoldingRow> holdingRowMapper() {
+        return new GvizResponseReader.RowMapper<>() {
+            private String lastDateText;
+            private LocalDate lastDate;
+
+            @Override
+            public HoldingRow map(String[] cells) {
+                if (!cells[0].equals(lastDateText)) {
+                    lastDateText = cells[0];
+                    lastDate = parseDate(cells[0]);
+                }
+                if (lastDate == null) {
+                    return null;
+                }
+
+                String stockCode = cells[1];
+                if (stockCode.isEmpty()) {
+                    return new HoldingRow(lastDate, null, null, null, null);
+                }
+                return new HoldingRow(lastDate, stockCode, cells[2], parseShares(cells[3]), parseWeight(cells[4]));
             }
+        };
+    }
 
-            String stockName = row.get(2);
-            Long shares = parseShares(row.get(3));
-            BigDecimal weight = parseWeight(row.get(4));
+    private DateCount toDateCount(String[] cells) {
+        LocalDate date = parseDate(cells[0]);
+        return date == null ? null : new DateCount(date, parseCount(cells[1]));
+    }
 
-            return Holding.builder()
-                    .stockCode(stockCode)
-                    .stockName(stockName)
-                    .shares(shares)
-                    .weight(weight)
-                    .build();
-        } catch (Exception e) {
-            logger.warn("解析行資料失敗: {}", e.getMessage());
-            return null;
+    private int parseCount(String value) {
+        try {
+            return new BigDecimal(value).intValue();
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
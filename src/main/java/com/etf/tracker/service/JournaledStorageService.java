@@ -0,0 +1,660 @@
+package com.etf.tracker.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.exception.StorageException;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 日誌式儲存服務
+ * <p>
+ * 寫入時只將快照附加至日誌檔（{@code <file-name>.journal}）並同步至磁碟後立即返回，
+ * 由背景執行緒定期或在日誌超過大小上限時批次合併至 Excel：
+ * <ul>
+ * <li>每筆記錄為「長度 + CRC32 + 內容」，啟動時重播並截斷寫入中斷的尾端</li>
+ * <li>尚未合併的快照保留於記憶體，讀取時與 Excel 資料合併</li>
+ * <li>合併完成後才從日誌移除對應記錄，合併期間的新寫入會保留</li>
+ * </ul>
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.data.backend", havingValue = "journal")
+public class JournaledStorageService implements LocalStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournaledStorageService.class);
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final byte OP_SAVE = 1;
+
+    private final AppConfig appConfig;
+    private final ExcelStorageService excelStorage;
+    private final Path journalPath;
+
+    /** 尚未合併至 Excel 的快照 */
+    private final NavigableMap<LocalDate, DailySnapshot> pending = new ConcurrentSkipListMap<>();
+
+    /** 保護日誌檔附加與截斷 */
+    private final ReentrantLock journalLock = new ReentrantLock();
+
+    /** 同一時間只允許一個合併作業 */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService compactor;
+
+    private FileChannel journal;
+
+    public JournaledStorageService(AppConfig appConfig) {
+        this(appConfig, new ExcelStorageService(appConfig));
+    }
+
+    JournaledStorageService(AppConfig appConfig, ExcelStorageService excelStorage) {
+        this.appConfig = appConfig;
+        this.excelStorage = excelStorage;
+        this.journalPath = Path.of(appConfig.getData().getStoragePath())
+                .resolve(appConfig.getData().getFileName() + JOURNAL_SUFFIX);
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(journalPath.getParent());
+            replay();
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw StorageException.readError(journalPath, e);
+        }
+
+        int interval = Math.max(1, appConfig.getData().getJournalCompactIntervalSeconds());
+        compactor.scheduleWithFixedDelay(this::compactQuietly, interval, interval, TimeUnit.SECONDS);
+        if (!pending.isEmpty()) {
+            requestCompaction();
+        }
+        logger.info("日誌式儲存已啟動: 日誌={}, 待合併日期數={}", journalPath, pending.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdown();
+        compactQuietly();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("關閉日誌檔失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 儲存每日快照（附加至日誌並同步至磁碟後返回）
+     *
+     * @param snapshot 每日快照
+     */
+    @Override
+    public void saveSnapshot(DailySnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("快照不可為 null");
+        }
+        if (snapshot.getDate() == null) {
+            throw new IllegalArgumentException("快照日期不可為 null");
+        }
+
+        long journalSize;
+        journalLock.lock();
+        try {
+            ByteBuffer record = encodeRecord(snapshot);
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+            journal.force(false);
+            pending.put(snapshot.getDate(), normalize(snapshot));
+            journalSize = journal.size();
+        } catch (IOException e) {
+            logger.error("寫入日誌失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(journalPath, e);
+        } finally {
+            journalLock.unlock();
+        }
+
+        logger.info("快照已寫入日誌: 日期={}, 成分股數量={}", snapshot.getDate(), snapshot.getTotalCount());
+        if (journalSize >= appConfig.getData().getJournalMaxBytes()) {
+            requestCompaction();
+        }
+    }
+
+    /**
+     * 批次儲存多個快照（一次附加所有紀錄，只同步磁碟一次）
+     *
+     * @param snapshots 快照（日期不可重複）
+     */
+    @Override
+    public void saveSnapshots(List<DailySnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        for (DailySnapshot snapshot : snapshots) {
+            if (snapshot == null) {
+                throw new IllegalArgumentException("快照不可為 null");
+            }
+            if (snapshot.getDate() == null) {
+                throw new IllegalArgumentException("快照日期不可為 null");
+            }
+        }
+
+        long journalSize;
+        journalLock.lock();
+        try {
+            for (DailySnapshot snapshot : snapshots) {
+                ByteBuffer record = encodeRecord(snapshot);
+                while (record.hasRemaining()) {
+                    journal.write(record);
+                }
+            }
+            journal.force(false);
+            for (DailySnapshot snapshot : snapshots) {
+                pending.put(snapshot.getDate(), normalize(snapshot));
+            }
+            journalSize = journal.size();
+        } catch (IOException e) {
+            logger.error("批次寫入日誌失敗: {}", e.getMessage(), e);
+            throw StorageException.writeError(journalPath, e);
+        } finally {
+            journalLock.unlock();
+        }
+
+        logger.info("批次快照已寫入日誌: {} 個日期", snapshots.size());
+        if (journalSize >= appConfig.getData().getJournalMaxBytes()) {
+            requestCompaction();
+        }
+    }
+
+    @Override
+    public Optional<DailySnapshot> getSnapshot(LocalDate date) {
+        DailySnapshot journaled = pending.get(date);
+        if (journaled != null) {
+            return Optional.of(journaled);
+        }
+        return excelStorage.getSnapshot(date);
+    }
+
+    /**
+     * 取得日期範圍內的所有快照（日誌中的快照取代 Excel 中同日期的資料）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new TreeMap<>();
+        }
+        // 先取日誌內容再讀 Excel：期間若完成合併，資料仍會出現在其中一方
+        Map<LocalDate, DailySnapshot> journaled = new TreeMap<>(pending.subMap(from, true, to, true));
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>(excelStorage.getSnapshots(from, to));
+        result.putAll(journaled);
+        return result;
+    }
+
+    /**
+     * 取得多個指定日期的快照（日誌中沒有的日期以一次批次讀取 Excel）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        Map<LocalDate, DailySnapshot> journaled = new TreeMap<>();
+        List<LocalDate> fromExcel = new ArrayList<>();
+        for (LocalDate date : dates) {
+            DailySnapshot snapshot = pending.get(date);
+            if (snapshot != null) {
+                journaled.put(date, snapshot);
+            } else {
+                fromExcel.add(date);
+            }
+        }
+
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+        if (!fromExcel.isEmpty()) {
+            result.putAll(excelStorage.getSnapshots(fromExcel));
+        }
+        result.putAll(journaled);
+        return result;
+    }
+
+    /**
+     * 開啟持倉資料列游標
+     * <p>
+     * 串流讀取 Excel，並依日期順序穿插日誌中的快照（日誌中的日期略過 Excel 的資料列）
+     * </p>
+     */
+    @Override
+    public HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return HoldingCursor.empty();
+        }
+        // 先取日誌內容再開啟 Excel：期間若完成合併，資料仍會出現在其中一方
+        NavigableMap<LocalDate, DailySnapshot> journaled = new TreeMap<>(pending.subMap(from, true, to, true));
+        return new MergingCursor(excelStorage.openCursor(from, to), journaled);
+    }
+
+    @Override
+    public Optional<DailySnapshot> getLatestSnapshot() {
+        List<LocalDate> dates = getAvailableDates();
+        if (dates.isEmpty()) {
+            return Optional.empty();
+        }
+        return getSnapshot(dates.get(0));
+    }
+
+    @Override
+    public List<LocalDate> getAvailableDates() {
+        TreeSet<LocalDate> dates = new TreeSet<>(Comparator.reverseOrder());
+        dates.addAll(excelStorage.getAvailableDates());
+        dates.addAll(pending.keySet());
+        return new ArrayList<>(dates);
+    }
+
+    /**
+     * 計算指定日期之前的記錄數（以日誌中的快照取代 Excel 中同日期的資料列）
+     */
+    @Override
+    public int countRecordsBefore(LocalDate cutoffDate) {
+        int count = excelStorage.countRecordsBefore(cutoffDate);
+        for (DailySnapshot snapshot : pending.headMap(cutoffDate, false).values()) {
+            count += rowsOf(snapshot) - excelRowsOn(snapshot.getDate());
+        }
+        return count;
+    }
+
+    @Override
+    public int getTotalRecordCount() {
+        int count = excelStorage.getTotalRecordCount();
+        for (DailySnapshot snapshot : pending.values()) {
+            count += rowsOf(snapshot) - excelRowsOn(snapshot.getDate());
+        }
+        return count;
+    }
+
+    /**
+     * 刪除指定日期之前的資料
+     * <p>
+     * 先將日誌完整合併至 Excel（期間暫停寫入），再由 Excel 刪除。
+     * 鎖定順序與合併相同（先 compactionLock 再 journalLock），避免與背景合併互相等待
+     * </p>
+     */
+    @Override
+    public int deleteDataBefore(LocalDate cutoffDate) {
+        compactionLock.lock();
+        try {
+            journalLock.lock();
+            try {
+                compact();
+                return excelStorage.deleteDataBefore(cutoffDate);
+            } finally {
+                journalLock.unlock();
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return excelStorage.getMetrics();
+    }
+
+    @Override
+    public String getDataSourceInfo() {
+        return "本地 Excel（日誌寫入）";
+    }
+
+    /**
+     * 取得尚未合併的日期數（用於監控）
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    // ==================== 合併 ====================
+
+    private void requestCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                compactionScheduled.set(false);
+                compactQuietly();
+            });
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            logger.error("日誌合併失敗，將於下次重試: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 將日誌合併至 Excel
+     * <p>
+     * 以目前的日誌位置為界，合併界線前的快照；完成後截斷日誌並保留界線後新寫入的記錄
+     * </p>
+     */
+    void compact() {
+        compactionLock.lock();
+        try {
+            long boundary;
+            Map<LocalDate, DailySnapshot> batch;
+            journalLock.lock();
+            try {
+                boundary = journal.size();
+                batch = Map.copyOf(pending);
+            } finally {
+                journalLock.unlock();
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<DailySnapshot> snapshots = new ArrayList<>(batch.values());
+            snapshots.sort(Comparator.comparing(DailySnapshot::getDate));
+            excelStorage.saveSnapshots(snapshots);
+
+            journalLock.lock();
+            try {
+                truncateJournal(boundary);
+                // 合併期間被覆寫的日期保留最新版本（DailySnapshot.equals 只比較日期與基金代碼，須比對實例）
+                batch.forEach((date, snapshot) -> {
+                    if (pending.get(date) == snapshot) {
+                        pending.remove(date);
+                    }
+                });
+            } finally {
+                journalLock.unlock();
+            }
+            logger.info("日誌合併完成: {} 個日期", snapshots.size());
+
+        } catch (IOException e) {
+            throw StorageException.writeError(journalPath, e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * 移除界線前的日誌記錄（呼叫端須持有 journalLock）
+     */
+    private void truncateJournal(long boundary) throws IOException {
+        long size = journal.size();
+        if (size == boundary) {
+            journal.truncate(0);
+            journal.force(true);
+            return;
+        }
+
+        // 界線後仍有新記錄：複製至新檔後取代
+        Path tempFile = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel source = FileChannel.open(journalPath, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = boundary;
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+            target.force(true);
+        }
+        journal.close();
+        Files.move(tempFile, journalPath, StandardCopyOption.REPLACE_EXISTING);
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // ==================== 日誌記錄 ====================
+
+    /**
+     * 重播日誌，遇到長度或檢查碼不符的記錄時截斷（寫入中斷的尾端）
+     */
+    private void replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        byte[] bytes = Files.readAllBytes(journalPath);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int validLength = 0;
+        int records = 0;
+
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            long checksum = buffer.getInt() & 0xFFFFFFFFL;
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc32(payload) != checksum) {
+                break;
+            }
+            DailySnapshot snapshot = decodePayload(payload);
+            pending.put(snapshot.getDate(), snapshot);
+            validLength = buffer.position();
+            records++;
+        }
+
+        if (validLength < bytes.length) {
+            logger.warn("日誌尾端不完整，捨棄 {} bytes", bytes.length - validLength);
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+        logger.info("日誌重播完成: {} 筆記錄, {} 個日期", records, pending.size());
+    }
+
+    private ByteBuffer encodeRecord(DailySnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_SAVE);
+        out.writeLong(snapshot.getDate().toEpochDay());
+        out.writeInt(snapshot.getHoldings().size());
+        for (Holding holding : snapshot.getHoldings()) {
+            out.writeUTF(holding.getStockCode() != null ? holding.getStockCode() : "");
+            out.writeUTF(holding.getStockName() != null ? holding.getStockName() : "");
+            out.writeLong(holding.getShares() != null ? holding.getShares() : 0L);
+            out.writeUTF(holding.getWeight() != null ? holding.getWeight().toPlainString() : "0");
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc32(payload));
+        record.put(payload);
+        return record.flip();
+    }
+
+    private DailySnapshot decodePayload(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        if (op != OP_SAVE) {
+            throw new IOException("未知的日誌記錄類型: " + op);
+        }
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        int count = in.readInt();
+        List<Holding> holdings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            holdings.add(Holding.builder()
+                    .stockCode(in.readUTF())
+                    .stockName(in.readUTF())
+                    .shares(in.readLong())
+                    .weight(new BigDecimal(in.readUTF()))
+                    .build());
+        }
+        return buildSnapshot(date, holdings);
+    }
+
+    private static long crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    // ==================== 輔助方法 ====================
+
+    /**
+     * 與 Excel 讀回的結果一致：略過空股票代號的佔位資料並重新計算總計
+     */
+    private DailySnapshot normalize(DailySnapshot snapshot) {
+        List<Holding> holdings = snapshot.getHoldings().stream()
+                .filter(holding -> holding.getStockCode() != null && !holding.getStockCode().isEmpty())
+                .toList();
+        return buildSnapshot(snapshot.getDate(), holdings);
+    }
+
+    private DailySnapshot buildSnapshot(LocalDate date, List<Holding> holdings) {
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(new ArrayList<>(holdings))
+                .totalCount(holdings.size())
+                .totalWeight(holdings.stream()
+                        .map(holding -> holding.getWeight() != null ? holding.getWeight() : BigDecimal.ZERO)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .build();
+    }
+
+    /**
+     * 快照寫入 Excel 後的資料列數（空快照為一列佔位資料）
+     */
+    private int rowsOf(DailySnapshot snapshot) {
+        return Math.max(1, snapshot.getHoldings().size());
+    }
+
+    private int excelRowsOn(LocalDate date) {
+        return excelStorage.getSnapshot(date).map(this::rowsOf).orElse(0);
+    }
+
+    // ==================== 游標 ====================
+
+    /**
+     * 合併 Excel 游標與日誌快照的游標（兩者皆依日期升序）
+     */
+    private static final class MergingCursor implements HoldingCursor {
+
+        private final HoldingCursor excel;
+        private final NavigableMap<LocalDate, DailySnapshot> journaled;
+        private final Iterator<DailySnapshot> journaledSnapshots;
+
+        private DailySnapshot nextJournaled;
+        private boolean excelPeeked;
+        private boolean excelAvailable = true;
+
+        private LocalDate date;
+        private Iterator<Holding> holdings = Collections.emptyIterator();
+        private Holding holding;
+        private boolean fromExcel;
+
+        private MergingCursor(HoldingCursor excel, NavigableMap<LocalDate, DailySnapshot> journaled) {
+            this.excel = excel;
+            this.journaled = journaled;
+            this.journaledSnapshots = journaled.values().iterator();
+            this.nextJournaled = journaledSnapshots.hasNext() ? journaledSnapshots.next() : null;
+        }
+
+        @Override
+        public boolean next() {
+            while (true) {
+                if (holdings.hasNext()) {
+                    holding = holdings.next();
+                    fromExcel = false;
+                    return true;
+                }
+
+                peekExcel();
+                boolean journaledFirst = nextJournaled != null
+                        && (!excelAvailable || nextJournaled.getDate().isBefore(excel.getDate()));
+                if (journaledFirst) {
+                    date = nextJournaled.getDate();
+                    holdings = nextJournaled.getHoldings().iterator();
+                    nextJournaled = journaledSnapshots.hasNext() ? journaledSnapshots.next() : null;
+                    continue;
+                }
+                if (!excelAvailable) {
+                    return false;
+                }
+                excelPeeked = false;
+                fromExcel = true;
+                return true;
+            }
+        }
+
+        /**
+         * 預先讀取下一筆不在日誌中的 Excel 資料列
+         */
+        private void peekExcel() {
+            while (!excelPeeked && excelAvailable) {
+                excelAvailable = excel.next();
+                excelPeeked = excelAvailable && !journaled.containsKey(excel.getDate());
+            }
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return fromExcel ? excel.getDate() : date;
+        }
+
+        @Override
+        public Holding getHolding() {
+            return fromExcel ? excel.getHolding() : holding;
+        }
+
+        @Override
+        public void close() {
+            excel.close();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.etf.tracker.service;
+
+/**
+ * 本地儲存服務介面
+ * <p>
+ * 標記資料存放於本機檔案的儲存實作。依 {@code app.data.backend} 設定僅會啟用其中一個，
+ * 並作為 {@link HybridStorageService} 的寫入端與讀取備援
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public interface LocalStorageService extends StorageService {
+}
@@ -0,0 +1,479 @@
+package com.etf.tracker.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.config.AppConfig.PartitionPeriod;
+import com.etf.tracker.exception.StorageException;
+import com.etf.tracker.model.DailySnapshot;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 分割儲存服務
+ * <p>
+ * 依期間（預設每月）將資料分割為多個 Excel 檔案，例如 {@code holdings-2024-01.xlsx}，
+ * 並以清單檔（{@code holdings.partitions.json}）記錄各分割的日期範圍與筆數：
+ * <ul>
+ * <li>寫入：只重寫快照日期所屬的分割檔案</li>
+ * <li>讀取：只開啟涵蓋查詢日期的分割檔案</li>
+ * <li>清理：整個早於截止日期的分割直接刪除檔案，最多只需修剪一個分割</li>
+ * </ul>
+ * 啟動時若發現舊的單一 Excel 檔案，會一次性搬移至分割檔案，並將原檔更名為
+ * {@code .migrated}
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.data.backend", havingValue = "partitioned")
+public class PartitionedStorageService implements LocalStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedStorageService.class);
+
+    /** 清單檔格式版本 */
+    static final int MANIFEST_VERSION = 1;
+
+    private static final String EXCEL_EXTENSION = ".xlsx";
+    private static final String MANIFEST_SUFFIX = ".partitions.json";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * 單一分割的摘要
+     *
+     * @param key          分割鍵（例如 2024-01、2024-Q1、2024）
+     * @param fileName     分割檔案名稱
+     * @param firstDate    最早日期（沒有有效日期時為 null）
+     * @param lastDate     最晚日期（沒有有效日期時為 null）
+     * @param dateCount    日期數
+     * @param rowCount     資料列數
+     * @param fileSize     檔案大小（用於驗證摘要是否仍有效）
+     * @param lastModified 檔案修改時間
+     */
+    record Partition(String key, String fileName, LocalDate firstDate, LocalDate lastDate,
+            int dateCount, int rowCount, long fileSize, long lastModified) {
+
+        boolean matches(ExcelDateIndex.FileStamp stamp) {
+            return stamp.size() == fileSize && stamp.lastModified() == lastModified;
+        }
+    }
+
+    /**
+     * 清單檔內容
+     */
+    record Manifest(int version, PartitionPeriod period, List<Partition> partitions) {
+    }
+
+    private final AppConfig appConfig;
+    private final Path storagePath;
+    private final String baseName;
+    private final PartitionPeriod period;
+    private final Pattern partitionFilePattern;
+
+    /** 分割鍵 → 分割摘要（鍵的字典順序即時間順序） */
+    private final NavigableMap<String, Partition> partitions = new ConcurrentSkipListMap<>();
+
+    /** 分割鍵 → 存取該分割檔案的儲存服務 */
+    private final Map<String, ExcelStorageService> partitionStores = new ConcurrentHashMap<>();
+
+    public PartitionedStorageService(AppConfig appConfig) {
+        this.appConfig = appConfig;
+        this.storagePath = Path.of(appConfig.getData().getStoragePath());
+        this.baseName = stripExtension(appConfig.getData().getFileName());
+        this.period = appConfig.getData().getPartitionPeriod();
+        this.partitionFilePattern = Pattern.compile(
+                Pattern.quote(baseName) + "-(" + keyPattern(period) + ")" + Pattern.quote(EXCEL_EXTENSION));
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(storagePath);
+            loadManifest();
+            migrateLegacyFile();
+            logger.info("分割儲存已初始化: 期間={}, 分割數={}", period, partitions.size());
+        } catch (IOException e) {
+            throw StorageException.writeError(getManifestPath(), e);
+        }
+    }
+
+    /**
+     * 儲存每日快照（只重寫所屬分割）
+     *
+     * @param snapshot 每日快照
+     */
+    @Override
+    public synchronized void saveSnapshot(DailySnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("快照不可為 null");
+        }
+        if (snapshot.getDate() == null) {
+            throw new IllegalArgumentException("快照日期不可為 null");
+        }
+
+        String key = partitionKey(snapshot.getDate());
+        partitionStore(key).saveSnapshot(snapshot);
+        refreshPartition(key);
+        saveManifest();
+    }
+
+    /**
+     * 取得指定日期的快照（只開啟所屬分割）
+     */
+    @Override
+    public Optional<DailySnapshot> getSnapshot(LocalDate date) {
+        String key = partitionKey(date);
+        if (!partitions.containsKey(key)) {
+            return Optional.empty();
+        }
+        return partitionStore(key).getSnapshot(date);
+    }
+
+    /**
+     * 取得日期範圍內的所有快照（只讀取與範圍重疊的分割，每個分割讀取一次）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+        for (Partition partition : partitions.values()) {
+            if (partition.firstDate() == null || partition.firstDate().isAfter(to)
+                    || partition.lastDate().isBefore(from)) {
+                continue;
+            }
+            result.putAll(partitionStore(partition.key()).getSnapshots(from, to));
+        }
+        return result;
+    }
+
+    /**
+     * 取得多個指定日期的快照（依分割分組，每個分割讀取一次）
+     */
+    @Override
+    public Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        Map<String, List<LocalDate>> datesByPartition = new TreeMap<>();
+        for (LocalDate date : dates) {
+            datesByPartition.computeIfAbsent(partitionKey(date), key -> new ArrayList<>()).add(date);
+        }
+
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+        datesByPartition.forEach((key, partitionDates) -> {
+            if (partitions.containsKey(key)) {
+                result.putAll(partitionStore(key).getSnapshots(partitionDates));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 開啟持倉資料列游標（依時間順序逐一串流讀取與範圍重疊的分割）
+     */
+    @Override
+    public HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        List<Supplier<HoldingCursor>> parts = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            if (partition.firstDate() == null || partition.firstDate().isAfter(to)
+                    || partition.lastDate().isBefore(from)) {
+                continue;
+            }
+            String key = partition.key();
+            parts.add(() -> partitionStore(key).openCursor(from, to));
+        }
+        return HoldingCursor.concat(parts);
+    }
+
+    /**
+     * 取得最新的快照（由最新的分割開始尋找）
+     */
+    @Override
+    public Optional<DailySnapshot> getLatestSnapshot() {
+        for (Partition partition : partitions.descendingMap().values()) {
+            if (partition.lastDate() != null) {
+                return partitionStore(partition.key()).getSnapshot(partition.lastDate());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 取得所有可用日期（降序排列）
+     */
+    @Override
+    public List<LocalDate> getAvailableDates() {
+        List<LocalDate> dates = new ArrayList<>();
+        for (Partition partition : partitions.descendingMap().values()) {
+            if (partition.dateCount() > 0) {
+                dates.addAll(partitionStore(partition.key()).getAvailableDates());
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * 計算指定日期之前的記錄數（只查詢早於截止日期的分割）
+     */
+    @Override
+    public int countRecordsBefore(LocalDate cutoffDate) {
+        int count = 0;
+        for (Partition partition : partitions.values()) {
+            if (partition.firstDate() == null || !partition.firstDate().isBefore(cutoffDate)) {
+                continue;
+            }
+            count += partitionStore(partition.key()).countRecordsBefore(cutoffDate);
+        }
+        return count;
+    }
+
+    /**
+     * 取得總記錄數（由清單檔加總）
+     */
+    @Override
+    public int getTotalRecordCount() {
+        return partitions.values().stream()
+                .mapToInt(Partition::rowCount)
+                .sum();
+    }
+
+    /**
+     * 刪除指定日期之前的資料
+     * <p>
+     * 完全早於截止日期的分割直接刪除檔案，跨越截止日期的分割才需要修剪
+     * </p>
+     *
+     * @param cutoffDate 截止日期
+     * @return 刪除的記錄數
+     */
+    @Override
+    public synchronized int deleteDataBefore(LocalDate cutoffDate) {
+        int deleted = 0;
+
+        for (Partition partition : new ArrayList<>(partitions.values())) {
+            if (partition.firstDate() == null || !partition.firstDate().isBefore(cutoffDate)) {
+                continue;
+            }
+
+            if (partition.lastDate().isBefore(cutoffDate)) {
+                deleted += partition.rowCount();
+                deletePartition(partition);
+            } else {
+                deleted += partitionStore(partition.key()).deleteDataBefore(cutoffDate);
+                refreshPartition(partition.key());
+            }
+        }
+
+        saveManifest();
+        logger.info("已刪除 {} 筆過期資料（{}之前）", deleted, cutoffDate);
+        return deleted;
+    }
+
+    @Override
+    public String getDataSourceInfo() {
+        return "本地 Excel（分割）";
+    }
+
+    // ==================== 分割管理 ====================
+
+    /**
+     * 取得日期所屬的分割鍵
+     */
+    String partitionKey(LocalDate date) {
+        return switch (period) {
+            case MONTH -> String.format("%04d-%02d", date.getYear(), date.getMonthValue());
+            case QUARTER -> String.format("%04d-Q%d", date.getYear(), (date.getMonthValue() - 1) / 3 + 1);
+            case YEAR -> String.format("%04d", date.getYear());
+        };
+    }
+
+    private static String keyPattern(PartitionPeriod period) {
+        return switch (period) {
+            case MONTH -> "\\d{4}-\\d{2}";
+            case QUARTER -> "\\d{4}-Q[1-4]";
+            case YEAR -> "\\d{4}";
+        };
+    }
+
+    private Path partitionPath(String key) {
+        return storagePath.resolve(baseName + "-" + key + EXCEL_EXTENSION);
+    }
+
+    private ExcelStorageService partitionStore(String key) {
+        return partitionStores.computeIfAbsent(key, k -> new ExcelStorageService(appConfig, partitionPath(k)));
+    }
+
+    /**
+     * 依分割檔案（及其日期索引）重新計算摘要
+     */
+    private void refreshPartition(String key) {
+        Path path = partitionPath(key);
+        if (!Files.exists(path)) {
+            partitions.remove(key);
+            partitionStores.remove(key);
+            return;
+        }
+
+        ExcelStorageService store = partitionStore(key);
+        List<LocalDate> dates = store.getAvailableDates();
+        int rowCount = store.getTotalRecordCount();
+        try {
+            ExcelDateIndex.FileStamp stamp = ExcelDateIndex.FileStamp.of(path);
+            partitions.put(key, new Partition(key, path.getFileName().toString(),
+                    dates.isEmpty() ? null : dates.get(dates.size() - 1),
+                    dates.isEmpty() ? null : dates.get(0),
+                    dates.size(), rowCount, stamp.size(), stamp.lastModified()));
+        } catch (IOException e) {
+            throw StorageException.readError(path, e);
+        }
+    }
+
+    private void deletePartition(Partition partition) {
+        Path path = partitionPath(partition.key());
+        try {
+            Files.deleteIfExists(path);
+            ExcelDateIndex.delete(path);
+        } catch (IOException e) {
+            throw StorageException.writeError(path, e);
+        }
+        partitions.remove(partition.key());
+        partitionStores.remove(partition.key());
+        logger.info("已刪除分割: {}", path.getFileName());
+    }
+
+    // ==================== 清單檔 ====================
+
+    private Path getManifestPath() {
+        return storagePath.resolve(baseName + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * 載入清單檔並與目錄中的分割檔案比對
+     * <p>
+     * 清單檔不存在、格式不符或分割檔案已被外部修改時，重新由分割檔案計算摘要
+     * </p>
+     */
+    private void loadManifest() throws IOException {
+        Map<String, Partition> recorded = new HashMap<>();
+        Path manifestPath = getManifestPath();
+        if (Files.exists(manifestPath)) {
+            try {
+                Manifest manifest = MAPPER.readValue(manifestPath.toFile(), Manifest.class);
+                if (manifest.version() == MANIFEST_VERSION && manifest.period() == period
+                        && manifest.partitions() != null) {
+                    manifest.partitions().forEach(p -> recorded.put(p.key(), p));
+                }
+            } catch (IOException e) {
+                logger.warn("清單檔無法解析，將重新建立: {}", e.getMessage());
+            }
+        }
+
+        boolean changed = recorded.isEmpty();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storagePath, baseName + "-*" + EXCEL_EXTENSION)) {
+            for (Path file : files) {
+                Matcher matcher = partitionFilePattern.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                String key = matcher.group(1);
+                Partition partition = recorded.remove(key);
+                if (partition != null && partition.matches(ExcelDateIndex.FileStamp.of(file))) {
+                    partitions.put(key, partition);
+                } else {
+                    refreshPartition(key);
+                    changed = true;
+                }
+            }
+        }
+
+        // 清單檔中記錄但檔案已不存在的分割
+        if (changed || !recorded.isEmpty()) {
+            saveManifest();
+        }
+    }
+
+    private void saveManifest() {
+        Path manifestPath = getManifestPath();
+        Path tempFile = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try {
+            Manifest manifest = new Manifest(MANIFEST_VERSION, period, new ArrayList<>(partitions.values()));
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), manifest);
+            Files.move(tempFile, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw StorageException.writeError(manifestPath, e);
+        }
+    }
+
+    // ==================== 舊檔案搬移 ====================
+
+    /**
+     * 將舊的單一 Excel 檔案搬移至分割檔案
+     * <p>
+     * 以一次串流讀取取得所有快照，依分割分組後每個分割以一次批次寫入；
+     * 完成後將原檔更名為 {@code .migrated}，因此只會執行一次
+     * </p>
+     */
+    private void migrateLegacyFile() throws IOException {
+        Path legacyPath = storagePath.resolve(appConfig.getData().getFileName());
+        if (!Files.exists(legacyPath)) {
+            return;
+        }
+
+        logger.info("開始搬移舊的單一 Excel 檔案至分割: {}", legacyPath);
+        ExcelStorageService legacyStore = new ExcelStorageService(appConfig, legacyPath);
+        List<LocalDate> dates = legacyStore.getAvailableDates();
+        Map<LocalDate, DailySnapshot> legacySnapshots = dates.isEmpty()
+                ? Map.of()
+                : new TreeMap<>(legacyStore.getSnapshots(dates.get(dates.size() - 1), dates.get(0)));
+
+        Map<String, List<DailySnapshot>> snapshotsByPartition = new TreeMap<>();
+        legacySnapshots.forEach((date, snapshot) ->
+                snapshotsByPartition.computeIfAbsent(partitionKey(date), key -> new ArrayList<>()).add(snapshot));
+
+        snapshotsByPartition.forEach((key, snapshots) -> {
+            partitionStore(key).saveSnapshots(snapshots);
+            refreshPartition(key);
+        });
+        saveManifest();
+
+        Path migratedPath = legacyPath.resolveSibling(legacyPath.getFileName() + MIGRATED_SUFFIX);
+        Files.move(legacyPath, migratedPath, StandardCopyOption.REPLACE_EXISTING);
+        ExcelDateIndex.delete(legacyPath);
+        logger.info("搬移完成: {} 個日期, {} 個分割, 原檔已更名為 {}", dates.size(), snapshotsByPartition.size(),
+                migratedPath.getFileName());
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
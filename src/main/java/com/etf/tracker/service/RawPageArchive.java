@@ -0,0 +1,354 @@
+package com.etf.tracker.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.exception.StorageException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 原始頁面封存
+ * <p>
+ * 每次抓取的 HTML 以內容的 SHA-256 為名、gzip 壓縮後存放於
+ * {@code <storage-path>/archive/objects/<前兩碼>/<雜湊>.html.gz}，相同內容只存一份；
+ * {@code archive/index.tsv} 逐行記錄抓取時間、基金代碼、解析出的資料日期（解析失敗時為空）、雜湊與抓取層級。
+ * 封存的一律是伺服器回應的 HTML：無頭瀏覽器抓取時為導覽請求的回應內容，而非擷取後的精簡文件。
+ * 超過容量上限時依抓取時間由舊到新淘汰。
+ * </p>
+ * <p>
+ * 解析規則變更時可由 {@link ArchiveReplayService} 以新的規則重新解析，不需重新抓取。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class RawPageArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawPageArchive.class);
+
+    private static final String ARCHIVE_DIRECTORY = "archive";
+    private static final String OBJECTS_DIRECTORY = "objects";
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String OBJECT_SUFFIX = ".html.gz";
+
+    private final AppConfig appConfig;
+
+    /** 保護索引與物件檔案（虛擬執行緒上避免以 synchronized 包住 I/O） */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 依抓取時間排序的索引 */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** 雜湊 → 壓縮後大小（每個物件只計一次） */
+    private final Map<String, Long> objectSizes = new HashMap<>();
+
+    /** 雜湊 → 引用的紀錄數 */
+    private final Map<String, Integer> references = new HashMap<>();
+
+    /** 已封存的基金代碼與雜湊組合 */
+    private final Set<String> entryKeys = new HashSet<>();
+
+    private long totalBytes;
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public RawPageArchive(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * 載入索引
+     */
+    @PostConstruct
+    public void init() {
+        Path indexPath = getIndexPath();
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+                Entry entry = Entry.parse(line);
+                if (entry == null) {
+                    logger.warn("略過格式不正確的封存索引: {}", line);
+                    continue;
+                }
+                if (!entryKeys.add(entry.key())) {
+                    continue;
+                }
+                entries.add(entry);
+                references.merge(entry.hash(), 1, Integer::sum);
+                if (objectSizes.putIfAbsent(entry.hash(), entry.size()) == null) {
+                    totalBytes += entry.size();
+                }
+            }
+            entries.sort(Comparator.comparing(Entry::fetchedAt));
+            logger.info("載入頁面封存索引: {} 筆, {} 個物件, {} bytes", entries.size(), objectSizes.size(), totalBytes);
+        } catch (IOException e) {
+            logger.error("讀取頁面封存索引失敗: {}", e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 封存抓取到的頁面
+     * <p>
+     * 封存失敗只記錄警告，不影響抓取流程
+     * </p>
+     *
+     * @param fundCode 基金代碼
+     * @param dataDate 解析出的資料日期（解析失敗時為 null）
+     * @param tier     提供頁面的抓取層級
+     * @param html     原始 HTML
+     */
+    public void store(String fundCode, LocalDate dataDate, DataFetchService.FetchTier tier, String html) {
+        if (!appConfig.getArchive().isEnabled() || html == null || html.isEmpty()) {
+            return;
+        }
+        byte[] content = html.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(content);
+
+        lock.lock();
+        try {
+            if (entryKeys.contains(fundCode + "\t" + hash)) {
+                deduplicated.incrementAndGet();
+                return;
+            }
+
+            Long size = objectSizes.get(hash);
+            if (size == null) {
+                size = writeObject(hash, content);
+                objectSizes.put(hash, size);
+                totalBytes += size;
+            } else {
+                deduplicated.incrementAndGet();
+            }
+
+            Entry entry = new Entry(Instant.now(), fundCode, dataDate, hash, size, tier);
+            Files.writeString(getIndexPath(), entry.format() + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            entries.add(entry);
+            entryKeys.add(entry.key());
+            references.merge(hash, 1, Integer::sum);
+            stored.incrementAndGet();
+            logger.debug("已封存頁面: 基金={}, 日期={}, 層級={}, 雜湊={}, 壓縮後 {} bytes",
+                    fundCode, dataDate, tier, hash, size);
+
+            evictOverCapacity();
+        } catch (IOException e) {
+            logger.warn("封存頁面失敗: {}", e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取得所有封存紀錄
+     *
+     * @return 依抓取時間升序的紀錄
+     */
+    public List<Entry> getEntries() {
+        lock.lock();
+        try {
+            return List.copyOf(entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 讀取封存的頁面
+     *
+     * @param hash 內容雜湊
+     * @return 原始 HTML
+     * @throws StorageException 如果物件不存在或讀取失敗
+     */
+    public String read(String hash) {
+        Path path = objectPath(hash);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw StorageException.readError(path, e);
+        }
+    }
+
+    /**
+     * 取得封存統計
+     *
+     * @return 統計資料
+     */
+    public Statistics getStatistics() {
+        lock.lock();
+        try {
+            return new Statistics(entries.size(), objectSizes.size(), totalBytes, maxBytes(),
+                    stored.get(), deduplicated.get(), evicted.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== 內部方法 ====================
+
+    private long writeObject(String hash, byte[] content) throws IOException {
+        Path path = objectPath(hash);
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            out.write(content);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    /**
+     * 超過容量上限時由最舊的紀錄開始淘汰，物件不再被引用時刪除
+     */
+    private void evictOverCapacity() throws IOException {
+        long maxBytes = maxBytes();
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        int removed = 0;
+        while (totalBytes > maxBytes && entries.size() > 1) {
+            Entry oldest = entries.remove(0);
+            removed++;
+            entryKeys.remove(oldest.key());
+            if (references.merge(oldest.hash(), -1, Integer::sum) == 0) {
+                references.remove(oldest.hash());
+                Files.deleteIfExists(objectPath(oldest.hash()));
+                totalBytes -= objectSizes.remove(oldest.hash());
+            }
+        }
+        evicted.addAndGet(removed);
+
+        Path indexPath = getIndexPath();
+        Path temp = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries) {
+                writer.write(entry.format());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("頁面封存超過容量上限，淘汰 {} 筆最舊的紀錄，目前 {} bytes", removed, totalBytes);
+    }
+
+    private long maxBytes() {
+        return appConfig.getArchive().getMaxSizeMb() * 1024L * 1024L;
+    }
+
+    private Path getArchivePath() {
+        return Path.of(appConfig.getData().getStoragePath(), ARCHIVE_DIRECTORY);
+    }
+
+    private Path getIndexPath() {
+        return getArchivePath().resolve(INDEX_FILE);
+    }
+
+    private Path objectPath(String hash) {
+        return getArchivePath().resolve(OBJECTS_DIRECTORY).resolve(hash.substring(0, 2)).resolve(hash + OBJECT_SUFFIX);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 封存紀錄
+     *
+     * @param fetchedAt 抓取時間
+     * @param fundCode  基金代碼
+     * @param dataDate  解析出的資料日期（解析失敗時為 null）
+     * @param hash      內容雜湊
+     * @param size      壓縮後大小（bytes）
+     * @param tier      抓取層級（加入此欄位前的紀錄為 null）
+     */
+    public record Entry(Instant fetchedAt, String fundCode, LocalDate dataDate, String hash, long size,
+            DataFetchService.FetchTier tier) {
+
+        String format() {
+            return String.join("\t", fetchedAt.toString(), fundCode,
+                    dataDate == null ? "" : dataDate.toString(), hash, Long.toString(size),
+                    tier == null ? "" : tier.name());
+        }
+
+        static Entry parse(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 5 || fields.length > 6 || !fields[3].matches("[0-9a-f]{64}")) {
+                return null;
+            }
+            try {
+                return new Entry(Instant.parse(fields[0]), fields[1],
+                        fields[2].isEmpty() ? null : LocalDate.parse(fields[2]), fields[3],
+                        Long.parseLong(fields[4]),
+                        fields.length == 6 && !fields[5].isEmpty()
+                                ? DataFetchService.FetchTier.valueOf(fields[5])
+                                : null);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        String key() {
+            return fundCode + "\t" + hash;
+        }
+
+        boolean matches(String fundCode, LocalDate date) {
+            return Objects.equals(this.fundCode, fundCode) && date.equals(dataDate);
+        }
+    }
+
+    /**
+     * 封存統計
+     *
+     * @param entries      紀錄數
+     * @param objects      物件數（不重複的頁面內容）
+     * @param totalBytes   物件壓縮後總大小
+     * @param maxBytes     容量上限
+     * @param stored       本次執行新增的紀錄數
+     * @param deduplicated 因內容相同而未重複儲存的次數
+     * @param evicted      因超過容量而淘汰的紀錄數
+     */
+    public record Statistics(int entries, int objects, long totalBytes, long maxBytes, long stored,
+            long deduplicated, long evicted) {
+    }
+}
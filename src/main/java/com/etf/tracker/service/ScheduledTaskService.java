@@ -1,16 +1,27 @@
 package com.etf.tracker.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.service.DataFetchService.FundFetchResult;
 
 /**
  * 排程任務服務
  * <p>
- * 負責執行定時任務，如每日自動抓取資料
+ * 負責執行定時任務，如每日自動抓取資料。
+ * 交易日收盤後自 {@code app.polling.start-cron} 開始輪詢：頁面的資料日期超過已儲存的最新日期即儲存並停止該基金的輪詢，
+ * 尚未發布時以遞增間隔重新抓取，直到所有基金都取得新資料或達到次數上限。週末與休市日不輪詢。
  * </p>
  *
  * @author ETF Tracker Team
@@ -22,25 +33,165 @@ public class ScheduledTaskService {
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTaskService.class);
 
     private final DataFetchService dataFetchService;
-    private final StorageService storageService;
+    private final FundStorageRegistry fundStorageRegistry;
+    private final SnapshotChangeDetector changeDetector;
+    private final TradingCalendar tradingCalendar;
+    private final TaskScheduler taskScheduler;
+    private final AppConfig appConfig;
+
+    /** 目前進行中的輪詢（同一時間只有一個） */
+    private volatile PollSession activeSession;
 
-    public ScheduledTaskService(DataFetchService dataFetchService, StorageService storageService) {
+    public ScheduledTaskService(DataFetchService dataFetchService,
+            FundStorageRegistry fundStorageRegistry,
+            SnapshotChangeDetector changeDetector,
+            TradingCalendar tradingCalendar,
+            TaskScheduler taskScheduler,
+            AppConfig appConfig) {
         this.dataFetchService = dataFetchService;
-        this.storageService = storageService;
+        this.fundStorageRegistry = fundStorageRegistry;
+        this.changeDetector = changeDetector;
+        this.tradingCalendar = tradingCalendar;
+        this.taskScheduler = taskScheduler;
+        this.appConfig = appConfig;
     }
 
     /**
-     * 每日下午 4 點自動抓取持倉資料
+     * 交易日收盤後開始輪詢所有追蹤基金的持倉資料
      */
-    @Scheduled(cron = "0 0 16 * * ?")
+    @Scheduled(cron = "${app.polling.start-cron:0 30 15 * * *}", zone = "${app.polling.zone:Asia/Taipei}")
     public void fetchHoldingsDaily() {
-        logger.info("開始執行每日自動抓取任務");
+        LocalDate today = tradingCalendar.today();
+        if (!tradingCalendar.isTradingDay(today)) {
+            logger.info("{} 非交易日，略過每日自動抓取", today);
+            return;
+        }
+
+        PollSession previous = activeSession;
+        if (previous != null && !previous.isFinished()) {
+            logger.warn("前一次輪詢尚未結束 (已嘗試 {} 次)，改由新的輪詢接手", previous.attempts);
+            previous.finish();
+        }
+
         try {
-            DailySnapshot snapshot = dataFetchService.fetchLatestHoldings();
-            storageService.saveSnapshot(snapshot);
-            logger.info("每日自動抓取任務完成: 日期={}", snapshot.getDate());
+            PollSession session = new PollSession(today, latestStoredDates());
+            activeSession = session;
+            logger.info("開始每日輪詢: 日期={}, 基金={}", today, session.pending.keySet());
+            session.poll();
         } catch (Exception e) {
             logger.error("每日自動抓取任務失敗", e);
         }
     }
+
+    /**
+     * 第 n 次抓取未取得新資料後的等待時間
+     *
+     * @param attempt 已完成的抓取次數（從 1 開始）
+     * @return 等待時間，介於起始間隔與上限之間
+     */
+    Duration nextInterval(int attempt) {
+        AppConfig.PollingConfig config = appConfig.getPolling();
+        double minutes = config.getInitialIntervalMinutes() * Math.pow(config.getBackoffMultiplier(), attempt - 1);
+        long capped = (long) Math.min(minutes, config.getMaxIntervalMinutes());
+        return Duration.ofMinutes(Math.max(1, capped));
+    }
+
+    /**
+     * 取得各基金已儲存的最新日期（尚無資料時為 null）
+     */
+    private Map<String, LocalDate> latestStoredDates() {
+        Map<String, LocalDate> latest = new LinkedHashMap<>();
+        for (String fundCode : dataFetchService.getFundCodes()) {
+            List<LocalDate> dates = fundStorageRegistry.storageFor(fundCode).getAvailableDates();
+            latest.put(fundCode, dates.isEmpty() ? null : dates.get(0));
+        }
+        return latest;
+    }
+
+    /**
+     * 單日的輪詢狀態
+     * <p>
+     * 由 {@link TaskScheduler} 排定下一次抓取，等待期間不佔用排程執行緒
+     * </p>
+     */
+    private final class PollSession {
+
+        private final LocalDate day;
+
+        /** 尚未取得新資料的基金 → 輪詢開始時已儲存的最新日期 */
+        private final Map<String, LocalDate> pending;
+
+        private int attempts;
+        private volatile boolean finished;
+
+        PollSession(LocalDate day, Map<String, LocalDate> pending) {
+            this.day = day;
+            this.pending = pending;
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+
+        void finish() {
+            finished = true;
+        }
+
+        synchronized void poll() {
+            if (finished) {
+                return;
+            }
+            attempts++;
+            try {
+                for (FundFetchResult result : dataFetchService.fetchFunds(List.copyOf(pending.keySet()))) {
+                    handleResult(result);
+                }
+            } catch (Exception e) {
+                logger.error("第 {} 次輪詢失敗", attempts, e);
+            }
+
+            if (pending.isEmpty()) {
+                logger.info("每日輪詢完成: 日期={}, 共抓取 {} 次", day, attempts);
+                finish();
+                return;
+            }
+
+            int maxAttempts = appConfig.getPolling().getMaxAttempts();
+            if (attempts >= maxAttempts) {
+                logger.warn("已達每日輪詢次數上限 {}，以下基金仍無新資料: {}", maxAttempts, pending.keySet());
+                finish();
+                return;
+            }
+
+            Duration interval = nextInterval(attempts);
+            logger.info("基金 {} 尚未發布新資料，{} 分鐘後進行第 {} 次抓取",
+                    pending.keySet(), interval.toMinutes(), attempts + 1);
+            taskScheduler.schedule(this::poll, Instant.now().plus(interval));
+        }
+
+        private void handleResult(FundFetchResult result) {
+            String fundCode = result.fundCode();
+            if (!result.isSuccess()) {
+                logger.error("基金 {} 第 {} 次抓取失敗: {}", fundCode, attempts, result.error());
+                return;
+            }
+
+            LocalDate stored = pending.get(fundCode);
+            LocalDate fetched = result.snapshot().getDate();
+            if (fetched == null || (stored != null && !fetched.isAfter(stored))) {
+                logger.info("基金 {} 資料日期 {} 未超過已儲存的 {}", fundCode, fetched, stored);
+                return;
+            }
+
+            try {
+                SnapshotChangeDetector.SaveOutcome outcome = changeDetector.saveIfChanged(
+                        fundStorageRegistry.storageFor(fundCode), result.snapshot());
+                logger.info("基金 {} 每日自動抓取完成: 日期={}, 結果={}, 第 {} 次抓取",
+                        fundCode, fetched, outcome, attempts);
+                pending.remove(fundCode);
+            } catch (Exception e) {
+                logger.error("基金 {} 儲存失敗", fundCode, e);
+            }
+        }
+    }
 }
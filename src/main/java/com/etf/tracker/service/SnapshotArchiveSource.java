@@ -0,0 +1,28 @@
+package com.etf.tracker.service;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import com.etf.tracker.model.DailySnapshot;
+
+/**
+ * 快照封存來源
+ * <p>
+ * 提供過去日期的持倉資料（例如封存的原始頁面），供 {@link GapBackfillService}
+ * 補齊網站已不再提供的歷史缺漏。實作註冊為 Spring Bean 即會被使用，可能同時被多個執行緒呼叫。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public interface SnapshotArchiveSource {
+
+    /**
+     * 讀取封存的快照
+     *
+     * @param fundCode 基金代碼
+     * @param date     資料日期
+     * @return 快照，封存中沒有此日期時為空
+     */
+    Optional<DailySnapshot> load(String fundCode, LocalDate date);
+}
@@ -0,0 +1,137 @@
+package com.etf.tracker.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * 快照變更偵測服務
+ * <p>
+ * 網站經常重複發布相同的持倉（例如假日或重複手動抓取）。本服務對每份快照計算標準化雜湊
+ * （依股票代號排序的代號、股數、權重），並與儲存中同一日期的快照比較；
+ * 內容未變更時完全略過 {@code saveSnapshot}，連帶省去下游的快取失效。
+ * </p>
+ * <p>
+ * 比較對象一律是目前儲存中的內容，而非記憶體中記住的上次寫入結果：
+ * 推送寫入、清理、回補、重播與手動編輯都可能繞過本服務修改儲存。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Service
+public class SnapshotChangeDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotChangeDetector.class);
+
+    private final AppConfig appConfig;
+
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+
+    public SnapshotChangeDetector(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * 儲存結果
+     */
+    public enum SaveOutcome {
+        /** 內容有變更（或尚未儲存），已寫入 */
+        SAVED,
+        /** 內容與已儲存的相同，略過寫入 */
+        UNCHANGED
+    }
+
+    /**
+     * 只有在內容變更時才儲存快照
+     *
+     * @param storage  目標儲存服務
+     * @param snapshot 要儲存的快照
+     * @return 儲存結果
+     */
+    public SaveOutcome saveIfChanged(StorageService storage, DailySnapshot snapshot) {
+        String hash = hash(snapshot);
+        String stored = storage.getSnapshot(snapshot.getDate()).map(SnapshotChangeDetector::hash).orElse(null);
+
+        if (hash.equals(stored)) {
+            unchanged.incrementAndGet();
+            logger.info("持倉資料未變更，略過寫入: 基金={}, 日期={}", fundKey(snapshot.getFundCode()), snapshot.getDate());
+            return SaveOutcome.UNCHANGED;
+        }
+
+        storage.saveSnapshot(snapshot);
+        saved.incrementAndGet();
+        return SaveOutcome.SAVED;
+    }
+
+    /**
+     * 取得寫入與略過次數
+     *
+     * @return 統計資料
+     */
+    public Statistics getStatistics() {
+        return new Statistics(saved.get(), unchanged.get());
+    }
+
+    /**
+     * 計算快照內容的標準化雜湊
+     * <p>
+     * 依股票代號排序，權重去除尾端零，因此與持倉順序及小數位數無關
+     * </p>
+     *
+     * @param snapshot 快照
+     * @return SHA-256 十六進位字串
+     */
+    static String hash(DailySnapshot snapshot) {
+        List<Holding> holdings = new ArrayList<>(snapshot.getHoldings());
+        holdings.sort(Comparator.comparing(Holding::getStockCode, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        StringBuilder canonical = new StringBuilder(holdings.size() * 32);
+        for (Holding holding : holdings) {
+            canonical.append(holding.getStockCode()).append('|')
+                    .append(holding.getShares()).append('|')
+                    .append(normalize(holding.getWeight())).append('\n');
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String normalize(BigDecimal weight) {
+        return weight == null ? "" : weight.stripTrailingZeros().toPlainString();
+    }
+
+    private String fundKey(String fundCode) {
+        return Objects.requireNonNullElse(fundCode, appConfig.getScraper().getPrimaryFundCode());
+    }
+
+    /**
+     * 寫入統計
+     *
+     * @param saved     實際寫入次數
+     * @param unchanged 內容未變更而略過的次數
+     */
+    public record Statistics(long saved, long unchanged) {
+    }
+}
@@ -1,8 +1,12 @@
 package com.etf.tracker.service;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import com.etf.tracker.model.DailySnapshot;
 
@@ -24,6 +28,19 @@ public interface StorageService {
      */
     void saveSnapshot(DailySnapshot snapshot);
 
+    /**
+     * 批次儲存多個快照
+     * <p>
+     * 預設逐一呼叫 {@link #saveSnapshot(DailySnapshot)}；能一次寫入的實作應覆寫，
+     * 例如 Excel 只重寫一次檔案、日誌只同步一次磁碟
+     * </p>
+     *
+     * @param snapshots 快照（日期不可重複）
+     */
+    default void saveSnapshots(List<DailySnapshot> snapshots) {
+        snapshots.forEach(this::saveSnapshot);
+    }
+
     /**
      * 取得指定日期的快照
      *
@@ -32,6 +49,64 @@ public interface StorageService {
      */
     Optional<DailySnapshot> getSnapshot(LocalDate date);
 
+    /**
+     * 取得日期範圍內的所有快照（含起訖日期）
+     * <p>
+     * 預設逐日讀取；實作應覆寫為單次讀取底層資料來源
+     * </p>
+     *
+     * @param from 起始日期
+     * @param to   結束日期
+     * @return 日期 → 快照（依日期升序），不存在的日期不會出現
+     */
+    default Map<LocalDate, DailySnapshot> getSnapshots(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = getAvailableDates().stream()
+                .filter(date -> !date.isBefore(from) && !date.isAfter(to))
+                .toList();
+        return getSnapshots(dates);
+    }
+
+    /**
+     * 取得多個指定日期的快照
+     * <p>
+     * 預設逐日讀取；實作應覆寫為單次讀取底層資料來源
+     * </p>
+     *
+     * @param dates 日期（可重複，順序不拘）
+     * @return 日期 → 快照（依日期升序），不存在的日期不會出現
+     */
+    default Map<LocalDate, DailySnapshot> getSnapshots(Collection<LocalDate> dates) {
+        Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+        for (LocalDate date : dates) {
+            if (!result.containsKey(date)) {
+                getSnapshot(date).ifPresent(snapshot -> result.put(date, snapshot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 開啟日期範圍內（含起訖日期）的持倉資料列游標
+     * <p>
+     * 資料列依日期升序逐筆產生，不需一次載入整個範圍的快照。預設逐日讀取快照，
+     * 一次只保留一個快照；實作應覆寫為單次串流讀取底層資料來源
+     * </p>
+     *
+     * @param from 起始日期
+     * @param to   結束日期
+     * @return 游標（使用完畢必須關閉）
+     */
+    default HoldingCursor openCursor(LocalDate from, LocalDate to) {
+        Iterator<DailySnapshot> snapshots = getAvailableDates().stream()
+                .filter(date -> !date.isBefore(from) && !date.isAfter(to))
+                .sorted()
+                .map(this::getSnapshot)
+                .flatMap(Optional::stream)
+                .iterator();
+        return HoldingCursor.ofSnapshots(snapshots, () -> {
+        });
+    }
+
     /**
      * 取得最新的快照
      *
@@ -89,4 +164,16 @@ public interface StorageService {
     default String getDataSourceInfo() {
         return "本地 Excel";
     }
+
+    /**
+     * 取得監控指標
+     * <p>
+     * 例如快取命中率等執行期統計，預設沒有任何指標
+     * </p>
+     *
+     * @return 指標名稱與數值
+     */
+    default Map<String, Object> getMetrics() {
+        return Map.of();
+    }
 }
@@ -0,0 +1,96 @@
+package com.etf.tracker.service;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.etf.tracker.config.AppConfig;
+
+/**
+ * 交易日曆
+ * <p>
+ * 週末與設定中的休市日（{@code app.polling.holidays}）不是交易日；
+ * 「今天」以設定的時區（{@code app.polling.zone}）計算，與排程一致。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@Component
+public class TradingCalendar {
+
+    private final ZoneId zone;
+    private final Set<LocalDate> holidays = new HashSet<>();
+
+    /**
+     * @param appConfig 應用程式配置
+     * @throws IllegalArgumentException 如果時區或休市日格式不正確
+     */
+    public TradingCalendar(AppConfig appConfig) {
+        AppConfig.PollingConfig config = appConfig.getPolling();
+        try {
+            this.zone = ZoneId.of(config.getZone());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("時區格式不正確: " + config.getZone(), e);
+        }
+        if (config.getHolidays() != null) {
+            for (String holiday : config.getHolidays()) {
+                try {
+                    holidays.add(LocalDate.parse(holiday.trim()));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("休市日格式不正確 (應為 yyyy-MM-dd): " + holiday, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 判斷是否為交易日
+     *
+     * @param date 日期
+     * @return true 如果不是週末也不是休市日
+     */
+    public boolean isTradingDay(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !holidays.contains(date);
+    }
+
+    /**
+     * 取得日期範圍內的所有交易日（含起訖日期，升序）
+     *
+     * @param from 起始日期
+     * @param to   結束日期
+     * @return 交易日清單，起始日期晚於結束日期時為空
+     */
+    public List<LocalDate> tradingDaysBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return from.datesUntil(to.plusDays(1)).filter(this::isTradingDay).toList();
+    }
+
+    /**
+     * 取得設定時區的今天日期
+     *
+     * @return 今天
+     */
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    /**
+     * 取得日曆使用的時區
+     *
+     * @return 時區
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+}
@@ -13,6 +13,7 @@ module com.etf.tracker {
     requires java.desktop;
     requires java.instrument;
     requires java.net.http;
+    requires java.xml;
 
     // Spring Framework 模組
     requires spring.boot;
@@ -54,7 +55,7 @@ module com.etf.tracker {
     opens com.etf.tracker.dto.mapper to spring.beans, spring.core;
     opens com.etf.tracker.exception to spring.web, spring.beans, spring.core;
     opens com.etf.tracker.controller to spring.web, spring.beans, spring.context, spring.core;
-    opens com.etf.tracker.service to spring.beans, spring.context, spring.core;
+    opens com.etf.tracker.service to spring.beans, spring.context, spring.core, com.fasterxml.jackson.databind;
     opens com.etf.tracker.scraper to spring.beans, spring.context, spring.core;
     opens com.etf.tracker.gui to javafx.fxml, spring.core, spring.beans, spring.context;
     opens com.etf.tracker.gui.view to javafx.fxml, spring.core, spring.beans, spring.context;
@@ -0,0 +1,101 @@
+package com.etf.tracker.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * 測試用的 GAS 推送端替身
+ * <p>
+ * 以與 gas-scraper {@code pushDailySnapshot} 相同的格式（Google Sheets 欄位順序的 CSV）
+ * 推送單日持倉資料至 {@code POST /api/holdings/ingest}
+ * </p>
+ */
+class GasIngestClient {
+
+        private final MockMvc mockMvc;
+        private final String token;
+        private final List<String[]> rows = new ArrayList<>();
+        private LocalDate date;
+
+        GasIngestClient(MockMvc mockMvc, String token) {
+                this.mockMvc = mockMvc;
+                this.token = token;
+        }
+
+        GasIngestClient forDate(LocalDate date) {
+                this.date = date;
+                this.rows.clear();
+                return this;
+        }
+
+        GasIngestClient holding(String stockCode, String stockName, long shares, String weight) {
+                rows.add(new String[] { stockCode, stockName, String.valueOf(shares), new BigDecimal(weight).toPlainString() });
+                return this;
+        }
+
+        GasIngestClient snapshot(DailySnapshot snapshot) {
+                for (Holding holding : snapshot.getHoldings()) {
+                        holding(holding.getStockCode(), holding.getStockName(), holding.getShares(),
+                                        holding.getWeight().toPlainString());
+                }
+                return this;
+        }
+
+        /**
+         * 組成推送內容：標題列 + 每檔成分股一列；無持倉時送出只有日期的佔位列
+         */
+        String toCsv() {
+                StringBuilder csv = new StringBuilder("日期,股票,股票名稱,股數,權重(%)\n");
+                if (rows.isEmpty()) {
+                        csv.append(date).append(",,,0,0\n");
+                }
+                for (String[] row : rows) {
+                        csv.append(date).append(',')
+                                        .append(row[0]).append(',')
+                                        .append(quote(row[1])).append(',')
+                                        .append(row[2]).append(',')
+                                        .append(row[3]).append('\n');
+                }
+                return csv.toString();
+        }
+
+        String toJson() {
+                String holdings = rows.stream()
+                                .map(row -> String.format(
+                                                "{\"stockCode\":\"%s\",\"stockName\":\"%s\",\"shares\":%s,\"weight\":%s}",
+                                                row[0], row[1], row[2], row[3]))
+                                .collect(Collectors.joining(","));
+                return "{\"date\":\"" + date + "\",\"holdings\":[" + holdings + "]}";
+        }
+
+        ResultActions pushCsv() throws Exception {
+                return mockMvc.perform(post("/api/holdings/ingest")
+                                .header("X-Ingest-Token", token)
+                                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                                .content(toCsv()));
+        }
+
+        ResultActions pushJson() throws Exception {
+                return mockMvc.perform(post("/api/holdings/ingest")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson()));
+        }
+
+        private static String quote(String value) {
+                return value.contains(",") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+        }
+}
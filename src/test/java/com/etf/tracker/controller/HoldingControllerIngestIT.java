@@ -0,0 +1,130 @@
+package com.etf.tracker.controller;
+
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.service.StorageService;
+
+/**
+ * HoldingController 推送匯入整合測試
+ * <p>
+ * 以 GAS 推送端替身測試 POST /api/holdings/ingest
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HoldingControllerIngestIT {
+
+        private static final String TOKEN = "test-ingest-token";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private StorageService storageService;
+
+        @Autowired
+        private AppConfig appConfig;
+
+        private GasIngestClient gas;
+
+        @BeforeEach
+        void setUp() {
+                try {
+                        Path storagePath = Path.of(appConfig.getData().getStoragePath());
+                        Files.deleteIfExists(storagePath.resolve(appConfig.getData().getFileName()));
+                } catch (IOException ignored) {
+                }
+                gas = new GasIngestClient(mockMvc, TOKEN);
+        }
+
+        @Test
+        @DisplayName("POST /api/holdings/ingest - 推送 CSV 後可查詢該日持倉")
+        void ingestCsv_ShouldPersistSnapshot() throws Exception {
+                // Given
+                LocalDate date = LocalDate.of(2024, 3, 1);
+
+                // When
+                gas.forDate(date)
+                                .snapshot(createMockSnapshot(date))
+                                .holding("2881", "富邦金, 控股", 54321L, "1.23")
+                                .pushCsv()
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.success").value(true))
+                                .andExpect(jsonPath("$.data.totalCount").value(3));
+
+                // Then
+                DailySnapshot saved = storageService.getSnapshot(date).orElseThrow();
+                assertEquals(3, saved.getTotalCount());
+                assertEquals(987654L, saved.getHoldings().get(1).getShares());
+                assertEquals("富邦金, 控股", saved.getHoldings().get(2).getStockName());
+        }
+
+        @Test
+        @DisplayName("POST /api/holdings/ingest - 推送 JSON 覆寫同日資料，空清單表示當日無持倉")
+        void ingestJson_ShouldOverwriteSameDay() throws Exception {
+                // Given
+                LocalDate date = LocalDate.of(2024, 3, 4);
+                gas.forDate(date).holding("2330", "台積電", 100L, "10").pushJson().andExpect(status().isOk());
+
+                // When
+                gas.forDate(date).pushJson().andExpect(status().isOk());
+
+                // Then
+                assertEquals(0, storageService.getSnapshot(date).orElseThrow().getTotalCount());
+                assertTrue(storageService.getAvailableDates().contains(date));
+        }
+
+        @Test
+        @DisplayName("POST /api/holdings/ingest - 權杖錯誤應回傳 401")
+        void ingest_WithWrongToken_ShouldReturn401() throws Exception {
+                new GasIngestClient(mockMvc, "wrong-token")
+                                .forDate(LocalDate.of(2024, 3, 5))
+                                .holding("2330", "台積電", 100L, "10")
+                                .pushCsv()
+                                .andExpect(status().isUnauthorized())
+                                .andExpect(jsonPath("$.success").value(false));
+
+                mockMvc.perform(post("/api/holdings/ingest")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"date\":\"2024-03-05\",\"holdings\":[]}"))
+                                .andExpect(status().isUnauthorized());
+
+                assertTrue(storageService.getSnapshot(LocalDate.of(2024, 3, 5)).isEmpty());
+        }
+
+        @Test
+        @DisplayName("POST /api/holdings/ingest - 資料驗證失敗應回傳 400")
+        void ingest_WithInvalidData_ShouldReturn400() throws Exception {
+                gas.forDate(LocalDate.of(2024, 3, 6))
+                                .holding("2330", "台積電", 100L, "10")
+                                .holding("2330", "台積電", 100L, "150")
+                                .pushJson()
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.errorCode").value("VALIDATION_ERROR"));
+
+                assertTrue(storageService.getSnapshot(LocalDate.of(2024, 3, 6)).isEmpty());
+        }
+}
@@ -0,0 +1,93 @@
+package com.etf.tracker.scraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.test.MockHtmlData;
+
+/**
+ * AssetDataExtractor 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class AssetDataExtractorTest {
+
+    @Test
+    @DisplayName("單次掃描取得資料日期與股票資產明細")
+    void extract_AssetDbPage_ReturnsDateAndStockHoldings() throws IOException {
+        // Given
+        String html = MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 50);
+
+        // When
+        AssetDataExtractor.Extraction extraction = AssetDataExtractor.extract(html);
+
+        // Then
+        assertEquals(LocalDate.of(2024, 1, 2), extraction.date());
+        assertEquals(50, extraction.holdings().size());
+        assertEquals("1000", extraction.holdings().get(0).getStockCode());
+        assertEquals("成分股0", extraction.holdings().get(0).getStockName());
+        assertEquals(1000L, extraction.holdings().get(0).getShares());
+        assertEquals(new BigDecimal("1.49"), extraction.holdings().get(49).getWeight());
+    }
+
+    @Test
+    @DisplayName("AssetCode 位於 Details 之後與數值以字串表示時仍正確解析")
+    void extract_FieldOrderAndStringValues() throws IOException {
+        // Given - 先出現非指派的 assetDB 參照
+        String html = """
+                <script>if (window.assetDB) { render(assetDB); }</script>
+                <p>資料日期：<span>2023-10-27</span></p>
+                <script>
+                    var assetDB = [{"Details":[{"DetailCode":2330,"Extra":{"a":[1,2]},"Share":"2231000",
+                        "NavRate":"9.40","DetailName":"台積電"}],"AssetCode":"ST"}];
+                </script>
+                """;
+
+        // When
+        AssetDataExtractor.Extraction extraction = AssetDataExtractor.extract(html);
+
+        // Then
+        assertEquals(LocalDate.of(2023, 10, 27), extraction.date());
+        assertEquals(1, extraction.holdings().size());
+        assertEquals("2330", extraction.holdings().get(0).getStockCode());
+        assertEquals("台積電", extraction.holdings().get(0).getStockName());
+        assertEquals(2231000L, extraction.holdings().get(0).getShares());
+        assertEquals(new BigDecimal("9.40"), extraction.holdings().get(0).getWeight());
+    }
+
+    @Test
+    @DisplayName("沒有 assetDB 的頁面回傳空結果")
+    void extract_TablePage_ReturnsNoHoldings() throws IOException {
+        AssetDataExtractor.Extraction extraction = AssetDataExtractor.extract(MockHtmlData.createMockHoldingsHtml(
+                LocalDate.of(2024, 3, 4)));
+
+        assertNull(extraction.holdings());
+        assertFalse(extraction.hasHoldings());
+        assertEquals(LocalDate.of(2024, 3, 4), extraction.date());
+    }
+
+    @Test
+    @DisplayName("assetDB 不是合法 JSON 時拋出例外，擷取策略改用表格")
+    void extract_MalformedJson_ThrowsAndStrategyFallsBack() {
+        // Given
+        String html = MockHtmlData.createMockHoldingsHtml(LocalDate.of(2024, 3, 4))
+                .replace("</body>", "<script>var assetDB = [{\"AssetCode\":\"ST\",\"Details\":[{</script></body>");
+
+        // When / Then
+        assertThrows(IOException.class, () -> AssetDataExtractor.extract(html));
+        DailySnapshot snapshot = new EzMoneyScraperStrategy().parseHoldings(html);
+        assertEquals(5, snapshot.getTotalCount());
+        assertEquals(LocalDate.of(2024, 3, 4), snapshot.getDate());
+    }
+}
@@ -214,4 +214,25 @@ class EzMoneyScraperStrategyTest {
         assertEquals(2231000L, holdings.get(0).getShares());
         assertEquals(new BigDecimal("9.4"), holdings.get(0).getWeight());
     }
+
+    @Test
+    @DisplayName("只以 assetDB 解析頁面，結果與完整解析相同")
+    void parseAssetData_DetectsServerRenderedPayload() {
+        String withAssets = """
+                <h5>資料日期：2024/01/02</h5>
+                <script>var assetDB = [{"AssetCode":"ST","Details":[{"DetailCode":"2330","Share":1,"NavRate":9.4}]}];</script>
+                """;
+        String withoutStocks = """
+                <script>var assetDB = [{"AssetCode":"NAV","Value":1}];</script>
+                """;
+
+        DailySnapshot parsed = scraper.parseAssetData(withAssets).orElseThrow();
+        DailySnapshot full = scraper.parseHoldings(withAssets);
+        assertEquals(full.getDate(), parsed.getDate());
+        assertEquals(full.getHoldings(), parsed.getHoldings());
+        assertEquals(0, full.getTotalWeight().compareTo(parsed.getTotalWeight()));
+        assertTrue(scraper.parseAssetData(withoutStocks).isEmpty());
+        assertTrue(scraper.parseAssetData("<html><body>loading...</body></html>").isEmpty());
+        assertTrue(scraper.parseAssetData(null).isEmpty());
+    }
 }
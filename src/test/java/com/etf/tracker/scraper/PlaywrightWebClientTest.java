@@ -0,0 +1,210 @@
+package com.etf.tracker.scraper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Response;
+import com.microsoft.playwright.options.AriaRole;
+
+/**
+ * PlaywrightWebClient 單元測試
+ * <p>
+ * 以模擬的 Playwright 物件驗證瀏覽器的重用、重新啟動、關閉與資料擷取，不需要實際的瀏覽器
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class PlaywrightWebClientTest {
+
+    private final List<Playwright> drivers = new ArrayList<>();
+    private final List<Browser> browsers = new ArrayList<>();
+    private final List<BrowserContext> contexts = new ArrayList<>();
+    private PlaywrightWebClient webClient;
+    private boolean failNavigation;
+    private Map<String, Object> capturedAssets;
+    private String documentResponse;
+
+    @BeforeEach
+    void setUp() {
+        webClient = new PlaywrightWebClient(createTestAppConfig(), fakeDriverFactory());
+    }
+
+    @AfterEach
+    void tearDown() {
+        webClient.shutdown();
+    }
+
+    @Test
+    @DisplayName("多次抓取重用同一瀏覽器，每次使用新的瀏覽器環境")
+    void fetchHtml_ReusesBrowserWithFreshContext() {
+        // When
+        String first = webClient.fetchHtml("https://test.com/etf");
+        String second = webClient.fetchHtml("https://test.com/etf");
+
+        // Then
+        assertEquals("<html>1</html>", first);
+        assertEquals("<html>2</html>", second);
+        assertEquals(1, drivers.size());
+        assertEquals(2, contexts.size());
+        contexts.forEach(context -> verify(context).close());
+    }
+
+    @Test
+    @DisplayName("瀏覽器中斷連線後自動重新啟動")
+    void fetchHtml_RelaunchesAfterDisconnect() {
+        // Given
+        webClient.fetchHtml("https://test.com/etf");
+        when(browsers.get(0).isConnected()).thenReturn(false);
+
+        // When
+        webClient.fetchHtml("https://test.com/etf");
+
+        // Then
+        assertEquals(2, drivers.size());
+        verify(browsers.get(0)).close();
+        verify(drivers.get(0)).close();
+        verify(browsers.get(1), times(1)).newContext();
+    }
+
+    @Test
+    @DisplayName("關閉時釋放瀏覽器與驅動程式並拒絕後續抓取")
+    void shutdown_ClosesBrowserAndDriver() {
+        // Given
+        webClient.fetchHtml("https://test.com/etf");
+
+        // When
+        webClient.shutdown();
+
+        // Then
+        verify(browsers.get(0)).close();
+        verify(drivers.get(0)).close();
+        assertThrows(IllegalStateException.class, () -> webClient.fetchHtml("https://test.com/etf"));
+    }
+
+    @Test
+    @DisplayName("頁面載入失敗時包裝為執行期例外並關閉瀏覽器環境")
+    void fetchHtml_NavigationFailure_ThrowsException() {
+        // Given
+        failNavigation = true;
+
+        // When / Then
+        assertThrows(RuntimeException.class, () -> webClient.fetchHtml("https://test.com/etf"));
+        verify(contexts.get(0)).close();
+        assertEquals(1, drivers.size());
+    }
+
+    @Test
+    @DisplayName("直接擷取 assetDB 並回傳可由擷取策略解析的精簡 HTML")
+    void fetchHtml_CapturesAssetData() {
+        // Given
+        capturedAssets = Map.of(
+                "date", "資料日期：2024/01/02",
+                "assets", "[{\"AssetCode\":\"ST\",\"Details\":[{\"DetailCode\":\"2330\","
+                        + "\"DetailName\":\"台積電</script>\",\"Share\":1000,\"NavRate\":9.4}]}]");
+
+        // When
+        String html = webClient.fetchHtml("https://test.com/etf");
+        DailySnapshot snapshot = new EzMoneyScraperStrategy().parseHoldings(html);
+
+        // Then
+        assertEquals(LocalDate.of(2024, 1, 2), snapshot.getDate());
+        assertEquals(1, snapshot.getTotalCount());
+        assertEquals("台積電</script>", snapshot.getHoldings().get(0).getStockName());
+        verify(contexts.get(0)).route(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("同時回傳導覽請求的伺服器回應內容")
+    void fetchPage_ReturnsNavigationResponse() {
+        // Given
+        documentResponse = "<html><script>var assetDB = [];</script></html>";
+        capturedAssets = Map.of("date", "資料日期：2024/01/02", "assets", "[]");
+
+        // When
+        PlaywrightWebClient.RenderedPage page = webClient.fetchPage("https://test.com/etf");
+
+        // Then
+        assertEquals(documentResponse, page.documentHtml());
+        assertTrue(page.html().contains("var assetDB = [];"));
+    }
+
+    @Test
+    @DisplayName("攔截圖片、字型、樣式表與追蹤腳本，保留文件與腳本")
+    void shouldBlock_NonEssentialResources() {
+        assertTrue(PlaywrightWebClient.shouldBlock("image", "https://www.ezmoney.com.tw/logo.png"));
+        assertTrue(PlaywrightWebClient.shouldBlock("stylesheet", "https://www.ezmoney.com.tw/site.css"));
+        assertTrue(PlaywrightWebClient.shouldBlock("script", "https://www.googletagmanager.com/gtm.js"));
+        assertFalse(PlaywrightWebClient.shouldBlock("document", "https://www.ezmoney.com.tw/ETF/Fund/Info"));
+        assertFalse(PlaywrightWebClient.shouldBlock("script", "https://www.ezmoney.com.tw/js/app.js"));
+    }
+
+    private Supplier<Playwright> fakeDriverFactory() {
+        return () -> {
+            Playwright playwright = mock(Playwright.class);
+            BrowserType chromium = mock(BrowserType.class);
+            Browser browser = mock(Browser.class);
+            when(playwright.chromium()).thenReturn(chromium);
+            when(chromium.launch(any())).thenReturn(browser);
+            when(browser.isConnected()).thenReturn(true);
+            when(browser.newContext()).thenAnswer(invocation -> newContext());
+            drivers.add(playwright);
+            browsers.add(browser);
+            return playwright;
+        };
+    }
+
+    private BrowserContext newContext() {
+        BrowserContext context = mock(BrowserContext.class);
+        Page page = mock(Page.class);
+        Locator tab = mock(Locator.class);
+        when(context.newPage()).thenReturn(page);
+        when(page.getByRole(any(AriaRole.class), any())).thenReturn(tab);
+        if (failNavigation) {
+            when(page.navigate(anyString(), any())).thenThrow(new IllegalStateException("Navigation failed"));
+        } else if (documentResponse != null) {
+            Response response = mock(Response.class);
+            when(response.text()).thenReturn(documentResponse);
+            when(page.navigate(anyString(), any())).thenReturn(response);
+        }
+        when(page.evaluate(anyString())).thenReturn(capturedAssets);
+        when(page.content()).thenReturn("<html>" + (contexts.size() + 1) + "</html>");
+        contexts.add(context);
+        return context;
+    }
+
+    private AppConfig createTestAppConfig() {
+        AppConfig config = new AppConfig();
+        AppConfig.ScraperConfig scraperConfig = new AppConfig.ScraperConfig();
+        scraperConfig.setMaxConcurrentPages(1);
+        config.setScraper(scraperConfig);
+        return config;
+    }
+}
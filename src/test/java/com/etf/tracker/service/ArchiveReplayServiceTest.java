@@ -0,0 +1,106 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.scraper.EzMoneyScraperStrategy;
+import com.etf.tracker.test.MockHtmlData;
+
+/**
+ * ArchiveReplayService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class ArchiveReplayServiceTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2024, 1, 2);
+    private static final LocalDate DAY2 = LocalDate.of(2024, 1, 3);
+
+    @TempDir
+    Path tempDir;
+
+    private RawPageArchive archive;
+    private ExcelStorageService storage;
+    private ArchiveReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = createTestAppConfig(tempDir);
+        archive = new RawPageArchive(appConfig);
+        archive.init();
+        storage = new ExcelStorageService(appConfig);
+        replayService = new ArchiveReplayService(archive, new EzMoneyScraperStrategy(),
+                new FundStorageRegistry(appConfig, storage));
+    }
+
+    @Test
+    @DisplayName("重新解析封存頁面並補上缺少的日期")
+    void replay_ParsesArchivedPagesIntoStorage() {
+        // Given - 第二頁當時解析失敗，封存中沒有資料日期
+        archive.store("49YTW", DAY1, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DAY1, 5));
+        archive.store("49YTW", null, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DAY2, 7));
+        archive.store("49YTW", null, DataFetchService.FetchTier.HTTP, "<html><body>維護中</body></html>");
+
+        // When
+        ArchiveReplayService.ReplayResult result = replayService.replay(null, null, false);
+
+        // Then
+        assertEquals(3, result.pages());
+        assertEquals(2, result.parsed());
+        assertEquals(1, result.failed());
+        assertEquals(2, result.saved());
+        assertEquals(List.of(DAY2, DAY1), storage.getAvailableDates());
+        assertEquals(7, storage.getSnapshot(DAY2).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("未指定覆寫時略過已儲存的日期")
+    void replay_WithoutOverwrite_SkipsExistingDates() {
+        // Given
+        archive.store("49YTW", DAY1, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DAY1, 5));
+        storage.saveSnapshot(new EzMoneyScraperStrategy().parseHoldings(
+                MockHtmlData.createAssetDbHoldingsHtml(DAY1, 3)));
+
+        // When
+        ArchiveReplayService.ReplayResult skipped = replayService.replay(DAY1, DAY1, false);
+        ArchiveReplayService.ReplayResult overwritten = replayService.replay(DAY1, DAY1, true);
+
+        // Then
+        assertEquals(1, skipped.skipped());
+        assertEquals(0, skipped.saved());
+        assertEquals(1, overwritten.saved());
+        assertEquals(5, storage.getSnapshot(DAY1).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("作為封存來源提供指定日期的快照")
+    void load_ReturnsArchivedSnapshot() {
+        // Given
+        archive.store("49YTW", DAY1, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DAY1, 5));
+
+        // Then
+        assertEquals(5, replayService.load("49YTW", DAY1).orElseThrow().getTotalCount());
+        assertEquals("49YTW", replayService.load("49YTW", DAY1).orElseThrow().getFundCode());
+        assertTrue(replayService.load("49YTW", DAY2).isEmpty());
+        assertTrue(replayService.load("61YTW", DAY1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("起始日期晚於結束日期時拋出例外")
+    void replay_InvalidRange_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> replayService.replay(DAY2, DAY1, false));
+    }
+}
@@ -0,0 +1,331 @@
+package com.etf.tracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * CachingStorageService 單元測試
+ * <p>
+ * 測試快照快取的命中、淘汰、失效與過期
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingStorageService 單元測試")
+class CachingStorageServiceTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2024, 1, 2);
+    private static final LocalDate DAY2 = LocalDate.of(2024, 1, 3);
+    private static final LocalDate DAY3 = LocalDate.of(2024, 1, 4);
+
+    @Mock
+    private StorageService delegate;
+
+    private final AtomicLong clock = new AtomicLong();
+    private AppConfig.CacheConfig cacheConfig;
+
+    @BeforeEach
+    void setUp() {
+        cacheConfig = new AppConfig.CacheConfig();
+        cacheConfig.setMaxHoldings(100);
+        cacheConfig.setTtlSeconds(60);
+    }
+
+    @Test
+    @DisplayName("重複讀取同一日期只讀取底層儲存一次")
+    void getSnapshot_SecondReadHitsCache() {
+        // Given
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 2)));
+        CachingStorageService cache = createCache();
+
+        // When
+        cache.getSnapshot(DAY1);
+        Optional<DailySnapshot> result = cache.getSnapshot(DAY1);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getTotalCount()).isEqualTo(2);
+        verify(delegate, times(1)).getSnapshot(DAY1);
+        assertThat(cache.getStatistics().hits()).isEqualTo(1);
+        assertThat(cache.getStatistics().misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("呼叫端修改回傳的快照不影響快取內容")
+    void getSnapshot_ReturnsDefensiveCopy() {
+        // Given
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 2)));
+        CachingStorageService cache = createCache();
+
+        // When
+        cache.getSnapshot(DAY1).orElseThrow().getHoldings().clear();
+
+        // Then
+        assertThat(cache.getSnapshot(DAY1).orElseThrow().getHoldings()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("超過成分股筆數上限時淘汰最久未使用的日期")
+    void store_EvictsLeastRecentlyUsedByWeight() {
+        // Given - 每個快照 40 筆，上限 100 筆
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 40)));
+        when(delegate.getSnapshot(DAY2)).thenReturn(Optional.of(createSnapshot(DAY2, 40)));
+        when(delegate.getSnapshot(DAY3)).thenReturn(Optional.of(createSnapshot(DAY3, 40)));
+        CachingStorageService cache = createCache();
+
+        // When
+        cache.getSnapshot(DAY1);
+        cache.getSnapshot(DAY2);
+        cache.getSnapshot(DAY1);
+        cache.getSnapshot(DAY3);
+
+        // Then - DAY2 最久未使用，被淘汰
+        CachingStorageService.CacheStatistics stats = cache.getStatistics();
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(stats.entries()).isEqualTo(2);
+        assertThat(stats.weight()).isEqualTo(80);
+        cache.getSnapshot(DAY2);
+        verify(delegate, times(2)).getSnapshot(DAY2);
+        verify(delegate, times(1)).getSnapshot(DAY1);
+    }
+
+    @Test
+    @DisplayName("寫入快照後使該日期與日期清單失效")
+    void saveSnapshot_InvalidatesDateAndDateList() {
+        // Given
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 2)));
+        when(delegate.getAvailableDates()).thenReturn(List.of(DAY1));
+        CachingStorageService cache = createCache();
+        cache.getSnapshot(DAY1);
+        cache.getAvailableDates();
+
+        // When
+        cache.saveSnapshot(createSnapshot(DAY1, 3));
+        cache.getSnapshot(DAY1);
+        cache.getAvailableDates();
+
+        // Then
+        verify(delegate, times(2)).getSnapshot(DAY1);
+        verify(delegate, times(2)).getAvailableDates();
+    }
+
+    @Test
+    @DisplayName("寫入期間開始的讀取取得舊資料時，不會在寫入完成後放入快取")
+    void saveSnapshot_ReadDuringWriteDoesNotCacheStaleSnapshot() throws Exception {
+        // Given - 讀取在寫入開始後進入底層儲存，並在寫入完成後才回傳舊資料
+        CountDownLatch writeInProgress = new CountDownLatch(1);
+        CountDownLatch readerLoading = new CountDownLatch(1);
+        CountDownLatch writeFinished = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(delegate.getSnapshot(DAY1)).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                readerLoading.countDown();
+                assertThat(writeFinished.await(5, TimeUnit.SECONDS)).isTrue();
+                return Optional.of(createSnapshot(DAY1, 2));
+            }
+            return Optional.of(createSnapshot(DAY1, 3));
+        });
+        doAnswer(invocation -> {
+            writeInProgress.countDown();
+            assertThat(readerLoading.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(delegate).saveSnapshot(any());
+        CachingStorageService cache = createCache();
+
+        // When
+        Thread writer = Thread.ofPlatform().start(() -> {
+            cache.saveSnapshot(createSnapshot(DAY1, 3));
+            writeFinished.countDown();
+        });
+        assertThat(writeInProgress.await(5, TimeUnit.SECONDS)).isTrue();
+        Optional<DailySnapshot> duringWrite = cache.getSnapshot(DAY1);
+        writer.join();
+        Optional<DailySnapshot> afterWrite = cache.getSnapshot(DAY1);
+
+        // Then
+        assertThat(duringWrite.orElseThrow().getTotalCount()).isEqualTo(2);
+        assertThat(afterWrite.orElseThrow().getTotalCount()).isEqualTo(3);
+        verify(delegate, times(2)).getSnapshot(DAY1);
+    }
+
+    @Test
+    @DisplayName("寫入期間開始的讀取在該日期失效後、寫入結束前回傳時，舊資料不會放入快取")
+    void saveSnapshots_ReadStoredBetweenInvalidationAndWriteEndIsNotCached() throws Exception {
+        // Given - 讀取在寫入進行中開始，並在 DAY1 已失效、寫入尚未結束時回傳舊資料
+        CountDownLatch writeInProgress = new CountDownLatch(1);
+        CountDownLatch readerLoading = new CountDownLatch(1);
+        CountDownLatch invalidating = new CountDownLatch(1);
+        CountDownLatch readerDone = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        when(delegate.getSnapshot(DAY1)).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                readerLoading.countDown();
+                assertThat(invalidating.await(5, TimeUnit.SECONDS)).isTrue();
+                return Optional.of(createSnapshot(DAY1, 2));
+            }
+            return Optional.of(createSnapshot(DAY1, 3));
+        });
+        doAnswer(invocation -> {
+            writeInProgress.countDown();
+            assertThat(readerLoading.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(delegate).saveSnapshots(any());
+        // 使 DAY1 失效後，在取得下一筆快照的日期時暫停，等待讀取完成
+        DailySnapshot second = new DailySnapshot(DAY2, List.of(), 0, BigDecimal.ZERO) {
+            @Override
+            public LocalDate getDate() {
+                if (writeInProgress.getCount() == 0 && invalidating.getCount() > 0) {
+                    invalidating.countDown();
+                    try {
+                        readerDone.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getDate();
+            }
+        };
+        CachingStorageService cache = createCache();
+
+        // When
+        Thread writer = Thread.ofPlatform().start(() -> cache.saveSnapshots(List.of(createSnapshot(DAY1, 3), second)));
+        assertThat(writeInProgress.await(5, TimeUnit.SECONDS)).isTrue();
+        Optional<DailySnapshot> duringWrite = cache.getSnapshot(DAY1);
+        readerDone.countDown();
+        writer.join();
+        Optional<DailySnapshot> afterWrite = cache.getSnapshot(DAY1);
+
+        // Then
+        assertThat(duringWrite.orElseThrow().getTotalCount()).isEqualTo(2);
+        assertThat(afterWrite.orElseThrow().getTotalCount()).isEqualTo(3);
+        verify(delegate, times(2)).getSnapshot(DAY1);
+    }
+
+    @Test
+    @DisplayName("快取回傳的快照保留基金代碼")
+    void getSnapshot_PreservesFundCode() {
+        // Given
+        DailySnapshot snapshot = createSnapshot(DAY1, 2);
+        snapshot.setFundCode("49YTW");
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(snapshot));
+        CachingStorageService cache = createCache();
+
+        // When
+        DailySnapshot loaded = cache.getSnapshot(DAY1).orElseThrow();
+        DailySnapshot cached = cache.getSnapshot(DAY1).orElseThrow();
+
+        // Then
+        assertThat(loaded.getFundCode()).isEqualTo("49YTW");
+        assertThat(cached.getFundCode()).isEqualTo("49YTW");
+    }
+
+    @Test
+    @DisplayName("清理資料後移除截止日期之前的快取項目")
+    void deleteDataBefore_RemovesOlderEntries() {
+        // Given
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 2)));
+        when(delegate.getSnapshot(DAY3)).thenReturn(Optional.of(createSnapshot(DAY3, 2)));
+        when(delegate.deleteDataBefore(DAY2)).thenReturn(2);
+        CachingStorageService cache = createCache();
+        cache.getSnapshot(DAY1);
+        cache.getSnapshot(DAY3);
+
+        // When
+        int deleted = cache.deleteDataBefore(DAY2);
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(cache.getStatistics().entries()).isEqualTo(1);
+        assertThat(cache.getStatistics().weight()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("日期清單已快取時直接回應不存在的日期")
+    void getSnapshot_UnknownDateAnsweredFromDateList() {
+        // Given
+        when(delegate.getAvailableDates()).thenReturn(List.of(DAY1));
+        CachingStorageService cache = createCache();
+        cache.getAvailableDates();
+
+        // When
+        Optional<DailySnapshot> result = cache.getSnapshot(DAY3);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(delegate, times(0)).getSnapshot(DAY3);
+    }
+
+    @Test
+    @DisplayName("快取項目超過存活時間後重新讀取")
+    void getSnapshot_ExpiredEntryReloads() {
+        // Given
+        when(delegate.getSnapshot(DAY1)).thenReturn(Optional.of(createSnapshot(DAY1, 2)));
+        CachingStorageService cache = createCache();
+        cache.getSnapshot(DAY1);
+
+        // When
+        clock.addAndGet(61_000_000_000L);
+        cache.getSnapshot(DAY1);
+
+        // Then
+        verify(delegate, times(2)).getSnapshot(DAY1);
+    }
+
+    @Test
+    @DisplayName("監控指標包含快取統計")
+    void getMetrics_IncludesCacheStatistics() {
+        // Given
+        when(delegate.getMetrics()).thenReturn(Map.of());
+        CachingStorageService cache = createCache();
+
+        // Then
+        assertThat(cache.getMetrics()).containsKey("cache");
+    }
+
+    private CachingStorageService createCache() {
+        return new CachingStorageService(delegate, cacheConfig, clock::get);
+    }
+
+    private DailySnapshot createSnapshot(LocalDate date, int holdingCount) {
+        List<Holding> holdings = new ArrayList<>();
+        for (int i = 0; i < holdingCount; i++) {
+            holdings.add(Holding.builder()
+                    .stockCode(String.valueOf(1000 + i))
+                    .stockName("股票" + i)
+                    .shares(1000L)
+                    .weight(new BigDecimal("1.00"))
+                    .build());
+        }
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(holdings)
+                .totalCount(holdingCount)
+                .totalWeight(new BigDecimal(holdingCount))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CircuitBreaker 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(6);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(5), Duration.ofSeconds(60),
+            clock::get);
+
+    @Test
+    @DisplayName("連續失敗達門檻後跳脫並拒絕呼叫")
+    void consecutiveFailures_TripBreaker() {
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure(FAST);
+        }
+
+        // Then
+        assertFalse(breaker.tryAcquire());
+        CircuitBreaker.Status status = breaker.getStatus();
+        assertEquals(CircuitBreaker.State.OPEN, status.state());
+        assertEquals(1, status.trips());
+        assertEquals(1, status.rejected());
+    }
+
+    @Test
+    @DisplayName("成功呼叫重設連續失敗次數，慢速呼叫視為失敗")
+    void successResets_SlowCallsCountAsFailures() {
+        // When
+        breaker.onFailure(FAST);
+        breaker.onFailure(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getStatus().state());
+        breaker.onSuccess(SLOW);
+        CircuitBreaker.Status status = breaker.getStatus();
+        assertEquals(CircuitBreaker.State.OPEN, status.state());
+        assertEquals(3, status.slowCalls());
+        assertEquals(6000L, status.lastLatencyMillis());
+    }
+
+    @Test
+    @DisplayName("開啟時間過後只放行一個半開探測，成功則關閉")
+    void halfOpenProbe_SuccessCloses() {
+        // Given
+        trip();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        // When
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess(FAST);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getStatus().state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("半開探測失敗時重新開啟")
+    void halfOpenProbe_FailureReopens() {
+        // Given
+        trip();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        // When
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(FAST);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getStatus().state());
+        assertEquals(2, breaker.getStatus().trips());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("失敗門檻必須大於 0")
+    void invalidThreshold_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CircuitBreaker(0, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+    }
+
+    private void trip() {
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure(FAST);
+        }
+    }
+}
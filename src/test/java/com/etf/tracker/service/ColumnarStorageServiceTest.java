@@ -0,0 +1,163 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+
+/**
+ * ColumnarStorageService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class ColumnarStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private ColumnarStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir, "columnar");
+        appConfig.getData().setExcelExport(false);
+        storageService = createService();
+    }
+
+    @Test
+    @DisplayName("儲存並讀取快照")
+    void saveAndGetSnapshot() {
+        // Given
+        LocalDate date = LocalDate.of(2024, 1, 2);
+
+        // When
+        storageService.saveSnapshot(createMockSnapshot(date, 1234567L));
+
+        // Then
+        DailySnapshot result = storageService.getSnapshot(date).orElseThrow();
+        assertEquals(2, result.getTotalCount());
+        assertEquals("2330", result.getHoldings().get(0).getStockCode());
+        assertEquals("台積電", result.getHoldings().get(0).getStockName());
+        assertEquals(1234567L, result.getHoldings().get(0).getShares());
+        assertEquals(new BigDecimal("12.3456"), result.getHoldings().get(0).getWeight());
+        assertEquals(0, new BigDecimal("21.111").compareTo(result.getTotalWeight()));
+        assertTrue(storageService.getSnapshot(date.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("覆寫與插入較早日期後維持日期排序")
+    void saveSnapshot_OverwriteAndInsert_KeepsOrder() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 200L));
+
+        // When
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 300L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 999L));
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 2)),
+                storageService.getAvailableDates());
+        assertEquals(999L, storageService.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow()
+                .getHoldings().get(0).getShares());
+        assertEquals(200L, storageService.getLatestSnapshot().orElseThrow().getHoldings().get(0).getShares());
+        assertEquals(6, storageService.getTotalRecordCount());
+    }
+
+    @Test
+    @DisplayName("刪除過期資料並計算筆數")
+    void deleteDataBefore_RemovesOlderDays() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 1L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 2L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 3L));
+
+        // When
+        assertEquals(4, storageService.countRecordsBefore(LocalDate.of(2024, 1, 4)));
+        int deleted = storageService.deleteDataBefore(LocalDate.of(2024, 1, 4));
+
+        // Then
+        assertEquals(4, deleted);
+        assertEquals(List.of(LocalDate.of(2024, 1, 4)), storageService.getAvailableDates());
+        assertEquals(0, storageService.deleteDataBefore(LocalDate.of(2024, 1, 4)));
+    }
+
+    @Test
+    @DisplayName("重新開啟後資料保持一致並截斷不完整的尾端")
+    void init_ReopensAndRecoversTornTail() throws Exception {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 1L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 2L));
+
+        // 模擬附加中斷：欄位檔多出不完整資料
+        Path directory = tempDir.resolve("holdings.columnar");
+        Files.write(directory.resolve("shares-0.col"), new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        // When
+        ColumnarStorageService reopened = createService();
+
+        // Then
+        assertEquals(2, reopened.getAvailableDates().size());
+        assertEquals(4, reopened.getTotalRecordCount());
+        reopened.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 3L));
+        assertEquals(3L, reopened.getSnapshot(LocalDate.of(2024, 1, 4)).orElseThrow()
+                .getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("首次啟動時由 Excel 匯入，寫入後的匯出於關閉前完成")
+    void init_ImportsFromExcelAndExports() {
+        // Given
+        Path excelDir = tempDir.resolve("excel");
+        appConfig.getData().setStoragePath(excelDir.toString());
+        ExcelStorageService excel = new ExcelStorageService(appConfig);
+        excel.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 10L));
+        excel.saveSnapshot(DailySnapshot.builder().date(LocalDate.of(2024, 1, 3)).holdings(List.of()).build());
+
+        // When
+        appConfig.getData().setExcelExport(true);
+        ColumnarStorageService imported = createService();
+        imported.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 20L));
+        imported.shutdown();
+
+        // Then
+        assertEquals(3, imported.getAvailableDates().size());
+        assertEquals(0, imported.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow().getTotalCount());
+        assertEquals(10L, imported.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow()
+                .getHoldings().get(0).getShares());
+        assertEquals(3, new ExcelStorageService(appConfig).getAvailableDates().size());
+    }
+
+    @Test
+    @DisplayName("權重以固定小數位數轉換")
+    void scaledWeight_RoundTrips() {
+        assertEquals(12345600L, ColumnarStorageService.toScaled(new BigDecimal("12.3456")));
+        assertEquals(new BigDecimal("12.3456"), ColumnarStorageService.fromScaled(12345600L));
+        assertEquals(new BigDecimal("50"), ColumnarStorageService.fromScaled(50000000L));
+        assertFalse(ColumnarStorageService.fromScaled(0L).scale() < 0);
+    }
+
+    private ColumnarStorageService createService() {
+        ColumnarStorageService service = new ColumnarStorageService(appConfig);
+        service.init();
+        return service;
+    }
+}
@@ -3,15 +3,25 @@ package com.etf.tracker.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -26,6 +36,8 @@ import com.etf.tracker.model.DailySnapshot;
 import com.etf.tracker.model.Holding;
 import com.etf.tracker.scraper.EzMoneyScraperStrategy;
 import com.etf.tracker.scraper.PlaywrightWebClient;
+import com.etf.tracker.scraper.RetryableWebClient;
+import com.etf.tracker.test.MockHtmlData;
 
 /**
  * DataFetchService 單元測試
@@ -39,9 +51,15 @@ class DataFetchServiceTest {
     @Mock
     private PlaywrightWebClient webClient;
 
+    @Mock
+    private RetryableWebClient httpClient;
+
     @Mock
     private EzMoneyScraperStrategy scraperStrategy;
 
+    @Mock
+    private RawPageArchive pageArchive;
+
     @Mock
     private AppConfig appConfig;
 
@@ -52,10 +70,13 @@ class DataFetchServiceTest {
 
     @BeforeEach
     void setUp() {
-        when(appConfig.getScraper()).thenReturn(scraperConfig);
-        when(scraperConfig.getTargetUrl()).thenReturn("https://test.com/etf");
+        // 多基金測試使用實際配置，因此共用的設定允許未被使用
+        lenient().when(appConfig.getScraper()).thenReturn(scraperConfig);
+        lenient().when(scraperConfig.getTargetUrl()).thenReturn("https://test.com/etf");
+
+        lenient().when(scraperConfig.isHttpFirst()).thenReturn(true);
 
-        dataFetchService = new DataFetchService(webClient, scraperStrategy, appConfig);
+        dataFetchService = new DataFetchService(webClient, httpClient, scraperStrategy, pageArchive, appConfig);
     }
 
     @Test
@@ -65,7 +86,7 @@ class DataFetchServiceTest {
         String mockHtml = "<html>mock</html>";
         DailySnapshot expectedSnapshot = createMockSnapshot();
 
-        when(webClient.fetchHtml(anyString())).thenReturn(mockHtml);
+        when(webClient.fetchPage(anyString())).thenReturn(rendered(mockHtml));
         when(scraperStrategy.parseHoldings(mockHtml)).thenReturn(expectedSnapshot);
 
         // When
@@ -76,7 +97,7 @@ class DataFetchServiceTest {
         assertEquals(expectedSnapshot.getDate(), result.getDate());
         assertEquals(expectedSnapshot.getTotalCount(), result.getTotalCount());
 
-        verify(webClient).fetchHtml(anyString());
+        verify(webClient).fetchPage(anyString());
         verify(scraperStrategy).parseHoldings(mockHtml);
     }
 
@@ -84,7 +105,7 @@ class DataFetchServiceTest {
     @DisplayName("網路錯誤應拋出 DataFetchException")
     void fetchLatestHoldings_NetworkError_ThrowsException() {
         // Given
-        when(webClient.fetchHtml(anyString()))
+        when(webClient.fetchPage(anyString()))
                 .thenThrow(new DataFetchException("網路連線失敗"));
 
         // When & Then
@@ -95,7 +116,7 @@ class DataFetchServiceTest {
     @DisplayName("解析錯誤應拋出 DataFetchException")
     void fetchLatestHoldings_ParseError_ThrowsException() {
         // Given
-        when(webClient.fetchHtml(anyString())).thenReturn("<html></html>");
+        when(webClient.fetchPage(anyString())).thenReturn(rendered("<html></html>"));
         when(scraperStrategy.parseHoldings(anyString()))
                 .thenThrow(new DataFetchException("解析失敗"));
 
@@ -109,14 +130,14 @@ class DataFetchServiceTest {
         // Given
         String targetUrl = "https://test.com/etf";
         when(scraperConfig.getTargetUrl()).thenReturn(targetUrl);
-        when(webClient.fetchHtml(targetUrl)).thenReturn("<html></html>");
+        when(webClient.fetchPage(targetUrl)).thenReturn(rendered("<html></html>"));
         when(scraperStrategy.parseHoldings(anyString())).thenReturn(createMockSnapshot());
 
         // When
         dataFetchService.fetchLatestHoldings();
 
         // Then
-        verify(webClient).fetchHtml(targetUrl);
+        verify(webClient).fetchPage(targetUrl);
     }
 
     @Test
@@ -124,7 +145,7 @@ class DataFetchServiceTest {
     void fetchLatestHoldings_ReturnsCompleteSnapshot() {
         // Given
         DailySnapshot mockSnapshot = createMockSnapshot();
-        when(webClient.fetchHtml(anyString())).thenReturn("<html></html>");
+        when(webClient.fetchPage(anyString())).thenReturn(rendered("<html></html>"));
         when(scraperStrategy.parseHoldings(anyString())).thenReturn(mockSnapshot);
 
         // When
@@ -138,6 +159,284 @@ class DataFetchServiceTest {
         assertNotNull(result.getTotalWeight());
     }
 
+    @Test
+    @DisplayName("HTTP 回應包含 assetDB 時不啟動無頭瀏覽器")
+    void fetchLatestHoldings_HttpTierHasAssetData_SkipsBrowser() {
+        // Given
+        String ssrHtml = "<script>var assetDB = [];</script>";
+        when(httpClient.fetchHtml(anyString())).thenReturn(ssrHtml);
+        DailySnapshot parsed = createMockSnapshot();
+        when(scraperStrategy.parseAssetData(ssrHtml)).thenReturn(Optional.of(parsed));
+
+        // When
+        DailySnapshot result = dataFetchService.fetchLatestHoldings();
+
+        // Then - 判斷層級時解析出的快照直接使用，不再解析一次
+        assertSame(parsed, result);
+        verify(scraperStrategy, never()).parseHoldings(anyString());
+        verify(webClient, never()).fetchPage(anyString());
+        DataFetchService.FetchStatistics statistics = dataFetchService.getFetchStatistics();
+        assertEquals(DataFetchService.FetchTier.HTTP, statistics.lastTier());
+        assertEquals(1, statistics.httpFetches());
+        assertEquals(0, statistics.browserFetches());
+    }
+
+    @Test
+    @DisplayName("HTTP 失敗或缺少 assetDB 時升級為無頭瀏覽器")
+    void fetchLatestHoldings_HttpTierMissing_EscalatesToBrowser() {
+        // Given
+        when(httpClient.fetchHtml(anyString()))
+                .thenReturn("<html>shell</html>")
+                .thenThrow(new DataFetchException("連線逾時"));
+        when(webClient.fetchPage(anyString())).thenReturn(rendered("<html>rendered</html>"));
+        when(scraperStrategy.parseHoldings("<html>rendered</html>")).thenReturn(createMockSnapshot());
+
+        // When
+        dataFetchService.fetchLatestHoldings();
+        dataFetchService.fetchLatestHoldings();
+
+        // Then
+        DataFetchService.FetchStatistics statistics = dataFetchService.getFetchStatistics();
+        assertEquals(DataFetchService.FetchTier.BROWSER, statistics.lastTier());
+        assertEquals(2, statistics.browserFetches());
+        assertEquals(2, statistics.httpMisses());
+    }
+
+    @Test
+    @DisplayName("無頭瀏覽器抓取時封存伺服器回應的 HTML 與抓取層級")
+    void fetchLatestHoldings_BrowserTier_ArchivesServerResponse() {
+        // Given
+        when(scraperConfig.isHttpFirst()).thenReturn(false);
+        when(scraperConfig.getPrimaryFundCode()).thenReturn("49YTW");
+        when(webClient.fetchPage(anyString()))
+                .thenReturn(new PlaywrightWebClient.RenderedPage("<html>captured</html>", "<html>server</html>"));
+        DailySnapshot snapshot = createMockSnapshot();
+        when(scraperStrategy.parseHoldings("<html>captured</html>")).thenReturn(snapshot);
+
+        // When
+        dataFetchService.fetchLatestHoldings();
+
+        // Then
+        verify(pageArchive).store("49YTW", snapshot.getDate(), DataFetchService.FetchTier.BROWSER,
+                "<html>server</html>");
+    }
+
+    @Test
+    @DisplayName("停用 HTTP 優先時直接使用無頭瀏覽器")
+    void fetchLatestHoldings_HttpFirstDisabled_UsesBrowserOnly() {
+        // Given
+        when(scraperConfig.isHttpFirst()).thenReturn(false);
+        when(webClient.fetchPage(anyString())).thenReturn(rendered("<html></html>"));
+        when(scraperStrategy.parseHoldings(anyString())).thenReturn(createMockSnapshot());
+
+        // When
+        dataFetchService.fetchLatestHoldings();
+
+        // Then
+        verify(httpClient, never()).fetchHtml(anyString());
+        assertEquals(0, dataFetchService.getFetchStatistics().httpMisses());
+    }
+
+    @Test
+    @DisplayName("同時抓取多檔基金，總耗時接近最慢的一檔並標記基金代碼")
+    void fetchAllFunds_FetchesConcurrentlyWithFundCodes() {
+        // Given
+        AppConfig config = createFundsConfig(fund("49YTW", null), fund("61YTW", null), fund("62YTW", null));
+        when(webClient.fetchPage(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return rendered(MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 3));
+        });
+        DataFetchService service = new DataFetchService(webClient, httpClient, new EzMoneyScraperStrategy(), pageArchive, config);
+
+        // When
+        long start = System.currentTimeMillis();
+        List<DataFetchService.FundFetchResult> results = service.fetchAllFunds();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then
+        assertTrue(elapsed < 800, "耗時應接近單一基金: " + elapsed + " ms");
+        assertEquals(List.of("49YTW", "61YTW", "62YTW"),
+                results.stream().map(DataFetchService.FundFetchResult::fundCode).toList());
+        results.forEach(result -> {
+            assertTrue(result.isSuccess());
+            assertEquals(result.fundCode(), result.snapshot().getFundCode());
+            assertEquals(3, result.snapshot().getTotalCount());
+        });
+        verify(webClient).fetchPage("https://funds.test/Info?FundCode=61YTW");
+    }
+
+    @Test
+    @DisplayName("同時抓取數量不超過全域上限，同一主機的請求依間隔排隊")
+    void fetchAllFunds_RespectsConcurrencyAndHostInterval() {
+        // Given
+        AppConfig config = createFundsConfig(fund("A", null), fund("B", null), fund("C", null), fund("D", null));
+        config.getScraper().setMaxConcurrentFetches(2);
+        config.getScraper().setPerHostIntervalMillis(100);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> startTimes = new CopyOnWriteArrayList<>();
+        when(webClient.fetchPage(anyString())).thenAnswer(invocation -> {
+            startTimes.add(System.nanoTime());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(150);
+            running.decrementAndGet();
+            return rendered(MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 1));
+        });
+        DataFetchService service = new DataFetchService(webClient, httpClient, new EzMoneyScraperStrategy(),
+                pageArchive, config);
+
+        // When
+        List<DataFetchService.FundFetchResult> results = service.fetchAllFunds();
+
+        // Then - 抓取時間（150 ms）長於主機間隔，後段基金需等待名額釋放，實際發出的間隔仍不得小於 100 ms
+        assertTrue(results.stream().allMatch(DataFetchService.FundFetchResult::isSuccess));
+        assertTrue(maxRunning.get() <= 2, "同時抓取數量: " + maxRunning.get());
+        List<Long> sorted = startTimes.stream().sorted().toList();
+        assertEquals(4, sorted.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            long gapMillis = TimeUnit.NANOSECONDS.toMillis(sorted.get(i) - sorted.get(i - 1));
+            // 預約時段到實際呼叫 fetchHtml 之間有少許排程延遲
+            assertTrue(gapMillis >= 90, "同一主機的請求間隔: " + gapMillis + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("等待主機間隔時不佔用全域名額，其他主機的基金可先行抓取")
+    void fetchAllFunds_HostIntervalWaitDoesNotHoldPermit() {
+        // Given
+        AppConfig config = createFundsConfig(fund("A1", "https://a.test/1"), fund("A2", "https://a.test/2"),
+                fund("B", "https://b.test/1"));
+        config.getScraper().setMaxConcurrentFetches(1);
+        config.getScraper().setPerHostIntervalMillis(100);
+        CountDownLatch otherHostFetched = new CountDownLatch(1);
+        AtomicBoolean otherHostFetchedWhileWaiting = new AtomicBoolean();
+        String html = MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 1);
+        when(webClient.fetchPage(anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0, String.class).startsWith("https://b.test")) {
+                otherHostFetched.countDown();
+            }
+            return rendered(html);
+        });
+        // 同一主機的第二個請求等到其他主機的基金抓取完成才放行，等待結束後時鐘前進
+        AtomicLong clock = new AtomicLong();
+        HostRateLimiter rateLimiter = new HostRateLimiter(clock::get, nanos -> {
+            otherHostFetchedWhileWaiting.set(otherHostFetched.await(5, TimeUnit.SECONDS));
+            clock.addAndGet(nanos);
+        });
+        DataFetchService service = new DataFetchService(webClient, httpClient, new EzMoneyScraperStrategy(),
+                pageArchive, config, rateLimiter);
+
+        // When
+        List<DataFetchService.FundFetchResult> results = service.fetchAllFunds();
+
+        // Then
+        assertTrue(results.stream().allMatch(DataFetchService.FundFetchResult::isSuccess));
+        assertTrue(otherHostFetchedWhileWaiting.get(), "等待主機間隔的基金不應佔用全域名額");
+    }
+
+    @Test
+    @DisplayName("單一基金依自己的重試次數與時間預算處理失敗，不影響其他基金")
+    void fetchAllFunds_PerFundRetryAndTimeoutBudgets() {
+        // Given
+        AppConfig.FundConfig flaky = fund("FLAKY", "https://funds.test/flaky");
+        flaky.setRetries(1);
+        AppConfig.FundConfig slow = fund("SLOW", "https://funds.test/slow");
+        slow.setTimeoutSeconds(1);
+        AppConfig.FundConfig broken = fund("BROKEN", "https://funds.test/broken");
+        broken.setRetries(0);
+        AppConfig config = createFundsConfig(flaky, slow, broken);
+
+        String html = MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 1);
+        when(webClient.fetchPage("https://funds.test/flaky"))
+                .thenThrow(new DataFetchException("暫時失敗"))
+                .thenReturn(rendered(html));
+        when(webClient.fetchPage("https://funds.test/slow")).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return rendered(html);
+        });
+        when(webClient.fetchPage("https://funds.test/broken")).thenThrow(new DataFetchException("網站維護中"));
+        DataFetchService service = new DataFetchService(webClient, httpClient, new EzMoneyScraperStrategy(), pageArchive, config);
+
+        // When
+        long start = System.currentTimeMillis();
+        List<DataFetchService.FundFetchResult> results = service.fetchAllFunds();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(2, results.get(0).attempts());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).error().contains("時間預算"));
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(1, results.get(2).attempts());
+        assertTrue(elapsed < 3000, "逾時的基金不應拖慢整批: " + elapsed + " ms");
+    }
+
+    @Test
+    @DisplayName("逾時的嘗試在實際結束前仍佔用全域名額")
+    void fetchAllFunds_TimedOutAttemptHoldsPermitUntilItEnds() {
+        // Given - 無法中斷的抓取超過時間預算
+        AppConfig.FundConfig stuck = fund("STUCK", "https://stuck.test/1");
+        stuck.setTimeoutSeconds(1);
+        AppConfig config = createFundsConfig(stuck, fund("NEXT", "https://next.test/1"));
+        config.getScraper().setMaxConcurrentFetches(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        String html = MockHtmlData.createAssetDbHoldingsHtml(LocalDate.of(2024, 1, 2), 1);
+        when(webClient.fetchPage(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (invocation.getArgument(0, String.class).startsWith("https://stuck.test")) {
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+                    while (System.nanoTime() < end) {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException ignored) {
+                            // 模擬不回應中斷的 I/O
+                        }
+                    }
+                }
+                return rendered(html);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        DataFetchService service = new DataFetchService(webClient, httpClient, new EzMoneyScraperStrategy(),
+                pageArchive, config);
+
+        // When
+        List<DataFetchService.FundFetchResult> results = service.fetchAllFunds();
+
+        // Then
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).error().contains("時間預算"));
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, maxRunning.get(), "逾時的嘗試結束前不應開始其他抓取");
+    }
+
+    private AppConfig createFundsConfig(AppConfig.FundConfig... funds) {
+        AppConfig config = new AppConfig();
+        AppConfig.ScraperConfig scraper = new AppConfig.ScraperConfig();
+        scraper.setHttpFirst(false);
+        scraper.setFundUrlTemplate("https://funds.test/Info?FundCode=%s");
+        scraper.setPerHostIntervalMillis(0);
+        scraper.setFundRetries(0);
+        scraper.setFunds(List.of(funds));
+        config.setScraper(scraper);
+        return config;
+    }
+
+    private AppConfig.FundConfig fund(String code, String url) {
+        AppConfig.FundConfig fund = new AppConfig.FundConfig();
+        fund.setCode(code);
+        fund.setUrl(url);
+        return fund;
+    }
+
+    private static PlaywrightWebClient.RenderedPage rendered(String html) {
+        return new PlaywrightWebClient.RenderedPage(html, null);
+    }
+
     private DailySnapshot createMockSnapshot() {
         Holding holding = Holding.builder()
                 .stockCode("2330")
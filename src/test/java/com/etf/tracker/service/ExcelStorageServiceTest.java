@@ -1,16 +1,29 @@
 package com.etf.tracker.service;
 
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +32,7 @@ import org.junit.jupiter.api.io.TempDir;
 import com.etf.tracker.config.AppConfig;
 import com.etf.tracker.model.DailySnapshot;
 import com.etf.tracker.model.Holding;
+import com.etf.tracker.model.HoldingRow;
 
 /**
  * ExcelStorageService 單元測試
@@ -37,7 +51,8 @@ class ExcelStorageServiceTest {
 
     @BeforeEach
     void setUp() {
-        appConfig = createTestAppConfig();
+        appConfig = createTestAppConfig(tempDir);
+        appConfig.getData().setFileName("test-holdings.xlsx");
         testFilePath = tempDir.resolve("test-holdings.xlsx");
         storageService = new ExcelStorageService(appConfig);
     }
@@ -206,6 +221,224 @@ class ExcelStorageServiceTest {
         assertEquals(2, remainingDates.size());
     }
 
+    @Test
+    @DisplayName("串流寫入覆寫中間日期後其他日期資料保持完整")
+    void saveSnapshot_OverwriteMiddleDate_KeepsOtherDates() {
+        // Given
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(2)));
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(createMockSnapshot(today));
+
+        // When - 覆寫中間日期，其後的資料列需上移並重新編號
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+
+        // Then
+        assertEquals(3, storageService.getAvailableDates().size());
+        assertEquals(6, storageService.getTotalRecordCount());
+        DailySnapshot latest = storageService.getSnapshot(today).orElseThrow();
+        assertEquals(2, latest.getTotalCount());
+        assertEquals("台積電", latest.getHoldings().get(0).getStockName());
+        assertEquals(new BigDecimal("12.3456"), latest.getHoldings().get(0).getWeight());
+    }
+
+    @Test
+    @DisplayName("串流寫入與工作簿寫入結果一致")
+    void saveSnapshot_StreamingAndWorkbook_ProduceSameData() {
+        // Given - 先以工作簿方式寫入既有資料（使用共用字串表）
+        appConfig.getData().setStreamingWrite(false);
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(createMockSnapshot(today));
+
+        // When - 再以串流方式覆寫既有日期並新增空快照
+        appConfig.getData().setStreamingWrite(true);
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(DailySnapshot.builder()
+                .date(today.plusDays(1))
+                .holdings(List.of())
+                .build());
+
+        // Then
+        assertEquals(List.of(today.plusDays(1), today, today.minusDays(1)), storageService.getAvailableDates());
+        assertEquals(0, storageService.getSnapshot(today.plusDays(1)).orElseThrow().getTotalCount());
+        assertEquals(987654L, storageService.getSnapshot(today.minusDays(1)).orElseThrow()
+                .getHoldings().get(1).getShares());
+        assertEquals(2, storageService.getSnapshot(today).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("串流讀取支援文字格式的股數與權重")
+    void getSnapshot_TextFormattedCells_ParsesValues() throws Exception {
+        // Given - 手動建立以文字儲存股數與權重的檔案
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+                OutputStream os = Files.newOutputStream(testFilePath)) {
+            Sheet sheet = workbook.createSheet("Holdings");
+            sheet.createRow(0).createCell(0).setCellValue("日期");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue("2024-01-02");
+            row.createCell(1).setCellValue("2330");
+            row.createCell(2).setCellValue("台積電");
+            row.createCell(3).setCellValue("1,234,567");
+            row.createCell(4).setCellValue("12.5%");
+            Row otherDate = sheet.createRow(2);
+            otherDate.createCell(0).setCellValue("2024-01-03");
+            workbook.write(os);
+        }
+
+        // When
+        Optional<DailySnapshot> result = storageService.getSnapshot(LocalDate.of(2024, 1, 2));
+
+        // Then
+        assertTrue(result.isPresent());
+        Holding holding = result.get().getHoldings().get(0);
+        assertEquals(1234567L, holding.getShares());
+        assertEquals(new BigDecimal("12.5"), holding.getWeight());
+        assertEquals(2, storageService.getTotalRecordCount());
+        assertEquals(1, storageService.countRecordsBefore(LocalDate.of(2024, 1, 3)));
+    }
+
+    @Test
+    @DisplayName("儲存後建立日期索引檔案並由索引回答查詢")
+    void saveSnapshot_WritesDateIndex() {
+        // Given
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(createMockSnapshot(today));
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("test-holdings.xlsx.index.json")));
+
+        // 以新的服務實例確認可由索引檔案載入
+        ExcelStorageService reloaded = new ExcelStorageService(appConfig);
+        assertEquals(List.of(today, today.minusDays(1)), reloaded.getAvailableDates());
+        assertEquals(4, reloaded.getTotalRecordCount());
+        assertEquals(2, reloaded.countRecordsBefore(today));
+        assertEquals(2, reloaded.getSnapshot(today).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("Excel 檔案被外部修改後重建日期索引")
+    void getAvailableDates_FileChangedOutsideService_RebuildsIndex() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today));
+
+        // When - 以其他服務實例改用工作簿方式寫入，使既有索引失效
+        AppConfig otherConfig = createTestAppConfig(tempDir);
+        otherConfig.getData().setFileName("test-holdings.xlsx");
+        otherConfig.getData().setStreamingWrite(false);
+        new ExcelStorageService(otherConfig).saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        Files.writeString(tempDir.resolve("test-holdings.xlsx.index.json"), "{ invalid");
+
+        // Then
+        assertEquals(List.of(today, today.minusDays(1)), storageService.getAvailableDates());
+        assertEquals(2, storageService.getSnapshot(today.minusDays(1)).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("批次讀取日期範圍與指定日期的快照")
+    void getSnapshots_RangeAndDates_ReturnsRequestedSnapshots() {
+        // Given
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(3)));
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(2)));
+        storageService.saveSnapshot(DailySnapshot.builder().date(today.minusDays(1)).holdings(List.of()).build());
+        storageService.saveSnapshot(createMockSnapshot(today));
+
+        // When
+        Map<LocalDate, DailySnapshot> range = storageService.getSnapshots(today.minusDays(2), today.minusDays(1));
+        Map<LocalDate, DailySnapshot> picked = storageService.getSnapshots(
+                List.of(today, today.minusDays(3), today.minusDays(10), today));
+
+        // Then
+        assertEquals(List.of(today.minusDays(2), today.minusDays(1)), List.copyOf(range.keySet()));
+        assertEquals(2, range.get(today.minusDays(2)).getTotalCount());
+        assertEquals(0, range.get(today.minusDays(1)).getTotalCount());
+        assertEquals(List.of(today.minusDays(3), today), List.copyOf(picked.keySet()));
+        assertEquals("2330", picked.get(today).getHoldings().get(0).getStockCode());
+        assertTrue(storageService.getSnapshots(today.plusDays(1), today.plusDays(5)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("持倉游標依日期升序逐列輸出（含覆寫過的較早日期）")
+    void openCursor_YieldsRowsInDateOrder() {
+        // Given - 覆寫較早日期後，該日期的資料列移至檔案末端
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(2)));
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(createMockSnapshot(today));
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(2)));
+
+        // When
+        List<LocalDate> dates = new ArrayList<>();
+        List<String> codes = new ArrayList<>();
+        try (HoldingCursor cursor = storageService.openCursor(today.minusDays(2), today.minusDays(1))) {
+            while (cursor.next()) {
+                dates.add(cursor.getDate());
+                codes.add(cursor.getStockCode());
+            }
+        }
+
+        // Then
+        assertEquals(List.of(today.minusDays(2), today.minusDays(2), today.minusDays(1), today.minusDays(1)), dates);
+        assertEquals(List.of("2330", "2317", "2330", "2317"), codes);
+    }
+
+    @Test
+    @DisplayName("持倉游標可轉換為串流")
+    void openCursor_Stream_ReturnsHoldingRows() {
+        // Given
+        LocalDate today = LocalDate.now();
+        storageService.saveSnapshot(createMockSnapshot(today.minusDays(1)));
+        storageService.saveSnapshot(DailySnapshot.builder().date(today).holdings(List.of()).build());
+
+        // When
+        List<HoldingRow> rows;
+        try (Stream<HoldingRow> stream = storageService.openCursor(today.minusDays(5), today).stream()) {
+            rows = stream.toList();
+        }
+
+        // Then - 空快照不輸出資料列
+        assertEquals(2, rows.size());
+        assertEquals(today.minusDays(1), rows.get(0).date());
+        assertEquals(1234567L, rows.get(0).shares());
+        assertEquals(new BigDecimal("8.7654"), rows.get(1).weight());
+    }
+
+    @Test
+    @DisplayName("多個執行緒同時寫入與讀取時資料不會遺失或損毀")
+    void saveSnapshot_ConcurrentWritersAndReaders_KeepsAllDates() throws Exception {
+        // Given - 兩個服務實例存取同一檔案
+        ExcelStorageService other = new ExcelStorageService(appConfig);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                ExcelStorageService writer = i % 2 == 0 ? storageService : other;
+                LocalDate date = start.plusDays(i);
+                futures.add(executor.submit(() -> writer.saveSnapshot(createMockSnapshot(date))));
+                futures.add(executor.submit(() -> other.getAvailableDates().forEach(d -> other.getSnapshot(d))));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(12, storageService.getAvailableDates().size());
+        assertEquals(24, storageService.getTotalRecordCount());
+        assertEquals(2, other.getSnapshot(start.plusDays(11)).orElseThrow().getTotalCount());
+        Object lockMetrics = storageService.getMetrics().get("excelLock");
+        assertTrue(lockMetrics instanceof ExcelFileLock.LockStatistics);
+        assertTrue(((ExcelFileLock.LockStatistics) lockMetrics).writeAcquisitions() >= 12);
+    }
+
     @Test
     @DisplayName("儲存空快照應拋出例外")
     void saveSnapshot_NullSnapshot_ThrowsException() {
@@ -225,39 +458,4 @@ class ExcelStorageServiceTest {
         // When & Then
         assertThrows(IllegalArgumentException.class, () -> storageService.saveSnapshot(snapshot));
     }
-
-    private DailySnapshot createMockSnapshot(LocalDate date) {
-        Holding holding1 = Holding.builder()
-                .stockCode("2330")
-                .stockName("台積電")
-                .shares(1234567L)
-                .weight(new BigDecimal("12.3456"))
-                .build();
-
-        Holding holding2 = Holding.builder()
-                .stockCode("2317")
-                .stockName("鴻海")
-                .shares(987654L)
-                .weight(new BigDecimal("8.7654"))
-                .build();
-
-        return DailySnapshot.builder()
-                .date(date)
-                .holdings(List.of(holding1, holding2))
-                .totalCount(2)
-                .totalWeight(new BigDecimal("21.1110"))
-                .build();
-    }
-
-    private AppConfig createTestAppConfig() {
-        AppConfig config = new AppConfig();
-
-        AppConfig.DataConfig dataConfig = new AppConfig.DataConfig();
-        dataConfig.setStoragePath(tempDir.toString());
-        dataConfig.setFileName("test-holdings.xlsx");
-        dataConfig.setRetentionDays(90);
-        config.setData(dataConfig);
-
-        return config;
-    }
 }
@@ -0,0 +1,90 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+
+/**
+ * FundStorageRegistry 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class FundStorageRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private ExcelStorageService primaryStorage;
+    private FundStorageRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir);
+        primaryStorage = new ExcelStorageService(appConfig);
+        registry = new FundStorageRegistry(appConfig, primaryStorage);
+    }
+
+    @Test
+    @DisplayName("主要基金使用原本的儲存服務")
+    void storageFor_PrimaryFund_ReturnsPrimaryStorage() {
+        assertSame(primaryStorage, registry.storageFor(null));
+        assertSame(primaryStorage, registry.storageFor("49YTW"));
+    }
+
+    @Test
+    @DisplayName("其他基金各自儲存於獨立目錄")
+    void storageFor_OtherFund_UsesSeparateDirectory() {
+        // When
+        StorageService fundStorage = registry.storageFor("61YTW");
+        fundStorage.saveSnapshot(createFundSnapshot(LocalDate.of(2024, 1, 2), "61YTW"));
+
+        // Then
+        assertSame(fundStorage, registry.storageFor("61YTW"));
+        assertTrue(Files.exists(tempDir.resolve("funds").resolve("61YTW").resolve("holdings.xlsx")));
+        assertEquals(List.of(LocalDate.of(2024, 1, 2)), fundStorage.getAvailableDates());
+        assertTrue(primaryStorage.getAvailableDates().isEmpty());
+    }
+
+    @Test
+    @DisplayName("依設定的後端建立基金儲存服務")
+    void storageFor_FollowsConfiguredBackend() {
+        appConfig.getData().setBackend("columnar");
+
+        StorageService fundStorage = registry.storageFor("62YTW");
+        fundStorage.saveSnapshot(createFundSnapshot(LocalDate.of(2024, 1, 3), "62YTW"));
+
+        assertTrue(fundStorage instanceof ColumnarStorageService);
+        assertEquals(2, fundStorage.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("基金代碼含路徑字元時拋出例外")
+    void storageFor_InvalidCode_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> registry.storageFor("../etc"));
+        assertThrows(IllegalArgumentException.class, () -> registry.storageFor(""));
+    }
+
+    private DailySnapshot createFundSnapshot(LocalDate date, String fundCode) {
+        DailySnapshot snapshot = createMockSnapshot(date);
+        snapshot.setFundCode(fundCode);
+        return snapshot;
+    }
+}
@@ -0,0 +1,160 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+import com.etf.tracker.service.DataFetchService.FundFetchResult;
+
+/**
+ * GapBackfillService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class GapBackfillServiceTest {
+
+    /** 2024-01-08 為週一 */
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 8);
+
+    @Mock
+    private DataFetchService dataFetchService;
+
+    @Mock
+    private FundStorageRegistry fundStorageRegistry;
+
+    @Mock
+    private StorageService storageService;
+
+    @Mock
+    private ObjectProvider<SnapshotArchiveSource> archiveSources;
+
+    private GapBackfillService gapBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getPolling().setHolidays(List.of("2024-01-03"));
+        TradingCalendar tradingCalendar = spy(new TradingCalendar(appConfig));
+        lenient().doReturn(TODAY).when(tradingCalendar).today();
+
+        gapBackfillService = new GapBackfillService(dataFetchService, fundStorageRegistry,
+                new SnapshotChangeDetector(appConfig), tradingCalendar, archiveSources, appConfig);
+    }
+
+    @Test
+    @DisplayName("缺漏日期排除週末、休市日與今天")
+    void findGaps_SkipsNonTradingDaysAndToday() {
+        // Given - 已有 01-02 與 01-04，01-03 休市，01-06/07 為週末
+        List<LocalDate> stored = List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 2));
+
+        // When
+        List<LocalDate> gaps = gapBackfillService.findGaps(stored, TODAY);
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2024, 1, 5)), gaps);
+    }
+
+    @Test
+    @DisplayName("最近的缺漏立即抓取，較舊的缺漏由封存批次寫入")
+    void backfill_FetchesRecentAndImportsArchivedGaps() {
+        // Given - 缺 01-04 與 01-05，網站目前提供 01-05
+        givenStoredDates(List.of(LocalDate.of(2024, 1, 2)));
+        when(dataFetchService.fetchFunds(List.of("49YTW")))
+                .thenReturn(List.of(new FundFetchResult("49YTW", createSnapshot(LocalDate.of(2024, 1, 5)),
+                        null, 1, 10)));
+        SnapshotArchiveSource archive = (fundCode, date) -> Optional.of(createSnapshot(date));
+        when(archiveSources.orderedStream()).thenReturn(Stream.of(archive));
+
+        // When
+        GapBackfillService.BackfillStatus status = gapBackfillService.backfill();
+
+        // Then
+        verify(storageService).saveSnapshot(any(DailySnapshot.class));
+        verify(storageService).saveSnapshots(List.of(createSnapshot(LocalDate.of(2024, 1, 4))));
+        assertEquals(GapBackfillService.State.COMPLETED, status.state());
+        assertEquals(2, status.totalGaps());
+        assertEquals(2, status.filled());
+        assertEquals(0, status.remaining());
+    }
+
+    @Test
+    @DisplayName("沒有封存來源時回報仍缺漏的日期")
+    void backfill_WithoutArchive_ReportsRemainingGaps() {
+        // Given - 網站仍是已儲存的最新日期
+        givenStoredDates(List.of(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 2)));
+        when(dataFetchService.fetchFunds(List.of("49YTW")))
+                .thenReturn(List.of(new FundFetchResult("49YTW", createSnapshot(LocalDate.of(2024, 1, 5)),
+                        null, 1, 10)));
+        when(archiveSources.orderedStream()).thenReturn(Stream.empty());
+
+        // When
+        GapBackfillService.BackfillStatus status = gapBackfillService.backfill();
+
+        // Then
+        verify(storageService, never()).saveSnapshot(any(DailySnapshot.class));
+        verify(storageService, never()).saveSnapshots(anyList());
+        assertEquals(Map.of("49YTW", List.of(LocalDate.of(2024, 1, 4))), status.missingDates());
+        assertEquals(0, status.filled());
+    }
+
+    @Test
+    @DisplayName("沒有缺漏時不抓取")
+    void backfill_NoGaps_DoesNotFetch() {
+        // Given
+        givenStoredDates(List.of(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 2)));
+
+        // When
+        GapBackfillService.BackfillStatus status = gapBackfillService.backfill();
+
+        // Then
+        verify(dataFetchService, never()).fetchFunds(anyCollection());
+        assertEquals(GapBackfillService.State.COMPLETED, status.state());
+        assertEquals(0, status.totalGaps());
+    }
+
+    private void givenStoredDates(List<LocalDate> dates) {
+        when(dataFetchService.getFundCodes()).thenReturn(List.of("49YTW"));
+        when(fundStorageRegistry.storageFor("49YTW")).thenReturn(storageService);
+        when(storageService.getAvailableDates()).thenReturn(dates);
+    }
+
+    private DailySnapshot createSnapshot(LocalDate date) {
+        return DailySnapshot.builder()
+                .fundCode("49YTW")
+                .date(date)
+                .holdings(List.of(Holding.builder()
+                        .stockCode("2330")
+                        .stockName("台積電")
+                        .shares(1234567L)
+                        .weight(new BigDecimal("12.3456"))
+                        .build()))
+                .totalCount(1)
+                .build();
+    }
+}
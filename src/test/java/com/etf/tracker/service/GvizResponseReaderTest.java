@@ -0,0 +1,70 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GvizResponseReader 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class GvizResponseReaderTest {
+
+    @Test
+    @DisplayName("解析 JSONP 回應並將空白儲存格轉為空字串")
+    void read_JsonpResponse() throws IOException {
+        // Given
+        String body = "/*O_o*/\ngoogle.visualization.Query.setResponse({\"version\":\"0.6\",\"reqId\":\"0\","
+                + "\"status\":\"ok\",\"sig\":\"1\",\"table\":{\"cols\":[{\"id\":\"A\",\"label\":\"日期\",\"type\":\"string\"}],"
+                + "\"rows\":[{\"c\":[{\"v\":\"2024-01-02\"},{\"v\":\"2330\"},{\"v\":\"台積電\"},{\"v\":1000.0,\"f\":\"1,000\"},{\"v\":12.5}]},"
+                + "{\"c\":[{\"v\":\"2024-01-03\"},null,{\"v\":null},{\"v\":true}]}],\"parsedNumHeaders\":1}});";
+
+        // When
+        List<String> rows = GvizResponseReader.read(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 5, cells -> String.join("|", cells));
+
+        // Then
+        assertEquals(List.of("2024-01-02|2330|台積電|1000.0|12.5", "2024-01-03|||true|"), rows);
+    }
+
+    @Test
+    @DisplayName("略過超出的欄位與轉換結果為 null 的資料列")
+    void read_SkipsExtraColumnsAndNullRows() throws IOException {
+        // Given
+        String body = "{\"table\":{\"rows\":[{\"c\":[{\"v\":\"a\"},{\"v\":\"b\"},{\"v\":\"c\"}]},{\"c\":[{\"v\":\"\"}]}]}}";
+
+        // When
+        List<String> rows = GvizResponseReader.read(new StringReader(body), 2,
+                cells -> cells[0].isEmpty() ? null : cells[0] + cells[1]);
+
+        // Then
+        assertEquals(List.of("ab"), rows);
+    }
+
+    @Test
+    @DisplayName("空白或沒有資料表的回應回傳空結果")
+    void read_EmptyResponse() throws IOException {
+        assertTrue(GvizResponseReader.read(new StringReader(""), 5, cells -> cells[0]).isEmpty());
+        assertTrue(GvizResponseReader.read(new StringReader("setResponse({\"status\":\"ok\"});"), 5,
+                cells -> cells[0]).isEmpty());
+    }
+
+    @Test
+    @DisplayName("查詢失敗的回應拋出例外")
+    void read_ErrorStatus_Throws() {
+        String body = "setResponse({\"status\":\"error\",\"errors\":[{\"reason\":\"invalid_query\"}]});";
+        assertThrows(IOException.class,
+                () -> GvizResponseReader.read(new StringReader(body), 5, cells -> cells[0]));
+    }
+}
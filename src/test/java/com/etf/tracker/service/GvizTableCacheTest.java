@@ -0,0 +1,169 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GvizTableCache 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class GvizTableCacheTest {
+
+    private static final List<List<String>> ROWS = List.of(
+            List.of("2024-01-02", "2330", "台積電", "1000", "12.5"),
+            List.of("2024-01-02", "2317", "鴻海", "500", "8.1"));
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("存活時間內直接由快取回應")
+    void get_WithinTtl_ServesCachedRows() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        GvizTableCache<List<String>> cache = createCache((etag, lastModified) -> {
+            calls.incrementAndGet();
+            return GvizTableCache.FetchResult.of(ROWS, "\"v1\"", null);
+        });
+
+        // When
+        List<List<String>> first = cache.get();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        List<List<String>> second = cache.get();
+
+        // Then
+        assertEquals(1, calls.get());
+        assertSame(first, second);
+        assertEquals(2, second.size());
+        assertThrows(UnsupportedOperationException.class, () -> second.get(0).set(0, "x"));
+    }
+
+    @Test
+    @DisplayName("過期後帶上驗證資訊重新請求，未變更時沿用既有資料")
+    void get_AfterTtl_RevalidatesWithValidators() throws Exception {
+        // Given
+        List<String> sentEtags = new ArrayList<>();
+        GvizTableCache<List<String>> cache = createCache((etag, lastModified) -> {
+            sentEtags.add(etag);
+            return etag == null
+                    ? GvizTableCache.FetchResult.of(ROWS, "\"v1\"", "Tue, 02 Jan 2024 00:00:00 GMT")
+                    : GvizTableCache.FetchResult.unchanged();
+        });
+        List<List<String>> first = cache.get();
+
+        // When
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        List<List<String>> revalidated = cache.get();
+
+        // Then
+        assertSame(first, revalidated);
+        assertEquals(Arrays.asList(null, "\"v1\""), sentEtags);
+        GvizTableCache.CacheStatus status = cache.getStatus();
+        assertEquals(2, status.refreshes());
+        assertEquals(1, status.notModified());
+        assertEquals(0L, status.ageSeconds());
+        assertEquals(2, status.rowCount());
+    }
+
+    @Test
+    @DisplayName("指定背景執行器時，過期後先回應舊資料並只排入一次背景更新")
+    void get_AfterTtlWithBackground_ServesStaleAndRefreshesOnce() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        List<Runnable> scheduled = new ArrayList<>();
+        GvizTableCache<List<String>> cache = new GvizTableCache<>((etag, lastModified) -> calls.incrementAndGet() == 1
+                ? GvizTableCache.FetchResult.of(ROWS, null, null)
+                : GvizTableCache.FetchResult.of(ROWS.subList(0, 1), null, null),
+                Duration.ofSeconds(60), scheduled::add, clock::get);
+        List<List<String>> first = cache.get();
+
+        // When
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        List<List<String>> stale = cache.get();
+        List<List<String>> stillStale = cache.get();
+        scheduled.forEach(Runnable::run);
+        List<List<String>> refreshed = cache.get();
+
+        // Then
+        assertSame(first, stale);
+        assertSame(first, stillStale);
+        assertEquals(1, scheduled.size());
+        assertEquals(2, calls.get());
+        assertEquals(1, refreshed.size());
+    }
+
+    @Test
+    @DisplayName("同時請求只觸發一次下載")
+    void get_ConcurrentCallers_ShareOneDownload() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        GvizTableCache<List<String>> cache = createCache((etag, lastModified) -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return GvizTableCache.FetchResult.of(ROWS, null, null);
+        });
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<List<String>>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(cache::get));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            for (Future<List<List<String>>> future : futures) {
+                assertEquals(2, future.get(5, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("更新失敗時拋出例外並記錄，背景更新不拋出")
+    void refresh_Failure_IsRecorded() throws Exception {
+        // Given
+        GvizTableCache<List<String>> cache = createCache((etag, lastModified) -> {
+            throw new IOException("HTTP 503");
+        });
+
+        // When
+        assertThrows(IOException.class, cache::get);
+        cache.refreshQuietly();
+
+        // Then
+        GvizTableCache.CacheStatus status = cache.getStatus();
+        assertEquals(2, status.failures());
+        assertEquals("HTTP 503", status.lastError());
+        assertNull(status.fetchedAt());
+        assertEquals(0, status.rowCount());
+    }
+
+    private GvizTableCache<List<String>> createCache(GvizTableCache.Fetcher<List<String>> fetcher) {
+        return new GvizTableCache<>(fetcher, Duration.ofSeconds(60), null, clock::get);
+    }
+}
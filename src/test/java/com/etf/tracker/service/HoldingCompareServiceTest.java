@@ -2,12 +2,18 @@ package com.etf.tracker.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -51,14 +57,36 @@ class HoldingCompareServiceTest {
     private LocalDate startDate;
     private LocalDate endDate;
 
+    /** 模擬儲存中的快照，由批次讀取 API 回傳 */
+    private final Map<LocalDate, DailySnapshot> storedSnapshots = new HashMap<>();
+
     @BeforeEach
     void setUp() {
         startDate = LocalDate.of(2024, 1, 10);
         endDate = LocalDate.of(2024, 1, 15);
+
+        lenient().when(excelStorageService.getSnapshots(anyCollection())).thenAnswer(invocation -> {
+            Collection<LocalDate> dates = invocation.getArgument(0);
+            Map<LocalDate, DailySnapshot> result = new TreeMap<>();
+            for (LocalDate date : dates) {
+                if (storedSnapshots.containsKey(date)) {
+                    result.put(date, storedSnapshots.get(date));
+                }
+            }
+            return result;
+        });
     }
 
     // ========== Helper Methods ==========
 
+    private void givenSnapshot(LocalDate date, DailySnapshot snapshot) {
+        storedSnapshots.put(date, snapshot);
+    }
+
+    private void givenNoSnapshot(LocalDate date) {
+        storedSnapshots.remove(date);
+    }
+
     private Holding createHolding(String code, String name, long shares, String weight) {
         return Holding.builder()
                 .stockCode(code)
@@ -106,7 +134,7 @@ class HoldingCompareServiceTest {
                     createHolding("2330", "台積電", 1000000L, "25.50"));
             DailySnapshot snapshot = createSnapshot(sameDate, holdings);
 
-            when(excelStorageService.getSnapshot(sameDate)).thenReturn(Optional.of(snapshot));
+            givenSnapshot(sameDate, snapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(sameDate, sameDate);
 
@@ -119,10 +147,23 @@ class HoldingCompareServiceTest {
             assertThat(result.removals()).isEmpty();
         }
 
+        @Test
+        @DisplayName("比較兩個日期 - 應以一次批次讀取取得快照")
+        void compare_ShouldReadBothSnapshotsInOneCall() {
+            givenSnapshot(startDate, createSnapshot(startDate, List.of(
+                    createHolding("2330", "台積電", 1000000L, "25.50"))));
+            givenSnapshot(endDate, createSnapshot(endDate, List.of(
+                    createHolding("2330", "台積電", 1200000L, "26.00"))));
+
+            holdingCompareService.compareHoldings(startDate, endDate);
+
+            verify(excelStorageService, times(1)).getSnapshots(anyCollection());
+        }
+
         @Test
         @DisplayName("起始日期無資料 - 應拋出 ValidationException")
         void compare_WhenStartDateNotFound_ShouldThrowException() {
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.empty());
+            givenNoSnapshot(startDate);
 
             assertThatThrownBy(() -> holdingCompareService.compareHoldings(startDate, endDate))
                     .isInstanceOf(ValidationException.class)
@@ -135,8 +176,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, List.of(
                     createHolding("2330", "台積電", 1000000L, "25.50")));
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.empty());
+            givenSnapshot(startDate, startSnapshot);
+            givenNoSnapshot(endDate);
 
             assertThatThrownBy(() -> holdingCompareService.compareHoldings(startDate, endDate))
                     .isInstanceOf(ValidationException.class)
@@ -162,8 +203,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -188,8 +229,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -216,8 +257,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -242,8 +283,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -270,8 +311,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -294,8 +335,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -315,8 +356,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -346,8 +387,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -370,8 +411,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -391,8 +432,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -418,8 +459,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -442,8 +483,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -477,8 +518,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -513,8 +554,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, emptyHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, emptyHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -536,8 +577,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -559,8 +600,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -587,8 +628,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, holdings);
             DailySnapshot endSnapshot = createSnapshot(endDate, holdings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -610,8 +651,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -640,8 +681,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
@@ -660,8 +701,8 @@ class HoldingCompareServiceTest {
             DailySnapshot startSnapshot = createSnapshot(startDate, startHoldings);
             DailySnapshot endSnapshot = createSnapshot(endDate, endHoldings);
 
-            when(excelStorageService.getSnapshot(startDate)).thenReturn(Optional.of(startSnapshot));
-            when(excelStorageService.getSnapshot(endDate)).thenReturn(Optional.of(endSnapshot));
+            givenSnapshot(startDate, startSnapshot);
+            givenSnapshot(endDate, endSnapshot);
 
             RangeCompareResultDto result = holdingCompareService.compareHoldings(startDate, endDate);
 
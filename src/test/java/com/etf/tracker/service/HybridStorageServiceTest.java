@@ -0,0 +1,367 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * HybridStorageService 單元測試（以本地 gviz 服務模擬 Google Sheets）
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class HybridStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StubGvizServer sheets;
+    private ExcelStorageService localStorage;
+    private AppConfig appConfig;
+    private HybridStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sheets = new StubGvizServer();
+        for (String date : List.of("2024-01-02", "2024-01-03", "2024-01-04")) {
+            sheets.addRow(date, "2330", "台積電", "1000", "12.5");
+            sheets.addRow(date, "2317", "鴻海", "500", "8.1");
+        }
+
+        appConfig = createTestAppConfig();
+        localStorage = new ExcelStorageService(appConfig);
+        storageService = createService();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storageService.shutdown();
+        sheets.close();
+    }
+
+    @Test
+    @DisplayName("讀取單日快照只查詢該日期的資料列")
+    void getSnapshot_QueriesSingleDate() {
+        // When
+        DailySnapshot snapshot = storageService.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow();
+
+        // Then
+        assertEquals(2, snapshot.getTotalCount());
+        assertEquals(0, new BigDecimal("20.6").compareTo(snapshot.getTotalWeight()));
+        assertTrue(storageService.isReadOnly());
+        assertEquals(List.of("select A, B, C, D, E where A = '2024-01-03'"), sheets.queries());
+    }
+
+    @Test
+    @DisplayName("可用日期與總筆數使用日期彙總查詢並共用快取")
+    void getAvailableDates_UsesSummaryQuery() {
+        // When
+        List<LocalDate> dates = storageService.getAvailableDates();
+        int total = storageService.getTotalRecordCount();
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 2)), dates);
+        assertEquals(6, total);
+        assertEquals(List.of("select A, count(A) group by A"), sheets.queries());
+    }
+
+    @Test
+    @DisplayName("寫入與清理都捨棄已快取的查詢結果（含日期彙總）")
+    void localMutations_InvalidateAllQueryCaches() {
+        // Given
+        storageService.getAvailableDates();
+        storageService.getSnapshot(LocalDate.of(2024, 1, 3));
+
+        // When
+        storageService.deleteDataBefore(LocalDate.of(2020, 1, 1));
+        storageService.getAvailableDates();
+        storageService.getSnapshot(LocalDate.of(2024, 1, 3));
+        storageService.saveSnapshot(createLocalSnapshot(LocalDate.of(2023, 12, 29)));
+        storageService.getAvailableDates();
+
+        // Then
+        assertEquals(List.of(
+                "select A, count(A) group by A",
+                "select A, B, C, D, E where A = '2024-01-03'",
+                "select A, count(A) group by A",
+                "select A, B, C, D, E where A = '2024-01-03'",
+                "select A, count(A) group by A"), sheets.queries());
+    }
+
+    @Test
+    @DisplayName("清理預覽由服務端計算早於截止日的筆數")
+    void countRecordsBefore_QueriesCountOnly() {
+        // When
+        int count = storageService.countRecordsBefore(LocalDate.of(2024, 1, 4));
+
+        // Then
+        assertEquals(4, count);
+        assertEquals(List.of("select count(A) where A < '2024-01-04'"), sheets.queries());
+    }
+
+    @Test
+    @DisplayName("批次讀取以單一查詢取得並由本地補齊缺少的日期")
+    void getSnapshots_SingleQueryWithLocalFallback() {
+        // Given
+        localStorage.saveSnapshot(createLocalSnapshot(LocalDate.of(2023, 12, 29)));
+
+        // When
+        Map<LocalDate, DailySnapshot> result = storageService.getSnapshots(
+                List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2023, 12, 29), LocalDate.of(2024, 1, 2)));
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2023, 12, 29), LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 4)),
+                List.copyOf(result.keySet()));
+        assertEquals("2454", result.get(LocalDate.of(2023, 12, 29)).getHoldings().get(0).getStockCode());
+        assertEquals(List.of("select A, B, C, D, E where A = '2023-12-29' or A = '2024-01-02' or A = '2024-01-04'"),
+                sheets.queries());
+    }
+
+    @Test
+    @DisplayName("範圍查詢傳輸量小於整張資料表")
+    void getSnapshots_Range_TransfersOnlyMatchingRows() {
+        // Given
+        for (int day = 1; day <= 28; day++) {
+            String date = LocalDate.of(2023, 11, day).toString();
+            sheets.addRow(date, "2330", "台積電", "1000", "12.5");
+            sheets.addRow(date, "2317", "鴻海", "500", "8.1");
+        }
+
+        // When
+        Map<LocalDate, DailySnapshot> result = storageService.getSnapshots(
+                LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4));
+        long rangeBytes = sheets.bytesSent();
+        sheets.reset();
+        storageService.getSnapshots(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(List.of("select A, B, C, D, E where A >= '2023-01-01' and A <= '2024-12-31'"), sheets.queries());
+        assertTrue(rangeBytes * 5 < sheets.bytesSent());
+    }
+
+    @Test
+    @DisplayName("複製模式首次複製全部資料，之後讀取只使用本地")
+    void replicate_InitialPull_ServesReadsLocally() throws Exception {
+        // Given
+        HybridStorageService replica = createReplicatingService();
+        assertFalse(replica.isReadOnly());
+
+        // When
+        int merged = replica.replicate();
+        sheets.reset();
+
+        // Then
+        assertEquals(3, merged);
+        assertEquals(List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 2)),
+                replica.getAvailableDates());
+        assertEquals(2, replica.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow().getTotalCount());
+        assertEquals(6, replica.getTotalRecordCount());
+        assertTrue(sheets.queries().isEmpty());
+        assertTrue(replica.isReadOnly());
+        assertEquals("Google Sheets (唯讀)", replica.getDataSourceInfo());
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("複製模式只拉取最後複製日期之後的資料列並通知監聽者")
+    void replicate_Incremental_PullsOnlyNewerRows() throws Exception {
+        // Given
+        HybridStorageService replica = createReplicatingService();
+        replica.replicate();
+        AtomicInteger notified = new AtomicInteger();
+        replica.addReplicationListener(notified::incrementAndGet);
+        sheets.addRow("2024-01-05", "2330", "台積電", "1100", "13.0");
+        sheets.reset();
+
+        // When
+        int merged = replica.replicate();
+
+        // Then
+        assertEquals(List.of("select A, B, C, D, E where A >= '2024-01-04'"), sheets.queries());
+        assertEquals(1, merged);
+        assertEquals(1, notified.get());
+        assertEquals(LocalDate.of(2024, 1, 5), replica.getLatestSnapshot().orElseThrow().getDate());
+
+        // 重新啟動後由記錄的進度繼續
+        replica.shutdown();
+        HybridStorageService restarted = createReplicatingService();
+        sheets.reset();
+        restarted.replicate();
+        assertEquals(List.of("select A, B, C, D, E where A >= '2024-01-05'"), sheets.queries());
+        restarted.shutdown();
+    }
+
+    @Test
+    @DisplayName("複製模式重新拉取的日期內容未變時不寫入也不通知，內容變動時才寫入")
+    void replicate_UnchangedDates_SkipsWriteAndNotification() throws Exception {
+        // Given - 記錄寫入本地的批次
+        List<List<LocalDate>> batches = new ArrayList<>();
+        localStorage = new ExcelStorageService(appConfig) {
+            @Override
+            public void saveSnapshots(List<DailySnapshot> snapshots) {
+                batches.add(snapshots.stream().map(DailySnapshot::getDate).toList());
+                super.saveSnapshots(snapshots);
+            }
+        };
+        HybridStorageService replica = createReplicatingService();
+        replica.replicate();
+        AtomicInteger notified = new AtomicInteger();
+        replica.addReplicationListener(notified::incrementAndGet);
+
+        // When - 最後複製日期的資料未變
+        int unchanged = replica.replicate();
+
+        // Then - 首次複製以一個批次寫入，第二次沒有寫入
+        assertEquals(0, unchanged);
+        assertEquals(0, notified.get());
+        assertEquals(List.of(List.of(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4))),
+                batches);
+
+        // When - 最後複製日期補上一檔成分股
+        sheets.addRow("2024-01-04", "2454", "聯發科", "200", "3.2");
+        int changed = replica.replicate();
+
+        // Then
+        assertEquals(1, changed);
+        assertEquals(1, notified.get());
+        assertEquals(List.of(LocalDate.of(2024, 1, 4)), batches.get(1));
+        assertEquals(3, replica.getSnapshot(LocalDate.of(2024, 1, 4)).orElseThrow().getTotalCount());
+        assertFalse(Files.exists(tempDir.resolve("holdings.xlsx.sheets-replica.tmp")));
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("複製失敗時記錄狀態，讀取仍使用本地資料")
+    void replicate_Failure_KeepsServingLocal() throws Exception {
+        // Given
+        HybridStorageService replica = createReplicatingService();
+        replica.replicate();
+        sheets.close();
+
+        // When
+        assertThrows(IOException.class, replica::replicate);
+
+        // Then
+        HybridStorageService.ReplicationStatus status =
+                (HybridStorageService.ReplicationStatus) replica.getMetrics().get("googleSheetsReplication");
+        assertEquals(2, status.runs());
+        assertEquals(1, status.failures());
+        assertEquals(LocalDate.of(2024, 1, 4), status.replicatedThrough());
+        assertEquals(3, replica.getAvailableDates().size());
+        assertTrue(replica.isReadOnly());
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("連續失敗後斷路器開啟，後續讀取直接使用本地")
+    void circuitBreaker_OpensAfterFailures() {
+        // Given
+        localStorage.saveSnapshot(createLocalSnapshot(LocalDate.of(2023, 12, 29)));
+        sheets.setFailing(true);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            storageService.getSnapshot(LocalDate.of(2024, 1, 2 + i));
+        }
+        sheets.reset();
+        DailySnapshot fallback = storageService.getSnapshot(LocalDate.of(2023, 12, 29)).orElseThrow();
+
+        // Then
+        assertEquals("2454", fallback.getHoldings().get(0).getStockCode());
+        assertTrue(sheets.queries().isEmpty());
+        assertFalse(storageService.isReadOnly());
+        CircuitBreaker.Status status = (CircuitBreaker.Status) storageService.getMetrics().get("googleSheetsBreaker");
+        assertEquals(CircuitBreaker.State.OPEN, status.state());
+        assertEquals(1, status.trips());
+        assertEquals(1, status.rejected());
+    }
+
+    @Test
+    @DisplayName("對沖讀取：Google Sheets 過慢時採用本地結果")
+    void hedgedRead_SlowSheets_LocalWins() {
+        // Given
+        storageService.shutdown();
+        appConfig.getGoogleSheets().setHedgeAfterMillis(50);
+        storageService = createService();
+        localStorage.saveSnapshot(createLocalSnapshot(LocalDate.of(2024, 1, 2)));
+        sheets.setDelayMillis(1000);
+
+        // When
+        long start = System.nanoTime();
+        DailySnapshot snapshot = storageService.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertEquals("2454", snapshot.getHoldings().get(0).getStockCode());
+        assertTrue(elapsedMillis < 1000, "elapsed=" + elapsedMillis);
+        HybridStorageService.HedgeStatistics hedge =
+                (HybridStorageService.HedgeStatistics) storageService.getMetrics().get("googleSheetsHedge");
+        assertEquals(1, hedge.hedged());
+        assertEquals(1, hedge.localWins());
+
+        // Google Sheets 快速回應時不啟動對沖
+        sheets.setDelayMillis(0);
+        assertEquals("2330", storageService.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow()
+                .getHoldings().get(0).getStockCode());
+        assertEquals(1, ((HybridStorageService.HedgeStatistics) storageService.getMetrics()
+                .get("googleSheetsHedge")).hedged());
+    }
+
+    private DailySnapshot createLocalSnapshot(LocalDate date) {
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(List.of(Holding.builder().stockCode("2454").stockName("聯發科")
+                        .shares(10L).weight(new BigDecimal("3.2")).build()))
+                .build();
+    }
+
+    private HybridStorageService createService() {
+        HybridStorageService service = new HybridStorageService(appConfig, localStorage);
+        service.init();
+        return service;
+    }
+
+    private HybridStorageService createReplicatingService() {
+        appConfig.getGoogleSheets().setMode(AppConfig.SheetsMode.REPLICATE);
+        return createService();
+    }
+
+    private AppConfig createTestAppConfig() {
+        AppConfig config = new AppConfig();
+        AppConfig.DataConfig dataConfig = new AppConfig.DataConfig();
+        dataConfig.setStoragePath(tempDir.toString());
+        dataConfig.setFileName("holdings.xlsx");
+        config.setData(dataConfig);
+
+        AppConfig.GoogleSheetsConfig sheetsConfig = new AppConfig.GoogleSheetsConfig();
+        sheetsConfig.setEnabled(true);
+        sheetsConfig.setApiBaseUrl(sheets.baseUrl());
+        sheetsConfig.setSpreadsheetId(StubGvizServer.SPREADSHEET_ID);
+        sheetsConfig.setRefreshIntervalSeconds(0);
+        config.setGoogleSheets(sheetsConfig);
+        return config;
+    }
+}
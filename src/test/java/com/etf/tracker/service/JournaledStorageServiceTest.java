@@ -0,0 +1,263 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.HoldingRow;
+
+/**
+ * JournaledStorageService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class JournaledStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private JournaledStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir, "journal");
+        // 測試中以手動方式觸發合併
+        appConfig.getData().setJournalCompactIntervalSeconds(3600);
+        appConfig.getData().setJournalMaxBytes(Long.MAX_VALUE);
+        storageService = createService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageService.shutdown();
+    }
+
+    @Test
+    @DisplayName("寫入日誌後立即可讀取，合併前不寫入 Excel")
+    void saveSnapshot_VisibleBeforeCompaction() {
+        // When
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("holdings.xlsx.journal")));
+        assertFalse(Files.exists(tempDir.resolve("holdings.xlsx")));
+        assertEquals(100L, storageService.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow()
+                .getHoldings().get(0).getShares());
+        assertEquals(List.of(LocalDate.of(2024, 1, 2)), storageService.getAvailableDates());
+        assertEquals(2, storageService.getTotalRecordCount());
+    }
+
+    @Test
+    @DisplayName("批次寫入的所有日期在重新啟動後仍可讀取")
+    void saveSnapshots_AppendsBatchToJournal() {
+        // When
+        storageService.saveSnapshots(List.of(
+                createMockSnapshot(LocalDate.of(2024, 1, 2), 100L),
+                createMockSnapshot(LocalDate.of(2024, 1, 3), 200L)));
+        storageService.shutdown();
+        storageService = createService();
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 2)), storageService.getAvailableDates());
+        assertEquals(200L, storageService.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow()
+                .getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("合併後資料寫入 Excel 並清空日誌")
+    void compact_FoldsJournalIntoExcel() throws Exception {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 200L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 300L));
+
+        // When
+        storageService.compact();
+
+        // Then
+        assertEquals(0, Files.size(tempDir.resolve("holdings.xlsx.journal")));
+        assertEquals(0, storageService.getPendingCount());
+        ExcelStorageService excel = new ExcelStorageService(appConfig);
+        assertEquals(2, excel.getAvailableDates().size());
+        assertEquals(300L, excel.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow()
+                .getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("合併後覆寫的日期以日誌中的版本為準")
+    void getSnapshot_JournalOverridesExcel() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.compact();
+
+        // When
+        storageService.saveSnapshot(DailySnapshot.builder()
+                .date(LocalDate.of(2024, 1, 2))
+                .holdings(List.of())
+                .build());
+
+        // Then
+        assertEquals(0, storageService.getSnapshot(LocalDate.of(2024, 1, 2)).orElseThrow().getTotalCount());
+        assertEquals(1, storageService.getTotalRecordCount());
+        assertEquals(1, storageService.countRecordsBefore(LocalDate.of(2024, 1, 3)));
+    }
+
+    @Test
+    @DisplayName("異常結束後重播日誌並截斷不完整的尾端")
+    void init_ReplaysJournalAfterCrash() throws Exception {
+        // Given - 未合併即結束，並模擬最後一筆記錄寫入中斷
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 200L));
+        Path journal = tempDir.resolve("holdings.xlsx.journal");
+        long validSize = Files.size(journal);
+        Files.write(journal, new byte[] { 0, 0, 0, 50, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        // When
+        JournaledStorageService recovered = new JournaledStorageService(appConfig);
+        recovered.init();
+
+        // Then
+        try {
+            assertEquals(2, recovered.getAvailableDates().size());
+            assertEquals(200L, recovered.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow()
+                    .getHoldings().get(0).getShares());
+            assertTrue(Files.size(journal) <= validSize);
+        } finally {
+            recovered.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("刪除過期資料前先合併日誌")
+    void deleteDataBefore_CompactsFirst() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 5), 200L));
+
+        // When
+        int deleted = storageService.deleteDataBefore(LocalDate.of(2024, 1, 3));
+
+        // Then
+        assertEquals(2, deleted);
+        assertEquals(List.of(LocalDate.of(2024, 1, 5)), storageService.getAvailableDates());
+        assertEquals(0, storageService.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("刪除過期資料與背景合併同時進行時不會互相等待")
+    void deleteDataBefore_ConcurrentWithCompaction_DoesNotDeadlock() {
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            Thread compactor = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20; i++) {
+                    storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 2, 1).plusDays(i), i));
+                    storageService.compact();
+                }
+            });
+            for (int i = 0; i < 20; i++) {
+                storageService.deleteDataBefore(LocalDate.of(2024, 1, 1));
+            }
+            compactor.join();
+        });
+
+        assertEquals(20, storageService.getAvailableDates().size());
+    }
+
+    @Test
+    @DisplayName("合併期間覆寫同一日期時，新版本在合併與重新啟動後仍保留")
+    void compact_KeepsSnapshotOverwrittenDuringCompaction() throws Exception {
+        // Given - 合併寫入 Excel 時暫停，期間覆寫同一日期
+        CountDownLatch compacting = new CountDownLatch(1);
+        CountDownLatch overwritten = new CountDownLatch(1);
+        storageService.shutdown();
+        storageService = createService(new ExcelStorageService(appConfig) {
+            @Override
+            public void saveSnapshots(List<DailySnapshot> snapshots) {
+                if (compacting.getCount() > 0) {
+                    compacting.countDown();
+                    awaitQuietly(overwritten);
+                }
+                super.saveSnapshots(snapshots);
+            }
+        });
+        LocalDate date = LocalDate.of(2024, 1, 2);
+        storageService.saveSnapshot(createMockSnapshot(date, 100L));
+
+        // When
+        Thread compactor = Thread.ofPlatform().start(storageService::compact);
+        assertTrue(compacting.await(5, TimeUnit.SECONDS));
+        storageService.saveSnapshot(createMockSnapshot(date, 200L));
+        overwritten.countDown();
+        compactor.join();
+
+        // Then - 新版本仍待合併，下一次合併後寫入 Excel
+        assertEquals(1, storageService.getPendingCount());
+        assertEquals(200L, storageService.getSnapshot(date).orElseThrow().getHoldings().get(0).getShares());
+        storageService.compact();
+        storageService.shutdown();
+        storageService = createService();
+        assertEquals(200L, storageService.getSnapshot(date).orElseThrow().getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("持倉游標依日期順序合併 Excel 與日誌中的快照")
+    void openCursor_MergesJournalWithExcel() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2), 100L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 200L));
+        storageService.compact();
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 3), 300L));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 4), 400L));
+
+        // When
+        List<HoldingRow> rows;
+        try (HoldingCursor cursor = storageService.openCursor(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))) {
+            rows = cursor.stream().filter(row -> "2330".equals(row.stockCode())).toList();
+        }
+
+        // Then
+        assertEquals(List.of(100L, 300L, 400L), rows.stream().map(HoldingRow::shares).toList());
+        assertEquals(List.of(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4)),
+                rows.stream().map(HoldingRow::date).toList());
+    }
+
+    private JournaledStorageService createService() {
+        return createService(new ExcelStorageService(appConfig));
+    }
+
+    private JournaledStorageService createService(ExcelStorageService excelStorage) {
+        JournaledStorageService service = new JournaledStorageService(appConfig, excelStorage);
+        service.init();
+        return service;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createMockSnapshot;
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+
+/**
+ * PartitionedStorageService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class PartitionedStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private PartitionedStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir, "partitioned");
+        storageService = createService();
+    }
+
+    @Test
+    @DisplayName("依月份寫入各自的分割檔案")
+    void saveSnapshot_WritesMonthlyPartitions() {
+        // When
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 30)));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 31)));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 2, 1)));
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("holdings-2024-01.xlsx")));
+        assertTrue(Files.exists(tempDir.resolve("holdings-2024-02.xlsx")));
+        assertTrue(Files.exists(tempDir.resolve("holdings.partitions.json")));
+        assertEquals(List.of(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 31), LocalDate.of(2024, 1, 30)),
+                storageService.getAvailableDates());
+        assertEquals(6, storageService.getTotalRecordCount());
+        assertEquals(LocalDate.of(2024, 2, 1), storageService.getLatestSnapshot().orElseThrow().getDate());
+        assertEquals(2, storageService.getSnapshot(LocalDate.of(2024, 1, 31)).orElseThrow().getTotalCount());
+        assertTrue(storageService.getSnapshot(LocalDate.of(2024, 3, 1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("清理時刪除整個過期分割並修剪跨越截止日的分割")
+    void deleteDataBefore_DropsWholePartitionsAndTrimsBoundary() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 15)));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 2, 5)));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 2, 20)));
+
+        // When
+        assertEquals(4, storageService.countRecordsBefore(LocalDate.of(2024, 2, 10)));
+        int deleted = storageService.deleteDataBefore(LocalDate.of(2024, 2, 10));
+
+        // Then
+        assertEquals(4, deleted);
+        assertFalse(Files.exists(tempDir.resolve("holdings-2024-01.xlsx")));
+        assertEquals(List.of(LocalDate.of(2024, 2, 20)), storageService.getAvailableDates());
+        assertEquals(2, storageService.getTotalRecordCount());
+    }
+
+    @Test
+    @DisplayName("重新啟動後由清單檔還原分割資訊")
+    void init_ReloadsManifest() {
+        // Given
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 3, 1)));
+        storageService.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 4, 1)));
+
+        // When
+        PartitionedStorageService reloaded = createService();
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 3, 1)), reloaded.getAvailableDates());
+        assertEquals(4, reloaded.getTotalRecordCount());
+    }
+
+    @Test
+    @DisplayName("啟動時將舊的單一 Excel 檔案搬移至分割")
+    void init_MigratesLegacySingleFile() {
+        // Given - 以單一檔案儲存服務建立舊資料
+        ExcelStorageService legacy = new ExcelStorageService(appConfig);
+        legacy.saveSnapshot(createMockSnapshot(LocalDate.of(2023, 12, 29)));
+        legacy.saveSnapshot(createMockSnapshot(LocalDate.of(2024, 1, 2)));
+        legacy.saveSnapshot(DailySnapshot.builder().date(LocalDate.of(2024, 1, 3)).holdings(List.of()).build());
+
+        // When
+        PartitionedStorageService migrated = createService();
+
+        // Then
+        assertFalse(Files.exists(tempDir.resolve("holdings.xlsx")));
+        assertTrue(Files.exists(tempDir.resolve("holdings.xlsx.migrated")));
+        assertTrue(Files.exists(tempDir.resolve("holdings-2023-12.xlsx")));
+        assertEquals(3, migrated.getAvailableDates().size());
+        assertEquals(0, migrated.getSnapshot(LocalDate.of(2024, 1, 3)).orElseThrow().getTotalCount());
+        assertEquals(2, migrated.getSnapshot(LocalDate.of(2023, 12, 29)).orElseThrow().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("依設定的期間產生分割鍵")
+    void partitionKey_FollowsConfiguredPeriod() {
+        appConfig.getData().setPartitionPeriod(AppConfig.PartitionPeriod.QUARTER);
+        assertEquals("2024-Q2", createService().partitionKey(LocalDate.of(2024, 5, 31)));
+
+        appConfig.getData().setPartitionPeriod(AppConfig.PartitionPeriod.YEAR);
+        assertEquals("2024", createService().partitionKey(LocalDate.of(2024, 5, 31)));
+    }
+
+    @Test
+    @DisplayName("儲存無日期快照應拋出例外")
+    void saveSnapshot_NullDate_ThrowsException() {
+        DailySnapshot snapshot = DailySnapshot.builder().date(null).holdings(List.of()).build();
+        assertThrows(IllegalArgumentException.class, () -> storageService.saveSnapshot(snapshot));
+    }
+
+    private PartitionedStorageService createService() {
+        PartitionedStorageService service = new PartitionedStorageService(appConfig);
+        service.init();
+        return service;
+    }
+}
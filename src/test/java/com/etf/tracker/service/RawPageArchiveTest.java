@@ -0,0 +1,166 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.test.MockHtmlData;
+
+/**
+ * RawPageArchive 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class RawPageArchiveTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 2);
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private RawPageArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir);
+        appConfig.getArchive().setMaxSizeMb(1);
+        archive = new RawPageArchive(appConfig);
+        archive.init();
+    }
+
+    @Test
+    @DisplayName("封存的頁面經壓縮後可完整讀回")
+    void store_CompressesAndReadsBack() {
+        // Given
+        String html = MockHtmlData.createAssetDbHoldingsHtml(DATE, 50);
+
+        // When
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, html);
+
+        // Then
+        RawPageArchive.Entry entry = archive.getEntries().get(0);
+        assertEquals("49YTW", entry.fundCode());
+        assertEquals(DATE, entry.dataDate());
+        assertEquals(html, archive.read(entry.hash()));
+        assertTrue(entry.size() < html.getBytes().length);
+    }
+
+    @Test
+    @DisplayName("相同內容只儲存一次")
+    void store_SameContent_Deduplicates() throws Exception {
+        // Given
+        String html = MockHtmlData.createAssetDbHoldingsHtml(DATE, 10);
+
+        // When - 輪詢時重複抓到同一頁面，另一檔基金剛好內容相同
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, html);
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, html);
+        archive.store("61YTW", DATE, DataFetchService.FetchTier.HTTP, html);
+
+        // Then
+        RawPageArchive.Statistics statistics = archive.getStatistics();
+        assertEquals(2, statistics.entries());
+        assertEquals(1, statistics.objects());
+        assertEquals(2, statistics.deduplicated());
+        assertEquals(1, countObjects());
+    }
+
+    @Test
+    @DisplayName("重新啟動後由索引載入紀錄，解析失敗的頁面沒有資料日期")
+    void init_ReloadsIndex() {
+        // Given
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DATE, 10));
+        archive.store("49YTW", null, DataFetchService.FetchTier.BROWSER, "<html><body>版面已變更</body></html>");
+
+        // When
+        RawPageArchive reloaded = new RawPageArchive(appConfig);
+        reloaded.init();
+
+        // Then
+        List<RawPageArchive.Entry> entries = reloaded.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals(DATE, entries.get(0).dataDate());
+        assertNull(entries.get(1).dataDate());
+        assertEquals(DataFetchService.FetchTier.HTTP, entries.get(0).tier());
+        assertEquals(DataFetchService.FetchTier.BROWSER, entries.get(1).tier());
+        assertEquals(archive.getStatistics().totalBytes(), reloaded.getStatistics().totalBytes());
+    }
+
+    @Test
+    @DisplayName("載入沒有抓取層級欄位的舊索引")
+    void init_LegacyIndexWithoutTier() throws Exception {
+        // Given
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DATE, 10));
+        Path index = tempDir.resolve("archive").resolve("index.tsv");
+        String line = Files.readString(index).strip();
+        Files.writeString(index, line.substring(0, line.lastIndexOf('\t')) + "\n");
+
+        // When
+        RawPageArchive reloaded = new RawPageArchive(appConfig);
+        reloaded.init();
+
+        // Then
+        assertEquals(1, reloaded.getEntries().size());
+        assertNull(reloaded.getEntries().get(0).tier());
+        assertEquals(DATE, reloaded.getEntries().get(0).dataDate());
+    }
+
+    @Test
+    @DisplayName("超過容量上限時淘汰最舊的頁面")
+    void store_OverCapacity_EvictsOldest() throws Exception {
+        // Given - 上限 1 MB，每頁壓縮後約 600 KB
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, randomPage(1));
+        String oldestHash = archive.getEntries().get(0).hash();
+
+        // When
+        archive.store("49YTW", DATE.plusDays(1), DataFetchService.FetchTier.HTTP, randomPage(2));
+
+        // Then
+        List<RawPageArchive.Entry> entries = archive.getEntries();
+        assertEquals(1, entries.size());
+        assertEquals(DATE.plusDays(1), entries.get(0).dataDate());
+        assertEquals(1, archive.getStatistics().evicted());
+        assertEquals(1, countObjects());
+        assertFalse(archive.getEntries().stream().anyMatch(entry -> entry.hash().equals(oldestHash)));
+    }
+
+    @Test
+    @DisplayName("停用時不封存")
+    void store_Disabled_DoesNothing() {
+        appConfig.getArchive().setEnabled(false);
+
+        archive.store("49YTW", DATE, DataFetchService.FetchTier.HTTP, MockHtmlData.createAssetDbHoldingsHtml(DATE, 10));
+
+        assertTrue(archive.getEntries().isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("archive")));
+    }
+
+    private String randomPage(long seed) {
+        byte[] bytes = new byte[600 * 1024];
+        new Random(seed).nextBytes(bytes);
+        return "<html><body>" + Base64.getEncoder().encodeToString(bytes) + "</body></html>";
+    }
+
+    private long countObjects() throws Exception {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("archive").resolve("objects"))) {
+            return files.filter(path -> path.toString().endsWith(".html.gz")).count();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+import com.etf.tracker.service.DataFetchService.FundFetchResult;
+
+/**
+ * ScheduledTaskService 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class ScheduledTaskServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 3);
+    private static final LocalDate STORED = LocalDate.of(2024, 1, 2);
+
+    @Mock
+    private DataFetchService dataFetchService;
+
+    @Mock
+    private FundStorageRegistry fundStorageRegistry;
+
+    @Mock
+    private StorageService storageService;
+
+    @Mock
+    private TradingCalendar tradingCalendar;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private AppConfig appConfig;
+    private ScheduledTaskService scheduledTaskService;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        scheduledTaskService = new ScheduledTaskService(dataFetchService, fundStorageRegistry,
+                new SnapshotChangeDetector(appConfig), tradingCalendar, taskScheduler, appConfig);
+    }
+
+    @Test
+    @DisplayName("非交易日不抓取")
+    void fetchHoldingsDaily_NonTradingDay_Skips() {
+        // Given
+        when(tradingCalendar.today()).thenReturn(TODAY);
+        when(tradingCalendar.isTradingDay(TODAY)).thenReturn(false);
+
+        // When
+        scheduledTaskService.fetchHoldingsDaily();
+
+        // Then
+        verify(dataFetchService, never()).fetchFunds(anyCollection());
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("資料日期已前進時儲存並停止輪詢")
+    void fetchHoldingsDaily_NewData_SavesAndStops() {
+        // Given
+        givenTradingDayWithStoredDate();
+        when(dataFetchService.fetchFunds(List.of("49YTW"))).thenReturn(List.of(result(TODAY)));
+
+        // When
+        scheduledTaskService.fetchHoldingsDaily();
+
+        // Then
+        verify(storageService).saveSnapshot(any(DailySnapshot.class));
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("尚未發布新資料時排定下一次抓取")
+    void fetchHoldingsDaily_StaleData_SchedulesRetry() {
+        // Given
+        givenTradingDayWithStoredDate();
+        when(dataFetchService.fetchFunds(List.of("49YTW")))
+                .thenReturn(List.of(result(STORED)))
+                .thenReturn(List.of(result(TODAY)));
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        scheduledTaskService.fetchHoldingsDaily();
+
+        // Then
+        verify(storageService, never()).saveSnapshot(any(DailySnapshot.class));
+        verify(taskScheduler).schedule(retry.capture(), any(Instant.class));
+
+        // When - 排定的第二次抓取取得新資料
+        retry.getValue().run();
+
+        // Then
+        verify(storageService).saveSnapshot(any(DailySnapshot.class));
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("達到次數上限後停止輪詢")
+    void fetchHoldingsDaily_MaxAttempts_GivesUp() {
+        // Given
+        appConfig.getPolling().setMaxAttempts(3);
+        givenTradingDayWithStoredDate();
+        when(dataFetchService.fetchFunds(List.of("49YTW"))).thenReturn(List.of(result(STORED)));
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        scheduledTaskService.fetchHoldingsDaily();
+        verify(taskScheduler).schedule(retry.capture(), any(Instant.class));
+        retry.getValue().run();
+        retry.getValue().run();
+
+        // Then
+        verify(dataFetchService, times(3)).fetchFunds(List.of("49YTW"));
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        verify(storageService, never()).saveSnapshot(any(DailySnapshot.class));
+    }
+
+    @Test
+    @DisplayName("輪詢間隔依倍數遞增且不超過上限")
+    void nextInterval_GrowsUntilCap() {
+        assertEquals(Duration.ofMinutes(5), scheduledTaskService.nextInterval(1));
+        assertEquals(Duration.ofMinutes(10), scheduledTaskService.nextInterval(2));
+        assertEquals(Duration.ofMinutes(40), scheduledTaskService.nextInterval(4));
+        assertEquals(Duration.ofMinutes(60), scheduledTaskService.nextInterval(5));
+        assertEquals(Duration.ofMinutes(60), scheduledTaskService.nextInterval(20));
+    }
+
+    private void givenTradingDayWithStoredDate() {
+        when(tradingCalendar.today()).thenReturn(TODAY);
+        when(tradingCalendar.isTradingDay(TODAY)).thenReturn(true);
+        when(dataFetchService.getFundCodes()).thenReturn(List.of("49YTW"));
+        when(fundStorageRegistry.storageFor("49YTW")).thenReturn(storageService);
+        when(storageService.getAvailableDates()).thenReturn(List.of(STORED));
+    }
+
+    private FundFetchResult result(LocalDate date) {
+        DailySnapshot snapshot = DailySnapshot.builder()
+                .fundCode("49YTW")
+                .date(date)
+                .holdings(List.of(Holding.builder()
+                        .stockCode("2330")
+                        .stockName("台積電")
+                        .shares(1234567L)
+                        .weight(new BigDecimal("12.3456"))
+                        .build()))
+                .totalCount(1)
+                .build();
+        return new FundFetchResult("49YTW", snapshot, null, 1, 10);
+    }
+}
@@ -0,0 +1,157 @@
+package com.etf.tracker.service;
+
+import static com.etf.tracker.test.TestFixtures.createTestAppConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * SnapshotChangeDetector 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class SnapshotChangeDetectorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 2);
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfig appConfig;
+    private ExcelStorageService storage;
+    private SnapshotChangeDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = createTestAppConfig(tempDir);
+        storage = new ExcelStorageService(appConfig);
+        detector = new SnapshotChangeDetector(appConfig);
+    }
+
+    @Test
+    @DisplayName("首次儲存應寫入")
+    void saveIfChanged_FirstSnapshot_Saves() {
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = detector.saveIfChanged(storage, createSnapshot(
+                holding("2330", 1234567L, "12.3456"), holding("2317", 987654L, "8.7654")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.SAVED, outcome);
+        assertEquals(2, storage.getSnapshot(DATE).orElseThrow().getTotalCount());
+        assertEquals(new SnapshotChangeDetector.Statistics(1, 0), detector.getStatistics());
+    }
+
+    @Test
+    @DisplayName("內容相同（順序與小數位數不同）時略過寫入")
+    void saveIfChanged_SameContent_SkipsWrite() throws Exception {
+        // Given
+        detector.saveIfChanged(storage, createSnapshot(
+                holding("2330", 1234567L, "12.3456"), holding("2317", 987654L, "8.7654")));
+        Path file = tempDir.resolve("holdings.xlsx");
+        FileTime marker = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, marker);
+
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = detector.saveIfChanged(storage, createSnapshot(
+                holding("2317", 987654L, "8.76540"), holding("2330", 1234567L, "12.3456")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.UNCHANGED, outcome);
+        assertEquals(marker, Files.getLastModifiedTime(file));
+        assertEquals(new SnapshotChangeDetector.Statistics(1, 1), detector.getStatistics());
+    }
+
+    @Test
+    @DisplayName("股數變更時重新寫入")
+    void saveIfChanged_ChangedShares_Saves() {
+        // Given
+        detector.saveIfChanged(storage, createSnapshot(holding("2330", 1234567L, "12.3456")));
+
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = detector.saveIfChanged(storage,
+                createSnapshot(holding("2330", 1300000L, "12.3456")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.SAVED, outcome);
+        assertEquals(1300000L, storage.getSnapshot(DATE).orElseThrow().getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("重新啟動後以已儲存的快照判斷是否變更")
+    void saveIfChanged_NewInstance_SeedsFromStorage() {
+        // Given
+        storage.saveSnapshot(createSnapshot(holding("2330", 1234567L, "12.3456")));
+        SnapshotChangeDetector restarted = new SnapshotChangeDetector(appConfig);
+
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = restarted.saveIfChanged(storage,
+                createSnapshot(holding("2330", 1234567L, "12.3456")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.UNCHANGED, outcome);
+    }
+
+    @Test
+    @DisplayName("其他路徑覆寫儲存後，重新抓取原內容時再次寫入")
+    void saveIfChanged_AfterWriteBypassingDetector_Saves() {
+        // Given - 例如推送寫入或回補直接寫入儲存
+        detector.saveIfChanged(storage, createSnapshot(holding("2330", 1234567L, "12.3456")));
+        storage.saveSnapshot(createSnapshot(holding("2330", 1300000L, "12.3456")));
+
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = detector.saveIfChanged(storage,
+                createSnapshot(holding("2330", 1234567L, "12.3456")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.SAVED, outcome);
+        assertEquals(1234567L, storage.getSnapshot(DATE).orElseThrow().getHoldings().get(0).getShares());
+    }
+
+    @Test
+    @DisplayName("清理資料後重新抓取相同內容時再次寫入")
+    void saveIfChanged_AfterCleanup_Saves() {
+        // Given
+        detector.saveIfChanged(storage, createSnapshot(holding("2330", 1234567L, "12.3456")));
+        storage.deleteDataBefore(DATE.plusDays(1));
+
+        // When
+        SnapshotChangeDetector.SaveOutcome outcome = detector.saveIfChanged(storage,
+                createSnapshot(holding("2330", 1234567L, "12.3456")));
+
+        // Then
+        assertEquals(SnapshotChangeDetector.SaveOutcome.SAVED, outcome);
+        assertEquals(1, storage.getSnapshot(DATE).orElseThrow().getTotalCount());
+    }
+
+    private DailySnapshot createSnapshot(Holding... holdings) {
+        return DailySnapshot.builder()
+                .date(DATE)
+                .holdings(List.of(holdings))
+                .totalCount(holdings.length)
+                .build();
+    }
+
+    private Holding holding(String code, long shares, String weight) {
+        return Holding.builder()
+                .stockCode(code)
+                .stockName("股票" + code)
+                .shares(shares)
+                .weight(new BigDecimal(weight))
+                .build();
+    }
+}
@@ -0,0 +1,280 @@
+package com.etf.tracker.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * 測試用的本地 gviz 服務
+ * <p>
+ * 以記憶體中的資料列模擬 Google Visualization API，支援 HybridStorageService 產生的查詢語句：
+ * <ul>
+ * <li>{@code select A, B, C, D, E where ...}（條件為 A 與日期字串比較，以 and / or 組合）</li>
+ * <li>{@code select A, count(A) group by A}</li>
+ * <li>{@code select count(A) where ...}</li>
+ * </ul>
+ * 回應帶有 ETag，請求帶上相同的 If-None-Match 時回應 304。
+ * 以最精簡的 HTTP/1.1 實作（每個連線一個虛擬執行緒處理一個請求），不依賴額外的伺服器模組；
+ * 可設定回應延遲或失敗以模擬 Google 服務異常。
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class StubGvizServer implements AutoCloseable {
+
+    static final String SPREADSHEET_ID = "stub-sheet";
+
+    private static final Pattern CONDITION = Pattern.compile("A\\s*(>=|<=|=|<|>)\\s*'([^']*)'");
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final List<List<String>> rows = new CopyOnWriteArrayList<>();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long delayMillis;
+    private volatile boolean failing;
+
+    StubGvizServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "stub-gviz");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * 服務位址（對應 app.google-sheets.api-base-url）
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    /**
+     * 新增一列資料（日期、代碼、名稱、股數、權重）
+     */
+    void addRow(String date, String code, String name, String shares, String weight) {
+        rows.add(List.of(date, code, name, shares, weight));
+        version.incrementAndGet();
+    }
+
+    /**
+     * 已收到的查詢語句
+     */
+    List<String> queries() {
+        return List.copyOf(queries);
+    }
+
+    long bytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * 每個請求回應前的延遲
+     */
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * 設定為失敗時所有請求回應 HTTP 503
+     */
+    void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    void reset() {
+        queries.clear();
+        bytesSent.set(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> {
+                    try (socket) {
+                        handle(socket);
+                    } catch (IOException e) {
+                        // 連線中斷
+                    }
+                });
+            } catch (IOException e) {
+                // 伺服器關閉
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+        String requestLine = reader.readLine();
+        if (requestLine == null) {
+            return;
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        URI uri = URI.create(requestLine.split(" ")[1]);
+        OutputStream out = socket.getOutputStream();
+        if (!uri.getPath().equals("/" + SPREADSHEET_ID + "/gviz/tq")) {
+            out.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return;
+        }
+
+        String tq = queryParameter(uri.getRawQuery(), "tq");
+        queries.add(tq);
+
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (failing) {
+            out.write("HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return;
+        }
+
+        String etag = "\"" + version.get() + "-" + tq.hashCode() + "\"";
+        if (etag.equals(headers.get("if-none-match"))) {
+            out.write(("HTTP/1.1 304 Not Modified\r\nETag: " + etag + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return;
+        }
+
+        byte[] body = ("/*O_o*/\ngoogle.visualization.Query.setResponse(" + execute(tq) + ");")
+                .getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/javascript; charset=UTF-8\r\n"
+                + "ETag: " + etag + "\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+        out.flush();
+        bytesSent.addAndGet(body.length);
+    }
+
+    private JsonObject execute(String tq) {
+        Predicate<List<String>> where = parseWhere(tq);
+        List<List<String>> matched = rows.stream().filter(where).toList();
+        JsonArray resultRows = new JsonArray();
+
+        if (tq.contains("group by A")) {
+            Map<String, Integer> counts = new TreeMap<>();
+            matched.forEach(row -> counts.merge(row.get(0), 1, Integer::sum));
+            counts.forEach((date, count) -> resultRows.add(row(date, count)));
+        } else if (tq.startsWith("select count(A)")) {
+            resultRows.add(row(matched.size()));
+        } else {
+            matched.forEach(row -> resultRows.add(row(row.toArray())));
+        }
+
+        JsonObject table = new JsonObject();
+        table.add("cols", new JsonArray());
+        table.add("rows", resultRows);
+        JsonObject response = new JsonObject();
+        response.addProperty("version", "0.6");
+        response.addProperty("status", "ok");
+        response.add("table", table);
+        return response;
+    }
+
+    private static Predicate<List<String>> parseWhere(String tq) {
+        int whereIdx = tq.indexOf(" where ");
+        if (whereIdx < 0) {
+            return row -> true;
+        }
+        String clause = tq.substring(whereIdx + " where ".length()).replaceAll(" group by .*$", "");
+
+        List<Predicate<List<String>>> alternatives = new ArrayList<>();
+        for (String alternative : clause.split(" or ")) {
+            Predicate<List<String>> all = row -> true;
+            for (String term : alternative.split(" and ")) {
+                Matcher matcher = CONDITION.matcher(term.trim());
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException("不支援的查詢條件: " + term);
+                }
+                String op = matcher.group(1);
+                String value = matcher.group(2);
+                Predicate<List<String>> condition = row -> {
+                    int cmp = row.get(0).compareTo(value);
+                    return switch (op) {
+                        case ">=" -> cmp >= 0;
+                        case "<=" -> cmp <= 0;
+                        case "<" -> cmp < 0;
+                        case ">" -> cmp > 0;
+                        default -> cmp == 0;
+                    };
+                };
+                all = all.and(condition);
+            }
+            alternatives.add(all);
+        }
+        return row -> alternatives.stream().anyMatch(p -> p.test(row));
+    }
+
+    private static JsonObject row(Object... values) {
+        JsonArray cells = new JsonArray();
+        for (Object value : values) {
+            JsonObject cell = new JsonObject();
+            if (value instanceof Number number) {
+                cell.addProperty("v", number.doubleValue());
+            } else {
+                cell.addProperty("v", (String) value);
+            }
+            cells.add(cell);
+        }
+        JsonObject row = new JsonObject();
+        row.add("c", cells);
+        return row;
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+}
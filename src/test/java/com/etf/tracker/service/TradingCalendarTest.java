@@ -0,0 +1,52 @@
+package com.etf.tracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.etf.tracker.config.AppConfig;
+
+/**
+ * TradingCalendar 單元測試
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+class TradingCalendarTest {
+
+    @Test
+    @DisplayName("週末與休市日不是交易日")
+    void isTradingDay_WeekendsAndHolidays_ReturnsFalse() {
+        // Given
+        TradingCalendar calendar = new TradingCalendar(createTestAppConfig(List.of("2024-02-08")));
+
+        // Then
+        assertTrue(calendar.isTradingDay(LocalDate.of(2024, 2, 7)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2024, 2, 8)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2024, 2, 10)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2024, 2, 11)));
+    }
+
+    @Test
+    @DisplayName("休市日或時區格式不正確時拋出例外")
+    void constructor_InvalidConfig_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TradingCalendar(createTestAppConfig(List.of("2024/02/08"))));
+
+        AppConfig badZone = createTestAppConfig(List.of());
+        badZone.getPolling().setZone("Mars/Base");
+        assertThrows(IllegalArgumentException.class, () -> new TradingCalendar(badZone));
+    }
+
+    private AppConfig createTestAppConfig(List<String> holidays) {
+        AppConfig config = new AppConfig();
+        config.getPolling().setHolidays(holidays);
+        return config;
+    }
+}
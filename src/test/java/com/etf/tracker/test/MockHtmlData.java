@@ -98,6 +98,55 @@ public final class MockHtmlData {
                 """.formatted(date.toString());
     }
 
+    /**
+     * 產生內嵌 assetDB 的模擬 ETF 持倉 HTML
+     * <p>
+     * 與實際頁面相同：持倉資料在 {@code var assetDB = [...]} 中，頁面另有導覽、樣式與其他腳本
+     * </p>
+     *
+     * @param date  資料日期
+     * @param count 成分股數量
+     * @return 模擬 HTML 字串
+     */
+    public static String createAssetDbHoldingsHtml(LocalDate date, int count) {
+        StringBuilder details = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                details.append(',');
+            }
+            details.append("""
+                    {"DetailCode":"%d","DetailName":"成分股%d","Share":%d,"Amount":%d,"NavRate":%s}"""
+                    .formatted(1000 + i, i, 1000L * (i + 1), 50000L * (i + 1), "1." + (i % 100)));
+        }
+        StringBuilder navigation = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            navigation.append("<li><a href=\"/ETF/Fund/Info?FundCode=").append(i)
+                    .append("\">基金 ").append(i).append("</a></li>\n");
+        }
+        return """
+                <!DOCTYPE html>
+                <html>
+                <head>
+                    <meta charset="UTF-8">
+                    <title>00981A 成分股明細</title>
+                    <link rel="stylesheet" href="/css/site.css">
+                    <script>window.dataLayer = window.dataLayer || [];</script>
+                </head>
+                <body>
+                    <ul class="nav">%s</ul>
+                    <div id="asset">
+                        <h5>資料日期：%s</h5>
+                        <table><tbody></tbody></table>
+                    </div>
+                    <script>
+                        var assetDB = [{"AssetCode":"NAV","Value":34160366355},                {"AssetCode":"ST","AssetName":"股票","Value":33055698105,"Details":[%s]},                {"AssetCode":"CASH","Details":[{"DetailCode":"TWD","Amount":1}]}];
+                        renderAsset(assetDB);
+                    </script>
+                </body>
+                </html>
+                """.formatted(navigation, date.toString().replace('-', '/'), details);
+    }
+
     /**
      * 產生空的持倉表格 HTML
      *
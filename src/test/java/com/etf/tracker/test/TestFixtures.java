@@ -0,0 +1,93 @@
+package com.etf.tracker.test;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.etf.tracker.config.AppConfig;
+import com.etf.tracker.model.DailySnapshot;
+import com.etf.tracker.model.Holding;
+
+/**
+ * 測試用共用資料
+ * <p>
+ * 提供儲存相關測試共用的模擬快照與本地儲存配置
+ * </p>
+ *
+ * @author ETF Tracker Team
+ * @version 1.0.0
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+        // 禁止實例化
+    }
+
+    /**
+     * 產生包含台積電與鴻海兩檔成分股的模擬快照
+     *
+     * @param date 資料日期
+     * @return 模擬快照
+     */
+    public static DailySnapshot createMockSnapshot(LocalDate date) {
+        return createMockSnapshot(date, 1234567L);
+    }
+
+    /**
+     * 產生包含台積電與鴻海兩檔成分股的模擬快照
+     *
+     * @param date   資料日期
+     * @param shares 台積電的持股股數（用於區分同一日期的不同版本）
+     * @return 模擬快照
+     */
+    public static DailySnapshot createMockSnapshot(LocalDate date, long shares) {
+        Holding holding1 = Holding.builder()
+                .stockCode("2330")
+                .stockName("台積電")
+                .shares(shares)
+                .weight(new BigDecimal("12.3456"))
+                .build();
+
+        Holding holding2 = Holding.builder()
+                .stockCode("2317")
+                .stockName("鴻海")
+                .shares(987654L)
+                .weight(new BigDecimal("8.7654"))
+                .build();
+
+        return DailySnapshot.builder()
+                .date(date)
+                .holdings(List.of(holding1, holding2))
+                .totalCount(2)
+                .totalWeight(new BigDecimal("21.1110"))
+                .build();
+    }
+
+    /**
+     * 產生使用單一 Excel 檔案的本地儲存配置
+     *
+     * @param storagePath 資料目錄
+     * @return 測試用配置
+     */
+    public static AppConfig createTestAppConfig(Path storagePath) {
+        return createTestAppConfig(storagePath, "excel");
+    }
+
+    /**
+     * 產生指定本地儲存後端的配置（檔案名稱為 holdings.xlsx）
+     *
+     * @param storagePath 資料目錄
+     * @param backend     本地儲存後端
+     * @return 測試用配置
+     */
+    public static AppConfig createTestAppConfig(Path storagePath, String backend) {
+        AppConfig config = new AppConfig();
+        AppConfig.DataConfig dataConfig = new AppConfig.DataConfig();
+        dataConfig.setStoragePath(storagePath.toString());
+        dataConfig.setFileName("holdings.xlsx");
+        dataConfig.setBackend(backend);
+        config.setData(dataConfig);
+        return config;
+    }
+}